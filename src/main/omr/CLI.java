@@ -81,10 +81,8 @@ import java.util.TreeSet;
  * provided directory. Otherwise, all bench data, whatever its related score,
  * will be written to the provided single file.</dd>
  *
- * <strike>
  * <dt> <b>-midi (DIRNAME | FILENAME)</b> </dt> <dd> to define an output
  * path to MIDI file (or directory). Same note as for -bench.</dd>
- * </strike>
  *
  * <dt> <b>-print (DIRNAME | FILENAME)</b> </dt> <dd> to define an output
  * path to PDF file (or directory). Same note as for -bench.</dd>
@@ -92,6 +90,14 @@ import java.util.TreeSet;
  * <dt> <b>-export (DIRNAME | FILENAME)</b> </dt> <dd> to define an output
  * path to MusicXML file (or directory). Same note as for -bench.</dd>
  *
+ * <dt> <b>-spool DIRNAME</b> </dt> <dd> to run as a service (in batch
+ * mode), processing the job files dropped into the provided directory,
+ * until a stop file is dropped there. See {@link OmrService}.</dd>
+ *
+ * <dt> <b>-events (FILENAME | HOST:PORT)</b> </dt> <dd> to emit processing
+ * events (in batch mode), as JSON lines written to the provided file or
+ * sent to the provided socket. See {@link omr.step.ProgressStream}.</dd>
+ *
  * </dd> </dl>
  *
  * @author Hervé Bitteur
@@ -157,10 +163,10 @@ public class CLI
         "Defines an output path to bench data file (or directory)",
         Card.SINGLE,
         "(DIRNAME|FILENAME)"),
-        //        MIDI(
-        //            "Defines an output path to MIDI file (or directory)",
-        //            Card.SINGLE,
-        //            "(DIRNAME|FILENAME)"), 
+        MIDI(
+        "Defines an output path to MIDI file (or directory)",
+        Card.SINGLE,
+        "(DIRNAME|FILENAME)"),
         PRINT(
         "Defines an output path to PDF file (or directory)",
         Card.SINGLE,
@@ -168,7 +174,15 @@ public class CLI
         EXPORT(
         "Defines an output path to MusicXML file (or directory)",
         Card.SINGLE,
-        "(DIRNAME|FILENAME)");
+        "(DIRNAME|FILENAME)"),
+        SPOOL(
+        "Runs as a service on the job files of a spool directory",
+        Card.SINGLE,
+        "DIRNAME"),
+        EVENTS(
+        "Defines an output file (or socket) for JSON progress events",
+        Card.SINGLE,
+        "(FILENAME|HOST:PORT)");
         //~ Instance fields ----------------------------------------------------
 
         /** Info about command itself */
@@ -462,15 +476,27 @@ public class CLI
 
                     break;
 
-                //                case MIDI :
-                //                    params.midiPath = token;
-                //
-                //                    break;
+                case MIDI:
+                    params.midiPath = token;
+
+                    break;
+
                 case PRINT:
                     params.printPath = token;
 
                     break;
 
+                case SPOOL:
+                    params.spoolPath = token;
+                    params.batchMode = true;
+
+                    break;
+
+                case EVENTS:
+                    params.eventsPath = token;
+
+                    break;
+
                 default:
                 }
 
@@ -646,6 +672,12 @@ public class CLI
         /** Where printed score (PDF) is to be saved */
         String printPath = null;
 
+        /** Spool directory watched in service mode */
+        String spoolPath = null;
+
+        /** Where progress events are to be emitted */
+        String eventsPath = null;
+
         //~ Constructors -------------------------------------------------------
         private Parameters ()
         {
@@ -668,9 +700,9 @@ public class CLI
                 desiredSteps.add(Steps.valueOf(Steps.PRINT));
             }
 
-            //            if (midiPath != null) {
-            //                desiredSteps.add(Steps.valueOf(Steps.MIDI));
-            //            }
+            if (midiPath != null) {
+                desiredSteps.add(Steps.valueOf(Steps.MIDI));
+            }
         }
     }
 }
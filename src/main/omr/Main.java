@@ -20,6 +20,8 @@ import omr.score.Score;
 import omr.script.ScriptManager;
 
 import omr.step.ProcessingCancellationException;
+import omr.step.ProgressStream;
+import omr.step.StepException;
 import omr.step.Stepping;
 
 import omr.ui.MainGui;
@@ -36,13 +38,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 import java.util.SortedSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -76,6 +81,9 @@ public class Main
     /** Parameters read from CLI */
     private static CLI.Parameters parameters;
 
+    /** Parameters of scores processed by service jobs */
+    private static final Map<Score, CLI.Parameters> jobParameters = new ConcurrentHashMap<>();
+
     /** The application dumping service */
     public static final Dumping dumping = new Dumping(Main.class.getPackage());
 
@@ -114,6 +122,9 @@ public class Main
         // Native libs
         loadNativeLibraries();
 
+        // Costly initializations, in the background
+        Startup.launch();
+
         if (!parameters.batchMode) {
             // For interactive mode
             logger.debug("Main. Launching MainGui");
@@ -127,6 +138,16 @@ public class Main
             // Check MusicFont is loaded
             MusicFont.checkMusicFont();
 
+            // Machine-readable progress events?
+            if (parameters.eventsPath != null) {
+                try {
+                    ProgressStream.open(parameters.eventsPath);
+                } catch (IOException ex) {
+                    logger.warn("Cannot open progress stream "
+                                + parameters.eventsPath, ex);
+                }
+            }
+
             // Launch the required tasks, if any
             List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
             tasks.addAll(getFilesTasks());
@@ -136,8 +157,7 @@ public class Main
                 try {
                     logger.info("Submitting {} task(s)", tasks.size());
 
-                    List<Future<Void>> futures = OmrExecutors.getCachedLowExecutor()
-                            .invokeAll(
+                    List<Future<Void>> futures = OmrExecutors.invokeAll(
                             tasks,
                             constants.processTimeOut.getValue(),
                             TimeUnit.SECONDS);
@@ -158,6 +178,13 @@ public class Main
                 }
             }
 
+            // Service mode, until stopped
+            if (parameters.spoolPath != null) {
+                failure |= !new OmrService(new File(parameters.spoolPath)).serve();
+            }
+
+            ProgressStream.close();
+
             // At this point all tasks have completed (normally or not)
             // So shutdown immediately the executors
             OmrExecutors.shutdown(true);
@@ -189,6 +216,21 @@ public class Main
         return parameters.benchPath;
     }
 
+    //--------------//
+    // getBenchPath //
+    //--------------//
+    /**
+     * Report the bench path for the provided score, which may have
+     * been defined by a service job rather than on the CLI
+     *
+     * @param score the score at hand
+     * @return the job or CLI bench path, or null
+     */
+    public static String getBenchPath (Score score)
+    {
+        return getParameters(score).benchPath;
+    }
+
     //-----------------//
     // getCliConstants //
     //-----------------//
@@ -219,6 +261,20 @@ public class Main
         return parameters.exportPath;
     }
 
+    //---------------//
+    // getExportPath //
+    //---------------//
+    /**
+     * Report the export path for the provided score
+     *
+     * @param score the score at hand
+     * @return the job or CLI export path, or null
+     */
+    public static String getExportPath (Score score)
+    {
+        return getParameters(score).exportPath;
+    }
+
     //---------------//
     // getFilesTasks //
     //---------------//
@@ -228,6 +284,21 @@ public class Main
      * @return the collection of proper callables
      */
     public static List<Callable<Void>> getFilesTasks ()
+    {
+        return getFilesTasks(parameters);
+    }
+
+    //---------------//
+    // getFilesTasks //
+    //---------------//
+    /**
+     * Prepare the processing of image files listed in the provided
+     * parameters, with one task per file.
+     *
+     * @param parameters the CLI or job parameters
+     * @return the collection of proper callables
+     */
+    static List<Callable<Void>> getFilesTasks (final CLI.Parameters parameters)
     {
         List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
 
@@ -262,27 +333,54 @@ public class Main
                         || Files.isSymbolicLink(Paths.get(name))) {
                         final Score score = new Score(file);
 
+                        if (parameters != Main.parameters) {
+                            jobParameters.put(score, parameters);
+                        }
+
+                        final long start = System.currentTimeMillis();
+                        String status = "failed";
+                        ProgressStream.scoreStarted(score);
+
                         try {
                             Stepping.processScore(
                                     parameters.desiredSteps,
                                     parameters.pages,
                                     score);
+
+                            if (score.getFailure() == null) {
+                                status = "done";
+                            }
                         } catch (ProcessingCancellationException pce) {
                             logger.warn("Cancelled " + score, pce);
                             score.getBench()
                                     .recordCancellation();
+                            status = "cancelled";
                             throw pce;
                         } catch (Throwable ex) {
                             logger.warn("Exception occurred", ex);
                             throw ex;
                         } finally {
+                            ProgressStream.scoreStopped(
+                                    score,
+                                    System.currentTimeMillis() - start,
+                                    status);
+
                             // Close (when in batch mode only)
                             if (gui == null) {
                                 score.close();
                             }
 
-                            return null;
+                            jobParameters.remove(score);
+                        }
+
+                        // Steps errors are logged, but the task must fail
+                        if (score.getFailure() != null) {
+                            throw new StepException(
+                                    "Processing failed on " + name + ": "
+                                    + score.getFailure());
                         }
+
+                        return null;
                     } else {
                         String msg = "Could not find file "
                                      + file.getCanonicalPath();
@@ -322,6 +420,20 @@ public class Main
         return parameters.midiPath;
     }
 
+    //-------------//
+    // getMidiPath //
+    //-------------//
+    /**
+     * Report the midi path for the provided score
+     *
+     * @param score the score at hand
+     * @return the job or CLI midi path, or null
+     */
+    public static String getMidiPath (Score score)
+    {
+        return getParameters(score).midiPath;
+    }
+
     //-------------//
     // getPagesIds //
     //-------------//
@@ -348,6 +460,33 @@ public class Main
         return parameters.printPath;
     }
 
+    //--------------//
+    // getPrintPath //
+    //--------------//
+    /**
+     * Report the print path for the provided score
+     *
+     * @param score the score at hand
+     * @return the job or CLI print path, or null
+     */
+    public static String getPrintPath (Score score)
+    {
+        return getParameters(score).printPath;
+    }
+
+    //----------------//
+    // getScriptNames //
+    //----------------//
+    /**
+     * Report the names of the scripts listed on the CLI
+     *
+     * @return the CLI script names, perhaps empty
+     */
+    public static List<String> getScriptNames ()
+    {
+        return parameters.scriptNames;
+    }
+
     //-----------------//
     // getScriptsTasks //
     //-----------------//
@@ -418,6 +557,29 @@ public class Main
         }
     }
 
+    //---------------//
+    // getParameters //
+    //---------------//
+    /**
+     * Report the parameters that apply to the provided score.
+     *
+     * @param score the score at hand, perhaps null
+     * @return the job parameters if the score belongs to a service job,
+     *         otherwise the CLI parameters
+     */
+    private static CLI.Parameters getParameters (Score score)
+    {
+        if (score != null) {
+            CLI.Parameters params = jobParameters.get(score);
+
+            if (params != null) {
+                return params;
+            }
+        }
+
+        return parameters;
+    }
+
     //------------//
     // initialize //
     //------------//
@@ -486,17 +648,6 @@ public class Main
             logger.info("Running in batch mode");
 
             ///System.setProperty("java.awt.headless", "true");
-
-            //            // Check MIDI output is not asked for
-            //            Step midiStep = Steps.valueOf(Steps.MIDI);
-            //
-            //            if ((midiStep != null) &&
-            //                parameters.desiredSteps.contains(midiStep)) {
-            //                logger.warn(
-            //                    "MIDI output is not compatible with -batch mode." +
-            //                    " MIDI output is ignored.");
-            //                parameters.desiredSteps.remove(midiStep);
-            //            }
         } else {
             logger.debug("Running in interactive mode");
         }
@@ -0,0 +1,554 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                            O m r S e r v i c e                             //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class {@code OmrService} runs the application as a long-running
+ * service, which processes the jobs dropped into a spool directory.
+ *
+ * <p>The costly initializations (native libraries, music font, JAXB
+ * context, JAI, glyph evaluators) are thus paid only once, and the
+ * executors are kept alive from one job to the other.
+ * The service runs until a file named {@value #STOP_NAME} appears in the
+ * spool directory, it then waits for the completion of the running jobs.
+ *
+ * <p>A job is a file with the {@value #JOB_EXT} extension, which lists
+ * the CLI arguments of the job, one argument per line (empty lines and
+ * lines starting with '#' are ignored). For example:
+ * <pre>
+ * -input
+ * /data/scans/chula.png
+ * -export
+ * /data/out
+ * </pre>
+ * Only -input, -pages, -step and the output commands (-export, -print,
+ * -midi, -bench) are relevant for a job. Options and scripts are ignored,
+ * since application constants are shared by all jobs.
+ * To prevent the pick up of a partly written job, the job file should be
+ * written under another name and then renamed with the
+ * {@value #JOB_EXT} extension.
+ *
+ * <p>Jobs are run concurrently, each on its own scores and with its own
+ * output paths. While processed, the job file gets the
+ * {@value #RUNNING_EXT} extension, and finally either the
+ * {@value #DONE_EXT} or the {@value #FAILED_EXT} extension.
+ * A companion file, with the {@value #STATUS_EXT} extension, reports the
+ * job state and timings.
+ *
+ * @author Hervé Bitteur
+ */
+public class OmrService
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            OmrService.class);
+
+    /** Extension of job files waiting in the spool */
+    public static final String JOB_EXT = ".job";
+
+    /** Extension of job files being processed */
+    public static final String RUNNING_EXT = ".running";
+
+    /** Extension of job files successfully processed */
+    public static final String DONE_EXT = ".done";
+
+    /** Extension of job files which failed */
+    public static final String FAILED_EXT = ".failed";
+
+    /** Extension of job status files */
+    public static final String STATUS_EXT = ".status";
+
+    /** Name of the file which stops the service */
+    public static final String STOP_NAME = "service.stop";
+
+    //~ Instance fields --------------------------------------------------------
+    //
+    /** The spool directory. */
+    private final Path spool;
+
+    /** Maximum number of jobs run concurrently. */
+    private final int maxJobs;
+
+    /** Slots for running jobs. */
+    private final Semaphore slots;
+
+    /** Number of jobs launched. */
+    private final AtomicInteger jobCount = new AtomicInteger();
+
+    /** Number of jobs failed. */
+    private final AtomicInteger failureCount = new AtomicInteger();
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //------------//
+    // OmrService //
+    //------------//
+    /**
+     * Creates a new OmrService object.
+     *
+     * @param spool the spool directory to watch
+     */
+    public OmrService (File spool)
+    {
+        this.spool = spool.toPath();
+        maxJobs = Math.max(1, constants.maxJobs.getValue());
+        slots = new Semaphore(maxJobs);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //-------//
+    // serve //
+    //-------//
+    /**
+     * Process the jobs of the spool directory, until the service is
+     * stopped.
+     *
+     * @return true if the service and all its jobs completed successfully
+     */
+    public boolean serve ()
+    {
+        if (!Files.isDirectory(spool)) {
+            logger.warn("Spool {} is not a directory", spool);
+
+            return false;
+        }
+
+        warmUp();
+
+        boolean success = true;
+
+        try (WatchService watcher = spool.getFileSystem()
+                .newWatchService()) {
+            spool.register(
+                    watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            logger.info("Service ready on spool {}, {} concurrent job(s)",
+                    spool, maxJobs);
+
+            while (true) {
+                // Launch the jobs already there, then wait for new ones
+                for (Path path : getJobPaths()) {
+                    launch(path);
+                }
+
+                if (Files.exists(spool.resolve(STOP_NAME))) {
+                    break;
+                }
+
+                WatchKey key = watcher.take();
+                key.pollEvents(); // Events are not used, we rescan the spool
+
+                if (!key.reset()) {
+                    logger.warn("Spool {} is no longer accessible", spool);
+                    success = false;
+
+                    break;
+                }
+            }
+
+            Files.deleteIfExists(spool.resolve(STOP_NAME));
+        } catch (InterruptedException ex) {
+            logger.warn("Service interrupted");
+            success = false;
+        } catch (IOException ex) {
+            logger.warn("Error watching spool " + spool, ex);
+            success = false;
+        }
+
+        // Wait for completion of running jobs
+        slots.acquireUninterruptibly(maxJobs);
+        logger.info("Service stopped after {} job(s), {} failed",
+                jobCount.get(), failureCount.get());
+
+        return success && (failureCount.get() == 0);
+    }
+
+    //-------------//
+    // getJobPaths //
+    //-------------//
+    /**
+     * Report the job files currently waiting in the spool, in name
+     * order.
+     */
+    private List<Path> getJobPaths ()
+            throws IOException
+    {
+        List<Path> paths = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+                spool,
+                "*" + JOB_EXT)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+
+        Collections.sort(paths);
+
+        return paths;
+    }
+
+    //--------//
+    // launch //
+    //--------//
+    /**
+     * Take the provided job out of the waiting ones, and launch it as
+     * soon as a slot is available.
+     *
+     * @param path the job file
+     */
+    private void launch (Path path)
+            throws InterruptedException
+    {
+        final String fileName = path.getFileName()
+                .toString();
+        final String name = fileName.substring(
+                0,
+                fileName.length() - JOB_EXT.length());
+        final Path running = spool.resolve(name + RUNNING_EXT);
+
+        try {
+            Files.move(path, running, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            // Job no longer there (taken or cancelled meanwhile)
+            logger.debug("Could not take job {}", path);
+
+            return;
+        }
+
+        final Job job = new Job(name, running);
+        job.writeStatus("QUEUED");
+
+        slots.acquire();
+        jobCount.incrementAndGet();
+
+        try {
+            OmrExecutors.getCachedLowExecutor()
+                    .submit(job);
+        } catch (Exception ex) {
+            slots.release();
+            logger.warn("Could not launch job " + name, ex);
+        }
+    }
+
+    //--------//
+    // warmUp //
+    //--------//
+    /**
+     * Perform the costly initializations once for all jobs.
+     */
+    private void warmUp ()
+    {
+        final long start = System.currentTimeMillis();
+
+        // Whatever the preload setting, all jobs benefit from it
+        Startup.launch(true);
+        Startup.waitForAll();
+
+        logger.info("Service warmed up in {} ms",
+                System.currentTimeMillis() - start);
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //-----//
+    // Job //
+    //-----//
+    /**
+     * One job read from the spool.
+     */
+    private class Job
+            implements Callable<Void>
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Job name (file name without extension). */
+        final String name;
+
+        /** Job file, while processed. */
+        final Path path;
+
+        /** Job status, as written to the status file. */
+        final Properties status = new Properties();
+
+        /** When the job was taken from the spool. */
+        final long submitted = System.currentTimeMillis();
+
+        //~ Constructors -------------------------------------------------------
+        Job (String name,
+             Path path)
+        {
+            this.name = name;
+            this.path = path;
+            status.setProperty("submitted", new Date(submitted).toString());
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public Void call ()
+        {
+            final long started = System.currentTimeMillis();
+            status.setProperty("started", new Date(started).toString());
+            status.setProperty("waitMillis", "" + (started - submitted));
+            writeStatus("RUNNING");
+
+            boolean success = false;
+
+            try {
+                CLI.Parameters params = readParameters();
+
+                if (params != null) {
+                    logger.info("Job {} started on {}",
+                            name, params.inputNames);
+                    success = process(params);
+                }
+            } catch (Throwable ex) {
+                logger.warn("Error in job " + name, ex);
+                status.setProperty("error", ex.toString());
+            } finally {
+                final long finished = System.currentTimeMillis();
+                status.setProperty("finished", new Date(finished).toString());
+                status.setProperty("runMillis", "" + (finished - started));
+
+                if (!success) {
+                    failureCount.incrementAndGet();
+                }
+
+                try {
+                    Files.move(
+                            path,
+                            spool.resolve(
+                            name + (success ? DONE_EXT : FAILED_EXT)),
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException ex) {
+                    logger.warn("Could not rename job " + path, ex);
+                }
+
+                writeStatus(success ? "DONE" : "FAILED");
+                logger.info("Job {} {} in {} ms",
+                        name, success ? "done" : "failed",
+                        finished - started);
+                slots.release();
+            }
+
+            return null;
+        }
+
+        //-------------//
+        // writeStatus //
+        //-------------//
+        /**
+         * Write the job status file, with the provided state.
+         * The file is written aside then moved, so that a reader never
+         * sees a partial status.
+         *
+         * @param state the current job state
+         */
+        void writeStatus (String state)
+        {
+            status.setProperty("state", state);
+
+            final Path target = spool.resolve(name + STATUS_EXT);
+            final Path temp = spool.resolve(name + STATUS_EXT + ".tmp");
+
+            try {
+                try (OutputStream os = Files.newOutputStream(temp)) {
+                    status.store(os, "Job " + name);
+                }
+
+                Files.move(
+                        temp,
+                        target,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                logger.warn("Could not write status of job " + name, ex);
+            }
+        }
+
+        //---------//
+        // process //
+        //---------//
+        /**
+         * Process all the job input files, each in its own task.
+         *
+         * @param params the job parameters
+         * @return true if all inputs were successfully processed
+         */
+        private boolean process (CLI.Parameters params)
+                throws InterruptedException
+        {
+            final List<Callable<Void>> tasks = new ArrayList<>();
+            final List<Callable<Void>> fileTasks = Main.getFilesTasks(params);
+
+            for (int i = 0; i < fileTasks.size(); i++) {
+                final String key = "input." + (i + 1);
+                final Callable<Void> task = fileTasks.get(i);
+                status.setProperty(key, params.inputNames.get(i));
+                status.setProperty(key + ".state", "QUEUED");
+
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        final long start = System.currentTimeMillis();
+
+                        try {
+                            task.call();
+                        } finally {
+                            status.setProperty(
+                                    key + ".millis",
+                                    "" + (System.currentTimeMillis() - start));
+                        }
+
+                        return null;
+                    }
+                });
+            }
+
+            List<Future<Void>> futures = OmrExecutors.invokeAll(
+                    tasks,
+                    constants.jobTimeOut.getValue(),
+                    TimeUnit.SECONDS);
+            boolean success = true;
+
+            // A file task fails whenever a step failed on its score
+            for (int i = 0; i < futures.size(); i++) {
+                final String key = "input." + (i + 1);
+
+                try {
+                    futures.get(i)
+                            .get();
+                    status.setProperty(key + ".state", "DONE");
+                } catch (CancellationException ex) {
+                    status.setProperty(key + ".state", "TIMEOUT");
+                    success = false;
+                } catch (ExecutionException ex) {
+                    status.setProperty(key + ".state", "FAILED");
+                    status.setProperty(key + ".error", "" + ex.getCause());
+                    success = false;
+                }
+            }
+
+            return success;
+        }
+
+        //----------------//
+        // readParameters //
+        //----------------//
+        /**
+         * Read the job file as a sequence of CLI arguments.
+         *
+         * @return the job parameters, or null if invalid
+         */
+        private CLI.Parameters readParameters ()
+                throws IOException
+        {
+            final List<String> args = new ArrayList<>();
+
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                line = line.trim();
+
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    args.add(line);
+                }
+            }
+
+            CLI.Parameters params = new CLI(name, args.toArray(
+                    new String[args.size()])).getParameters();
+
+            if (params == null) {
+                status.setProperty("error", "Invalid job arguments");
+
+                return null;
+            }
+
+            if ((params.options != null) && !params.options.isEmpty()) {
+                logger.warn("Job {}: options are ignored", name);
+            }
+
+            if (!params.scriptNames.isEmpty()) {
+                logger.warn("Job {}: scripts are ignored", name);
+            }
+
+            if (params.inputNames.isEmpty()) {
+                status.setProperty("error", "No input file");
+
+                return null;
+            }
+
+            return params;
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final Constant.Integer maxJobs = new Constant.Integer(
+                "Jobs",
+                2,
+                "Maximum number of jobs processed concurrently by the service");
+
+        private final Constant.Integer jobTimeOut = new Constant.Integer(
+                "Seconds",
+                900,
+                "Job time-out, specified in seconds");
+
+    }
+}
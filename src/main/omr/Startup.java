@@ -0,0 +1,283 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                               S t a r t u p                                //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.glyph.GlyphNetwork;
+import omr.glyph.GlyphRegression;
+
+import omr.sheet.picture.jai.JaiLoader;
+
+import omr.text.TextBuilder;
+
+import omr.util.OmrExecutors;
+
+import com.audiveris.proxymusic.util.Marshalling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class {@code Startup} initializes in the background, and in parallel,
+ * the costly application singletons, as soon as the command line has
+ * been parsed.
+ *
+ * <p>These initializations are: the glyph evaluators (neural network and
+ * linear regression, both unmarshalled from XML), the MusicXML JAXB
+ * context, the JAI codecs and the OCR languages.
+ * No consumer has to wait for them explicitly: each singleton access is
+ * synchronized, so a step which needs a singleton not yet available just
+ * blocks until this singleton (and only this one) is ready.
+ *
+ * <p>Once all initializations are done, a timing report is logged, as
+ * well as the time to the first loaded page.
+ *
+ * @author Hervé Bitteur
+ */
+public class Startup
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            Startup.class);
+
+    /** Pending initializations, in launch order. */
+    private static final Map<String, Future<Long>> inits = new LinkedHashMap<>();
+
+    /** Has the first page been loaded?. */
+    private static final AtomicBoolean firstPageLoaded = new AtomicBoolean();
+
+    /** Has the timing report been logged?. */
+    private static boolean reported;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //---------//
+    // Startup //
+    //---------//
+    private Startup ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //--------//
+    // launch //
+    //--------//
+    /**
+     * Launch all the background initializations, unless this has
+     * already been done or preloading is disabled.
+     */
+    public static void launch ()
+    {
+        launch(false);
+    }
+
+    //--------//
+    // launch //
+    //--------//
+    /**
+     * Launch all the background initializations, unless this has
+     * already been done.
+     *
+     * @param forced true to launch them even if preloading is disabled, as
+     *               the service mode does
+     */
+    public static synchronized void launch (boolean forced)
+    {
+        if (!inits.isEmpty()
+            || (!forced && !constants.preloadCostlyPackages.isSet())) {
+            return;
+        }
+
+        launch("GlyphNetwork", new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                GlyphNetwork.getInstance();
+            }
+        });
+
+        launch("GlyphRegression", new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                GlyphRegression.getInstance();
+            }
+        });
+
+        launch("MusicXML", new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                try {
+                    Marshalling.getContext();
+                } catch (Exception ex) {
+                    logger.warn("Error preloading JaxbContext", ex);
+                }
+            }
+        });
+
+        launch("JAI", new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                JaiLoader.preload();
+            }
+        });
+
+        launch("OCR", new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                TextBuilder.getOcr()
+                        .getLanguages();
+            }
+        });
+
+        // Final report, once everything is ready
+        OmrExecutors.getCachedLowExecutor()
+                .execute(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                waitForAll();
+            }
+        });
+    }
+
+    //-----------------//
+    // firstPageLoaded //
+    //-----------------//
+    /**
+     * Notify that a page image has been loaded, so that the time to
+     * first page gets reported.
+     */
+    public static void firstPageLoaded ()
+    {
+        if (firstPageLoaded.compareAndSet(false, true)) {
+            logger.info("First page loaded {} ms after JVM start",
+                    getUptime());
+        }
+    }
+
+    //------------//
+    // waitForAll //
+    //------------//
+    /**
+     * Block until all the launched initializations are done, and log
+     * the startup timing report (only the first time).
+     */
+    public static void waitForAll ()
+    {
+        final Map<String, Future<Long>> copy;
+
+        synchronized (Startup.class) {
+            copy = new LinkedHashMap<>(inits);
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for (Map.Entry<String, Future<Long>> entry : copy.entrySet()) {
+            try {
+                long duration = entry.getValue()
+                        .get();
+                sb.append(String.format(
+                        "%n   %-16s %6d ms", entry.getKey(), duration));
+            } catch (Exception ex) {
+                sb.append(String.format(
+                        "%n   %-16s failed: %s", entry.getKey(), ex));
+            }
+        }
+
+        synchronized (Startup.class) {
+            if (!copy.isEmpty() && !reported) {
+                reported = true;
+                logger.info("Startup ready {} ms after JVM start:{}",
+                        getUptime(), sb);
+            }
+        }
+    }
+
+    //-----------//
+    // getUptime //
+    //-----------//
+    private static long getUptime ()
+    {
+        return ManagementFactory.getRuntimeMXBean()
+                .getUptime();
+    }
+
+    //--------//
+    // launch //
+    //--------//
+    /**
+     * Launch one initialization in the background.
+     *
+     * @param name the initialization name, for the report
+     * @param init the initialization to perform
+     */
+    private static void launch (String name,
+                                final Runnable init)
+    {
+        inits.put(
+                name,
+                OmrExecutors.getCachedLowExecutor().submit(
+                new Callable<Long>()
+        {
+            @Override
+            public Long call ()
+            {
+                final long start = System.currentTimeMillis();
+                init.run();
+
+                return System.currentTimeMillis() - start;
+            }
+        }));
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final Constant.Boolean preloadCostlyPackages = new Constant.Boolean(
+                true,
+                "Should we preload costly packages in the background?");
+
+    }
+}
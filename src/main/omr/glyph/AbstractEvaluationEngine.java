@@ -22,6 +22,7 @@ import omr.glyph.facets.Glyph;
 import omr.sheet.Scale;
 import omr.sheet.SystemInfo;
 
+import omr.util.FileUtil;
 import omr.util.Predicate;
 import omr.util.UriUtil;
 
@@ -67,6 +68,9 @@ public abstract class AbstractEvaluationEngine
     protected static final int shapeCount = 1
                                             + Shape.LAST_PHYSICAL_SHAPE.ordinal();
 
+    /** Extension of engine files in binary form. */
+    private static final String BINARY_EXTENSION = ".bin";
+
     /** A special evaluation array, used to report NOISE. */
     protected static final Evaluation[] noiseEvaluations = {
         new Evaluation(Shape.NOISE, Evaluation.ALGORITHM)
@@ -92,6 +96,7 @@ public abstract class AbstractEvaluationEngine
     {
         List<Evaluation> best = new ArrayList<>();
         Evaluation[] evals = getRawEvaluations(glyph);
+        double[] ins = null; // Features, retrieved once if needed
 
         EvalsLoop:
         for (Evaluation eval : evals) {
@@ -114,7 +119,11 @@ public abstract class AbstractEvaluationEngine
             // Successful checks?
             if (conditions.contains(Condition.CHECKED)) {
                 Evaluation oldEval = new Evaluation(eval.shape, eval.grade);
-                double[] ins = ShapeDescription.features(glyph);
+
+                if (ins == null) {
+                    ins = ShapeDescription.features(glyph);
+                }
+
                 // This may change the eval shape...
                 glyphChecker.annotate(system, eval, glyph, ins);
 
@@ -156,7 +165,8 @@ public abstract class AbstractEvaluationEngine
     // marshal //
     //---------//
     /**
-     * Store the engine in XML format, always as a user file.
+     * Store the engine in XML format, always as a user file, together
+     * with its binary form for faster loading.
      */
     @Override
     public void marshal ()
@@ -168,6 +178,11 @@ public abstract class AbstractEvaluationEngine
             os = new FileOutputStream(file);
             marshal(os);
             logger.info("Engine marshalled to {}", file);
+
+            // Binary form, written after the XML one, hence newer
+            final File binFile = getBinaryFile(file);
+            marshalBinary(binFile);
+            logger.debug("Engine marshalled to {}", binFile);
         } catch (FileNotFoundException ex) {
             logger.warn("Could not find file " + file, ex);
         } catch (IOException ex) {
@@ -301,6 +316,32 @@ public abstract class AbstractEvaluationEngine
     protected abstract void marshal (OutputStream os)
             throws FileNotFoundException, IOException, JAXBException;
 
+    //---------------//
+    // marshalBinary //
+    //---------------//
+    /**
+     * Store the engine in binary form.
+     *
+     * @param file the binary file to write
+     * @throws IOException if writing fails
+     */
+    protected abstract void marshalBinary (File file)
+            throws IOException;
+
+    //-----------------//
+    // unmarshalBinary //
+    //-----------------//
+    /**
+     * The specific binary reading method which builds a suitable
+     * engine.
+     *
+     * @param file the binary file to read
+     * @return the newly built evaluation engine
+     * @throws IOException if the file is not readable or not valid
+     */
+    protected abstract Object unmarshalBinary (File file)
+            throws IOException;
+
     //-----------//
     // unmarshal //
     //-----------//
@@ -320,7 +361,9 @@ public abstract class AbstractEvaluationEngine
     /**
      * Unmarshal the evaluation engine from the most suitable file.
      * If a user file does not exist or cannot be unmarshalled, the
-     * system default file is used
+     * system default file is used.
+     * In both locations, the binary form is preferred to the XML form
+     * when it is present and not older.
      *
      * @return the unmarshalled engine, or null if everything failed
      */
@@ -329,7 +372,7 @@ public abstract class AbstractEvaluationEngine
         // First try user file, if any (in user EVAL folder)
         {
             File file = new File(WellKnowns.EVAL_FOLDER, getFileName());
-            if (file.exists()) {
+            if (file.exists() || getBinaryFile(file).exists()) {
                 Object obj = unmarshal(file);
 
                 if (obj == null) {
@@ -353,14 +396,22 @@ public abstract class AbstractEvaluationEngine
         // Use default file (in program RES folder)
         //file = new File(WellKnowns.RES_URI, getFileName());
         URI uri = UriUtil.toURI(WellKnowns.RES_URI, getFileName());
-        InputStream input;
-        try {
-            input = uri.toURL().openStream();
-        } catch (Exception ex) {
-            logger.warn("Error in " + uri, ex);
-            return null;
+        Object obj = null;
+
+        if ("file".equals(uri.getScheme())) {
+            obj = readBinaryOf(new File(uri));
+        }
+
+        if (obj == null) {
+            InputStream input;
+            try {
+                input = uri.toURL().openStream();
+            } catch (Exception ex) {
+                logger.warn("Error in " + uri, ex);
+                return null;
+            }
+            obj = unmarshal(input, getFileName());
         }
-        Object obj = unmarshal(input, getFileName());
 
         if (obj == null) {
             logger.warn("Could not load {}", uri);
@@ -397,12 +448,19 @@ public abstract class AbstractEvaluationEngine
     // unmarshal //
     //-----------//
     /**
-     * Unmarshal the evaluation engine using provided file.
+     * Unmarshal the evaluation engine using provided file, or its
+     * binary form if suitable.
      *
      * @return the unmarshalled engine, or null if failed
      */
     private Object unmarshal (File file)
     {
+        final Object engine = readBinaryOf(file);
+
+        if (engine != null) {
+            return engine;
+        }
+
         try {
             InputStream input = new FileInputStream(file);
 
@@ -418,6 +476,54 @@ public abstract class AbstractEvaluationEngine
         }
     }
 
+    //--------------//
+    // readBinaryOf //
+    //--------------//
+    /**
+     * Read the evaluation engine from the binary form of the provided
+     * XML file, provided the binary file exists and is not older than
+     * the XML file.
+     *
+     * @param file the XML file
+     * @return the engine read, or null if binary form is not available
+     */
+    private Object readBinaryOf (File file)
+    {
+        final File binFile = getBinaryFile(file);
+
+        if (!binFile.exists()
+            || (file.exists() && (binFile.lastModified() < file.lastModified()))) {
+            return null;
+        }
+
+        try {
+            Object engine = unmarshalBinary(binFile);
+            logger.debug("{} read from {}", getName(), binFile);
+
+            return engine;
+        } catch (Exception ex) {
+            logger.warn("Error reading " + binFile + ", using XML", ex);
+
+            return null;
+        }
+    }
+
+    //---------------//
+    // getBinaryFile //
+    //---------------//
+    /**
+     * Report the binary file which goes with the provided XML file.
+     *
+     * @param file the XML file
+     * @return the binary file, in the same folder
+     */
+    private File getBinaryFile (File file)
+    {
+        return new File(
+                file.getParentFile(),
+                FileUtil.getNameSansExtension(file) + BINARY_EXTENSION);
+    }
+
     //-----------//
     // unmarshal //
     //-----------//
@@ -24,6 +24,7 @@ import omr.lag.Roi;
 import omr.lag.Section;
 import omr.lag.Sections;
 
+import omr.math.DenseHistogram;
 import omr.math.Histogram;
 
 import omr.run.Orientation;
@@ -57,6 +58,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -259,7 +261,7 @@ public class BasicNest
     public Histogram<Integer> getHistogram (Orientation orientation,
                                             Collection<Glyph> glyphs)
     {
-        Histogram<Integer> histo = new Histogram<>();
+        Histogram<Integer> histo = new DenseHistogram();
 
         if (!glyphs.isEmpty()) {
             Rectangle box = Glyphs.getBounds(glyphs);
@@ -272,6 +274,15 @@ public class BasicNest
         return histo;
     }
 
+    //----------------//
+    // getLastGlyphId //
+    //----------------//
+    @Override
+    public int getLastGlyphId ()
+    {
+        return globalGlyphId.get();
+    }
+
     //---------//
     // getName //
     //---------//
@@ -313,6 +324,15 @@ public class BasicNest
         }
     }
 
+    //--------------//
+    // getOriginals //
+    //--------------//
+    @Override
+    public Map<GlyphSignature, Glyph> getOriginals ()
+    {
+        return Collections.unmodifiableMap(originals);
+    }
+
     //------------------//
     // getSelectedGlyph //
     //------------------//
@@ -505,6 +525,36 @@ public class BasicNest
         activeGlyphs = null;
     }
 
+    //--------------//
+    // restoreGlyph //
+    //--------------//
+    @Override
+    public synchronized void restoreGlyph (Glyph glyph)
+    {
+        glyph.setNest(this);
+        allGlyphs.put(glyph.getId(), glyph);
+        activeGlyphs = null;
+    }
+
+    //-----------------//
+    // restoreOriginal //
+    //-----------------//
+    @Override
+    public void restoreOriginal (GlyphSignature signature,
+                                 Glyph glyph)
+    {
+        originals.put(signature, glyph);
+    }
+
+    //----------------//
+    // setLastGlyphId //
+    //----------------//
+    @Override
+    public void setLastGlyphId (int id)
+    {
+        globalGlyphId.set(id);
+    }
+
     //-------------//
     // setServices //
     //-------------//
@@ -82,6 +82,10 @@ public class CompoundBuilder
                                 Collection<Glyph> suitables,
                                 CompoundAdapter adapter)
     {
+        // Safe point to stop, if system processing is over its time budget
+        system.getBudget()
+                .check();
+
         // Set seed (and reference box)
         adapter.setSeed(seed);
 
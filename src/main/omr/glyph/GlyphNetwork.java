@@ -21,6 +21,7 @@ import omr.math.NeuralNetwork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -408,6 +409,9 @@ public class GlyphNetwork
         // Shuffle the final collection of glyphs
         Collections.shuffle(newGlyphs);
 
+        // Compute all glyph moments at once
+        Glyphs.computeMoments(newGlyphs);
+
         // Build the collection of patterns from the glyph data
         double[][] inputs = new double[newGlyphs.size()][];
         double[][] desiredOutputs = new double[newGlyphs.size()][];
@@ -485,6 +489,26 @@ public class GlyphNetwork
         engine.marshal(os);
     }
 
+    //---------------//
+    // marshalBinary //
+    //---------------//
+    @Override
+    protected void marshalBinary (File file)
+            throws IOException
+    {
+        engine.marshalBinary(file);
+    }
+
+    //-----------------//
+    // unmarshalBinary //
+    //-----------------//
+    @Override
+    protected NeuralNetwork unmarshalBinary (File file)
+            throws IOException
+    {
+        return NeuralNetwork.unmarshalBinary(file);
+    }
+
     //-----------//
     // unmarshal //
     //-----------//
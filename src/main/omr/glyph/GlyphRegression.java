@@ -26,6 +26,7 @@ import org.jdesktop.application.Application.ExitListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -506,6 +507,9 @@ public class GlyphRegression
             return;
         }
 
+        // Compute all glyph moments at once
+        Glyphs.computeMoments(base);
+
         // Prepare the collection of samples
         Collection<Sample> samples = new ArrayList<>();
 
@@ -578,6 +582,26 @@ public class GlyphRegression
         engine.marshal(os);
     }
 
+    //---------------//
+    // marshalBinary //
+    //---------------//
+    @Override
+    protected void marshalBinary (File file)
+            throws IOException
+    {
+        engine.marshalBinary(file);
+    }
+
+    //-----------------//
+    // unmarshalBinary //
+    //-----------------//
+    @Override
+    protected LinearEvaluator unmarshalBinary (File file)
+            throws IOException
+    {
+        return LinearEvaluator.unmarshalBinary(file);
+    }
+
     //-----------//
     // unmarshal //
     //-----------//
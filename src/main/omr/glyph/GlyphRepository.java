@@ -13,6 +13,9 @@ package omr.glyph;
 
 import omr.WellKnowns;
 
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
 import omr.glyph.facets.BasicGlyph;
 import omr.glyph.facets.Glyph;
 import omr.glyph.facets.GlyphValue;
@@ -42,6 +45,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -72,12 +76,20 @@ import javax.xml.bind.Unmarshaller;
  * These bases are accessible respectively by {@link #getWholeBase} and
  * {@link #getCoreBase} methods.
  *
+ * <p> To speed up the loading of large bases, the whole base can be imported
+ * into a binary {@link SampleStore} (see {@link #storeSampleBase}), which is
+ * then used in priority to the individual XML files whenever the stored
+ * sample is up to date.
+ *
  * @author Hervé Bitteur
  */
 public class GlyphRepository
 {
     //~ Static fields/initializers ---------------------------------------------
 
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
     /** Usual logger utility */
     private static final Logger logger = LoggerFactory.getLogger(
             GlyphRepository.class);
@@ -106,6 +118,11 @@ public class GlyphRepository
             WellKnowns.TRAIN_FOLDER,
             "samples");
 
+    /** Binary store of samples */
+    private static final File storeFile = new File(
+            WellKnowns.TRAIN_FOLDER,
+            "samples.bin");
+
     /** Specific filter for glyph files */
     private static final FileFilter glyphFilter = new FileFilter()
     {
@@ -152,6 +169,12 @@ public class GlyphRepository
     /** Inverse map */
     private final Map<Glyph, String> namesMap = new HashMap<>();
 
+    /** Binary store of samples, if any */
+    private SampleStore store;
+
+    /** Have we already tried to open the binary store? */
+    private boolean storeChecked;
+
     //~ Constructors -----------------------------------------------------------
     /** Private singleton constructor */
     private GlyphRepository ()
@@ -234,7 +257,8 @@ public class GlyphRepository
     /**
      * Return a glyph knowing its full glyph name, which is the name of
      * the corresponding training material.
-     * If not already done, the glyph is deserialized from the training file,
+     * If not already done, the glyph is read from the binary sample store if
+     * up to date, otherwise it is deserialized from the training file,
      * searching first in the icons area, then the train area.
      *
      * @param gName   the full glyph name (format is: sheetName/Shape.id.xml)
@@ -248,19 +272,24 @@ public class GlyphRepository
         Glyph glyph = glyphsMap.get(gName);
 
         if (glyph == null) {
-            // If failed, actually load the glyph from XML backup file.
-            if (isIcon(gName)) {
-                glyph = buildSymbolGlyph(gName);
-            } else {
-                File file = new File(WellKnowns.TRAIN_FOLDER, gName);
+            // If failed, try the binary store
+            glyph = getStoredGlyph(gName);
 
-                if (!file.exists()) {
-                    logger.warn("Unable to find file for glyph {}", gName);
+            if (glyph == null) {
+                // If failed, actually load the glyph from XML backup file.
+                if (isIcon(gName)) {
+                    glyph = buildSymbolGlyph(gName);
+                } else {
+                    File file = new File(WellKnowns.TRAIN_FOLDER, gName);
 
-                    return null;
-                }
+                    if (!file.exists()) {
+                        logger.warn("Unable to find file for glyph {}", gName);
+
+                        return null;
+                    }
 
-                glyph = buildGlyph(gName, file);
+                    glyph = buildGlyph(gName, file);
+                }
             }
 
             if (glyph != null) {
@@ -508,6 +537,11 @@ public class GlyphRepository
     {
         wholeBase = null;
         coreBase = null;
+
+        synchronized (this) {
+            store = null;
+            storeChecked = false;
+        }
     }
 
     //-------------//
@@ -604,6 +638,44 @@ public class GlyphRepository
         logger.info("{} glyphs copied as core training material", copyNb);
     }
 
+    //-----------------//
+    // storeSampleBase //
+    //-----------------//
+    /**
+     * Import the whole base into the binary sample store, so that
+     * subsequent loadings no longer need to unmarshal each XML file.
+     *
+     * @param monitor the monitor, if any, to be kept informed of glyph loading
+     */
+    public synchronized void storeSampleBase (Monitor monitor)
+    {
+        List<String> base = getWholeBase(monitor);
+        Map<String, Glyph> glyphs = new LinkedHashMap<>(base.size());
+        Map<String, Long> stamps = new HashMap<>(base.size());
+
+        for (String gName : base) {
+            Glyph glyph = getGlyph(gName, monitor);
+
+            if (glyph != null) {
+                glyphs.put(gName, glyph);
+                stamps.put(
+                        gName,
+                        new File(WellKnowns.TRAIN_FOLDER, gName).lastModified());
+            }
+        }
+
+        try {
+            int count = SampleStore.build(storeFile, glyphs, stamps);
+            logger.info("{} samples stored into {}", count, storeFile);
+        } catch (IOException ex) {
+            logger.warn("Error storing samples into " + storeFile, ex);
+        }
+
+        // Force re-opening of the new store
+        store = null;
+        storeChecked = false;
+    }
+
     //-----------------//
     // unloadIconsFrom //
     //-----------------//
@@ -751,6 +823,39 @@ public class GlyphRepository
         return jaxbContext;
     }
 
+    //----------------//
+    // getStoredGlyph //
+    //----------------//
+    /**
+     * Try to retrieve the glyph from the binary sample store.
+     *
+     * @param gName the full glyph name
+     * @return the stored glyph, or null if not available or not up to date
+     */
+    private Glyph getStoredGlyph (String gName)
+    {
+        if (!constants.useSampleStore.isSet()) {
+            return null;
+        }
+
+        if (!storeChecked) {
+            store = SampleStore.open(storeFile);
+            storeChecked = true;
+        }
+
+        if (store == null) {
+            return null;
+        }
+
+        long stamp = new File(WellKnowns.TRAIN_FOLDER, gName).lastModified();
+
+        if (!store.contains(gName, stamp)) {
+            return null;
+        }
+
+        return store.getGlyph(gName);
+    }
+
     //--------------------//
     // getRecordableShape //
     //--------------------//
@@ -1033,6 +1138,21 @@ public class GlyphRepository
         }
     }
 
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Boolean useSampleStore = new Constant.Boolean(
+                true,
+                "Should we load samples from the binary store when available?");
+
+    }
+
     //~ Inner Interfaces -------------------------------------------------------
     //---------//
     // Monitor //
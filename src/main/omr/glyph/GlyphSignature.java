@@ -15,6 +15,8 @@ import omr.glyph.facets.Glyph;
 
 import omr.moments.GeometricMoments;
 
+import java.util.Arrays;
+
 /**
  * Class {@code GlyphSignature} is used to implement a map of glyphs,
  * based only on their physical properties.
@@ -49,6 +51,22 @@ public class GlyphSignature
         moments = new GeometricMoments(glyph.getGeometricMoments());
     }
 
+    //----------------//
+    // GlyphSignature //
+    //----------------//
+    /**
+     * Creates a GlyphSignature object from its items, as saved.
+     *
+     * @param weight  the glyph weight
+     * @param moments the glyph moments
+     */
+    public GlyphSignature (int weight,
+                           GeometricMoments moments)
+    {
+        this.weight = weight;
+        this.moments = moments;
+    }
+
     //----------------//
     // GlyphSignature //
     //----------------//
@@ -105,6 +123,14 @@ public class GlyphSignature
         }
     }
 
+    //------------//
+    // getMoments //
+    //------------//
+    public GeometricMoments getMoments ()
+    {
+        return moments;
+    }
+
     //-----------//
     // getWeight //
     //-----------//
@@ -122,6 +148,10 @@ public class GlyphSignature
         int hash = 7;
         hash = (41 * hash) + this.weight;
 
+        if (moments != null) {
+            hash = (41 * hash) + Arrays.hashCode(moments.getValues());
+        }
+
         return hash;
     }
 
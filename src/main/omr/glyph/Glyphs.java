@@ -22,6 +22,9 @@ import omr.run.Orientation;
 
 import omr.sheet.Scale;
 
+import omr.step.ProcessingCancellationException;
+
+import omr.util.OmrExecutors;
 import omr.util.Predicate;
 
 import org.slf4j.Logger;
@@ -29,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Polygon;
 import java.awt.Rectangle;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -36,9 +40,11 @@ import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 /**
  * Class {@code Glyphs} is a collection of static convenient methods,
@@ -77,6 +83,61 @@ public class Glyphs
     public static final Set<Glyph> NO_GLYPHS = Collections.emptySet();
 
     //~ Methods ----------------------------------------------------------------
+    //----------------//
+    // computeMoments //
+    //----------------//
+    /**
+     * Compute (or retrieve) the geometric and ART moments of all the
+     * provided glyphs, spreading the work over the available processors.
+     * This is meant for batches of glyphs, such as training samples, whose
+     * features are about to be read.
+     *
+     * @param glyphs the glyphs to process
+     */
+    public static void computeMoments (Collection<? extends Glyph> glyphs)
+    {
+        // Make sure each glyph is processed by a single task
+        final List<Glyph> list = new ArrayList<>(
+                new LinkedHashSet<>(glyphs));
+
+        if ((OmrExecutors.defaultParallelism.getTarget() == false)
+            || (list.size() < 2)) {
+            computeMoments(list, 0, list.size());
+
+            return;
+        }
+
+        try {
+            final int chunkCount = 4 * OmrExecutors.getNumberOfCpus();
+            final int chunkSize = 1 + (list.size() / chunkCount);
+            List<Callable<Void>> tasks = new ArrayList<>();
+
+            for (int start = 0; start < list.size(); start += chunkSize) {
+                final int from = start;
+                final int to = Math.min(list.size(), start + chunkSize);
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        computeMoments(list, from, to);
+
+                        return null;
+                    }
+                });
+            }
+
+            // Launch the tasks and wait for their completion
+            OmrExecutors.getHighExecutor()
+                    .invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            logger.warn("computeMoments got interrupted");
+            throw new ProcessingCancellationException(ex);
+        }
+    }
+
     //----------//
     // contains //
     //----------//
@@ -660,4 +721,23 @@ public class Glyphs
     private Glyphs ()
     {
     }
+
+    //----------------//
+    // computeMoments //
+    //----------------//
+    private static void computeMoments (List<Glyph> glyphs,
+                                        int from,
+                                        int to)
+    {
+        for (int i = from; i < to; i++) {
+            Glyph glyph = glyphs.get(i);
+
+            try {
+                glyph.getGeometricMoments();
+                glyph.getARTMoments();
+            } catch (Exception ex) {
+                logger.warn("Cannot compute moments of " + glyph, ex);
+            }
+        }
+    }
 }
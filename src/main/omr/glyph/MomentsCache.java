@@ -0,0 +1,177 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                          M o m e n t s C a c h e                           //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.glyph;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.moments.ARTMoments;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class {@code MomentsCache} keeps the ART moments of recently
+ * described glyphs, using their {@link GlyphSignature} as key.
+ *
+ * <p>During recognition, the same physical glyph is typically rebuilt and
+ * evaluated several times (e.g. as a compound candidate), while its ART
+ * moments, the most expensive part of its features, only depend on its
+ * pixels. The cache is bounded, the least recently used entries being evicted
+ * first. It is shared by all scores, including scores processed at the same
+ * time: since the moments depend on the pixels only, an entry remains valid
+ * whatever the score, so closing a score does not empty the cache.
+ *
+ * <p>Training samples loaded from the binary {@link SampleStore} already come
+ * with their precomputed moments, and thus do not need this cache.
+ *
+ * @author Hervé Bitteur
+ */
+public class MomentsCache
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** The single instance of this class */
+    private static volatile MomentsCache INSTANCE;
+
+    //~ Instance fields --------------------------------------------------------
+    /** Map signature -> moments, in access order */
+    private final Map<GlyphSignature, ARTMoments> map;
+
+    /** Number of successful lookups */
+    private int hits;
+
+    /** Number of failed lookups */
+    private int misses;
+
+    //~ Constructors -----------------------------------------------------------
+    //--------------//
+    // MomentsCache //
+    //--------------//
+    private MomentsCache ()
+    {
+        final int maxEntries = constants.maxEntries.getValue();
+
+        map = new LinkedHashMap<GlyphSignature, ARTMoments>(
+                1024,
+                0.75f,
+                true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry (
+                    Map.Entry<GlyphSignature, ARTMoments> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the single instance of this class.
+     *
+     * @return the single instance
+     */
+    public static MomentsCache getInstance ()
+    {
+        if (INSTANCE == null) {
+            synchronized (MomentsCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new MomentsCache();
+                }
+            }
+        }
+
+        return INSTANCE;
+    }
+
+    //-----//
+    // get //
+    //-----//
+    /**
+     * Report the ART moments cached for the provided signature.
+     *
+     * @param signature the glyph signature
+     * @return the cached moments, or null if not found or cache disabled
+     */
+    public synchronized ARTMoments get (GlyphSignature signature)
+    {
+        if (!constants.useCache.isSet()) {
+            return null;
+        }
+
+        ARTMoments moments = map.get(signature);
+
+        if (moments != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+
+        return moments;
+    }
+
+    //-----//
+    // put //
+    //-----//
+    /**
+     * Cache the ART moments computed for the provided signature.
+     *
+     * @param signature the glyph signature
+     * @param moments   the computed moments
+     */
+    public synchronized void put (GlyphSignature signature,
+                                  ARTMoments moments)
+    {
+        if (constants.useCache.isSet()) {
+            map.put(signature, moments);
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        return "{MomentsCache size:" + map.size() + " hits:" + hits
+               + " misses:" + misses + "}";
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Boolean useCache = new Constant.Boolean(
+                true,
+                "Should we cache glyph moments by signature?");
+
+        Constant.Integer maxEntries = new Constant.Integer(
+                "Entries",
+                20000,
+                "Maximum number of cached glyph moments");
+
+    }
+}
@@ -27,6 +27,7 @@ import omr.selection.SelectionService;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -127,6 +128,13 @@ public interface Nest
     Histogram<Integer> getHistogram (Orientation orientation,
                                      Collection<Glyph> glyphs);
 
+    /**
+     * Report the id of the last glyph registered in this nest
+     *
+     * @return the last glyph id, 0 if none
+     */
+    int getLastGlyphId ();
+
     /**
      * Report a name for this nest instance
      *
@@ -152,6 +160,14 @@ public interface Nest
      */
     Glyph getOriginal (GlyphSignature signature);
 
+    /**
+     * Report the original glyphs, as registered by signature.
+     * Some entries may be obsolete, if the glyph has changed since.
+     *
+     * @return the unmodifiable map of originals
+     */
+    Map<GlyphSignature, Glyph> getOriginals ();
+
     /**
      * Report the glyph currently selected, if any
      *
@@ -226,6 +242,30 @@ public interface Nest
      */
     void removeVirtualGlyph (VirtualGlyph glyph);
 
+    /**
+     * Put back a glyph saved by a sheet checkpoint, keeping its id.
+     *
+     * @param glyph the glyph to restore
+     */
+    void restoreGlyph (Glyph glyph);
+
+    /**
+     * Put back an original glyph entry saved by a sheet checkpoint.
+     *
+     * @param signature the registered signature
+     * @param glyph     the original glyph for this signature
+     */
+    void restoreOriginal (GlyphSignature signature,
+                          Glyph glyph);
+
+    /**
+     * Set the id of the last glyph registered in this nest, as saved by
+     * a sheet checkpoint, so that new glyphs get the same ids as before.
+     *
+     * @param id the last glyph id
+     */
+    void setLastGlyphId (int id);
+
     /**
      * Inject dependency on location service, and trigger subscriptions
      *
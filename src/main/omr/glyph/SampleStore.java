@@ -0,0 +1,553 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                           S a m p l e S t o r e                            //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.glyph;
+
+import omr.glyph.facets.BasicGlyph;
+import omr.glyph.facets.Glyph;
+import omr.glyph.facets.GlyphValue;
+
+import omr.lag.BasicLag;
+import omr.lag.Lag;
+import omr.lag.Section;
+
+import omr.moments.ARTMoments;
+import omr.moments.BasicARTMoments;
+import omr.moments.GeometricMoments;
+
+import omr.run.Orientation;
+import omr.run.Run;
+
+import omr.ui.symbol.ShapeSymbol;
+import omr.ui.symbol.Symbols;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Class {@code SampleStore} is a compact binary store of training
+ * samples, meant to avoid the unmarshalling of one XML file per glyph.
+ *
+ * <p>The store is a single file, which is memory-mapped and read lazily:
+ * <ul>
+ * <li>A fixed <b>header</b>: magic number, format version, number of
+ * samples and offset of the index.</li>
+ * <li>The sequence of sample <b>records</b>: recorded shape name, glyph
+ * kind (real sample or artificial symbol glyph), interline, id, stem
+ * number, ledger flag, pitch position, precomputed geometric moments,
+ * precomputed ART moments modules and finally the member sections as
+ * runs sequences.</li>
+ * <li>The <b>index</b>: for each sample, its full glyph name, the
+ * last-modified stamp of its source XML file and the offset of its
+ * record.</li>
+ * </ul>
+ *
+ * <p>A sample is considered as stale, and is thus not provided, when its
+ * source file has been modified since the store was built.
+ *
+ * @author Hervé Bitteur
+ */
+class SampleStore
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            SampleStore.class);
+
+    /** Magic number to recognize a store file: "OMRS" */
+    private static final int MAGIC = 0x4F4D5253;
+
+    /** Current format version */
+    private static final int VERSION = 2;
+
+    /** Kind of a real sample glyph */
+    private static final byte KIND_SAMPLE = 0;
+
+    /** Kind of an artificial glyph, built from a symbol */
+    private static final byte KIND_SYMBOL = 1;
+
+    /** Size of fixed header: magic, version, count, index offset */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+    /** Encoding for strings */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    //~ Instance fields --------------------------------------------------------
+    /** The store file */
+    private final File file;
+
+    /** Mapped content of the file */
+    private final ByteBuffer buffer;
+
+    /** Index: glyph name -> entry */
+    private final Map<String, Entry> entries;
+
+    /** Ordered names */
+    private final List<String> names;
+
+    /** Lags used only to create properly oriented sections */
+    private final Map<Orientation, Lag> lags = new HashMap<>();
+
+    //~ Constructors -----------------------------------------------------------
+    //-------------//
+    // SampleStore //
+    //-------------//
+    /**
+     * Open an existing store, by mapping its file content and reading
+     * its index.
+     *
+     * @param file the store file
+     * @throws IOException if the file cannot be mapped or is not a valid
+     *                     store
+     */
+    private SampleStore (File file)
+            throws IOException
+    {
+        this.file = file;
+
+        try (FileInputStream fis = new FileInputStream(file)) {
+            FileChannel channel = fis.getChannel();
+            buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    0,
+                    channel.size());
+        }
+
+        // Header
+        ByteBuffer buf = buffer.duplicate();
+
+        if ((buf.limit() < HEADER_SIZE) || (buf.getInt() != MAGIC)) {
+            throw new IOException("Not a sample store: " + file);
+        }
+
+        int version = buf.getInt();
+
+        if (version != VERSION) {
+            throw new IOException(
+                    "Obsolete sample store version " + version + " in "
+                    + file);
+        }
+
+        int count = buf.getInt();
+        long indexOffset = buf.getLong();
+
+        if ((count < 0)
+            || (indexOffset < HEADER_SIZE)
+            || (indexOffset > buf.limit())) {
+            throw new IOException("Corrupted sample store " + file);
+        }
+
+        // Index
+        buf.position((int) indexOffset);
+        entries = new HashMap<>(count * 2);
+        names = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            String gName = readString(buf);
+            long stamp = buf.getLong();
+            int offset = buf.getInt();
+            entries.put(gName, new Entry(stamp, offset));
+            names.add(gName);
+        }
+
+        for (Orientation orientation : Orientation.values()) {
+            lags.put(orientation, new BasicLag("store", orientation));
+        }
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-------//
+    // build //
+    //-------//
+    /**
+     * Build (or rebuild) a store file out of the provided glyphs.
+     *
+     * @param file   the store file to write
+     * @param glyphs the glyphs to store, mapped by their full glyph name
+     * @param stamps the last-modified stamp of each glyph source file
+     * @return the number of samples stored
+     * @throws IOException if anything goes wrong while writing
+     */
+    public static int build (File file,
+                             Map<String, Glyph> glyphs,
+                             Map<String, Long> stamps)
+            throws IOException
+    {
+        File tmp = new File(file.getPath() + ".tmp");
+        List<String> stored = new ArrayList<>(glyphs.size());
+        List<Integer> offsets = new ArrayList<>(glyphs.size());
+        long indexOffset;
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            // Header, index offset will be written at the end
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0);
+            out.writeLong(0);
+
+            // Records
+            for (Map.Entry<String, Glyph> entry : glyphs.entrySet()) {
+                Glyph glyph = entry.getValue();
+
+                if ((glyph.getShape() == null)
+                    || glyph.getMembers()
+                        .isEmpty()) {
+                    continue;
+                }
+
+                offsets.add(out.size());
+                writeRecord(out, glyph);
+                stored.add(entry.getKey());
+            }
+
+            // Index
+            indexOffset = out.size();
+
+            for (int i = 0; i < stored.size(); i++) {
+                String gName = stored.get(i);
+                Long stamp = stamps.get(gName);
+                writeString(out, gName);
+                out.writeLong((stamp != null) ? stamp : 0L);
+                out.writeInt(offsets.get(i));
+            }
+        }
+
+        // Patch the header, count and index offset are its last fields
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.seek(HEADER_SIZE - (4 + 8));
+            raf.writeInt(stored.size());
+            raf.writeLong(indexOffset);
+        }
+
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not delete " + file);
+        }
+
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Could not rename " + tmp + " as " + file);
+        }
+
+        return stored.size();
+    }
+
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Report whether the store contains an up-to-date sample for the
+     * provided name.
+     *
+     * @param gName the full glyph name
+     * @param stamp the current last-modified stamp of the source file
+     * @return true if the stored sample can be used
+     */
+    public boolean contains (String gName,
+                             long stamp)
+    {
+        Entry entry = entries.get(gName);
+
+        return (entry != null) && (entry.stamp == stamp);
+    }
+
+    //----------//
+    // getGlyph //
+    //----------//
+    /**
+     * Decode the sample stored for the provided name.
+     *
+     * @param gName the full glyph name
+     * @return the decoded glyph, or null if not found
+     */
+    public Glyph getGlyph (String gName)
+    {
+        Entry entry = entries.get(gName);
+
+        if (entry == null) {
+            return null;
+        }
+
+        ByteBuffer buf = buffer.duplicate();
+        buf.position(entry.offset);
+
+        return readRecord(buf);
+    }
+
+    //----------//
+    // getNames //
+    //----------//
+    /**
+     * Report the names of all samples in the store.
+     *
+     * @return the unmodifiable list of names, in store order
+     */
+    public List<String> getNames ()
+    {
+        return Collections.unmodifiableList(names);
+    }
+
+    //------//
+    // open //
+    //------//
+    /**
+     * Open the store contained in the provided file, if any.
+     *
+     * @param file the store file
+     * @return the store, or null if file is missing or invalid
+     */
+    public static SampleStore open (File file)
+    {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try {
+            SampleStore store = new SampleStore(file);
+            logger.info(
+                    "Sample store {} opened with {} samples",
+                    file,
+                    store.names.size());
+
+            return store;
+        } catch (Exception ex) {
+            logger.warn("Cannot open sample store " + file, ex);
+
+            return null;
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return "{SampleStore " + file + " samples:" + names.size() + "}";
+    }
+
+    //------------//
+    // readRecord //
+    //------------//
+    private Glyph readRecord (ByteBuffer buf)
+    {
+        Shape shape = Shape.valueOf(readString(buf));
+        byte kind = buf.get();
+        int interline = buf.getInt();
+        int id = buf.getInt();
+        int stemNumber = buf.getInt();
+        boolean withLedger = buf.get() != 0;
+        double pitchPosition = buf.getDouble();
+
+        // Precomputed moments
+        GeometricMoments geoMoments = null;
+
+        if (buf.get() != 0) {
+            double[] values = new double[GeometricMoments.size];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buf.getDouble();
+            }
+
+            geoMoments = new GeometricMoments(values);
+        }
+
+        ARTMoments artMoments = new BasicARTMoments();
+
+        for (int p = 0; p < ARTMoments.ANGULAR; p++) {
+            for (int r = 0; r < ARTMoments.RADIAL; r++) {
+                artMoments.setModule(p, r, buf.getDouble());
+            }
+        }
+
+        // Member sections
+        SortedSet<Section> members = new TreeSet<>();
+        int sectionCount = buf.getInt();
+
+        for (int s = 0; s < sectionCount; s++) {
+            Orientation orientation = Orientation.values()[buf.get()];
+            int firstPos = buf.getInt();
+            int runCount = buf.getInt();
+            Lag lag = lags.get(orientation);
+            Section section = null;
+
+            for (int r = 0; r < runCount; r++) {
+                Run run = new Run(buf.getInt(), buf.getInt(), buf.get() & 0xFF);
+
+                if (section == null) {
+                    section = lag.createSection(firstPos, run);
+                } else {
+                    section.append(run);
+                }
+            }
+
+            // Section is not kept in the lag, just like unmarshalled ones
+            lag.removeVertex(section);
+            members.add(section);
+        }
+
+        GlyphValue value = new GlyphValue(
+                shape,
+                interline,
+                id,
+                stemNumber,
+                withLedger,
+                pitchPosition,
+                members);
+        Glyph glyph = null;
+
+        if (kind == KIND_SYMBOL) {
+            // If no plain symbol, use the decorated symbol as plan B
+            ShapeSymbol symbol = Symbols.getSymbol(shape);
+
+            if (symbol == null) {
+                symbol = Symbols.getSymbol(shape, true);
+            }
+
+            if (symbol != null) {
+                glyph = new SymbolGlyph(shape, symbol, value);
+            }
+        }
+
+        if (glyph == null) {
+            glyph = new BasicGlyph(value);
+        }
+
+        if (geoMoments != null) {
+            glyph.setGeometricMoments(geoMoments);
+        }
+
+        glyph.setARTMoments(artMoments);
+
+        return glyph;
+    }
+
+    //------------//
+    // readString //
+    //------------//
+    private static String readString (ByteBuffer buf)
+    {
+        byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+        buf.get(bytes);
+
+        return new String(bytes, UTF8);
+    }
+
+    //-------------//
+    // writeRecord //
+    //-------------//
+    private static void writeRecord (DataOutputStream out,
+                                     Glyph glyph)
+            throws IOException
+    {
+        // Recorded shape, as found in the sample XML file
+        writeString(out, glyph.getShape().name());
+        out.writeByte(
+                (glyph instanceof SymbolGlyph) ? KIND_SYMBOL : KIND_SAMPLE);
+        out.writeInt(glyph.getInterline());
+        out.writeInt(glyph.getId());
+        out.writeInt(glyph.getStemNumber());
+        out.writeByte(glyph.isWithLedger() ? 1 : 0);
+        out.writeDouble(glyph.getPitchPosition());
+
+        // Precomputed moments
+        GeometricMoments geoMoments = glyph.getGeometricMoments();
+
+        if (geoMoments != null) {
+            out.writeByte(1);
+
+            for (Double value : geoMoments.getValues()) {
+                out.writeDouble((value != null) ? value : 0);
+            }
+        } else {
+            out.writeByte(0);
+        }
+
+        ARTMoments artMoments = glyph.getARTMoments();
+
+        for (int p = 0; p < ARTMoments.ANGULAR; p++) {
+            for (int r = 0; r < ARTMoments.RADIAL; r++) {
+                out.writeDouble(artMoments.getModule(p, r));
+            }
+        }
+
+        // Member sections
+        out.writeInt(glyph.getMembers().size());
+
+        for (Section section : glyph.getMembers()) {
+            out.writeByte(section.getOrientation().ordinal());
+            out.writeInt(section.getFirstPos());
+            out.writeInt(section.getRunCount());
+
+            for (Run run : section.getRuns()) {
+                out.writeInt(run.getStart());
+                out.writeInt(run.getLength());
+                out.writeByte(run.getLevel());
+            }
+        }
+    }
+
+    //-------------//
+    // writeString //
+    //-------------//
+    private static void writeString (DataOutputStream out,
+                                     String str)
+            throws IOException
+    {
+        byte[] bytes = str.getBytes(UTF8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    /**
+     * Index entry for one sample.
+     */
+    private static class Entry
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Last-modified stamp of source file when store was built */
+        final long stamp;
+
+        /** Offset of sample record in the store */
+        final int offset;
+
+        //~ Constructors -------------------------------------------------------
+        public Entry (long stamp,
+                      int offset)
+        {
+            this.stamp = stamp;
+            this.offset = offset;
+        }
+    }
+}
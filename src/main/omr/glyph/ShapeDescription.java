@@ -13,10 +13,16 @@ package omr.glyph;
 
 import omr.glyph.facets.Glyph;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Class {@code ShapeDescription} builds the glyphs features to be used
  * by an evaluator.
  *
+ * <p>The features of a glyph are computed once and then kept in the glyph
+ * geometry facet, so that all engines and checkers share them until the
+ * glyph gets modified.
+ *
  * @author Hervé Bitteur
  */
 public abstract class ShapeDescription
@@ -26,6 +32,12 @@ public abstract class ShapeDescription
     ///private static final Descriptor INSTANCE = new ShapeDescriptorGeo();
     private static final Descriptor INSTANCE = new ShapeDescriptorART();
 
+    /** Number of features requests */
+    private static final AtomicInteger requests = new AtomicInteger();
+
+    /** Number of features actually computed */
+    private static final AtomicInteger computations = new AtomicInteger();
+
     //~ Constructors -----------------------------------------------------------
     private ShapeDescription ()
     {
@@ -40,6 +52,23 @@ public abstract class ShapeDescription
         return bool ? 1.0 : 0.0;
     }
 
+    //-----------------//
+    // computeFeatures //
+    //-----------------//
+    /**
+     * Compute the features that describe a given glyph, regardless of
+     * the features cached in the glyph.
+     *
+     * @param glyph the glyph to describe
+     * @return the glyph shape features, an array of size length()
+     */
+    public static double[] computeFeatures (Glyph glyph)
+    {
+        computations.incrementAndGet();
+
+        return INSTANCE.features(glyph);
+    }
+
     //----------//
     // features //
     //----------//
@@ -47,11 +76,14 @@ public abstract class ShapeDescription
      * Report the features that describe a given glyph.
      *
      * @param glyph the glyph to describe
-     * @return the glyph shape features, an array of size length()
+     * @return the glyph shape features, an array of size length() which
+     *         is shared and thus must not be modified
      */
     public static double[] features (Glyph glyph)
     {
-        return INSTANCE.features(glyph);
+        requests.incrementAndGet();
+
+        return glyph.getFeatures();
     }
 
     //-------------------//
@@ -81,6 +113,26 @@ public abstract class ShapeDescription
         return INSTANCE.getFeatureLabels();
     }
 
+    //---------------//
+    // getStatistics //
+    //---------------//
+    /**
+     * Report how many features have been requested and computed so far.
+     *
+     * @return a short description of features cache usage
+     */
+    public static String getStatistics ()
+    {
+        final int req = requests.get();
+        final int comp = computations.get();
+        final int hits = Math.max(0, req - comp);
+
+        return "{Features requests:" + req + " computations:" + comp
+               + " hitRate:"
+               + ((req > 0) ? String.format("%.1f%%", (100d * hits) / req) : "-")
+               + "}";
+    }
+
     //--------//
     // length //
     //--------//
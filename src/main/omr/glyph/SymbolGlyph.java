@@ -13,6 +13,7 @@ package omr.glyph;
 
 import omr.glyph.facets.BasicGlyph;
 import omr.glyph.facets.Glyph;
+import omr.glyph.facets.GlyphValue;
 
 import omr.lag.BasicLag;
 import omr.lag.JunctionAllPolicy;
@@ -117,4 +118,26 @@ public class SymbolGlyph
             logger.debug(dumpOf());
         }
     }
+
+    //-------------//
+    // SymbolGlyph //
+    //-------------//
+    /**
+     * Rebuild an (artificial) glyph, whose sections and features have
+     * already been computed from the symbol icon.
+     *
+     * @param shape  the corresponding shape
+     * @param symbol the related drawing
+     * @param value  the glyph features, as stored
+     */
+    SymbolGlyph (Shape shape,
+                 ShapeSymbol symbol,
+                 GlyphValue value)
+    {
+        super(value);
+        this.symbol = symbol;
+        image = symbol.buildImage(MusicFont.getFont(getInterline()));
+
+        setShape(shape, Evaluation.MANUAL);
+    }
 }
@@ -12,7 +12,9 @@
 package omr.glyph.facets;
 
 import omr.glyph.GlyphSignature;
+import omr.glyph.MomentsCache;
 import omr.glyph.Shape;
+import omr.glyph.ShapeDescription;
 
 import omr.lag.Section;
 
@@ -20,9 +22,9 @@ import omr.math.Circle;
 import omr.math.PointsCollector;
 
 import omr.moments.ARTMoments;
-import omr.moments.BasicARTExtractor;
 import omr.moments.BasicARTMoments;
 import omr.moments.GeometricMoments;
+import omr.moments.TableARTExtractor;
 
 import omr.ui.symbol.ShapeSymbol;
 
@@ -79,6 +81,9 @@ class BasicGeometry
     /** Approximating circle, if any */
     private Circle circle;
 
+    /** Computed shape features of this glyph */
+    private double[] features;
+
     //~ Constructors -----------------------------------------------------------
     //---------------//
     // BasicGeometry //
@@ -211,6 +216,19 @@ class BasicGeometry
         return (double) getWeight() / (double) surface;
     }
 
+    //-------------//
+    // getFeatures //
+    //-------------//
+    @Override
+    public double[] getFeatures ()
+    {
+        if (features == null) {
+            features = ShapeDescription.computeFeatures(glyph);
+        }
+
+        return features;
+    }
+
     //---------------------//
     // getGeometricMoments //
     //---------------------//
@@ -385,6 +403,16 @@ class BasicGeometry
         geometricMoments = null;
         weight = null;
         circle = null;
+        features = null;
+    }
+
+    //---------------//
+    // setARTMoments //
+    //---------------//
+    @Override
+    public void setARTMoments (ARTMoments artMoments)
+    {
+        this.artMoments = artMoments;
     }
 
     //-----------//
@@ -405,6 +433,24 @@ class BasicGeometry
         this.bounds = contourBox;
     }
 
+    //-------------//
+    // setFeatures //
+    //-------------//
+    @Override
+    public void setFeatures (double[] features)
+    {
+        this.features = features;
+    }
+
+    //---------------------//
+    // setGeometricMoments //
+    //---------------------//
+    @Override
+    public void setGeometricMoments (GeometricMoments geometricMoments)
+    {
+        this.geometricMoments = geometricMoments;
+    }
+
     //------------------------//
     // setRegisteredSignature //
     //------------------------//
@@ -432,18 +478,35 @@ class BasicGeometry
     //-------------------//
     private void computeARTMoments ()
     {
+        // Check whether the same physical glyph has already been described
+        final MomentsCache cache = MomentsCache.getInstance();
+        final GlyphSignature sig = (getGeometricMoments() != null)
+                ? getSignature() : null;
+
+        if (sig != null) {
+            artMoments = cache.get(sig);
+
+            if (artMoments != null) {
+                return;
+            }
+        }
+
         // Retrieve glyph foreground points
         PointsCollector collector = glyph.getPointsCollector();
 
         // Then compute the ART moments with this collector
         artMoments = new BasicARTMoments();
 
-        BasicARTExtractor extractor = new BasicARTExtractor();
+        TableARTExtractor extractor = new TableARTExtractor();
         extractor.setDescriptor(artMoments);
         extractor.extract(
                 collector.getXValues(),
                 collector.getYValues(),
                 collector.getSize());
+
+        if (sig != null) {
+            cache.put(sig, artMoments);
+        }
     }
 
     //-------------------------//
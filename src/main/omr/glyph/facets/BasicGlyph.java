@@ -358,6 +358,12 @@ public class BasicGlyph
         return recognition.getEvaluation();
     }
 
+    @Override
+    public double[] getFeatures ()
+    {
+        return geometry.getFeatures();
+    }
+
     @Override
     public Section getFirstSection ()
     {
@@ -834,6 +840,12 @@ public class BasicGlyph
         recognition.resetEvaluation();
     }
 
+    @Override
+    public void setARTMoments (ARTMoments artMoments)
+    {
+        geometry.setARTMoments(artMoments);
+    }
+
     @Override
     public void setCircle (Circle circle)
     {
@@ -859,6 +871,18 @@ public class BasicGlyph
         recognition.setEvaluation(evaluation);
     }
 
+    @Override
+    public void setFeatures (double[] features)
+    {
+        geometry.setFeatures(features);
+    }
+
+    @Override
+    public void setGeometricMoments (GeometricMoments geometricMoments)
+    {
+        geometry.setGeometricMoments(geometricMoments);
+    }
+
     @Override
     public void setId (int id)
     {
@@ -938,7 +962,12 @@ public class BasicGlyph
     @Override
     public void setStemNumber (int stemNumber)
     {
-        environment.setStemNumber(stemNumber);
+        if (stemNumber != getStemNumber()) {
+            environment.setStemNumber(stemNumber);
+
+            // Stem number is part of the glyph features
+            geometry.setFeatures(null);
+        }
     }
 
     @Override
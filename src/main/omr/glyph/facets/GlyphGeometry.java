@@ -83,6 +83,15 @@ interface GlyphGeometry
      */
     double getDensity ();
 
+    /**
+     * Report the glyph shape features, as defined by
+     * {@link omr.glyph.ShapeDescription}, which are lazily computed and
+     * kept until the glyph cache or its stem number gets modified.
+     *
+     * @return the glyph features, an array which must not be modified
+     */
+    double[] getFeatures ();
+
     /**
      * Report the glyph geometric moments, which are lazily computed.
      *
@@ -170,6 +179,13 @@ interface GlyphGeometry
      */
     boolean intersects (Rectangle rectangle);
 
+    /**
+     * Assign precomputed ART moments, to avoid their lazy computation.
+     *
+     * @param artMoments the precomputed ART moments
+     */
+    void setARTMoments (ARTMoments artMoments);
+
     /**
      * Remember an approximating circle.
      *
@@ -185,6 +201,21 @@ interface GlyphGeometry
      */
     void setContourBox (Rectangle contourBox);
 
+    /**
+     * Set the glyph features, or null to force their recomputation.
+     *
+     * @param features the glyph features
+     */
+    void setFeatures (double[] features);
+
+    /**
+     * Assign precomputed geometric moments, to avoid their lazy
+     * computation.
+     *
+     * @param geometricMoments the precomputed geometric moments
+     */
+    void setGeometricMoments (GeometricMoments geometricMoments);
+
     /**
      * Remember registration signature.
      *
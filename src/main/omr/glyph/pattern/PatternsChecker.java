@@ -15,6 +15,8 @@ import omr.glyph.Grades;
 
 import omr.sheet.SystemInfo;
 
+import omr.step.TimeBudget;
+
 import omr.text.TextPattern;
 
 import org.slf4j.Logger;
@@ -112,6 +114,15 @@ public class PatternsChecker
         //                    }
         //                });
         for (GlyphPattern pattern : patterns) {
+            // Degraded mode: skip remaining patterns, keep results so far
+            if (system.getBudget()
+                    .isExceeded()) {
+                logger.info("{}Time budget exhausted, skipping patterns from {}",
+                        system.getLogPrefix(), pattern.name);
+
+                break;
+            }
+
             logger.debug("Starting {}", pattern);
 
             system.removeInactiveGlyphs();
@@ -127,6 +138,11 @@ public class PatternsChecker
                 }
 
                 totalModifs += modifs;
+            } catch (TimeBudget.ExceededException ex) {
+                logger.info("{}Time budget exhausted in pattern {}",
+                        system.getLogPrefix(), pattern.name);
+
+                break;
             } catch (Throwable ex) {
                 logger.warn(
                         system.getLogPrefix() + " error running pattern "
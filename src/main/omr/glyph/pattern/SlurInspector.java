@@ -35,6 +35,8 @@ import static omr.run.Orientation.*;
 import omr.sheet.Scale;
 import omr.sheet.SystemInfo;
 
+import omr.step.TimeBudget;
+
 import omr.util.HorizontalSide;
 import static omr.util.HorizontalSide.*;
 import omr.util.Wrapper;
@@ -243,6 +245,8 @@ public class SlurInspector
 
         for (Iterator<Glyph> it = slurs.iterator(); it.hasNext();) {
             Glyph slur = it.next();
+            system.getBudget()
+                    .check();
 
             // Skip slurs just been 'merged' with another one
             if (!slur.isActive()) {
@@ -267,6 +271,8 @@ public class SlurInspector
                 slur.setShape(null);
                 it.remove();
                 modifs++;
+            } catch (TimeBudget.ExceededException ex) {
+                throw ex;
             } catch (Exception ex) {
                 logger.warn("Error in extending slur#" + slur.getId(), ex);
             }
@@ -276,6 +282,9 @@ public class SlurInspector
 
         // Second pass to check each slur validity
         for (Glyph slur : slurs) {
+            system.getBudget()
+                    .check();
+
             // Skip slurs just been 'merged' with another one
             if (!slur.isActive()) {
                 continue;
@@ -38,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Color;
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -121,9 +122,13 @@ public class SymbolsController
      * Asynchronously perform a modification in systems boundaries
      *
      * @param modifiedLines the set of modified lines
+     * @param editedArea    the area covered by the lines before and after
+     *                      their modification, to limit the re-split of
+     *                      systems content
      * @return the task that carries out the processing
      */
-    public Task<Void, Void> asyncModifyBoundaries (Set<BrokenLine> modifiedLines)
+    public Task<Void, Void> asyncModifyBoundaries (Set<BrokenLine> modifiedLines,
+                                                   Rectangle editedArea)
     {
         List<BrokenLineContext> contexts = new ArrayList<>();
 
@@ -145,7 +150,7 @@ public class SymbolsController
             contexts.add(new BrokenLineContext(above, below, line));
         }
 
-        return new BoundaryTask(sheet, contexts).launch(sheet);
+        return new BoundaryTask(sheet, contexts, editedArea).launch(sheet);
     }
 
     //--------------//
@@ -100,6 +100,9 @@ class SelectionPanel
     /** To select a core out of whole base */
     private SelectAction selectAction = new SelectAction();
 
+    /** To import the whole base into the binary sample store */
+    private StoreAction storeAction = new StoreAction();
+
     /** Counter on loaded glyphs */
     private int nbLoaded;
 
@@ -251,12 +254,14 @@ class SelectionPanel
         switch (task.getActivity()) {
         case INACTIVE:
             selectAction.setEnabled(true);
+            storeAction.setEnabled(true);
 
             break;
 
         case SELECTING:
         case TRAINING:
             selectAction.setEnabled(false);
+            storeAction.setEnabled(false);
 
             break;
         }
@@ -386,6 +391,7 @@ class SelectionPanel
 
         r += 2; // ----------------------------
         builder.add(new JButton(selectAction), cst.xy(3, r));
+        builder.add(new JButton(storeAction), cst.xy(5, r));
         builder.add(nbSelectedFiles.getLabel(), cst.xy(9, r));
         builder.add(nbSelectedFiles.getField(), cst.xy(11, r));
 
@@ -600,4 +606,45 @@ class SelectionPanel
             });
         }
     }
+
+    //-------------//
+    // StoreAction //
+    //-------------//
+    private class StoreAction
+            extends AbstractAction
+    {
+        //~ Static fields/initializers -----------------------------------------
+
+        private static final long serialVersionUID = 1L;
+
+        //~ Constructors -------------------------------------------------------
+
+        public StoreAction ()
+        {
+            super("Binary Store");
+            putValue(
+                    Action.SHORT_DESCRIPTION,
+                    "Import whole glyph base into the binary sample store");
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public void actionPerformed (ActionEvent e)
+        {
+            executor.execute(
+                    new Runnable()
+            {
+                @Override
+                public void run ()
+                {
+                    task.setActivity(SELECTING);
+
+                    nbLoaded = 0;
+                    repository.storeSampleBase(SelectionPanel.this);
+
+                    task.setActivity(INACTIVE);
+                }
+            });
+        }
+    }
 }
@@ -18,7 +18,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -42,8 +41,8 @@ public class BasicDigraph<D extends Digraph<D, V>, V extends Vertex>
     /** Related Vertex (sub)class, to create vertices of the proper type */
     private final Class<? extends V> vertexClass;
 
-    /** All current Vertices of the graph, handled by a map: Id -> Vertex */
-    private final ConcurrentHashMap<Integer, V> vertices = new ConcurrentHashMap<>();
+    /** All current Vertices of the graph, handled by a table: Id -> Vertex */
+    private final VertexTable<V> vertices = new VertexTable<>();
 
     /** Global id to uniquely identify a vertex */
     private final AtomicInteger globalVertexId = new AtomicInteger(0);
@@ -169,7 +168,7 @@ public class BasicDigraph<D extends Digraph<D, V>, V extends Vertex>
     @Override
     public Collection<V> getVertices ()
     {
-        return Collections.unmodifiableCollection(vertices.values());
+        return Collections.unmodifiableCollection(vertices);
     }
 
     //--------------//
@@ -57,12 +57,12 @@ public abstract class BasicVertex<D extends Digraph, V extends Vertex<D, V>>
     /**
      * Incoming edges from other vertices
      */
-    protected final List<V> sources = new ArrayList<>();
+    protected final List<V> sources = new EdgeList<>();
 
     /**
      * Outgoing edges to other vertices
      */
-    protected final List<V> targets = new ArrayList<>();
+    protected final List<V> targets = new EdgeList<>();
 
     /**
      * Containing graph
@@ -0,0 +1,181 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                              E d g e L i s t                               //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.graph;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Class {@code EdgeList} is a compact list of the vertices linked to a
+ * vertex.
+ *
+ * <p>Most vertices have very few edges, so no array is allocated until
+ * the first element is added, and the array then grows by small steps
+ * rather than starting at the usual list capacity.
+ *
+ * @param <V> precise vertex type
+ *
+ * @author Hervé Bitteur
+ */
+@NotThreadSafe
+class EdgeList<V>
+        extends AbstractList<V>
+        implements RandomAccess
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Shared array for empty lists */
+    private static final Object[] EMPTY = new Object[0];
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** The elements, only the first size ones being meaningful */
+    private Object[] elements = EMPTY;
+
+    /** Number of elements */
+    private int size;
+
+    //~ Methods ----------------------------------------------------------------
+    //-----//
+    // add //
+    //-----//
+    @Override
+    public void add (int index,
+                     V element)
+    {
+        if ((index < 0) || (index > size)) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+
+        if (size == elements.length) {
+            elements = Arrays.copyOf(
+                    elements,
+                    (size < 4) ? (size + 1) : (2 * size));
+        }
+
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+        modCount++;
+    }
+
+    //-------//
+    // clear //
+    //-------//
+    @Override
+    public void clear ()
+    {
+        elements = EMPTY;
+        size = 0;
+        modCount++;
+    }
+
+    //-----//
+    // get //
+    //-----//
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get (int index)
+    {
+        checkIndex(index);
+
+        return (V) elements[index];
+    }
+
+    //---------//
+    // indexOf //
+    //---------//
+    @Override
+    public int indexOf (Object o)
+    {
+        for (int i = 0; i < size; i++) {
+            if ((o == null) ? (elements[i] == null) : o.equals(elements[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove (int index)
+    {
+        checkIndex(index);
+
+        V old = (V) elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        modCount++;
+
+        return old;
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    @Override
+    public boolean remove (Object o)
+    {
+        int index = indexOf(o);
+
+        if (index == -1) {
+            return false;
+        }
+
+        remove(index);
+
+        return true;
+    }
+
+    //-----//
+    // set //
+    //-----//
+    @Override
+    @SuppressWarnings("unchecked")
+    public V set (int index,
+                  V element)
+    {
+        checkIndex(index);
+
+        V old = (V) elements[index];
+        elements[index] = element;
+
+        return old;
+    }
+
+    //------//
+    // size //
+    //------//
+    @Override
+    public int size ()
+    {
+        return size;
+    }
+
+    //------------//
+    // checkIndex //
+    //------------//
+    private void checkIndex (int index)
+    {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        }
+    }
+}
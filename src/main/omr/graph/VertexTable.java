@@ -0,0 +1,264 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                           V e r t e x T a b l e                            //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.graph;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class {@code VertexTable} stores the vertices of a graph in an array
+ * indexed by vertex id.
+ *
+ * <p>A removed vertex leaves an empty slot (a tombstone) so that ids
+ * remain stable. Iteration does not browse these slots: it uses a compact
+ * list of the current vertices, built on first iteration after a
+ * modification and then shared by all iterations until the next
+ * modification. Trailing empty slots are trimmed, and the array shrinks
+ * when the highest id stored goes well below its length.
+ *
+ * <p>Modifications are serialized, while lookups proceed without locking
+ * on the current array, whose slots have volatile semantics. Iterators
+ * work on a snapshot, so they never throw ConcurrentModificationException.
+ *
+ * @param <V> precise vertex type
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+class VertexTable<V>
+        extends AbstractCollection<V>
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Initial number of slots */
+    private static final int INITIAL_LENGTH = 64;
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Current slots, indexed by vertex id */
+    private volatile AtomicReferenceArray<V> slots = new AtomicReferenceArray<>(
+            INITIAL_LENGTH);
+
+    /** Number of vertices currently stored */
+    private volatile int count;
+
+    /** Highest id currently stored, or -1 */
+    private volatile int maxId = -1;
+
+    /** Compact list of current vertices, or null when stale */
+    private volatile List<V> compacted;
+
+    //~ Methods ----------------------------------------------------------------
+    //-----//
+    // get //
+    //-----//
+    /**
+     * Report the vertex stored at the provided id.
+     *
+     * @param id the vertex id
+     * @return the vertex found, or null
+     */
+    public V get (int id)
+    {
+        final AtomicReferenceArray<V> array = slots;
+
+        if ((id < 0) || (id >= array.length())) {
+            return null;
+        }
+
+        return array.get(id);
+    }
+
+    //----------//
+    // iterator //
+    //----------//
+    @Override
+    public Iterator<V> iterator ()
+    {
+        List<V> list = compacted;
+
+        if (list == null) {
+            list = compact();
+        }
+
+        return list.iterator();
+    }
+
+    //-----//
+    // put //
+    //-----//
+    /**
+     * Store a vertex at the provided id, replacing any vertex already
+     * stored there.
+     *
+     * @param id     the vertex id
+     * @param vertex the vertex to store
+     */
+    public synchronized void put (int id,
+                                  V vertex)
+    {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative vertex id " + id);
+        }
+
+        AtomicReferenceArray<V> array = slots;
+
+        if (id >= array.length()) {
+            array = grow(id);
+        }
+
+        if (array.getAndSet(id, vertex) == null) {
+            count++;
+        }
+
+        maxId = Math.max(maxId, id);
+        compacted = null;
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove the vertex stored at the provided id, if any.
+     *
+     * @param id the vertex id
+     * @return the removed vertex, or null
+     */
+    public synchronized V remove (int id)
+    {
+        final AtomicReferenceArray<V> array = slots;
+
+        if ((id < 0) || (id >= array.length())) {
+            return null;
+        }
+
+        V vertex = array.getAndSet(id, null);
+
+        if (vertex != null) {
+            count--;
+            compacted = null;
+
+            if (id == maxId) {
+                trim();
+            }
+        }
+
+        return vertex;
+    }
+
+    //------//
+    // size //
+    //------//
+    @Override
+    public int size ()
+    {
+        return count;
+    }
+
+    //---------//
+    // compact //
+    //---------//
+    /**
+     * Build the compact list of current vertices, unless another thread
+     * has just done it.
+     */
+    private synchronized List<V> compact ()
+    {
+        List<V> list = compacted;
+
+        if (list == null) {
+            final AtomicReferenceArray<V> array = slots;
+            final List<V> vertices = new ArrayList<>(count);
+
+            for (int i = 0; i <= maxId; i++) {
+                V vertex = array.get(i);
+
+                if (vertex != null) {
+                    vertices.add(vertex);
+                }
+            }
+
+            compacted = list = Collections.unmodifiableList(vertices);
+        }
+
+        return list;
+    }
+
+    //------//
+    // grow //
+    //------//
+    /**
+     * Allocate a larger array able to host the provided id, and publish
+     * it once filled (called with lock held).
+     */
+    private AtomicReferenceArray<V> grow (int id)
+    {
+        final AtomicReferenceArray<V> array = slots;
+        int length = array.length();
+
+        while (length <= id) {
+            length *= 2;
+        }
+
+        AtomicReferenceArray<V> newArray = new AtomicReferenceArray<>(length);
+
+        for (int i = 0; i < array.length(); i++) {
+            newArray.lazySet(i, array.get(i));
+        }
+
+        slots = newArray;
+
+        return newArray;
+    }
+
+    //------//
+    // trim //
+    //------//
+    /**
+     * Lower the highest id down to the last non-empty slot, and shrink
+     * the array if it has become far too large (called with lock held).
+     */
+    private void trim ()
+    {
+        final AtomicReferenceArray<V> array = slots;
+        int last = maxId;
+
+        while ((last >= 0) && (array.get(last) == null)) {
+            last--;
+        }
+
+        maxId = last;
+
+        int length = array.length();
+
+        while ((length > INITIAL_LENGTH) && (last < (length / 4))) {
+            length /= 2;
+        }
+
+        if (length < array.length()) {
+            AtomicReferenceArray<V> newArray = new AtomicReferenceArray<>(
+                    length);
+
+            for (int i = 0; i <= last; i++) {
+                newArray.lazySet(i, array.get(i));
+            }
+
+            slots = newArray;
+        }
+    }
+}
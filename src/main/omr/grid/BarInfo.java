@@ -16,6 +16,7 @@ import omr.glyph.facets.Glyph;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -59,6 +60,19 @@ public class BarInfo
     }
 
     //~ Methods ----------------------------------------------------------------
+    //-----------//
+    // getSticks //
+    //-----------//
+    /**
+     * Report the composing sticks, as they were provided.
+     *
+     * @return the sticks, from left to right
+     */
+    public List<Glyph> getSticks ()
+    {
+        return Collections.unmodifiableList(sticks);
+    }
+
     //--------------------//
     // getSticksAncestors //
     //--------------------//
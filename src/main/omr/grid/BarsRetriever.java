@@ -342,6 +342,7 @@ public class BarsRetriever
     {
         for (StaffInfo staff : system.getStaves()) {
             logger.debug("{}", staff);
+            staff.invalidateOrdinates();
 
             // Adjust left and right endings of each line in the staff
             for (LineInfo l : staff.getLines()) {
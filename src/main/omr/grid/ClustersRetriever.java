@@ -23,7 +23,7 @@ import omr.glyph.facets.Glyph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import omr.math.Histogram;
+import omr.math.DenseHistogram;
 
 import omr.run.Orientation;
 import static omr.run.Orientation.*;
@@ -1029,7 +1029,7 @@ public class ClustersRetriever
     private void retrievePopularSize ()
     {
         // Build histogram of combs lengths
-        Histogram<Integer> histo = new Histogram<>();
+        DenseHistogram histo = new DenseHistogram();
 
         for (List<FilamentComb> list : colCombs.values()) {
             for (FilamentComb comb : list) {
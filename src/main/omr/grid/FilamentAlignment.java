@@ -180,6 +180,19 @@ public class FilamentAlignment
         return (meanDistance != null) ? meanDistance : 0;
     }
 
+    //-----------//
+    // getPoints //
+    //-----------//
+    /**
+     * Report the defining points of the curve, if already computed.
+     *
+     * @return the sequence of points, from start to stop, or null
+     */
+    public List<Point2D> getPoints ()
+    {
+        return (line != null) ? points : null;
+    }
+
     //---------------//
     // getPositionAt //
     //---------------//
@@ -361,6 +374,26 @@ public class FilamentAlignment
         }
     }
 
+    //-----------//
+    // setPoints //
+    //-----------//
+    /**
+     * Restore the curve from its defining points, as reported by
+     * {@link #getPoints}.
+     *
+     * @param points the sequence of points, from start to stop
+     */
+    public void setPoints (List<Point2D> points)
+    {
+        this.points = new ArrayList<>(points);
+        startPoint = points.get(0);
+        stopPoint = points.get(points.size() - 1);
+        line = NaturalSpline.interpolate(
+                points.toArray(new Point2D[points.size()]));
+        slope = null;
+        meanDistance = null;
+    }
+
     //---------//
     // slopeAt //
     //---------//
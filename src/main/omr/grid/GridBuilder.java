@@ -133,6 +133,9 @@ public class GridBuilder
             // Adjust ending points of all systems (side) bars
             barsRetriever.adjustSystemBars();
 
+            // Staff lines are now final
+            buildStaffOrdinates();
+
             /** Companion in charge of target grid */
             TargetBuilder targetBuilder = new TargetBuilder(sheet);
             sheet.setTargetBuilder(targetBuilder);
@@ -156,6 +159,19 @@ public class GridBuilder
         }
     }
 
+    //----------------------//
+    // buildsDewarpedTarget //
+    //----------------------//
+    /**
+     * Report whether the GRID step builds the dewarped target as well.
+     *
+     * @return true if so
+     */
+    static boolean buildsDewarpedTarget ()
+    {
+        return constants.buildDewarpedTarget.isSet();
+    }
+
     //------------//
     // updateBars //
     //------------//
@@ -181,6 +197,7 @@ public class GridBuilder
 
         barsRetriever.retrieveMeasureBars();
         barsRetriever.adjustSystemBars();
+        buildStaffOrdinates();
     }
 
     //--------------//
@@ -228,6 +245,19 @@ public class GridBuilder
         }
     }
 
+    //---------------------//
+    // buildStaffOrdinates //
+    //---------------------//
+    /**
+     * Sample the ordinates of all staff lines, once they are final.
+     */
+    private void buildStaffOrdinates ()
+    {
+        for (StaffInfo staff : sheet.getStaffManager().getStaves()) {
+            staff.buildOrdinates();
+        }
+    }
+
     //---------------//
     // displayEditor //
     //---------------//
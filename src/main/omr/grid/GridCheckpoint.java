@@ -0,0 +1,1319 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        G r i d C h e c k p o i n t                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.grid;
+
+import omr.check.FailureResult;
+import omr.check.Result;
+import omr.check.SuccessResult;
+
+import omr.glyph.GlyphSignature;
+import omr.glyph.Nest;
+import omr.glyph.Shape;
+import omr.glyph.facets.BasicGlyph;
+import omr.glyph.facets.Glyph;
+import omr.glyph.facets.GlyphComposition.Linking;
+
+import omr.lag.BasicLag;
+import omr.lag.Lag;
+import omr.lag.Section;
+
+import omr.math.GeoPath;
+
+import omr.moments.GeometricMoments;
+
+import omr.run.Orientation;
+import omr.run.Run;
+import omr.run.RunsTable;
+
+import omr.sheet.BarsChecker;
+import omr.sheet.Scale;
+import omr.sheet.Sheet;
+import omr.sheet.Skew;
+import omr.sheet.SystemInfo;
+
+import omr.step.Steps;
+
+import omr.util.HorizontalSide;
+import static omr.util.HorizontalSide.*;
+import omr.util.VerticalSide;
+import static omr.util.VerticalSide.*;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Class {@code GridCheckpoint} encodes and decodes the sheet state
+ * which results from the GRID step, on behalf of
+ * {@link omr.sheet.SheetCheckpoint}.
+ *
+ * <p>The state is made of:
+ * <ul>
+ * <li>the horizontal and vertical lags, with their sections, the edges
+ * between sections, and the tables of runs behind the lags,</li>
+ * <li>the glyphs of the nest, with their member sections, shape, check
+ * result, registered signature and filament curve, and the nest
+ * originals,</li>
+ * <li>the sheet skew,</li>
+ * <li>the staves, with their lines, limits and bars,</li>
+ * <li>the systems, with their bars and bar alignments.</li>
+ * </ul>
+ * Sections and glyphs keep their ids, and the nest goes on with the
+ * same glyph ids, so that the following steps behave exactly as after a
+ * genuine GRID step.
+ *
+ * <p>The inner state of the grid retrievers is not saved, hence a
+ * restored grid does not support {@link GridBuilder#updateBars}, as
+ * needed by the manual edition of barlines.
+ *
+ * @author Hervé Bitteur
+ */
+public class GridCheckpoint
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Kinds of glyphs, as encoded. */
+    private static final int BASIC_GLYPH = 0;
+
+    private static final int FILAMENT = 1;
+
+    private static final int LINE_FILAMENT = 2;
+
+    /** Kinds of check results, as encoded. */
+    private static final int NO_RESULT = 0;
+
+    private static final int SUCCESS = 1;
+
+    private static final int FAILURE = 2;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //----------------//
+    // GridCheckpoint //
+    //----------------//
+    private GridCheckpoint ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //------//
+    // read //
+    //------//
+    /**
+     * Restore the sheet state right after the GRID step.
+     * Everything is read before the sheet is modified.
+     *
+     * @param sheet the sheet to restore
+     * @param in    the input stream
+     * @throws IOException if reading fails
+     */
+    public static void read (Sheet sheet,
+                             DataInputStream in)
+            throws IOException
+    {
+        new Decoder(sheet, in).decode();
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Save the sheet state right after the GRID step.
+     *
+     * @param sheet the sheet just processed
+     * @param out   the output stream
+     * @throws IOException if writing fails, or if the state contains an
+     *                     item which cannot be encoded
+     */
+    public static void write (Sheet sheet,
+                              DataOutputStream out)
+            throws IOException
+    {
+        new Encoder(sheet, out).encode();
+    }
+
+    //------------//
+    // coordCount //
+    //------------//
+    /**
+     * Report the number of coordinates used by a path segment type.
+     */
+    private static int coordCount (int type)
+    {
+        switch (type) {
+        case PathIterator.SEG_MOVETO:
+        case PathIterator.SEG_LINETO:
+            return 2;
+
+        case PathIterator.SEG_QUADTO:
+            return 4;
+
+        case PathIterator.SEG_CUBICTO:
+            return 6;
+
+        default:
+            return 0;
+        }
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //---------//
+    // Decoder //
+    //---------//
+    private static class Decoder
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final Sheet sheet;
+
+        private final DataInputStream in;
+
+        /** Horizontal and vertical lags. */
+        private final Lag[] lags = new Lag[2];
+
+        /** Decoded sections, per lag, indexed by id. */
+        private final List<Map<Integer, Section>> sections = new ArrayList<>();
+
+        /** Decoded glyphs, by index. */
+        private Glyph[] glyphs;
+
+        //~ Constructors -------------------------------------------------------
+        Decoder (Sheet sheet,
+                 DataInputStream in)
+        {
+            this.sheet = sheet;
+            this.in = in;
+        }
+
+        //~ Methods ------------------------------------------------------------
+        void decode ()
+                throws IOException
+        {
+            final Double skewSlope = in.readBoolean() ? in.readDouble() : null;
+
+            for (int i = 0; i < lags.length; i++) {
+                lags[i] = readLag();
+            }
+
+            // Glyphs: kinds first, then contents
+            glyphs = new Glyph[in.readInt()];
+
+            for (int i = 0; i < glyphs.length; i++) {
+                glyphs[i] = createGlyph(in.readByte(), in.readInt());
+            }
+
+            final boolean[] inNest = new boolean[glyphs.length];
+
+            for (int i = 0; i < glyphs.length; i++) {
+                inNest[i] = in.readBoolean();
+                readGlyph(glyphs[i]);
+            }
+
+            // Nest originals, including the obsolete ones
+            final int originalCount = in.readInt();
+            final List<GlyphSignature> signatures = new ArrayList<>(
+                    originalCount);
+            final List<Glyph> originals = new ArrayList<>(originalCount);
+
+            for (int i = 0; i < originalCount; i++) {
+                signatures.add(readSignature());
+                originals.add(readGlyphRef());
+            }
+
+            // Section -> glyph links, set while no glyph is in the nest
+            for (Map<Integer, Section> map : sections) {
+                for (Section section : map.values()) {
+                    section.setGlyph(readGlyphRef());
+                }
+            }
+
+            // Staves
+            final List<StaffInfo> staves = new ArrayList<>();
+            GeoPath prevBottom = null;
+
+            for (int i = in.readInt(); i > 0; i--) {
+                StaffInfo staff = readStaff(prevBottom);
+                staves.add(staff);
+                prevBottom = staff.getLimit(BOTTOM);
+            }
+
+            final Integer[] systemTops = readTops();
+            final Integer[] partTops = readTops();
+
+            // Systems (as staff ranges, the staves being not yet managed)
+            final int systemCount = in.readInt();
+            final int[][] ranges = new int[systemCount][];
+            final List<List<BarInfo>> systemBars = new ArrayList<>();
+            final List<List<BarAlignment>> alignments = new ArrayList<>();
+
+            for (int i = 0; i < systemCount; i++) {
+                ranges[i] = new int[]{in.readInt(), in.readInt(), in.readInt()};
+                systemBars.add(Arrays.asList(readBar(), readBar()));
+                alignments.add(readAlignments());
+            }
+
+            final int lastGlyphId = in.readInt();
+            final int longSectionMaxId = in.readInt();
+
+            // Now, update the sheet
+            sheet.reset(Steps.GRID);
+
+            final Nest nest = sheet.getNest();
+
+            for (int i = 0; i < glyphs.length; i++) {
+                if (inNest[i]) {
+                    nest.restoreGlyph(glyphs[i]);
+                }
+            }
+
+            for (int i = 0; i < originalCount; i++) {
+                nest.restoreOriginal(signatures.get(i), originals.get(i));
+            }
+
+            nest.setLastGlyphId(lastGlyphId);
+
+            for (Map<Integer, Section> map : sections) {
+                for (Section section : map.values()) {
+                    Glyph glyph = section.getGlyph();
+
+                    if ((glyph != null) && (glyph.getNest() != null)) {
+                        nest.mapSection(section, glyph);
+                    }
+                }
+            }
+
+            sheet.setHorizontalLag(lags[0]);
+            sheet.setVerticalLag(lags[1]);
+
+            if (skewSlope != null) {
+                sheet.setSkew(new Skew(skewSlope, sheet));
+            }
+
+            final StaffManager staffManager = sheet.getStaffManager();
+
+            for (StaffInfo staff : staves) {
+                staffManager.addStaff(staff);
+            }
+
+            staffManager.setSystemTops(systemTops);
+            staffManager.setPartTops(partTops);
+
+            final List<SystemInfo> systems = new ArrayList<>();
+
+            for (int i = 0; i < systemCount; i++) {
+                SystemInfo system = new SystemInfo(
+                        ranges[i][0],
+                        sheet,
+                        staffManager.getRange(
+                        staves.get(ranges[i][1]),
+                        staves.get(ranges[i][2])));
+                system.setBar(LEFT, systemBars.get(i).get(0));
+                system.setBar(RIGHT, systemBars.get(i).get(1));
+                system.setBarAlignments(alignments.get(i));
+                systems.add(system);
+            }
+
+            sheet.setSystems(systems);
+            sheet.setLongSectionMaxId(longSectionMaxId);
+            sheet.setBarsChecker(new BarsChecker(sheet, false));
+
+            final TargetBuilder targetBuilder = new TargetBuilder(sheet);
+            sheet.setTargetBuilder(targetBuilder);
+
+            if (GridBuilder.buildsDewarpedTarget()) {
+                targetBuilder.buildInfo();
+            }
+        }
+
+        private Glyph createGlyph (int kind,
+                                   int interline)
+                throws IOException
+        {
+            final Glyph glyph;
+
+            switch (kind) {
+            case BASIC_GLYPH:
+                return new BasicGlyph(interline);
+
+            case FILAMENT:
+                glyph = new Filament(sheet.getScale());
+
+                break;
+
+            case LINE_FILAMENT:
+                glyph = new LineFilament(sheet.getScale());
+
+                break;
+
+            default:
+                throw new IOException("Unknown glyph kind " + kind);
+            }
+
+            if (glyph.getInterline() != interline) {
+                throw new IOException("Unexpected filament interline");
+            }
+
+            return glyph;
+        }
+
+        private List<BarAlignment> readAlignments ()
+                throws IOException
+        {
+            final int count = in.readInt();
+
+            if (count < 0) {
+                return null;
+            }
+
+            final List<BarAlignment> list = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                final int staffCount = in.readInt();
+                final BarAlignment alignment = new BarAlignment(
+                        sheet,
+                        staffCount);
+                alignment.setManual(in.readBoolean());
+
+                for (int index = 0; index < staffCount; index++) {
+                    if (in.readBoolean()) {
+                        Point2D loc = new Point2D.Double(
+                                in.readDouble(),
+                                in.readDouble());
+                        alignment.addInter(
+                                index,
+                                new StickIntersection(loc, readGlyphRef()));
+                    }
+                }
+
+                list.add(alignment);
+            }
+
+            return list;
+        }
+
+        private BarInfo readBar ()
+                throws IOException
+        {
+            final int count = in.readInt();
+
+            if (count < 0) {
+                return null;
+            }
+
+            final List<Glyph> sticks = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                sticks.add(readGlyphRef());
+            }
+
+            return new BarInfo(sticks);
+        }
+
+        private void readGlyph (Glyph glyph)
+                throws IOException
+        {
+            glyph.setId(in.readInt());
+
+            for (int i = in.readInt(); i > 0; i--) {
+                glyph.addSection(readSectionRef(), Linking.NO_LINK_BACK);
+            }
+
+            glyph.setPartOf(readGlyphRef());
+
+            if (in.readBoolean()) {
+                final int ordinal = in.readInt();
+                glyph.setShape(
+                        (ordinal >= 0) ? Shape.values()[ordinal] : null,
+                        in.readDouble());
+            }
+
+            for (int i = in.readInt(); i > 0; i--) {
+                glyph.forbidShape(Shape.values()[in.readInt()]);
+            }
+
+            glyph.setResult(readResult());
+
+            if (in.readBoolean()) {
+                glyph.setVip();
+            }
+
+            glyph.setProcessed(in.readBoolean());
+            glyph.setContourBox(
+                    new Rectangle(
+                    in.readInt(),
+                    in.readInt(),
+                    in.readInt(),
+                    in.readInt()));
+
+            if (in.readBoolean()) {
+                glyph.setRegisteredSignature(readSignature());
+            }
+
+            if (glyph instanceof Filament) {
+                final int count = in.readInt();
+
+                if (count > 0) {
+                    final List<Point2D> points = new ArrayList<>(count);
+
+                    for (int i = 0; i < count; i++) {
+                        points.add(
+                                new Point2D.Double(
+                                in.readDouble(),
+                                in.readDouble()));
+                    }
+
+                    ((Filament) glyph).getAlignment()
+                            .setPoints(points);
+                }
+            }
+
+            if (glyph instanceof LineFilament) {
+                ((LineFilament) glyph).setCluster(null, in.readInt());
+            }
+        }
+
+        private Glyph readGlyphRef ()
+                throws IOException
+        {
+            final int index = in.readInt();
+
+            return (index >= 0) ? glyphs[index] : null;
+        }
+
+        private Lag readLag ()
+                throws IOException
+        {
+            final Orientation orientation = (sections.isEmpty())
+                    ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+            final Lag lag = new BasicLag(in.readUTF(), orientation);
+            final int lastId = in.readInt();
+            final SortedMap<Integer, Section> map = new TreeMap<>();
+            final List<Section> removed = new ArrayList<>();
+            sections.add(map);
+
+            // Sections are created in id order, gaps are created then removed
+            int count = in.readInt();
+            int nextId = (count > 0) ? in.readInt() : (lastId + 1);
+
+            for (int id = 1; id <= lastId; id++) {
+                final Section section = lag.createVertex();
+
+                if (id != nextId) {
+                    removed.add(section);
+
+                    continue;
+                }
+
+                map.put(id, section);
+
+                if (!in.readBoolean()) {
+                    removed.add(section); // Deleted, but still referenced
+                }
+
+                section.setFirstPos(in.readInt());
+
+                for (int i = in.readInt(); i > 0; i--) {
+                    section.append(
+                            new Run(
+                            in.readInt(),
+                            in.readInt(),
+                            in.readUnsignedByte()));
+                }
+
+                final byte fat = in.readByte();
+
+                if (fat >= 0) {
+                    section.setFat(fat == 1);
+                }
+
+                section.setProcessed(in.readBoolean());
+
+                if (in.readBoolean()) {
+                    section.setVip();
+                }
+
+                nextId = (--count > 0) ? in.readInt() : (lastId + 1);
+            }
+
+            for (Section section : removed) {
+                lag.removeVertex(section);
+            }
+
+            // Edges, in their original order
+            for (Section section : map.values()) {
+                for (int i = in.readInt(); i > 0; i--) {
+                    section.getTargets()
+                            .add(map.get(in.readInt()));
+                }
+
+                for (int i = in.readInt(); i > 0; i--) {
+                    section.getSources()
+                            .add(map.get(in.readInt()));
+                }
+            }
+
+            // Runs table, sharing the runs of the sections
+            final RunsTable table = new RunsTable(
+                    in.readUTF(),
+                    orientation,
+                    new Dimension(in.readInt(), in.readInt()));
+
+            for (int pos = 0; pos < table.getSize(); pos++) {
+                final List<Run> seq = table.getSequence(pos);
+
+                for (int i = in.readInt(); i > 0; i--) {
+                    Section section = map.get(in.readInt());
+                    seq.add(section.getRuns().get(pos - section.getFirstPos()));
+                }
+            }
+
+            lag.setRuns(table);
+
+            return lag;
+        }
+
+        private GeoPath readPath ()
+                throws IOException
+        {
+            if (!in.readBoolean()) {
+                return null;
+            }
+
+            final GeoPath path = new GeoPath();
+            path.setWindingRule(in.readInt());
+
+            for (int i = in.readInt(); i > 0; i--) {
+                final int type = in.readInt();
+                final double[] c = new double[6];
+
+                for (int j = 0; j < coordCount(type); j++) {
+                    c[j] = in.readDouble();
+                }
+
+                switch (type) {
+                case PathIterator.SEG_MOVETO:
+                    path.moveTo(c[0], c[1]);
+
+                    break;
+
+                case PathIterator.SEG_LINETO:
+                    path.lineTo(c[0], c[1]);
+
+                    break;
+
+                case PathIterator.SEG_QUADTO:
+                    path.quadTo(c[0], c[1], c[2], c[3]);
+
+                    break;
+
+                case PathIterator.SEG_CUBICTO:
+                    path.curveTo(c[0], c[1], c[2], c[3], c[4], c[5]);
+
+                    break;
+
+                default:
+                    path.closePath();
+                }
+            }
+
+            return path;
+        }
+
+        private Result readResult ()
+                throws IOException
+        {
+            final int kind = in.readByte();
+
+            if (kind == NO_RESULT) {
+                return null;
+            }
+
+            final String comment = in.readUTF();
+
+            if (kind == SUCCESS) {
+                // Bars retrieval checks this very instance
+                if (comment.equals(BarsChecker.BAR_PART_DEFINING.comment)) {
+                    return BarsChecker.BAR_PART_DEFINING;
+                }
+
+                return new SuccessResult(comment);
+            } else {
+                return new FailureResult(comment);
+            }
+        }
+
+        private Section readSectionRef ()
+                throws IOException
+        {
+            return sections.get(in.readByte())
+                    .get(in.readInt());
+        }
+
+        private GlyphSignature readSignature ()
+                throws IOException
+        {
+            final int weight = in.readInt();
+            final double[] values = new double[GeometricMoments.size];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readDouble();
+            }
+
+            return new GlyphSignature(weight, new GeometricMoments(values));
+        }
+
+        private StaffInfo readStaff (GeoPath prevBottom)
+                throws IOException
+        {
+            final int id = in.readInt();
+            final double left = in.readDouble();
+            final double right = in.readDouble();
+            final Scale specificScale = in.readBoolean()
+                    ? Scale.readBinary(in) : null;
+            final List<LineInfo> lines = new ArrayList<>();
+
+            for (int i = in.readInt(); i > 0; i--) {
+                lines.add(new FilamentLine((LineFilament) readGlyphRef()));
+            }
+
+            final StaffInfo staff = new StaffInfo(
+                    id,
+                    left,
+                    right,
+                    specificScale,
+                    lines);
+            staff.setAbscissa(LEFT, left);
+            staff.setAbscissa(RIGHT, right);
+            staff.setLimit(TOP, in.readBoolean() ? prevBottom : readPath());
+            staff.setLimit(BOTTOM, readPath());
+            staff.setBar(LEFT, readBar());
+            staff.setBar(RIGHT, readBar());
+
+            if (in.readBoolean()) {
+                staff.buildOrdinates();
+            }
+
+            return staff;
+        }
+
+        private Integer[] readTops ()
+                throws IOException
+        {
+            final int count = in.readInt();
+
+            if (count < 0) {
+                return null;
+            }
+
+            final Integer[] tops = new Integer[count];
+
+            for (int i = 0; i < count; i++) {
+                tops[i] = in.readBoolean() ? in.readInt() : null;
+            }
+
+            return tops;
+        }
+    }
+
+    //---------//
+    // Encoder //
+    //---------//
+    private static class Encoder
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final Sheet sheet;
+
+        private final DataOutputStream out;
+
+        /** Horizontal and vertical lags. */
+        private final Lag[] lags;
+
+        /** Sections to encode, per lag, sorted by id. */
+        private final List<SortedMap<Integer, Section>> sections = new ArrayList<>();
+
+        /** Glyphs to encode, with their index. */
+        private final Map<Glyph, Integer> glyphIndex = new IdentityHashMap<>();
+
+        private final List<Glyph> glyphs = new ArrayList<>();
+
+        /** Items whose references are still to be collected. */
+        private final Deque<Object> pending = new ArrayDeque<>();
+
+        //~ Constructors -------------------------------------------------------
+        Encoder (Sheet sheet,
+                 DataOutputStream out)
+        {
+            this.sheet = sheet;
+            this.out = out;
+            lags = new Lag[]{sheet.getHorizontalLag(), sheet.getVerticalLag()};
+        }
+
+        //~ Methods ------------------------------------------------------------
+        void encode ()
+                throws IOException
+        {
+            collect();
+
+            final Skew skew = sheet.getSkew();
+            out.writeBoolean(skew != null);
+
+            if (skew != null) {
+                out.writeDouble(skew.getSlope());
+            }
+
+            for (int i = 0; i < lags.length; i++) {
+                writeLag(lags[i], sections.get(i));
+            }
+
+            // Glyphs: kinds first, then contents
+            final Nest nest = sheet.getNest();
+            out.writeInt(glyphs.size());
+
+            for (Glyph glyph : glyphs) {
+                out.writeByte(kindOf(glyph));
+                out.writeInt(glyph.getInterline());
+            }
+
+            for (Glyph glyph : glyphs) {
+                out.writeBoolean(nest.getGlyph(glyph.getId()) == glyph);
+                writeGlyph(glyph);
+            }
+
+            // Nest originals, including the obsolete ones
+            final List<Map.Entry<GlyphSignature, Glyph>> originals = getOriginals();
+            out.writeInt(originals.size());
+
+            for (Map.Entry<GlyphSignature, Glyph> entry : originals) {
+                writeSignature(entry.getKey());
+                writeGlyphRef(entry.getValue());
+            }
+
+            // Section -> glyph links
+            for (Map<Integer, Section> map : sections) {
+                for (Section section : map.values()) {
+                    writeGlyphRef(section.getGlyph());
+                }
+            }
+
+            // Staves
+            final StaffManager staffManager = sheet.getStaffManager();
+            GeoPath prevBottom = null;
+            out.writeInt(staffManager.getStaffCount());
+
+            for (StaffInfo staff : staffManager.getStaves()) {
+                writeStaff(staff, prevBottom);
+                prevBottom = staff.getLimit(BOTTOM);
+            }
+
+            writeTops(staffManager.getSystemTops());
+            writeTops(staffManager.getPartTops());
+
+            // Systems
+            out.writeInt(sheet.getSystems().size());
+
+            for (SystemInfo system : sheet.getSystems()) {
+                out.writeInt(system.getId());
+                out.writeInt(staffManager.getIndexOf(system.getFirstStaff()));
+                out.writeInt(staffManager.getIndexOf(system.getLastStaff()));
+                writeBar(system.getBar(LEFT));
+                writeBar(system.getBar(RIGHT));
+                writeAlignments(system.getBarAlignments());
+            }
+
+            out.writeInt(sheet.getNest().getLastGlyphId());
+            out.writeInt(sheet.getLongSectionMaxId());
+        }
+
+        private void add (Glyph glyph)
+        {
+            if ((glyph != null) && !glyphIndex.containsKey(glyph)) {
+                glyphIndex.put(glyph, glyphs.size());
+                glyphs.add(glyph);
+                pending.add(glyph);
+            }
+        }
+
+        private void add (Section section)
+                throws IOException
+        {
+            final SortedMap<Integer, Section> map = sections.get(
+                    lagIndex(section));
+
+            if (map.put(section.getId(), section) == null) {
+                pending.add(section);
+            } else if (map.get(section.getId()) != section) {
+                throw new IOException("Duplicate id for " + section);
+            }
+        }
+
+        private void add (BarInfo bar)
+        {
+            if (bar != null) {
+                for (Glyph stick : bar.getSticks()) {
+                    add(stick);
+                }
+            }
+        }
+
+        /**
+         * Collect all the sections and glyphs, directly or indirectly
+         * referenced by the lags, the nest, the staves and the systems.
+         */
+        private void collect ()
+                throws IOException
+        {
+            for (Lag lag : lags) {
+                sections.add(new TreeMap<Integer, Section>());
+            }
+
+            for (Lag lag : lags) {
+                for (Section section : lag.getSections()) {
+                    add(section);
+                }
+            }
+
+            final List<Glyph> nestGlyphs = new ArrayList<>(
+                    sheet.getNest().getAllGlyphs());
+            Collections.sort(nestGlyphs, Glyph.byId);
+
+            for (Glyph glyph : nestGlyphs) {
+                add(glyph);
+            }
+
+            for (Map.Entry<GlyphSignature, Glyph> entry : getOriginals()) {
+                add(entry.getValue());
+            }
+
+            for (StaffInfo staff : sheet.getStaffManager()
+                    .getStaves()) {
+                for (LineInfo line : staff.getLines()) {
+                    add(((FilamentLine) line).fil);
+                }
+
+                add(staff.getBar(LEFT));
+                add(staff.getBar(RIGHT));
+            }
+
+            for (SystemInfo system : sheet.getSystems()) {
+                add(system.getBar(LEFT));
+                add(system.getBar(RIGHT));
+
+                if (system.getBarAlignments() != null) {
+                    for (BarAlignment alignment : system.getBarAlignments()) {
+                        for (StickIntersection inter : alignment.
+                                getIntersections()) {
+                            if (inter != null) {
+                                add(inter.getStick());
+                            }
+                        }
+                    }
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                final Object item = pending.poll();
+
+                if (item instanceof Section) {
+                    add(((Section) item).getGlyph());
+                } else {
+                    final Glyph glyph = (Glyph) item;
+
+                    for (Section section : glyph.getMembers()) {
+                        add(section);
+                    }
+
+                    add(glyph.getPartOf());
+                }
+            }
+        }
+
+        /**
+         * Report the nest originals, in a reproducible order.
+         */
+        private List<Map.Entry<GlyphSignature, Glyph>> getOriginals ()
+        {
+            final List<Map.Entry<GlyphSignature, Glyph>> list = new ArrayList<>(
+                    sheet.getNest().getOriginals().entrySet());
+            Collections.sort(
+                    list,
+                    new Comparator<Map.Entry<GlyphSignature, Glyph>>()
+            {
+                @Override
+                public int compare (Map.Entry<GlyphSignature, Glyph> e1,
+                                    Map.Entry<GlyphSignature, Glyph> e2)
+                {
+                    return e1.getKey()
+                            .compareTo(e2.getKey());
+                }
+            });
+
+            return list;
+        }
+
+        private int kindOf (Glyph glyph)
+                throws IOException
+        {
+            if (glyph.getClass() == BasicGlyph.class) {
+                return BASIC_GLYPH;
+            } else if (glyph.getClass() == Filament.class) {
+                return FILAMENT;
+            } else if (glyph.getClass() == LineFilament.class) {
+                return LINE_FILAMENT;
+            } else {
+                throw new IOException("Unsupported glyph " + glyph);
+            }
+        }
+
+        private int lagIndex (Section section)
+                throws IOException
+        {
+            for (int i = 0; i < lags.length; i++) {
+                if (section.getGraph() == lags[i]) {
+                    return i;
+                }
+            }
+
+            throw new IOException("Section out of sheet lags " + section);
+        }
+
+        private void writeAlignments (List<BarAlignment> alignments)
+                throws IOException
+        {
+            if (alignments == null) {
+                out.writeInt(-1);
+
+                return;
+            }
+
+            out.writeInt(alignments.size());
+
+            for (BarAlignment alignment : alignments) {
+                final StickIntersection[] inters = alignment.getIntersections();
+                out.writeInt(inters.length);
+                out.writeBoolean(alignment.isManual());
+
+                for (StickIntersection inter : inters) {
+                    out.writeBoolean(inter != null);
+
+                    if (inter != null) {
+                        out.writeDouble(inter.x);
+                        out.writeDouble(inter.y);
+                        writeGlyphRef(inter.getStick());
+                    }
+                }
+            }
+        }
+
+        private void writeBar (BarInfo bar)
+                throws IOException
+        {
+            if (bar == null) {
+                out.writeInt(-1);
+
+                return;
+            }
+
+            out.writeInt(bar.getSticks().size());
+
+            for (Glyph stick : bar.getSticks()) {
+                writeGlyphRef(stick);
+            }
+        }
+
+        private void writeGlyph (Glyph glyph)
+                throws IOException
+        {
+            out.writeInt(glyph.getId());
+            out.writeInt(glyph.getMembers().size());
+
+            for (Section section : glyph.getMembers()) {
+                writeSectionRef(section);
+            }
+
+            writeGlyphRef(glyph.getPartOf());
+
+            out.writeBoolean(glyph.getEvaluation() != null);
+
+            if (glyph.getEvaluation() != null) {
+                final Shape shape = glyph.getEvaluation().shape;
+                out.writeInt((shape != null) ? shape.ordinal() : (-1));
+                out.writeDouble(glyph.getEvaluation().grade);
+            }
+
+            final List<Shape> forbidden = new ArrayList<>();
+
+            for (Shape shape : Shape.values()) {
+                if (glyph.isShapeForbidden(shape)) {
+                    forbidden.add(shape);
+                }
+            }
+
+            out.writeInt(forbidden.size());
+
+            for (Shape shape : forbidden) {
+                out.writeInt(shape.ordinal());
+            }
+
+            writeResult(glyph.getResult());
+
+            out.writeBoolean(glyph.isVip());
+            out.writeBoolean(glyph.isProcessed());
+
+            final Rectangle box = glyph.getBounds();
+            out.writeInt(box.x);
+            out.writeInt(box.y);
+            out.writeInt(box.width);
+            out.writeInt(box.height);
+
+            final GlyphSignature sig = glyph.getRegisteredSignature();
+            out.writeBoolean(sig != null);
+
+            if (sig != null) {
+                writeSignature(sig);
+            }
+
+            if (glyph instanceof Filament) {
+                final List<Point2D> points = ((Filament) glyph).getAlignment()
+                        .getPoints();
+                out.writeInt((points != null) ? points.size() : 0);
+
+                if (points != null) {
+                    for (Point2D point : points) {
+                        out.writeDouble(point.getX());
+                        out.writeDouble(point.getY());
+                    }
+                }
+            }
+
+            if (glyph instanceof LineFilament) {
+                out.writeInt(((LineFilament) glyph).getClusterPos());
+            }
+        }
+
+        private void writeGlyphRef (Glyph glyph)
+                throws IOException
+        {
+            out.writeInt((glyph != null) ? glyphIndex.get(glyph) : (-1));
+        }
+
+        private void writeLag (Lag lag,
+                               SortedMap<Integer, Section> map)
+                throws IOException
+        {
+            out.writeUTF(lag.getName());
+            out.writeInt(lag.getLastVertexId());
+            out.writeInt(map.size());
+
+            for (Section section : map.values()) {
+                out.writeInt(section.getId());
+                out.writeBoolean(lag.getVertexById(section.getId()) == section);
+                out.writeInt(section.getFirstPos());
+                out.writeInt(section.getRunCount());
+
+                for (Run run : section.getRuns()) {
+                    out.writeInt(run.getStart());
+                    out.writeInt(run.getLength());
+                    out.writeByte(run.getLevel());
+                }
+
+                final Boolean fat = section.isFat();
+                out.writeByte((fat == null) ? (-1) : (fat ? 1 : 0));
+                out.writeBoolean(section.isProcessed());
+                out.writeBoolean(section.isVip());
+            }
+
+            for (Section section : map.values()) {
+                writeSectionIds(section.getTargets(), map);
+                writeSectionIds(section.getSources(), map);
+            }
+
+            // Runs table, each run being found in its section
+            final RunsTable table = lag.getRuns();
+            out.writeUTF(table.getName());
+            out.writeInt(table.getDimension().width);
+            out.writeInt(table.getDimension().height);
+
+            for (int pos = 0; pos < table.getSize(); pos++) {
+                final List<Run> seq = table.getSequence(pos);
+                out.writeInt(seq.size());
+
+                for (Run run : seq) {
+                    final Section section = run.getSection();
+
+                    if ((section == null)
+                        || (map.get(section.getId()) != section)
+                        || (section.getRuns()
+                            .get(pos - section.getFirstPos()) != run)) {
+                        throw new IOException(
+                                "Run with no proper section in " + lag);
+                    }
+
+                    out.writeInt(section.getId());
+                }
+            }
+        }
+
+        private void writePath (GeoPath path)
+                throws IOException
+        {
+            out.writeBoolean(path != null);
+
+            if (path == null) {
+                return;
+            }
+
+            final List<double[]> segments = new ArrayList<>();
+            final List<Integer> types = new ArrayList<>();
+
+            for (PathIterator it = path.getPathIterator(null); !it.isDone();
+                    it.next()) {
+                final double[] c = new double[6];
+                types.add(it.currentSegment(c));
+                segments.add(c);
+            }
+
+            out.writeInt(path.getWindingRule());
+            out.writeInt(types.size());
+
+            for (int i = 0; i < types.size(); i++) {
+                out.writeInt(types.get(i));
+
+                for (int j = 0; j < coordCount(types.get(i)); j++) {
+                    out.writeDouble(segments.get(i)[j]);
+                }
+            }
+        }
+
+        private void writeResult (Result result)
+                throws IOException
+        {
+            if (result == null) {
+                out.writeByte(NO_RESULT);
+            } else if ((result.getClass() == SuccessResult.class)
+                       && (result.comment != null)) {
+                out.writeByte(SUCCESS);
+                out.writeUTF(result.comment);
+            } else if ((result.getClass() == FailureResult.class)
+                       && (result.comment != null)) {
+                out.writeByte(FAILURE);
+                out.writeUTF(result.comment);
+            } else {
+                throw new IOException("Unsupported result " + result);
+            }
+        }
+
+        private void writeSectionIds (List<Section> list,
+                                      Map<Integer, Section> map)
+                throws IOException
+        {
+            out.writeInt(list.size());
+
+            for (Section section : list) {
+                if (map.get(section.getId()) != section) {
+                    throw new IOException("Edge to unknown " + section);
+                }
+
+                out.writeInt(section.getId());
+            }
+        }
+
+        private void writeSectionRef (Section section)
+                throws IOException
+        {
+            out.writeByte(lagIndex(section));
+            out.writeInt(section.getId());
+        }
+
+        private void writeSignature (GlyphSignature sig)
+                throws IOException
+        {
+            out.writeInt(sig.getWeight());
+
+            for (Double value : sig.getMoments().getValues()) {
+                out.writeDouble(value);
+            }
+        }
+
+        private void writeStaff (StaffInfo staff,
+                                 GeoPath prevBottom)
+                throws IOException
+        {
+            out.writeInt(staff.getId());
+            out.writeDouble(staff.getAbscissa(LEFT));
+            out.writeDouble(staff.getAbscissa(RIGHT));
+
+            final Scale specificScale = staff.getSpecificScale();
+            out.writeBoolean(specificScale != null);
+
+            if (specificScale != null) {
+                specificScale.writeBinary(out);
+            }
+
+            out.writeInt(staff.getLines().size());
+
+            for (LineInfo line : staff.getLines()) {
+                writeGlyphRef(((FilamentLine) line).fil);
+            }
+
+            // Limit between staves is shared by both staves
+            final GeoPath top = staff.getLimit(TOP);
+            out.writeBoolean((top != null) && (top == prevBottom));
+
+            if ((top == null) || (top != prevBottom)) {
+                writePath(top);
+            }
+
+            writePath(staff.getLimit(BOTTOM));
+            writeBar(staff.getBar(LEFT));
+            writeBar(staff.getBar(RIGHT));
+            out.writeBoolean(staff.hasOrdinates());
+        }
+
+        private void writeTops (Integer[] tops)
+                throws IOException
+        {
+            if (tops == null) {
+                out.writeInt(-1);
+
+                return;
+            }
+
+            out.writeInt(tops.length);
+
+            for (Integer top : tops) {
+                out.writeBoolean(top != null);
+
+                if (top != null) {
+                    out.writeInt(top);
+                }
+            }
+        }
+    }
+}
@@ -83,6 +83,9 @@ public class StaffInfo
     /** Sequence of the staff lines. (from top to bottom) */
     private final List<LineInfo> lines;
 
+    /** Sampled lines ordinates, once lines are final. */
+    private volatile StaffOrdinates ordinates;
+
     /**
      * Scale specific to this staff. [not used actually]
      * (since different staves in a page may exhibit different scales)
@@ -233,6 +236,18 @@ public class StaffInfo
         return false;
     }
 
+    //----------------//
+    // buildOrdinates //
+    //----------------//
+    /**
+     * Sample the ordinates of the staff lines, now that they are final,
+     * so that pitch computations no longer evaluate the line filaments.
+     */
+    public void buildOrdinates ()
+    {
+        ordinates = new StaffOrdinates(lines);
+    }
+
     //------//
     // dump //
     //------//
@@ -344,8 +359,8 @@ public class StaffInfo
     public IndexedLedger getClosestLedger (Point2D point)
     {
         IndexedLedger bestLedger = null;
-        double top = getFirstLine().yAt(point.getX());
-        double bottom = getLastLine().yAt(point.getX());
+        double top = lineYAt(0, point.getX());
+        double bottom = lineYAt(lines.size() - 1, point.getX());
         double rawPitch = (4.0d * ((2 * point.getY()) - bottom - top)) / (bottom
                                                                           - top);
 
@@ -441,8 +456,8 @@ public class StaffInfo
     public int getGapTo (Glyph glyph)
     {
         Point center = glyph.getAreaCenter();
-        int staffTop = getFirstLine().yAt(center.x);
-        int staffBot = getLastLine().yAt(center.x);
+        int staffTop = (int) Math.rint(lineYAt(0, center.x));
+        int staffBot = (int) Math.rint(lineYAt(lines.size() - 1, center.x));
         int glyphTop = glyph.getBounds().y;
         int glyphBot = glyphTop + glyph.getBounds().height - 1;
 
@@ -578,6 +593,20 @@ public class StaffInfo
         return ledgerMap.get(lineIndex);
     }
 
+    //----------//
+    // getLimit //
+    //----------//
+    /**
+     * Report the limit of the staff area, on the provided vertical side.
+     *
+     * @param side the provided vertical side
+     * @return the staff limit
+     */
+    public GeoPath getLimit (VerticalSide side)
+    {
+        return (side == TOP) ? topLimit : bottomLimit;
+    }
+
     //-------------//
     // getLimitAtX //
     //-------------//
@@ -787,6 +816,32 @@ public class StaffInfo
                 stick.getStopPoint(Orientation.VERTICAL));
     }
 
+    //--------------//
+    // hasOrdinates //
+    //--------------//
+    /**
+     * Report whether the ordinates of the staff lines are sampled.
+     *
+     * @return true if {@link #buildOrdinates} has been called since the
+     *         last invalidation
+     */
+    public boolean hasOrdinates ()
+    {
+        return ordinates != null;
+    }
+
+    //---------------------//
+    // invalidateOrdinates //
+    //---------------------//
+    /**
+     * Discard the sampled ordinates, since staff lines are being
+     * modified.
+     */
+    public void invalidateOrdinates ()
+    {
+        ordinates = null;
+    }
+
     //-----------------//
     // pitchPositionOf //
     //-----------------//
@@ -800,8 +855,8 @@ public class StaffInfo
      */
     public double pitchPositionOf (Point2D pt)
     {
-        double top = getFirstLine().yAt(pt.getX());
-        double bottom = getLastLine().yAt(pt.getX());
+        double top = lineYAt(0, pt.getX());
+        double bottom = lineYAt(lines.size() - 1, pt.getX());
 
         return ((lines.size() - 1) * ((2 * pt.getY()) - bottom - top)) / (bottom
                                                                           - top);
@@ -964,6 +1019,29 @@ public class StaffInfo
         return sb.toString();
     }
 
+    //---------//
+    // lineYAt //
+    //---------//
+    /**
+     * Report the ordinate of a staff line at the provided abscissa,
+     * using the sampled ordinates when available.
+     *
+     * @param index the line index, counted from 0 from top to bottom
+     * @param x     the provided abscissa
+     * @return the line ordinate
+     */
+    private double lineYAt (int index,
+                            double x)
+    {
+        StaffOrdinates table = ordinates;
+
+        if ((table != null) && table.isInRange(x)) {
+            return table.yAt(index, x);
+        } else {
+            return lines.get(index).yAt(x);
+        }
+    }
+
     //---------------//
     // IndexedLedger //
     //---------------//
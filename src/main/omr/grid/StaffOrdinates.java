@@ -0,0 +1,137 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        S t a f f O r d i n a t e s                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.grid;
+
+import static omr.util.HorizontalSide.*;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.List;
+
+/**
+ * Class {@code StaffOrdinates} is an immutable table of the ordinates
+ * of the lines of a staff, sampled at every abscissa of the staff
+ * range.
+ *
+ * <p>Lines ordinates are otherwise computed from the line filaments, each
+ * time through a spline evaluation. Once the lines are final, the
+ * ordinate at any abscissa is just a linear interpolation between two
+ * consecutive samples (and the exact line ordinate at integer
+ * abscissae).
+ * The table must be discarded whenever a staff line is modified.
+ *
+ * @author Hervé Bitteur
+ */
+@Immutable
+class StaffOrdinates
+{
+    //~ Instance fields --------------------------------------------------------
+
+    /** Abscissa of first sample. */
+    private final int xMin;
+
+    /** Abscissa of last sample. */
+    private final int xMax;
+
+    /** Samples, per line index (from top to bottom) then per abscissa. */
+    private final double[][] samples;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //----------------//
+    // StaffOrdinates //
+    //----------------//
+    /**
+     * Sample the provided lines, on the whole abscissa range of the
+     * lines.
+     *
+     * @param lines the staff lines, from top to bottom
+     */
+    public StaffOrdinates (List<LineInfo> lines)
+    {
+        double left = Double.MAX_VALUE;
+        double right = -Double.MAX_VALUE;
+
+        for (LineInfo line : lines) {
+            left = Math.min(left, line.getEndPoint(LEFT).getX());
+            right = Math.max(right, line.getEndPoint(RIGHT).getX());
+        }
+
+        xMin = (int) Math.floor(left);
+        xMax = Math.max(xMin, (int) Math.ceil(right));
+        samples = new double[lines.size()][xMax - xMin + 1];
+
+        for (int i = 0; i < lines.size(); i++) {
+            LineInfo line = lines.get(i);
+            double[] ys = samples[i];
+
+            for (int x = xMin; x <= xMax; x++) {
+                ys[x - xMin] = line.yAt((double) x);
+            }
+        }
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //--------------//
+    // getLineCount //
+    //--------------//
+    /**
+     * Report the number of lines sampled.
+     *
+     * @return the number of lines
+     */
+    public int getLineCount ()
+    {
+        return samples.length;
+    }
+
+    //-----------//
+    // isInRange //
+    //-----------//
+    /**
+     * Report whether the provided abscissa is covered by the table.
+     *
+     * @param x the provided abscissa
+     * @return true if covered
+     */
+    public boolean isInRange (double x)
+    {
+        return (x >= xMin) && (x <= xMax);
+    }
+
+    //-----//
+    // yAt //
+    //-----//
+    /**
+     * Report the ordinate of a line at the provided abscissa.
+     *
+     * @param index the line index, counted from 0 from top to bottom
+     * @param x     the abscissa, which must be {@link #isInRange in range}
+     * @return the interpolated line ordinate
+     */
+    public double yAt (int index,
+                       double x)
+    {
+        final double[] ys = samples[index];
+        final double dx = x - xMin;
+        final int i = (int) dx;
+
+        if (i >= (ys.length - 1)) {
+            return ys[ys.length - 1];
+        }
+
+        final double ratio = dx - i;
+
+        return ys[i] + (ratio * (ys[i + 1] - ys[i]));
+    }
+}
@@ -126,6 +126,17 @@ public class StickIntersection
         return sticks;
     }
 
+    //----------//
+    // getStick //
+    //----------//
+    /**
+     * @return the stick itself
+     */
+    public Glyph getStick ()
+    {
+        return stick;
+    }
+
     //------------------//
     // getStickAncestor //
     //------------------//
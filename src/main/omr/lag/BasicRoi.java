@@ -14,6 +14,7 @@ package omr.lag;
 import omr.glyph.Glyphs;
 import omr.glyph.facets.Glyph;
 
+import omr.math.DenseHistogram;
 import omr.math.Histogram;
 
 import omr.run.Orientation;
@@ -84,7 +85,7 @@ public class BasicRoi
     {
         final Orientation tableOrient = table.getOrientation();
         final boolean alongTheRuns = projection == tableOrient;
-        final Histogram<Integer> histo = new Histogram<>();
+        final DenseHistogram histo = new DenseHistogram();
         final Rectangle tableContour = new Rectangle(
                 table.getDimension());
         final Rectangle inter = new Rectangle(
@@ -139,7 +140,7 @@ public class BasicRoi
             }
         }
 
-        final Histogram<Integer> histo = new Histogram<>();
+        final DenseHistogram histo = new DenseHistogram();
         populate(histo, projection, along, true);
         populate(histo, projection.opposite(), across, false);
 
@@ -166,7 +167,7 @@ public class BasicRoi
      * @param sections           the collections of (parallel) sections
      * @param alongTheRuns       true if sections are parallel to projection
      */
-    private void populate (Histogram<Integer> histo,
+    private void populate (DenseHistogram histo,
                            Orientation sectionOrientation,
                            List<Section> sections,
                            boolean alongTheRuns)
@@ -11,32 +11,75 @@
 // </editor-fold>
 package omr.lag;
 
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
 import omr.run.PixelFilter;
 import omr.run.Run;
 import omr.run.RunsTable;
 import omr.run.RunsTableFactory;
 
+import omr.step.ProcessingCancellationException;
+
+import omr.util.OmrExecutors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code SectionsBuilder} populates a full lag, by building the
  * lag sections and junctions, out of a provided {@link RunsTable}
  * instance.
  *
+ * <p>Since both the runs of a column and the active sections of the
+ * previous column are sorted by coordinate, overlaps are detected by
+ * walking the two sequences in parallel.
+ *
+ * <p>When parallelism is allowed, the table is split into bands of
+ * positions, each band being processed on its own temporary lag.
+ * The bands are then stitched at their seams, replaying the junction
+ * policy where a section crosses a seam, and the resulting sections are
+ * moved to the lag in creation order, so that the lag is identical to
+ * the one a sequential processing would give.
+ *
  * @author Hervé Bitteur
  */
 public class SectionsBuilder
 {
     //~ Static fields/initializers ---------------------------------------------
 
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
     /** Usual logger utility */
     private static final Logger logger = LoggerFactory.getLogger(
             SectionsBuilder.class);
 
+    /** To sort sections in creation order: by first pos, then by start */
+    private static final Comparator<Section> creationComparator = new Comparator<Section>()
+    {
+        @Override
+        public int compare (Section s1,
+                            Section s2)
+        {
+            if (s1.getFirstPos() != s2.getFirstPos()) {
+                return Integer.compare(s1.getFirstPos(), s2.getFirstPos());
+            }
+
+            return Integer.compare(
+                    s1.getFirstRun().getStart(),
+                    s2.getFirstRun().getStart());
+        }
+    };
+
     //~ Instance fields --------------------------------------------------------
     /** Policy for detection of junctions */
     private JunctionPolicy junctionPolicy;
@@ -61,6 +104,12 @@ public class SectionsBuilder
      */
     private List<Section> prevActives;
 
+    /** Index of first prevActives section not ending before current run */
+    private int prevIndex;
+
+    /** Index of first next column run not ending before current section */
+    private int nextIndex;
+
     //~ Constructors -----------------------------------------------------------
     //-----------------//
     // SectionsBuilder //
@@ -89,20 +138,140 @@ public class SectionsBuilder
      * @return the list of created sections
      */
     public List<Section> createSections (RunsTable runsTable)
+    {
+        int bandCount = 1;
+
+        if (OmrExecutors.defaultParallelism.getTarget()) {
+            bandCount = Math.min(
+                    OmrExecutors.getNumberOfCpus(),
+                    runsTable.getSize() / constants.minBandSize.getValue());
+        }
+
+        return createSections(runsTable, bandCount);
+    }
+
+    //----------------//
+    // createSections //
+    //----------------//
+    /**
+     * Populate a lag by creating sections directly out of a pixel source
+     *
+     * @param name         a name assigned to the runs table
+     * @param source       the source to read pixels from
+     * @param minRunLength minimum length to consider a run
+     * @return the list of created sections
+     */
+    public List<Section> createSections (String name,
+                                         PixelFilter source,
+                                         int minRunLength)
+    {
+        // Define a proper table factory
+        RunsTableFactory factory = new RunsTableFactory(
+                lag.getOrientation(),
+                source,
+                minRunLength);
+
+        // Create the runs table
+        RunsTable table = factory.createTable(name);
+
+        // Now proceed to section extraction
+        return createSections(table);
+    }
+
+    //----------------//
+    // createSections //
+    //----------------//
+    /**
+     * Populate a lag by creating sections from the provided table of
+     * runs, using the provided number of bands.
+     *
+     * @param runsTable the table of runs
+     * @param bandCount the number of bands (1 for sequential processing)
+     * @return the list of created sections
+     */
+    List<Section> createSections (RunsTable runsTable,
+                                  int bandCount)
     {
         // Get brand new collections
         created = new ArrayList<>();
-        nextActives = new ArrayList<>();
         overlappingSections = new ArrayList<>();
+
+        if (bandCount > 1) {
+            buildBands(runsTable, bandCount);
+        } else {
+            buildBand(runsTable, 0, runsTable.getSize());
+        }
+
+        // Some housekeeping
+        prevActives = null;
+        nextActives = null;
+        overlappingSections = null;
+
+        // Reset proper Ids
+        for (Section section : lag.getVertices()) {
+            int id = section.getId();
+
+            if (id < 0) {
+                section.setId(-id);
+            }
+        }
+
+        // Store the content of runs table into the lag
+        lag.addRuns(runsTable);
+
+        return created;
+    }
+
+    //-------//
+    // adopt //
+    //-------//
+    /**
+     * Move all sections of a band lag into our lag, in creation order.
+     *
+     * @param band the builder of the band
+     */
+    private void adopt (SectionsBuilder band)
+    {
+        List<Section> sections = new ArrayList<>(band.lag.getVertices());
+        Collections.sort(sections, creationComparator);
+
+        for (Section section : sections) {
+            lag.addVertex(section);
+            created.add(section);
+        }
+    }
+
+    //-----------//
+    // buildBand //
+    //-----------//
+    /**
+     * Create the sections for the provided range of positions.
+     * Upon return, nextActives contains the sections active in the last
+     * column of the range.
+     *
+     * @param runsTable the table of runs
+     * @param from      first position
+     * @param to        position past the range
+     */
+    private void buildBand (RunsTable runsTable,
+                            int from,
+                            int to)
+    {
+        if (created == null) {
+            created = new ArrayList<>();
+            overlappingSections = new ArrayList<>();
+        }
+
+        nextActives = new ArrayList<>();
         prevActives = new ArrayList<>();
 
         // All runs (if any) in first column start each their own section
-        for (Run run : runsTable.getSequence(0)) {
-            nextActives.add(createSection(0, run));
+        for (Run run : runsTable.getSequence(from)) {
+            nextActives.add(createSection(from, run));
         }
 
         // Now scan each pair of columns, starting at 2nd column
-        for (int col = 1; col < runsTable.getSize(); col++) {
+        for (int col = from + 1; col < to; col++) {
             List<Run> runList = runsTable.getSequence(col);
 
             // If we have runs in this column
@@ -115,6 +284,7 @@ public class SectionsBuilder
                 // Process all sections of previous column, then prevActives
                 // will contain only active sections (that may be continued)
                 logger.debug("Prev column");
+                nextIndex = 0;
 
                 for (Section section : prevActives) {
                     processPrevSide(section, runList);
@@ -122,6 +292,7 @@ public class SectionsBuilder
 
                 // Process all runs of next column
                 logger.debug("Next column");
+                prevIndex = 0;
 
                 for (Run run : runList) {
                     processNextSide(col, run);
@@ -130,53 +301,118 @@ public class SectionsBuilder
                 nextActives.clear();
             }
         }
+    }
 
-        // Some housekeeping
-        prevActives = null;
-        nextActives = null;
-        overlappingSections = null;
-
-        // Reset proper Ids
-        for (Section section : lag.getVertices()) {
-            int id = section.getId();
+    //------------//
+    // buildBands //
+    //------------//
+    /**
+     * Create the sections, by processing bands of positions in parallel
+     * and then stitching them together.
+     *
+     * @param runsTable the table of runs
+     * @param bandCount the number of bands
+     */
+    private void buildBands (final RunsTable runsTable,
+                             int bandCount)
+    {
+        final int size = runsTable.getSize();
+        final int bandSize = (size + bandCount - 1) / bandCount;
+        final List<SectionsBuilder> bands = new ArrayList<>();
+        final List<Integer> starts = new ArrayList<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int from = 0; from < size; from += bandSize) {
+            final int start = from;
+            final int stop = Math.min(size, from + bandSize);
+            final SectionsBuilder band = new SectionsBuilder(
+                    new BasicLag(lag.getName() + "-" + from,
+                                 lag.getOrientation()),
+                    junctionPolicy);
+            bands.add(band);
+            starts.add(start);
+            tasks.add(
+                    new Callable<Void>()
+            {
+                @Override
+                public Void call ()
+                        throws Exception
+                {
+                    band.buildBand(runsTable, start, stop);
+
+                    return null;
+                }
+            });
+        }
 
-            if (id < 0) {
-                section.setId(-id);
+        try {
+            for (Future<Void> future : OmrExecutors.getHighExecutor()
+                    .invokeAll(tasks)) {
+                future.get();
             }
+        } catch (InterruptedException ex) {
+            logger.warn("Parallel sections got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            logger.warn("Exception raised in parallel sections", ex);
+            throw new RuntimeException(ex.getCause());
         }
 
-        // Store the content of runs table into the lag
-        lag.addRuns(runsTable);
+        // Stitch bands one after the other
+        adopt(bands.get(0));
+        nextActives = bands.get(0).nextActives;
 
-        return created;
+        for (int b = 1; b < bands.size(); b++) {
+            SectionsBuilder band = bands.get(b);
+            List<Section[]> edges = new ArrayList<>();
+            stitch(band, runsTable.getSequence(starts.get(b)), edges);
+            adopt(band);
+
+            for (Section[] edge : edges) {
+                edge[0].addTarget(edge[1]);
+            }
+
+            nextActives = band.nextActives;
+        }
     }
 
-    //----------------//
-    // createSections //
-    //----------------//
+    //-----------------//
+    // collectOverlaps //
+    //-----------------//
     /**
-     * Populate a lag by creating sections directly out of a pixel source
+     * Store into overlappingSections the prevActives sections whose
+     * last run overlaps the provided run.
+     * Runs must be provided in coordinate order, starting with prevIndex
+     * set to zero.
      *
-     * @param name         a name assigned to the runs table
-     * @param source       the source to read pixels from
-     * @param minRunLength minimum length to consider a run
-     * @return the list of created sections
+     * @param run the run in next column
      */
-    public List<Section> createSections (String name,
-                                         PixelFilter source,
-                                         int minRunLength)
+    private void collectOverlaps (Run run)
     {
-        // Define a proper table factory
-        RunsTableFactory factory = new RunsTableFactory(
-                lag.getOrientation(),
-                source,
-                minRunLength);
+        final int nextStart = run.getStart();
+        final int nextStop = run.getStop();
 
-        // Create the runs table
-        RunsTable table = factory.createTable(name);
+        overlappingSections.clear();
 
-        // Now proceed to section extraction
-        return createSections(table);
+        // Skip sections located before this run (and thus before next runs)
+        while ((prevIndex < prevActives.size())
+               && (prevActives.get(prevIndex).getLastRun().getStop() < nextStart)) {
+            prevIndex++;
+        }
+
+        for (int i = prevIndex; i < prevActives.size(); i++) {
+            Section section = prevActives.get(i);
+            Run lastRun = section.getLastRun();
+
+            if (lastRun.getStart() > nextStop) {
+                break;
+            }
+
+            if (lastRun.getStop() >= nextStart) {
+                logger.debug("Overlap from {} to {}", lastRun, run);
+                overlappingSections.add(section);
+            }
+        }
     }
 
     //-----------------//
@@ -231,25 +467,9 @@ public class SectionsBuilder
     {
         logger.debug("processNextSide for run {}", run);
 
-        int nextStart = run.getStart();
-        int nextStop = run.getStop();
-
         // Check if overlap with a section run in previous column
         // All such sections are then stored in overlappingSections
-        overlappingSections.clear();
-
-        for (Section section : prevActives) {
-            Run lastRun = section.getLastRun();
-
-            if (lastRun.getStart() > nextStop) {
-                break;
-            }
-
-            if (lastRun.getStop() >= nextStart) {
-                logger.debug("Overlap from {} to {}", lastRun, run);
-                overlappingSections.add(section);
-            }
-        }
+        collectOverlaps(run);
 
         // Processing now depends on nb of overlapping runs
         logger.debug("overlap={}", overlappingSections.size());
@@ -293,6 +513,8 @@ public class SectionsBuilder
     /**
      * Take care of the first column, at the given section/run,
      * checking links to the nextColumnRuns that overlap this run.
+     * Sections must be provided in coordinate order, starting with
+     * nextIndex set to zero.
      *
      * @param section        the section at hand
      * @param nextColumnRuns runs of the next column
@@ -305,11 +527,19 @@ public class SectionsBuilder
         int prevStop = lastRun.getStop();
         logger.debug("processPrevSide for section {}", section);
 
+        // Skip runs located before this section (and thus before next ones)
+        while ((nextIndex < nextColumnRuns.size())
+               && (nextColumnRuns.get(nextIndex).getStop() < prevStart)) {
+            nextIndex++;
+        }
+
         // Check if overlap with a run in next column
         int overlapNb = 0;
         Run overlapRun = null;
 
-        for (Run run : nextColumnRuns) {
+        for (int i = nextIndex; i < nextColumnRuns.size(); i++) {
+            Run run = nextColumnRuns.get(i);
+
             if (run.getStart() > prevStop) {
                 break;
             }
@@ -344,4 +574,161 @@ public class SectionsBuilder
             finish(section);
         }
     }
+
+    //--------//
+    // replay //
+    //--------//
+    /**
+     * Extend a section of the previous band with the chain of band
+     * sections that start at the seam, applying the junction policy as
+     * the sequential processing would have done.
+     * The chain follows one-to-one junctions, which only result from the
+     * junction policy, and the replay stops as soon as it rejoins the
+     * sections of the band.
+     *
+     * @param section the section to extend, in our lag
+     * @param first   the band section which starts at seam
+     * @param band    the builder of the band
+     * @param edges   (output) the junctions to add once band is adopted
+     */
+    private void replay (Section section,
+                         Section first,
+                         SectionsBuilder band,
+                         List<Section[]> edges)
+    {
+        Section current = section;
+        Section chained = first;
+
+        while (true) {
+            int pos = chained.getFirstPos();
+            boolean isFirst = true;
+
+            for (Run run : chained.getRuns()) {
+                if (junctionPolicy.consistentRun(run, current)) {
+                    current.append(run);
+                } else if (isFirst) {
+                    // From now on, the band sections are correct
+                    chained.getSources().clear();
+                    edges.add(new Section[]{current, chained});
+
+                    return;
+                } else {
+                    Section sct = band.lag.createSection(pos, run);
+                    edges.add(new Section[]{current, sct});
+                    current = sct;
+                }
+
+                pos++;
+                isFirst = false;
+            }
+
+            // The chained section has been fully absorbed
+            if (isFinished(chained)) {
+                chained.setId(-chained.getId());
+            }
+
+            band.lag.removeVertex(chained);
+
+            int index = band.nextActives.indexOf(chained);
+
+            if (index != -1) {
+                band.nextActives.set(index, current);
+            }
+
+            List<Section> targets = chained.getTargets();
+
+            if ((targets.size() == 1)
+                && (targets.get(0).getSources().size() == 1)) {
+                // One-to-one junction: the chain goes on
+                Section next = targets.get(0);
+                chained.removeTarget(next, true);
+                chained = next;
+            } else {
+                // Transfer junctions, keeping the order of sources
+                for (Section target : targets) {
+                    List<Section> sources = target.getSources();
+                    sources.set(sources.indexOf(chained), current);
+                    current.getTargets().add(target);
+                }
+
+                targets.clear();
+
+                return;
+            }
+        }
+    }
+
+    //--------//
+    // stitch //
+    //--------//
+    /**
+     * Connect the sections active at the end of the previous band
+     * (nextActives) with the sections of the following band.
+     *
+     * @param band    the builder of the following band
+     * @param runList the runs of the first column of the band
+     * @param edges   (output) the junctions to add once band is adopted
+     */
+    private void stitch (SectionsBuilder band,
+                         List<Run> runList,
+                         List<Section[]> edges)
+    {
+        if (runList.isEmpty()) {
+            return;
+        }
+
+        prevActives = nextActives;
+
+        // Determine which previous sections are finished
+        nextIndex = 0;
+
+        for (Section section : prevActives) {
+            processPrevSide(section, runList);
+        }
+
+        // Collect all overlaps, before any replay modifies previous sections
+        List<List<Section>> overlaps = new ArrayList<>(runList.size());
+        prevIndex = 0;
+
+        for (Run run : runList) {
+            collectOverlaps(run);
+            overlaps.add(new ArrayList<>(overlappingSections));
+        }
+
+        // Band sections created for first column runs, in the same order
+        for (int i = 0; i < runList.size(); i++) {
+            Section first = band.created.get(i);
+            List<Section> sections = overlaps.get(i);
+
+            if (sections.size() == 1) {
+                Section prevSection = sections.get(0);
+
+                if (!isFinished(prevSection)) {
+                    replay(prevSection, first, band, edges);
+                } else {
+                    edges.add(new Section[]{prevSection, first});
+                }
+            } else {
+                for (Section section : sections) {
+                    edges.add(new Section[]{section, first});
+                }
+            }
+        }
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Integer minBandSize = new Constant.Integer(
+                "Positions",
+                500,
+                "Minimum number of positions per band for parallel sections");
+
+    }
 }
@@ -0,0 +1,386 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                           B i n a r y M o d e l                            //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.math;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class {@code BinaryModel} handles the compact binary format used to
+ * store a trained model (such as {@link NeuralNetwork} or
+ * {@link LinearEvaluator}) besides its XML form.
+ *
+ * <p>The XML form remains the reference, which can be reviewed and
+ * compared, while the binary form is just meant for fast loading: the
+ * file is memory-mapped and arrays of doubles are read in bulk.
+ *
+ * <p>All values are little-endian. The file starts with a header made of
+ * the {@link #MAGIC} number, the {@link #VERSION} of the format and the
+ * model kind (such as "neural-network"), followed by the model-specific
+ * content. A string is stored as its byte length (-1 for null) followed
+ * by its UTF-8 bytes, an array as its length (-1 for null) followed by
+ * its items.
+ *
+ * @author Hervé Bitteur
+ */
+public class BinaryModel
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Magic number, which reads "OMRM" in a little-endian file. */
+    public static final int MAGIC = 0x4d524d4f;
+
+    /** Current version of the binary format. */
+    public static final int VERSION = 1;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //-------------//
+    // BinaryModel //
+    //-------------//
+    private BinaryModel ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //-----------//
+    // getMatrix //
+    //-----------//
+    /**
+     * Read a matrix of doubles, as an array of rows.
+     *
+     * @param buffer the buffer to read from
+     * @return the matrix read, perhaps null
+     */
+    public static double[][] getMatrix (ByteBuffer buffer)
+    {
+        final int rows = buffer.getInt();
+
+        if (rows < 0) {
+            return null;
+        }
+
+        final double[][] matrix = new double[rows][];
+
+        for (int i = 0; i < rows; i++) {
+            matrix[i] = getDoubles(buffer);
+        }
+
+        return matrix;
+    }
+
+    //------------//
+    // getDoubles //
+    //------------//
+    /**
+     * Read an array of doubles.
+     *
+     * @param buffer the buffer to read from
+     * @return the array read, perhaps null
+     */
+    public static double[] getDoubles (ByteBuffer buffer)
+    {
+        final int length = buffer.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final double[] values = new double[length];
+        buffer.asDoubleBuffer()
+                .get(values);
+        buffer.position(buffer.position() + (length * 8));
+
+        return values;
+    }
+
+    //-----------//
+    // getString //
+    //-----------//
+    /**
+     * Read a string.
+     *
+     * @param buffer the buffer to read from
+     * @return the string read, perhaps null
+     */
+    public static String getString (ByteBuffer buffer)
+    {
+        final int length = buffer.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //------------//
+    // getStrings //
+    //------------//
+    /**
+     * Read an array of strings.
+     *
+     * @param buffer the buffer to read from
+     * @return the array read, perhaps null
+     */
+    public static String[] getStrings (ByteBuffer buffer)
+    {
+        final int length = buffer.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final String[] strings = new String[length];
+
+        for (int i = 0; i < length; i++) {
+            strings[i] = getString(buffer);
+        }
+
+        return strings;
+    }
+
+    //-----//
+    // map //
+    //-----//
+    /**
+     * Map the provided binary file into memory, and check its header.
+     *
+     * @param file the binary file to read
+     * @param kind the expected model kind
+     * @return the little-endian buffer, positioned right after the header
+     * @throws IOException if the file cannot be read, or if its header
+     *                     does not match the expected kind and version
+     */
+    public static ByteBuffer map (File file,
+                                  String kind)
+            throws IOException
+    {
+        final ByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(
+                file.toPath(),
+                StandardOpenOption.READ)) {
+            buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    0,
+                    channel.size());
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary model: " + file);
+            }
+
+            final int version = buffer.getInt();
+
+            if (version != VERSION) {
+                throw new IOException(
+                        "Unsupported binary model version " + version
+                        + " in " + file);
+            }
+
+            final String fileKind = getString(buffer);
+
+            if (!kind.equals(fileKind)) {
+                throw new IOException(
+                        "Expected " + kind + " model, found " + fileKind
+                        + " in " + file);
+            }
+        } catch (RuntimeException ex) {
+            throw new IOException("Corrupted binary model " + file, ex);
+        }
+
+        return buffer;
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //--------//
+    // Output //
+    //--------//
+    /**
+     * Builds the binary content of a model, then writes it to disk.
+     */
+    public static class Output
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** The content being built. */
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        //~ Constructors -------------------------------------------------------
+        /**
+         * Creates a new Output object, starting with the header.
+         *
+         * @param kind the model kind
+         */
+        public Output (String kind)
+        {
+            putInt(MAGIC);
+            putInt(VERSION);
+            putString(kind);
+        }
+
+        //~ Methods ------------------------------------------------------------
+        //
+        //------------//
+        // putDoubles //
+        //------------//
+        public Output putDoubles (double[] values)
+        {
+            if (values == null) {
+                return putInt(-1);
+            }
+
+            putInt(values.length);
+            ensure(values.length * 8);
+            buffer.asDoubleBuffer()
+                    .put(values);
+            buffer.position(buffer.position() + (values.length * 8));
+
+            return this;
+        }
+
+        //-----------//
+        // putDouble //
+        //-----------//
+        public Output putDouble (double value)
+        {
+            ensure(8);
+            buffer.putDouble(value);
+
+            return this;
+        }
+
+        //--------//
+        // putInt //
+        //--------//
+        public Output putInt (int value)
+        {
+            ensure(4);
+            buffer.putInt(value);
+
+            return this;
+        }
+
+        //-----------//
+        // putMatrix //
+        //-----------//
+        public Output putMatrix (double[][] matrix)
+        {
+            if (matrix == null) {
+                return putInt(-1);
+            }
+
+            putInt(matrix.length);
+
+            for (double[] row : matrix) {
+                putDoubles(row);
+            }
+
+            return this;
+        }
+
+        //-----------//
+        // putString //
+        //-----------//
+        public Output putString (String string)
+        {
+            if (string == null) {
+                return putInt(-1);
+            }
+
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+
+            return this;
+        }
+
+        //------------//
+        // putStrings //
+        //------------//
+        public Output putStrings (String[] strings)
+        {
+            if (strings == null) {
+                return putInt(-1);
+            }
+
+            putInt(strings.length);
+
+            for (String string : strings) {
+                putString(string);
+            }
+
+            return this;
+        }
+
+        //-------//
+        // write //
+        //-------//
+        /**
+         * Write the content built so far to the provided file.
+         *
+         * @param file the target file
+         * @throws IOException if writing fails
+         */
+        public void write (File file)
+                throws IOException
+        {
+            final ByteBuffer content = buffer.duplicate();
+            content.flip();
+
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                final FileChannel channel = fos.getChannel();
+
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+        }
+
+        //--------//
+        // ensure //
+        //--------//
+        private void ensure (int count)
+        {
+            if (buffer.remaining() < count) {
+                int capacity = buffer.capacity();
+
+                while ((capacity - buffer.position()) < count) {
+                    capacity *= 2;
+                }
+
+                ByteBuffer larger = ByteBuffer.allocate(capacity)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+}
@@ -0,0 +1,637 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        D e n s e H i s t o g r a m                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.math;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Class {@code DenseHistogram} is an integer histogram whose buckets
+ * are kept in a primitive array, indexed by bucket value minus an
+ * offset, rather than in a sorted map of boxed values.
+ *
+ * <p>It provides the same queries as {@link SparseHistogram}, with the
+ * same results: a bucket which has never been increased is not part of
+ * the histogram, exactly as an absent key in the sparse implementation.
+ * Histograms built separately (per band or per thread) can be combined
+ * by {@link #merge}.
+ *
+ * @author Hervé Bitteur
+ */
+public class DenseHistogram
+        extends Histogram<Integer>
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Initial array length, when no range is foreseen */
+    private static final int INITIAL_LENGTH = 16;
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Count per bucket, at index (bucket - offset) */
+    private int[] counts;
+
+    /** Presence per bucket, at index (bucket - offset) */
+    private boolean[] present;
+
+    /** Bucket value of array index 0 */
+    private int offset;
+
+    /** Index of the first present bucket */
+    private int lowIndex = Integer.MAX_VALUE;
+
+    /** Index of the last present bucket */
+    private int highIndex = Integer.MIN_VALUE;
+
+    /** Number of present buckets */
+    private int size;
+
+    //~ Constructors -----------------------------------------------------------
+    //----------------//
+    // DenseHistogram //
+    //----------------//
+    /**
+     * Creates a new DenseHistogram object, with no pre-defined range
+     * of buckets.
+     */
+    public DenseHistogram ()
+    {
+    }
+
+    //----------------//
+    // DenseHistogram //
+    //----------------//
+    /**
+     * Creates a new DenseHistogram object, with pre-definition of the
+     * bucket range.
+     *
+     * @param first the first bucket of the foreseen range
+     * @param last  the last bucket of the foreseen range
+     */
+    public DenseHistogram (int first,
+                           int last)
+    {
+        allocate(Math.min(first, last), Math.abs(last - first) + 1);
+        increaseCount(first, 0);
+        increaseCount(last, 0);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-----------//
+    // bucketSet //
+    //-----------//
+    @Override
+    public Set<Integer> bucketSet ()
+    {
+        Set<Integer> set = new LinkedHashSet<>();
+
+        for (int i = lowIndex; i <= highIndex; i++) {
+            if (present[i]) {
+                set.add(i + offset);
+            }
+        }
+
+        return set;
+    }
+
+    //-------//
+    // clear //
+    //-------//
+    @Override
+    public void clear ()
+    {
+        counts = null;
+        present = null;
+        lowIndex = Integer.MAX_VALUE;
+        highIndex = Integer.MIN_VALUE;
+        size = 0;
+        totalCount = 0;
+    }
+
+    //----------//
+    // entrySet //
+    //----------//
+    @Override
+    public Set<Map.Entry<Integer, Integer>> entrySet ()
+    {
+        Map<Integer, Integer> entries = new LinkedHashMap<>();
+
+        for (int i = lowIndex; i <= highIndex; i++) {
+            if (present[i]) {
+                entries.put(i + offset, counts[i]);
+            }
+        }
+
+        return entries.entrySet();
+    }
+
+    //-------------//
+    // firstBucket //
+    //-------------//
+    @Override
+    public Integer firstBucket ()
+    {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        return lowIndex + offset;
+    }
+
+    //----------//
+    // getCount //
+    //----------//
+    @Override
+    public int getCount (Integer bucket)
+    {
+        return getCount(bucket.intValue());
+    }
+
+    //----------//
+    // getCount //
+    //----------//
+    /**
+     * Report the count of specified bucket
+     *
+     * @param bucket the bucket of interest
+     * @return the bucket count (zero for any empty bucket)
+     */
+    public int getCount (int bucket)
+    {
+        if (counts == null) {
+            return 0;
+        }
+
+        int index = bucket - offset;
+
+        if ((index < 0) || (index >= counts.length)) {
+            return 0;
+        }
+
+        return counts[index];
+    }
+
+    //----------------//
+    // getDoublePeaks //
+    //----------------//
+    @Override
+    public List<PeakEntry<Double>> getDoublePeaks (int minCount)
+    {
+        final List<PeakEntry<Double>> peaks = new ArrayList<>();
+        int start = -1;
+        int stop = -1;
+        int best = -1;
+        int bestCount = 0;
+        boolean isAbove = false;
+
+        for (int i = lowIndex; i <= highIndex; i++) {
+            if (!present[i]) {
+                continue;
+            }
+
+            int count = counts[i];
+
+            if (count >= minCount) {
+                if ((best == -1) || (bestCount < count)) {
+                    best = i;
+                    bestCount = count;
+                }
+
+                if (isAbove) { // Above -> Above
+                    stop = i;
+                } else { // Below -> Above
+                    stop = start = i;
+                    isAbove = true;
+                }
+            } else if (isAbove) { // Above -> Below
+                peaks.add(
+                        new PeakEntry<>(
+                        createDoublePeak(start, best, stop, minCount),
+                        (double) bestCount / totalCount));
+                best = -1;
+                isAbove = false;
+            }
+        }
+
+        // Last range
+        if (isAbove) {
+            peaks.add(
+                    new PeakEntry<>(
+                    createDoublePeak(start, best, stop, minCount),
+                    (double) bestCount / totalCount));
+        }
+
+        // Sort by decreasing count values
+        Collections.sort(peaks, reverseDoublePeakComparator);
+
+        return peaks;
+    }
+
+    //----------------//
+    // getLocalMaxima //
+    //----------------//
+    @Override
+    public List<MaxEntry<Integer>> getLocalMaxima ()
+    {
+        final List<MaxEntry<Integer>> maxima = new ArrayList<>();
+        int prevIndex = -1;
+        int prevValue = 0;
+        boolean growing = false;
+
+        for (int i = lowIndex; i <= highIndex; i++) {
+            if (!present[i]) {
+                continue;
+            }
+
+            int value = counts[i];
+
+            if (prevIndex != -1) {
+                if (value >= prevValue) {
+                    growing = true;
+                } else {
+                    if (growing) {
+                        // End of a local max
+                        maxima.add(
+                                new MaxEntry<>(
+                                prevIndex + offset,
+                                prevValue / (double) totalCount));
+                    }
+
+                    growing = false;
+                }
+            }
+
+            prevIndex = i;
+            prevValue = value;
+        }
+
+        // Sort by decreasing count values
+        Collections.sort(maxima, reverseMaxComparator);
+
+        return maxima;
+    }
+
+    //--------------//
+    // getMaxBucket //
+    //--------------//
+    @Override
+    public Integer getMaxBucket ()
+    {
+        int index = getMaxIndex();
+
+        return (index == -1) ? null : (index + offset);
+    }
+
+    //-------------//
+    // getMaxCount //
+    //-------------//
+    @Override
+    public int getMaxCount ()
+    {
+        int max = Integer.MIN_VALUE;
+
+        for (int i = lowIndex; i <= highIndex; i++) {
+            if (present[i]) {
+                max = Math.max(max, counts[i]);
+            }
+        }
+
+        return max;
+    }
+
+    //------------//
+    // getMaximum //
+    //------------//
+    @Override
+    public Map.Entry<Integer, Integer> getMaximum ()
+    {
+        int index = getMaxIndex();
+
+        if (index == -1) {
+            return null;
+        }
+
+        return new AbstractMap.SimpleImmutableEntry<>(
+                index + offset,
+                counts[index]);
+    }
+
+    //----------//
+    // getPeaks //
+    //----------//
+    @Override
+    public List<PeakEntry<Integer>> getPeaks (int minCount,
+                                              boolean absolute,
+                                              boolean sorted)
+    {
+        final List<PeakEntry<Integer>> peaks = new ArrayList<>();
+        int start = -1;
+        int stop = -1;
+        int best = -1;
+        int bestCount = 0;
+        boolean isAbove = false;
+
+        for (int i = lowIndex; i <= highIndex; i++) {
+            if (!present[i]) {
+                continue;
+            }
+
+            int count = counts[i];
+
+            if (count >= minCount) {
+                if ((best == -1) || (bestCount < count)) {
+                    best = i;
+                    bestCount = count;
+                }
+
+                if (isAbove) { // Above -> Above
+                    stop = i;
+                } else { // Below -> Above
+                    stop = start = i;
+                    isAbove = true;
+                }
+            } else if (isAbove) { // Above -> Below
+                peaks.add(
+                        new PeakEntry<>(
+                        new Peak<>(start + offset, best + offset, stop + offset),
+                        absolute ? bestCount : ((double) bestCount / totalCount)));
+                best = -1;
+                isAbove = false;
+            }
+        }
+
+        // Last range
+        if (isAbove) {
+            peaks.add(
+                    new PeakEntry<>(
+                    new Peak<>(start + offset, best + offset, stop + offset),
+                    absolute ? bestCount : ((double) bestCount / totalCount)));
+        }
+
+        // Sort by decreasing count values?
+        if (sorted) {
+            Collections.sort(peaks, reversePeakComparator);
+        }
+
+        return peaks;
+    }
+
+    //---------------//
+    // increaseCount //
+    //---------------//
+    @Override
+    public void increaseCount (Integer bucket,
+                               int delta)
+    {
+        increaseCount(bucket.intValue(), delta);
+    }
+
+    //---------------//
+    // increaseCount //
+    //---------------//
+    /**
+     * Add delta to the count of the specified bucket, which becomes
+     * part of the histogram even if delta is zero.
+     *
+     * @param bucket the bucket to increase
+     * @param delta  the value to add
+     */
+    public void increaseCount (int bucket,
+                               int delta)
+    {
+        int index = indexOf(bucket);
+
+        if (!present[index]) {
+            present[index] = true;
+            size++;
+            lowIndex = Math.min(lowIndex, index);
+            highIndex = Math.max(highIndex, index);
+        }
+
+        counts[index] += delta;
+        totalCount += delta;
+    }
+
+    //------------//
+    // lastBucket //
+    //------------//
+    @Override
+    public Integer lastBucket ()
+    {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        return highIndex + offset;
+    }
+
+    //-------//
+    // merge //
+    //-------//
+    /**
+     * Add all buckets of another histogram into this one.
+     *
+     * @param that the histogram to merge into this one
+     */
+    public void merge (DenseHistogram that)
+    {
+        if (that.size == 0) {
+            return;
+        }
+
+        // Make sure the whole range is allocated at once
+        indexOf(that.lowIndex + that.offset);
+        indexOf(that.highIndex + that.offset);
+
+        for (int i = that.lowIndex; i <= that.highIndex; i++) {
+            if (that.present[i]) {
+                increaseCount(i + that.offset, that.counts[i]);
+            }
+        }
+    }
+
+    //------//
+    // size //
+    //------//
+    @Override
+    public int size ()
+    {
+        return size;
+    }
+
+    //--------//
+    // values //
+    //--------//
+    @Override
+    public Collection<Integer> values ()
+    {
+        List<Integer> values = new ArrayList<>(size);
+
+        for (int i = lowIndex; i <= highIndex; i++) {
+            if (present[i]) {
+                values.add(counts[i]);
+            }
+        }
+
+        return values;
+    }
+
+    //----------//
+    // allocate //
+    //----------//
+    private void allocate (int first,
+                           int length)
+    {
+        counts = new int[length];
+        present = new boolean[length];
+        offset = first;
+    }
+
+    //------------------//
+    // createDoublePeak //
+    //------------------//
+    private DoublePeak createDoublePeak (int first,
+                                         int best,
+                                         int second,
+                                         int count)
+    {
+        // Use interpolation for more accurate data on first & second
+        double preciseFirst = first + offset;
+        int prev = prevIndex(first);
+
+        if (prev != -1) {
+            preciseFirst = preciseKey(prev, first, count);
+        }
+
+        double preciseSecond = second + offset;
+        int next = nextIndex(second);
+
+        if (next != -1) {
+            preciseSecond = preciseKey(second, next, count);
+        }
+
+        return new DoublePeak(preciseFirst, best + offset, preciseSecond);
+    }
+
+    //-------------//
+    // getMaxIndex //
+    //-------------//
+    private int getMaxIndex ()
+    {
+        int max = Integer.MIN_VALUE;
+        int index = -1;
+
+        for (int i = lowIndex; i <= highIndex; i++) {
+            if (present[i] && (counts[i] > max)) {
+                max = counts[i];
+                index = i;
+            }
+        }
+
+        return index;
+    }
+
+    //---------//
+    // indexOf //
+    //---------//
+    /**
+     * Report the array index of the provided bucket, growing the
+     * arrays if needed.
+     */
+    private int indexOf (int bucket)
+    {
+        if (counts == null) {
+            allocate(bucket, INITIAL_LENGTH);
+
+            return 0;
+        }
+
+        int index = bucket - offset;
+
+        if ((index >= 0) && (index < counts.length)) {
+            return index;
+        }
+
+        // Grow (at least by doubling) towards the new bucket
+        final int length = counts.length;
+        final int newLength = Math.max(
+                2 * length,
+                (index < 0) ? (length - index) : (index + 1));
+        final int shift = (index < 0) ? (newLength - length) : 0;
+        final int[] newCounts = new int[newLength];
+        final boolean[] newPresent = new boolean[newLength];
+        System.arraycopy(counts, 0, newCounts, shift, length);
+        System.arraycopy(present, 0, newPresent, shift, length);
+        counts = newCounts;
+        present = newPresent;
+        offset -= shift;
+
+        if (size > 0) {
+            lowIndex += shift;
+            highIndex += shift;
+        }
+
+        return bucket - offset;
+    }
+
+    //-----------//
+    // nextIndex //
+    //-----------//
+    private int nextIndex (int index)
+    {
+        for (int i = index + 1; i <= highIndex; i++) {
+            if (present[i]) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    //------------//
+    // preciseKey //
+    //------------//
+    private double preciseKey (int prev,
+                               int next,
+                               int count)
+    {
+        // Use interpolation for accurate data between prev & next keys
+        double prevCount = counts[prev];
+        double nextCount = counts[next];
+
+        return (((prev + offset) * (nextCount - count))
+                + ((next + offset) * (count - prevCount))) / (nextCount
+                                                               - prevCount);
+    }
+
+    //-----------//
+    // prevIndex //
+    //-----------//
+    private int prevIndex (int index)
+    {
+        for (int i = index - 1; i >= lowIndex; i--) {
+            if (present[i]) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -12,27 +12,26 @@
 package omr.math;
 
 import java.io.PrintStream;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
- * Class {@code Histogram} is an histogram implementation which handles
- * integer counts in buckets, the buckets identities being values of
- * type K.
+ * Class {@code Histogram} is the abstract definition of an histogram
+ * which handles integer counts in buckets, the buckets identities being
+ * values of type K.
+ *
+ * <p>{@link SparseHistogram} keeps the buckets in a sorted map, while
+ * {@link DenseHistogram} keeps integer buckets in a primitive array.
+ * Both give the same results to the same queries.
  *
  * @param <K> the precise type for histogram buckets
  *
  * @author Hervé Bitteur
  */
-public class Histogram<K extends Number>
+public abstract class Histogram<K extends Number>
 {
     //~ Instance fields --------------------------------------------------------
 
@@ -72,60 +71,27 @@ public class Histogram<K extends Number>
         }
     };
 
-    /**
-     * Underlying map:
-     * - K for the type of entity to be accumulated
-     * - Integer for the cumulated number in each bucket
-     */
-    protected final SortedMap<K, Integer> map = new TreeMap<>();
-
     /** Total count */
     protected int totalCount = 0;
 
-    //~ Constructors -----------------------------------------------------------
-    //-----------//
-    // Histogram //
-    //-----------//
-    /**
-     * Creates a new Histogram object, with no pre-defined range of buckets
-     */
-    public Histogram ()
-    {
-    }
-
+    //~ Methods ----------------------------------------------------------------
     //-----------//
-    // Histogram //
+    // bucketSet //
     //-----------//
     /**
-     * Creates a new Histogram object, with pre-definition of the bucket range
+     * Report the buckets of this histogram, in increasing order.
      *
-     * @param first the first bucket of the foreseen range
-     * @param last  the last bucket of the foreseen range
+     * @return the set of buckets
      */
-    public Histogram (K first,
-                      K last)
-    {
-        map.put(first, 0);
-        map.put(last, 0);
-    }
-
-    //~ Methods ----------------------------------------------------------------
-    //-----------//
-    // bucketSet //
-    //-----------//
-    public Set<K> bucketSet ()
-    {
-        return map.keySet();
-    }
+    public abstract Set<K> bucketSet ();
 
     //-------//
     // clear //
     //-------//
-    public void clear ()
-    {
-        map.clear();
-        totalCount = 0;
-    }
+    /**
+     * Remove all buckets.
+     */
+    public abstract void clear ();
 
     //------------//
     // dataString //
@@ -154,18 +120,23 @@ public class Histogram<K extends Number>
     //----------//
     // entrySet //
     //----------//
-    public Set<Map.Entry<K, Integer>> entrySet ()
-    {
-        return map.entrySet();
-    }
+    /**
+     * Report the buckets with their count, in increasing bucket order.
+     *
+     * @return the (bucket, count) entries
+     */
+    public abstract Set<Map.Entry<K, Integer>> entrySet ();
 
     //-------------//
     // firstBucket //
     //-------------//
-    public K firstBucket ()
-    {
-        return map.firstKey();
-    }
+    /**
+     * Report the lowest bucket.
+     *
+     * @return the first bucket
+     * @throws java.util.NoSuchElementException if the histogram is empty
+     */
+    public abstract K firstBucket ();
 
     //----------//
     // getCount //
@@ -176,20 +147,11 @@ public class Histogram<K extends Number>
      * @param bucket the bucket of interest
      * @return the bucket count (zero for any empty bucket)
      */
-    public int getCount (K bucket)
-    {
-        Integer count = map.get(bucket);
+    public abstract int getCount (K bucket);
 
-        if (count == null) {
-            return 0;
-        } else {
-            return count;
-        }
-    }
-
-    //----------//
-    // getPeaks //
-    //----------//
+    //----------------//
+    // getDoublePeaks //
+    //----------------//
     /**
      * Report the sequence of bucket peaks whose count is equal to or
      * greater than the specified minCount value.
@@ -197,55 +159,7 @@ public class Histogram<K extends Number>
      * @param minCount the desired minimum count value
      * @return the (perhaps empty but not null) sequence of peaks of buckets
      */
-    public List<PeakEntry<Double>> getDoublePeaks (int minCount)
-    {
-        final List<PeakEntry<Double>> peaks = new ArrayList<>();
-        K start = null;
-        K stop = null;
-        K best = null;
-        Integer bestCount = null;
-        boolean isAbove = false;
-
-        for (Entry<K, Integer> entry : map.entrySet()) {
-            if (entry.getValue() >= minCount) {
-                if ((bestCount == null) || (bestCount < entry.getValue())) {
-                    best = entry.getKey();
-                    bestCount = entry.getValue();
-                }
-
-                if (isAbove) { // Above -> Above
-                    stop = entry.getKey();
-                } else { // Below -> Above
-                    stop = start = entry.getKey();
-                    isAbove = true;
-                }
-            } else {
-                if (isAbove) { // Above -> Below
-                    peaks.add(
-                            new PeakEntry<>(
-                            createDoublePeak(start, best, stop, minCount),
-                            (double) bestCount / totalCount));
-                    stop = start = best = null;
-                    bestCount = null;
-                    isAbove = false;
-                } else { // Below -> Below
-                }
-            }
-        }
-
-        // Last range
-        if (isAbove) {
-            peaks.add(
-                    new PeakEntry<>(
-                    createDoublePeak(start, best, stop, minCount),
-                    (double) bestCount / totalCount));
-        }
-
-        // Sort by decreasing count values
-        Collections.sort(peaks, reverseDoublePeakComparator);
-
-        return peaks;
-    }
+    public abstract List<PeakEntry<Double>> getDoublePeaks (int minCount);
 
     //----------------//
     // getLocalMaxima //
@@ -255,42 +169,7 @@ public class Histogram<K extends Number>
      *
      * @return the (count-based) sorted sequence of local maxima
      */
-    public List<MaxEntry<K>> getLocalMaxima ()
-    {
-        final List<MaxEntry<K>> maxima = new ArrayList<>();
-        K prevKey = null;
-        int prevValue = 0;
-        boolean growing = false;
-
-        for (Entry<K, Integer> entry : map.entrySet()) {
-            K key = entry.getKey();
-            int value = entry.getValue();
-
-            if (prevKey != null) {
-                if (value >= prevValue) {
-                    growing = true;
-                } else {
-                    if (growing) {
-                        // End of a local max
-                        maxima.add(
-                                new MaxEntry<>(
-                                prevKey,
-                                prevValue / (double) totalCount));
-                    }
-
-                    growing = false;
-                }
-            }
-
-            prevKey = key;
-            prevValue = value;
-        }
-
-        // Sort by decreasing count values
-        Collections.sort(maxima, reverseMaxComparator);
-
-        return maxima;
-    }
+    public abstract List<MaxEntry<K>> getLocalMaxima ();
 
     //--------------//
     // getMaxBucket //
@@ -300,20 +179,7 @@ public class Histogram<K extends Number>
      *
      * @return the most popular bucket
      */
-    public K getMaxBucket ()
-    {
-        int max = Integer.MIN_VALUE;
-        K bucket = null;
-
-        for (Map.Entry<K, Integer> entry : map.entrySet()) {
-            if (entry.getValue() > max) {
-                max = entry.getValue();
-                bucket = entry.getKey();
-            }
-        }
-
-        return bucket;
-    }
+    public abstract K getMaxBucket ();
 
     //-------------//
     // getMaxCount //
@@ -323,16 +189,7 @@ public class Histogram<K extends Number>
      *
      * @return the largest count value
      */
-    public int getMaxCount ()
-    {
-        int max = Integer.MIN_VALUE;
-
-        for (Map.Entry<K, Integer> entry : map.entrySet()) {
-            max = Math.max(max, entry.getValue());
-        }
-
-        return max;
-    }
+    public abstract int getMaxCount ();
 
     //------------//
     // getMaximum //
@@ -342,20 +199,7 @@ public class Histogram<K extends Number>
      *
      * @return the maximum entry (key & value)
      */
-    public Map.Entry<K, Integer> getMaximum ()
-    {
-        Map.Entry<K, Integer> maximum = null;
-
-        for (Map.Entry<K, Integer> entry : map.entrySet()) {
-            int value = entry.getValue();
-
-            if ((maximum == null) || (value > maximum.getValue())) {
-                maximum = entry;
-            }
-        }
-
-        return maximum;
-    }
+    public abstract Map.Entry<K, Integer> getMaximum ();
 
     //----------//
     // getPeaks //
@@ -371,59 +215,9 @@ public class Histogram<K extends Number>
      *                 count value, otherwise it is reported as naturally found along K data.
      * @return the (perhaps empty but not null) sequence of peaks of buckets
      */
-    public List<PeakEntry<K>> getPeaks (int minCount,
-                                        boolean absolute,
-                                        boolean sorted)
-    {
-        final List<PeakEntry<K>> peaks = new ArrayList<>();
-        K start = null;
-        K stop = null;
-        K best = null;
-        Integer bestCount = null;
-        boolean isAbove = false;
-
-        for (Entry<K, Integer> entry : map.entrySet()) {
-            if (entry.getValue() >= minCount) {
-                if ((bestCount == null) || (bestCount < entry.getValue())) {
-                    best = entry.getKey();
-                    bestCount = entry.getValue();
-                }
-
-                if (isAbove) { // Above -> Above
-                    stop = entry.getKey();
-                } else { // Below -> Above
-                    stop = start = entry.getKey();
-                    isAbove = true;
-                }
-            } else {
-                if (isAbove) { // Above -> Below
-                    peaks.add(
-                            new PeakEntry<>(
-                            new Peak<>(start, best, stop),
-                            absolute ? bestCount : ((double) bestCount / totalCount)));
-                    stop = start = best = null;
-                    bestCount = null;
-                    isAbove = false;
-                } else { // Below -> Below
-                }
-            }
-        }
-
-        // Last range
-        if (isAbove) {
-            peaks.add(
-                    new PeakEntry<>(
-                    new Peak<>(start, best, stop),
-                    absolute ? bestCount : ((double) bestCount / totalCount)));
-        }
-
-        // Sort by decreasing count values?
-        if (sorted) {
-            Collections.sort(peaks, reversePeakComparator);
-        }
-
-        return peaks;
-    }
+    public abstract List<PeakEntry<K>> getPeaks (int minCount,
+                                                 boolean absolute,
+                                                 boolean sorted);
 
     //----------------//
     // getQuorumValue //
@@ -456,27 +250,26 @@ public class Histogram<K extends Number>
     //---------------//
     // increaseCount //
     //---------------//
-    public void increaseCount (K bucket,
-                               int delta)
-    {
-        Integer count = map.get(bucket);
-
-        if (count == null) {
-            map.put(bucket, delta);
-        } else {
-            map.put(bucket, count + delta);
-        }
-
-        totalCount += delta;
-    }
+    /**
+     * Add delta to the count of the specified bucket, which becomes
+     * part of the histogram even if delta is zero.
+     *
+     * @param bucket the bucket to increase
+     * @param delta  the value to add
+     */
+    public abstract void increaseCount (K bucket,
+                                        int delta);
 
     //------------//
     // lastBucket //
     //------------//
-    public K lastBucket ()
-    {
-        return map.lastKey();
-    }
+    /**
+     * Report the highest bucket.
+     *
+     * @return the last bucket
+     * @throws java.util.NoSuchElementException if the histogram is empty
+     */
+    public abstract K lastBucket ();
 
     //-------//
     // print //
@@ -494,10 +287,7 @@ public class Histogram<K extends Number>
      *
      * @return the number of non empty buckets
      */
-    public int size ()
-    {
-        return map.size();
-    }
+    public abstract int size ();
 
     //----------//
     // toString //
@@ -507,11 +297,16 @@ public class Histogram<K extends Number>
     {
         StringBuilder sb = new StringBuilder("{");
         sb.append(getClass().getSimpleName());
-        sb.append(
-                String.format(
-                " %s-%s",
-                (firstBucket() != null) ? firstBucket().toString() : "",
-                (lastBucket() != null) ? lastBucket().toString() : ""));
+
+        if (size() > 0) {
+            sb.append(" ")
+                    .append(firstBucket())
+                    .append("-")
+                    .append(lastBucket());
+        } else {
+            sb.append(" -");
+        }
+
         sb.append(" size:")
                 .append(size());
 
@@ -526,88 +321,12 @@ public class Histogram<K extends Number>
     //--------//
     // values //
     //--------//
-    public Collection<Integer> values ()
-    {
-        return map.values();
-    }
-
-    //------------------//
-    // createDoublePeak //
-    //------------------//
-    private DoublePeak createDoublePeak (K first,
-                                         K best,
-                                         K second,
-                                         int count)
-    {
-        // Use interpolation for more accurate data on first & second
-        double preciseFirst = first.doubleValue();
-        K prevKey = prevKey(first);
-
-        if (prevKey != null) {
-            preciseFirst = preciseKey(prevKey, first, count);
-        }
-
-        double preciseSecond = second.doubleValue();
-        K nextKey = nextKey(second);
-
-        if (nextKey != null) {
-            preciseSecond = preciseKey(second, nextKey, count);
-        }
-
-        return new DoublePeak(preciseFirst, best.doubleValue(), preciseSecond);
-    }
-
-    //---------//
-    // nextKey //
-    //---------//
-    private K nextKey (K key)
-    {
-        boolean found = false;
-
-        for (K k : map.keySet()) {
-            if (found) {
-                return k;
-            } else if (key.equals(k)) {
-                found = true;
-            }
-        }
-
-        return null;
-    }
-
-    //------------//
-    // preciseKey //
-    //------------//
-    private double preciseKey (K prev,
-                               K next,
-                               int count)
-    {
-        // Use interpolation for accurate data between prev & next keys
-        double prevCount = getCount(prev);
-        double nextCount = getCount(next);
-
-        return ((prev.doubleValue() * (nextCount - count))
-                + (next.doubleValue() * (count - prevCount))) / (nextCount
-                                                                 - prevCount);
-    }
-
-    //---------//
-    // prevKey //
-    //---------//
-    private K prevKey (K key)
-    {
-        K prev = null;
-
-        for (K k : map.keySet()) {
-            if (key.equals(k)) {
-                return prev;
-            } else {
-                prev = k;
-            }
-        }
-
-        return null;
-    }
+    /**
+     * Report the bucket counts, in increasing bucket order.
+     *
+     * @return the counts
+     */
+    public abstract Collection<Integer> values ();
 
     //~ Inner Classes ----------------------------------------------------------
     //------------//
@@ -618,9 +337,9 @@ public class Histogram<K extends Number>
     {
         //~ Constructors -------------------------------------------------------
 
-        private DoublePeak (double first,
-                            double best,
-                            double second)
+        DoublePeak (double first,
+                    double best,
+                    double second)
         {
             super(first, best, second);
         }
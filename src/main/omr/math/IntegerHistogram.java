@@ -23,7 +23,7 @@ import java.util.TreeMap;
  * @author Hervé Bitteur
  */
 public class IntegerHistogram
-        extends Histogram<Integer>
+        extends SparseHistogram<Integer>
 {
     //~ Instance fields --------------------------------------------------------
 
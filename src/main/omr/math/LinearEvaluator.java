@@ -11,13 +11,19 @@
 // </editor-fold>
 package omr.math;
 
+import net.jcip.annotations.Immutable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -52,7 +58,13 @@ import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
  * defined category.
  *
  * <p>The evaluator data can be marshalled to and unmarshalled from an XML
- * formatted stream.
+ * formatted stream, as well as from a compact {@link BinaryModel} file.
+ *
+ * <p>Distances are computed on an immutable {@link Model} snapshot of the
+ * trained data, which is published anew after each training or sample
+ * inclusion. Hence distance evaluations require no locking and can be run
+ * concurrently by several threads, while modifications of the training
+ * data are serialized.
  *
  * @author Hervé Bitteur
  */
@@ -69,6 +81,9 @@ public class LinearEvaluator
     /** Un/marshalling context for use with JAXB */
     private static volatile JAXBContext jaxbContext;
 
+    /** Model kind in binary form */
+    private static final String BINARY_KIND = "linear-evaluator";
+
     /** To avoid infinity */
     public static final double INFINITE_DISTANCE = 50e50;
 
@@ -93,6 +108,9 @@ public class LinearEvaluator
      */
     private boolean dataModified = false;
 
+    /** Current snapshot of trained data, used for distance computations */
+    private volatile Model model;
+
     //~ Constructors -----------------------------------------------------------
     //-----------------//
     // LinearEvaluator //
@@ -110,6 +128,23 @@ public class LinearEvaluator
         for (int i = 0; i < inputNames.length; i++) {
             parameters[i] = new Parameter(inputNames[i]);
         }
+
+        model = new Model(categories, parameters);
+    }
+
+    //-----------------//
+    // LinearEvaluator //
+    //-----------------//
+    /**
+     * Creates a LinearEvaluator with all its data, as read from binary
+     * form.
+     */
+    private LinearEvaluator (Parameter[] parameters,
+                             SortedMap<String, Category> categories)
+    {
+        this.parameters = parameters;
+        this.categories = categories;
+        model = new Model(categories, parameters);
     }
 
     //-----------------//
@@ -157,18 +192,12 @@ public class LinearEvaluator
      */
     public String[] getCategoryNames ()
     {
-        if (categories == null) {
+        final Model snapshot = model;
+
+        if (snapshot == null) {
             return new String[0];
         } else {
-            Collection<Category> values = categories.values();
-            String[] names = new String[values.size()];
-
-            int index = 0;
-            for (Category cat : values) {
-                names[index++] = cat.getId();
-            }
-
-            return names;
+            return snapshot.ids.clone();
         }
     }
 
@@ -199,13 +228,52 @@ public class LinearEvaluator
     public double categoryDistance (double[] pattern,
                                     String categoryId)
     {
-        return checkArguments(pattern, categoryId).distance(pattern, parameters);
+        final Model snapshot = model;
+        checkPattern(pattern);
+
+        return snapshot.distance(pattern, snapshot.indexOf(categoryId));
+    }
+
+    //-------------------//
+    // categoryDistances //
+    //-------------------//
+    /**
+     * Measure the "distance" information between each of the given
+     * patterns and (the mean pattern of) every category.
+     *
+     * <p>All distances are computed on the same snapshot of trained data,
+     * categories being reported in the order of
+     * {@link #getCategoryNames()}.
+     *
+     * @param patterns the sequence of patterns to evaluate
+     * @return the distances, indexed by pattern then by category
+     */
+    public double[][] categoryDistances (double[][] patterns)
+    {
+        final Model snapshot = model;
+        final int categoryCount = snapshot.ids.length;
+        final double[][] distances = new double[patterns.length][];
+
+        for (int i = 0; i < patterns.length; i++) {
+            double[] pattern = patterns[i];
+            checkPattern(pattern);
+
+            double[] dists = new double[categoryCount];
+
+            for (int c = 0; c < categoryCount; c++) {
+                dists[c] = snapshot.distance(pattern, c);
+            }
+
+            distances[i] = dists;
+        }
+
+        return distances;
     }
 
     //------//
     // dump //
     //------//
-    public void dump ()
+    public synchronized void dump ()
     {
         System.out.println();
         System.out.println("LinearEvaluator");
@@ -236,8 +304,8 @@ public class LinearEvaluator
      * @param pattern  the pattern at hand
      * @param category the category to measure distance from
      */
-    public void dumpDistance (double[] pattern,
-                              String category)
+    public synchronized void dumpDistance (double[] pattern,
+                                           String category)
     {
         categories.get(category).dumpDistance(pattern, parameters);
     }
@@ -288,8 +356,8 @@ public class LinearEvaluator
      * @param categoryId the targeted category
      * @return true if some min/max bound has changed
      */
-    public boolean includeSample (double[] params,
-                                  String categoryId)
+    public synchronized boolean includeSample (double[] params,
+                                               String categoryId)
     {
         // Check category label
         Category category = categories.get(categoryId);
@@ -338,6 +406,40 @@ public class LinearEvaluator
         logger.debug("LinearEvaluator marshalled");
     }
 
+    //---------------//
+    // marshalBinary //
+    //---------------//
+    /**
+     * Write the LinearEvaluator to the provided file, in binary form.
+     *
+     * @param file the binary file to write
+     * @throws IOException if writing fails
+     */
+    public void marshalBinary (File file)
+            throws IOException
+    {
+        final BinaryModel.Output output = new BinaryModel.Output(BINARY_KIND);
+        output.putInt(parameters.length);
+
+        for (Parameter parameter : parameters) {
+            output.putString(parameter.name)
+                    .putDouble(parameter.defaultWeight);
+        }
+
+        output.putInt(categories.size());
+
+        for (Category category : categories.values()) {
+            output.putString(category.getId());
+
+            for (CategoryParam param : category.params) {
+                param.marshalBinary(output);
+            }
+        }
+
+        output.write(file);
+        logger.debug("LinearEvaluator marshalled to binary");
+    }
+
     //-----------------//
     // patternDistance //
     //-----------------//
@@ -362,11 +464,12 @@ public class LinearEvaluator
                     "Patterns are null or inconsistent with the LinearEvaluator");
         }
 
+        final double[] defaultWeights = model.defaultWeights;
         double dist = 0;
 
         for (int p = 0; p < inputSize; p++) {
             double dif = one[p] - two[p];
-            dist += (dif * dif * parameters[p].defaultWeight);
+            dist += (dif * dif * defaultWeights[p]);
         }
 
         return dist / inputSize;
@@ -380,7 +483,7 @@ public class LinearEvaluator
      *
      * @param samples a collection of samples (category + pattern)
      */
-    public void train (Collection<Sample> samples)
+    public synchronized void train (Collection<Sample> samples)
     {
         // Check size consistencies.
         if ((samples == null) || samples.isEmpty()) {
@@ -434,6 +537,55 @@ public class LinearEvaluator
         return evaluator;
     }
 
+    //-----------------//
+    // unmarshalBinary //
+    //-----------------//
+    /**
+     * Read the provided binary file to allocate the corresponding
+     * LinearEvaluator.
+     *
+     * @param file the file that contains the evaluator in binary form
+     * @return the allocated evaluator
+     * @throws IOException if the file cannot be read or is not a valid
+     *                     evaluator
+     */
+    public static LinearEvaluator unmarshalBinary (File file)
+            throws IOException
+    {
+        final ByteBuffer buffer = BinaryModel.map(file, BINARY_KIND);
+
+        try {
+            final Parameter[] parameters = new Parameter[buffer.getInt()];
+
+            for (int p = 0; p < parameters.length; p++) {
+                parameters[p] = new Parameter(BinaryModel.getString(buffer));
+                parameters[p].defaultWeight = buffer.getDouble();
+            }
+
+            final int count = buffer.getInt();
+            final SortedMap<String, Category> categories = new TreeMap<>();
+
+            for (int c = 0; c < count; c++) {
+                final String id = BinaryModel.getString(buffer);
+                final CategoryParam[] params = new CategoryParam[parameters.length];
+
+                for (int p = 0; p < params.length; p++) {
+                    params[p] = CategoryParam.unmarshalBinary(
+                            buffer,
+                            parameters[p]);
+                }
+
+                categories.put(id, new Category(id, params));
+            }
+
+            logger.debug("LinearEvaluator unmarshalled from binary");
+
+            return new LinearEvaluator(parameters, categories);
+        } catch (RuntimeException ex) {
+            throw new IOException("Invalid evaluator in " + file, ex);
+        }
+    }
+
     //----------------//
     // getJaxbContext //
     //----------------//
@@ -449,26 +601,29 @@ public class LinearEvaluator
     }
 
     //----------------//
-    // checkArguments //
+    // afterUnmarshal //
     //----------------//
-    private Category checkArguments (double[] pattern,
-                                     String categoryId)
+    /**
+     * Called after all the properties (except IDREF) are unmarshalled
+     * for this object, to publish the snapshot of trained data.
+     */
+    @SuppressWarnings("unused")
+    private void afterUnmarshal (Unmarshaller um,
+                                 Object parent)
+    {
+        model = new Model(categories, parameters);
+    }
+
+    //--------------//
+    // checkPattern //
+    //--------------//
+    private void checkPattern (double[] pattern)
     {
         // Check sizes
         if ((pattern == null) || (pattern.length != getInputSize())) {
             throw new IllegalArgumentException(
                     "Pattern is null or inconsistent with the LinearEvaluator");
         }
-
-        // Check category label
-        Category category = categories.get(categoryId);
-
-        if (category == null) {
-            throw new IllegalArgumentException(
-                    "Unknown category: " + categoryId);
-        }
-
-        return category;
     }
 
     //-------------------------//
@@ -504,6 +659,9 @@ public class LinearEvaluator
                 }
             }
         }
+
+        // Publish the new snapshot
+        model = new Model(categories, parameters);
     }
 
     //------------------//
@@ -684,6 +842,19 @@ public class LinearEvaluator
             }
         }
 
+        /**
+         * Creates a Category object with its parameter descriptors.
+         *
+         * @param id     the category id
+         * @param params the parameter descriptors
+         */
+        private Category (String id,
+                          CategoryParam[] params)
+        {
+            this.id = id;
+            this.params = params;
+        }
+
         /**
          * Meant to please JAXB
          */
@@ -711,23 +882,7 @@ public class LinearEvaluator
             }
         }
 
-        public synchronized double distance (double[] pattern,
-                                             Parameter[] parameters)
-        {
-            double dist = 0;
-
-            for (int p = 0; p < params.length; p++) {
-                dist += params[p].weightedDelta(
-                        pattern[p],
-                        parameters[p].defaultWeight);
-            }
-
-            dist /= params.length;
-
-            return dist;
-        }
-
-        public synchronized void dump ()
+        public void dump ()
         {
             System.out.println(
                     "\ncategory:" + id + " cardinality:" + getCardinality());
@@ -737,8 +892,8 @@ public class LinearEvaluator
             }
         }
 
-        public synchronized double dumpDistance (double[] pattern,
-                                                 Parameter[] parameters)
+        public double dumpDistance (double[] pattern,
+                                    Parameter[] parameters)
         {
             if ((pattern == null) || (pattern.length != params.length)) {
                 throw new IllegalArgumentException(
@@ -785,7 +940,7 @@ public class LinearEvaluator
         }
 
         /** Include data from the provided pattern into category descriptor */
-        public synchronized boolean include (double[] pattern)
+        public boolean include (double[] pattern)
         {
             boolean extended = false;
 
@@ -938,6 +1093,32 @@ public class LinearEvaluator
         }
 
         //~ Methods ------------------------------------------------------------
+        /**
+         * Read a category parameter from binary form.
+         *
+         * @param buffer    the buffer to read from
+         * @param parameter the related parameter descriptor
+         * @return the category parameter read
+         */
+        static CategoryParam unmarshalBinary (ByteBuffer buffer,
+                                             Parameter parameter)
+        {
+            CategoryParam param = new CategoryParam();
+            param.parameter = parameter;
+            param.training = TrainingStatus.values()[buffer.getInt()];
+            param.mean = buffer.getDouble();
+            param.weight = buffer.getDouble();
+
+            double min = buffer.getDouble();
+            param.min = Double.isNaN(min) ? null : min;
+
+            double max = buffer.getDouble();
+            param.max = Double.isNaN(max) ? null : max;
+            param.population = Population.unmarshalBinary(buffer);
+
+            return param;
+        }
+
         /** Compute the param characteristics out of its data sample */
         public void compute ()
         {
@@ -1022,6 +1203,22 @@ public class LinearEvaluator
             return extended;
         }
 
+        /**
+         * Write this category parameter in binary form.
+         * A null min or max value is written as NaN.
+         *
+         * @param output the binary output to append to
+         */
+        public void marshalBinary (BinaryModel.Output output)
+        {
+            output.putInt(training.ordinal())
+                    .putDouble(mean)
+                    .putDouble(weight)
+                    .putDouble((min != null) ? min : Double.NaN)
+                    .putDouble((max != null) ? max : Double.NaN);
+            population.marshalBinary(output);
+        }
+
         public void reset ()
         {
             population.reset();
@@ -1074,6 +1271,144 @@ public class LinearEvaluator
         }
     }
 
+    //-------//
+    // Model //
+    //-------//
+    /**
+     * Immutable snapshot of the trained data, flattened into plain
+     * arrays for fast distance computation.
+     *
+     * <p>For each category, the means and effective weights of all
+     * parameters are stored contiguously, so that a distance is a simple
+     * loop on primitive arrays.
+     */
+    @Immutable
+    private static class Model
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Category ids, in natural order */
+        final String[] ids;
+
+        /** Category index, per category id */
+        final Map<String, Integer> indices;
+
+        /** Default weight per parameter */
+        final double[] defaultWeights;
+
+        /** Mean value per category and parameter */
+        final double[] means;
+
+        /** Effective weight per category and parameter (NaN if untrained) */
+        final double[] weights;
+
+        /** Flag per category, set when some parameter is untrained */
+        final boolean[] partials;
+
+        /** Number of parameters */
+        final int size;
+
+        //~ Constructors -------------------------------------------------------
+        /**
+         * Creates a new Model object from the current training data.
+         *
+         * @param categories the category descriptors
+         * @param parameters the parameter descriptors
+         */
+        public Model (SortedMap<String, Category> categories,
+                      Parameter[] parameters)
+        {
+            size = parameters.length;
+            defaultWeights = new double[size];
+
+            for (int p = 0; p < size; p++) {
+                defaultWeights[p] = parameters[p].defaultWeight;
+            }
+
+            int count = categories.size();
+            ids = new String[count];
+            indices = new HashMap<>();
+            means = new double[count * size];
+            weights = new double[count * size];
+            partials = new boolean[count];
+
+            int c = 0;
+
+            for (Category category : categories.values()) {
+                ids[c] = category.getId();
+                indices.put(ids[c], c);
+
+                for (int p = 0; p < size; p++) {
+                    CategoryParam param = category.params[p];
+                    int i = (c * size) + p;
+
+                    if (param.training == CategoryParam.TrainingStatus.NONE) {
+                        weights[i] = Double.NaN;
+                        partials[c] = true;
+                    } else {
+                        means[i] = param.mean;
+                        weights[i] = param.getWeight(defaultWeights[p]);
+                    }
+                }
+
+                c++;
+            }
+        }
+
+        //~ Methods ------------------------------------------------------------
+        /**
+         * Report the distance between a pattern and a category.
+         *
+         * @param pattern the pattern to evaluate
+         * @param c       the category index
+         * @return the measured distance
+         */
+        public double distance (double[] pattern,
+                                int c)
+        {
+            final int base = c * size;
+            double dist = 0;
+
+            if (partials[c]) {
+                for (int p = 0; p < size; p++) {
+                    double weight = weights[base + p];
+
+                    if (Double.isNaN(weight)) {
+                        dist += INFINITE_DISTANCE;
+                    } else {
+                        double dif = means[base + p] - pattern[p];
+                        dist += (dif * dif * weight);
+                    }
+                }
+            } else {
+                for (int p = 0; p < size; p++) {
+                    double dif = means[base + p] - pattern[p];
+                    dist += (dif * dif * weights[base + p]);
+                }
+            }
+
+            return dist / size;
+        }
+
+        /**
+         * Report the index of a category.
+         *
+         * @param categoryId the category id
+         * @return the category index
+         */
+        public int indexOf (String categoryId)
+        {
+            Integer index = indices.get(categoryId);
+
+            if (index == null) {
+                throw new IllegalArgumentException(
+                        "Unknown category: " + categoryId);
+            }
+
+            return index;
+        }
+    }
+
     //-----------//
     // Parameter //
     //-----------//
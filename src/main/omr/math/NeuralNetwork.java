@@ -14,8 +14,11 @@ package omr.math;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -34,7 +37,9 @@ import javax.xml.bind.annotation.XmlRootElement;
  * The transfer function is the sigmoid.
  *
  * <p>This neuralNetwork class can be stored on disk in XML form (through
- * the {@link #marshal} and {@link #unmarshal} methods).
+ * the {@link #marshal} and {@link #unmarshal} methods), and in the compact
+ * {@link BinaryModel} form (through the {@link #marshalBinary} and
+ * {@link #unmarshalBinary} methods).
  *
  * <p>The class also allows in-memory {@link #backup} and {@link #restore}
  * operation, mainly used to save the most performant weight values during the
@@ -55,6 +60,9 @@ public class NeuralNetwork
     /** Un/marshalling context for use with JAXB */
     private static volatile JAXBContext jaxbContext;
 
+    /** Model kind in binary form */
+    private static final String BINARY_KIND = "neural-network";
+
     //~ Instance fields --------------------------------------------------------
     //
     /** Size of input layer. */
@@ -218,6 +226,35 @@ public class NeuralNetwork
         this.epochs = epochs;
     }
 
+    //---------------//
+    // NeuralNetwork //
+    //---------------//
+    /**
+     * Create a neural network with all its data, as read from binary
+     * form.
+     */
+    private NeuralNetwork (int inputSize,
+                           int hiddenSize,
+                           int outputSize,
+                           String[] inputLabels,
+                           String[] outputLabels,
+                           double[][] hiddenWeights,
+                           double[][] outputWeights)
+    {
+        this.inputSize = inputSize;
+        this.hiddenSize = hiddenSize;
+        this.outputSize = outputSize;
+        this.inputLabels = inputLabels;
+        this.outputLabels = outputLabels;
+        this.hiddenWeights = hiddenWeights;
+        this.outputWeights = outputWeights;
+
+        if ((hiddenWeights == null) || (hiddenWeights.length != hiddenSize)
+            || (outputWeights == null) || (outputWeights.length != outputSize)) {
+            throw new IllegalArgumentException("Inconsistent weights");
+        }
+    }
+
     //---------------//
     // NeuralNetwork //
     //---------------//
@@ -256,6 +293,47 @@ public class NeuralNetwork
         return nn;
     }
 
+    //-----------------//
+    // unmarshalBinary //
+    //-----------------//
+    /**
+     * Read the provided binary file to allocate the corresponding
+     * NeuralNetwork.
+     *
+     * @param file the file that contains the network in binary form
+     * @return the allocated network
+     * @throws IOException if the file cannot be read or is not a valid
+     *                     network
+     */
+    public static NeuralNetwork unmarshalBinary (File file)
+            throws IOException
+    {
+        final ByteBuffer buffer = BinaryModel.map(file, BINARY_KIND);
+
+        try {
+            int inputSize = buffer.getInt();
+            int hiddenSize = buffer.getInt();
+            int outputSize = buffer.getInt();
+            String[] inputLabels = BinaryModel.getStrings(buffer);
+            String[] outputLabels = BinaryModel.getStrings(buffer);
+            double[][] hiddenWeights = BinaryModel.getMatrix(buffer);
+            double[][] outputWeights = BinaryModel.getMatrix(buffer);
+            NeuralNetwork nn = new NeuralNetwork(
+                    inputSize,
+                    hiddenSize,
+                    outputSize,
+                    inputLabels,
+                    outputLabels,
+                    hiddenWeights,
+                    outputWeights);
+            logger.debug("Network unmarshalled from binary");
+
+            return nn;
+        } catch (RuntimeException ex) {
+            throw new IOException("Invalid network in " + file, ex);
+        }
+    }
+
     //
     //--------//
     // backup //
@@ -387,6 +465,29 @@ public class NeuralNetwork
         logger.debug("Network marshalled");
     }
 
+    //---------------//
+    // marshalBinary //
+    //---------------//
+    /**
+     * Write the NeuralNetwork to the provided file, in binary form.
+     *
+     * @param file the binary file to write
+     * @throws IOException if writing fails
+     */
+    public void marshalBinary (File file)
+            throws IOException
+    {
+        new BinaryModel.Output(BINARY_KIND).putInt(inputSize)
+                .putInt(hiddenSize)
+                .putInt(outputSize)
+                .putStrings(inputLabels)
+                .putStrings(outputLabels)
+                .putMatrix(hiddenWeights)
+                .putMatrix(outputWeights)
+                .write(file);
+        logger.debug("Network marshalled to binary");
+    }
+
     //---------//
     // restore //
     //---------//
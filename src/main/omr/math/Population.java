@@ -11,6 +11,8 @@
 // </editor-fold>
 package omr.math;
 
+import java.nio.ByteBuffer;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -132,6 +134,25 @@ public class Population
         return Math.max(0d, (s2 - ((s * s) / n)) / n); // Biased
     }
 
+    //-----------------//
+    // unmarshalBinary //
+    //-----------------//
+    /**
+     * Read a population from its binary form.
+     *
+     * @param buffer the buffer to read from
+     * @return the population read
+     */
+    static Population unmarshalBinary (ByteBuffer buffer)
+    {
+        Population population = new Population();
+        population.s = buffer.getDouble();
+        population.s2 = buffer.getDouble();
+        population.n = buffer.getInt();
+
+        return population;
+    }
+
     //-------------------//
     // includePopulation //
     //-------------------//
@@ -162,6 +183,21 @@ public class Population
         s2 += (val * val);
     }
 
+    //---------------//
+    // marshalBinary //
+    //---------------//
+    /**
+     * Write this population in binary form.
+     *
+     * @param output the binary output to append to
+     */
+    void marshalBinary (BinaryModel.Output output)
+    {
+        output.putDouble(s)
+                .putDouble(s2)
+                .putInt(n);
+    }
+
     //-------//
     // reset //
     //-------//
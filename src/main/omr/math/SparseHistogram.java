@@ -0,0 +1,454 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                       S p a r s e H i s t o g r a m                        //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.math;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Class {@code SparseHistogram} is an histogram implementation which
+ * keeps its buckets, of any type K, in a sorted map.
+ *
+ * @param <K> the precise type for histogram buckets
+ *
+ * @author Hervé Bitteur
+ */
+public class SparseHistogram<K extends Number>
+        extends Histogram<K>
+{
+    //~ Instance fields --------------------------------------------------------
+
+    /**
+     * Underlying map:
+     * - K for the type of entity to be accumulated
+     * - Integer for the cumulated number in each bucket
+     */
+    protected final SortedMap<K, Integer> map = new TreeMap<>();
+
+    //~ Constructors -----------------------------------------------------------
+    //-----------------//
+    // SparseHistogram //
+    //-----------------//
+    /**
+     * Creates a new SparseHistogram object, with no pre-defined range
+     * of buckets
+     */
+    public SparseHistogram ()
+    {
+    }
+
+    //-----------------//
+    // SparseHistogram //
+    //-----------------//
+    /**
+     * Creates a new SparseHistogram object, with pre-definition of the
+     * bucket range
+     *
+     * @param first the first bucket of the foreseen range
+     * @param last  the last bucket of the foreseen range
+     */
+    public SparseHistogram (K first,
+                            K last)
+    {
+        map.put(first, 0);
+        map.put(last, 0);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-----------//
+    // bucketSet //
+    //-----------//
+    @Override
+    public Set<K> bucketSet ()
+    {
+        return map.keySet();
+    }
+
+    //-------//
+    // clear //
+    //-------//
+    @Override
+    public void clear ()
+    {
+        map.clear();
+        totalCount = 0;
+    }
+
+    //----------//
+    // entrySet //
+    //----------//
+    @Override
+    public Set<Map.Entry<K, Integer>> entrySet ()
+    {
+        return map.entrySet();
+    }
+
+    //-------------//
+    // firstBucket //
+    //-------------//
+    @Override
+    public K firstBucket ()
+    {
+        return map.firstKey();
+    }
+
+    //----------//
+    // getCount //
+    //----------//
+    @Override
+    public int getCount (K bucket)
+    {
+        Integer count = map.get(bucket);
+
+        if (count == null) {
+            return 0;
+        } else {
+            return count;
+        }
+    }
+
+    //----------------//
+    // getDoublePeaks //
+    //----------------//
+    @Override
+    public List<PeakEntry<Double>> getDoublePeaks (int minCount)
+    {
+        final List<PeakEntry<Double>> peaks = new ArrayList<>();
+        K start = null;
+        K stop = null;
+        K best = null;
+        Integer bestCount = null;
+        boolean isAbove = false;
+
+        for (Entry<K, Integer> entry : map.entrySet()) {
+            if (entry.getValue() >= minCount) {
+                if ((bestCount == null) || (bestCount < entry.getValue())) {
+                    best = entry.getKey();
+                    bestCount = entry.getValue();
+                }
+
+                if (isAbove) { // Above -> Above
+                    stop = entry.getKey();
+                } else { // Below -> Above
+                    stop = start = entry.getKey();
+                    isAbove = true;
+                }
+            } else {
+                if (isAbove) { // Above -> Below
+                    peaks.add(
+                            new PeakEntry<>(
+                            createDoublePeak(start, best, stop, minCount),
+                            (double) bestCount / totalCount));
+                    stop = start = best = null;
+                    bestCount = null;
+                    isAbove = false;
+                } else { // Below -> Below
+                }
+            }
+        }
+
+        // Last range
+        if (isAbove) {
+            peaks.add(
+                    new PeakEntry<>(
+                    createDoublePeak(start, best, stop, minCount),
+                    (double) bestCount / totalCount));
+        }
+
+        // Sort by decreasing count values
+        Collections.sort(peaks, reverseDoublePeakComparator);
+
+        return peaks;
+    }
+
+    //----------------//
+    // getLocalMaxima //
+    //----------------//
+    @Override
+    public List<MaxEntry<K>> getLocalMaxima ()
+    {
+        final List<MaxEntry<K>> maxima = new ArrayList<>();
+        K prevKey = null;
+        int prevValue = 0;
+        boolean growing = false;
+
+        for (Entry<K, Integer> entry : map.entrySet()) {
+            K key = entry.getKey();
+            int value = entry.getValue();
+
+            if (prevKey != null) {
+                if (value >= prevValue) {
+                    growing = true;
+                } else {
+                    if (growing) {
+                        // End of a local max
+                        maxima.add(
+                                new MaxEntry<>(
+                                prevKey,
+                                prevValue / (double) totalCount));
+                    }
+
+                    growing = false;
+                }
+            }
+
+            prevKey = key;
+            prevValue = value;
+        }
+
+        // Sort by decreasing count values
+        Collections.sort(maxima, reverseMaxComparator);
+
+        return maxima;
+    }
+
+    //--------------//
+    // getMaxBucket //
+    //--------------//
+    @Override
+    public K getMaxBucket ()
+    {
+        int max = Integer.MIN_VALUE;
+        K bucket = null;
+
+        for (Map.Entry<K, Integer> entry : map.entrySet()) {
+            if (entry.getValue() > max) {
+                max = entry.getValue();
+                bucket = entry.getKey();
+            }
+        }
+
+        return bucket;
+    }
+
+    //-------------//
+    // getMaxCount //
+    //-------------//
+    @Override
+    public int getMaxCount ()
+    {
+        int max = Integer.MIN_VALUE;
+
+        for (Map.Entry<K, Integer> entry : map.entrySet()) {
+            max = Math.max(max, entry.getValue());
+        }
+
+        return max;
+    }
+
+    //------------//
+    // getMaximum //
+    //------------//
+    @Override
+    public Map.Entry<K, Integer> getMaximum ()
+    {
+        Map.Entry<K, Integer> maximum = null;
+
+        for (Map.Entry<K, Integer> entry : map.entrySet()) {
+            int value = entry.getValue();
+
+            if ((maximum == null) || (value > maximum.getValue())) {
+                maximum = entry;
+            }
+        }
+
+        return maximum;
+    }
+
+    //----------//
+    // getPeaks //
+    //----------//
+    @Override
+    public List<PeakEntry<K>> getPeaks (int minCount,
+                                        boolean absolute,
+                                        boolean sorted)
+    {
+        final List<PeakEntry<K>> peaks = new ArrayList<>();
+        K start = null;
+        K stop = null;
+        K best = null;
+        Integer bestCount = null;
+        boolean isAbove = false;
+
+        for (Entry<K, Integer> entry : map.entrySet()) {
+            if (entry.getValue() >= minCount) {
+                if ((bestCount == null) || (bestCount < entry.getValue())) {
+                    best = entry.getKey();
+                    bestCount = entry.getValue();
+                }
+
+                if (isAbove) { // Above -> Above
+                    stop = entry.getKey();
+                } else { // Below -> Above
+                    stop = start = entry.getKey();
+                    isAbove = true;
+                }
+            } else {
+                if (isAbove) { // Above -> Below
+                    peaks.add(
+                            new PeakEntry<>(
+                            new Peak<>(start, best, stop),
+                            absolute ? bestCount : ((double) bestCount / totalCount)));
+                    stop = start = best = null;
+                    bestCount = null;
+                    isAbove = false;
+                } else { // Below -> Below
+                }
+            }
+        }
+
+        // Last range
+        if (isAbove) {
+            peaks.add(
+                    new PeakEntry<>(
+                    new Peak<>(start, best, stop),
+                    absolute ? bestCount : ((double) bestCount / totalCount)));
+        }
+
+        // Sort by decreasing count values?
+        if (sorted) {
+            Collections.sort(peaks, reversePeakComparator);
+        }
+
+        return peaks;
+    }
+
+    //---------------//
+    // increaseCount //
+    //---------------//
+    @Override
+    public void increaseCount (K bucket,
+                               int delta)
+    {
+        Integer count = map.get(bucket);
+
+        if (count == null) {
+            map.put(bucket, delta);
+        } else {
+            map.put(bucket, count + delta);
+        }
+
+        totalCount += delta;
+    }
+
+    //------------//
+    // lastBucket //
+    //------------//
+    @Override
+    public K lastBucket ()
+    {
+        return map.lastKey();
+    }
+
+    //------//
+    // size //
+    //------//
+    @Override
+    public int size ()
+    {
+        return map.size();
+    }
+
+    //--------//
+    // values //
+    //--------//
+    @Override
+    public Collection<Integer> values ()
+    {
+        return map.values();
+    }
+
+    //------------------//
+    // createDoublePeak //
+    //------------------//
+    private DoublePeak createDoublePeak (K first,
+                                         K best,
+                                         K second,
+                                         int count)
+    {
+        // Use interpolation for more accurate data on first & second
+        double preciseFirst = first.doubleValue();
+        K prevKey = prevKey(first);
+
+        if (prevKey != null) {
+            preciseFirst = preciseKey(prevKey, first, count);
+        }
+
+        double preciseSecond = second.doubleValue();
+        K nextKey = nextKey(second);
+
+        if (nextKey != null) {
+            preciseSecond = preciseKey(second, nextKey, count);
+        }
+
+        return new DoublePeak(preciseFirst, best.doubleValue(), preciseSecond);
+    }
+
+    //---------//
+    // nextKey //
+    //---------//
+    private K nextKey (K key)
+    {
+        boolean found = false;
+
+        for (K k : map.keySet()) {
+            if (found) {
+                return k;
+            } else if (key.equals(k)) {
+                found = true;
+            }
+        }
+
+        return null;
+    }
+
+    //------------//
+    // preciseKey //
+    //------------//
+    private double preciseKey (K prev,
+                               K next,
+                               int count)
+    {
+        // Use interpolation for accurate data between prev & next keys
+        double prevCount = getCount(prev);
+        double nextCount = getCount(next);
+
+        return ((prev.doubleValue() * (nextCount - count))
+                + (next.doubleValue() * (count - prevCount))) / (nextCount
+                                                                 - prevCount);
+    }
+
+    //---------//
+    // prevKey //
+    //---------//
+    private K prevKey (K key)
+    {
+        K prev = null;
+
+        for (K k : map.keySet()) {
+            if (key.equals(k)) {
+                return prev;
+            } else {
+                prev = k;
+            }
+        }
+
+        return null;
+    }
+}
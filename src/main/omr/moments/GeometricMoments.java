@@ -91,6 +91,21 @@ public class GeometricMoments
         System.arraycopy(that.k, 0, this.k, 0, size);
     }
 
+    //------------------//
+    // GeometricMoments //
+    //------------------//
+    /**
+     * Creates a new GeometricMoments object from precomputed values.
+     *
+     * @param values the moment values, an array of size {@link #size}
+     */
+    public GeometricMoments (double[] values)
+    {
+        for (int i = 0; i < size; i++) {
+            k[i] = values[i];
+        }
+    }
+
     //------------------//
     // GeometricMoments //
     //------------------//
@@ -0,0 +1,202 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                     T a b l e A R T E x t r a c t o r                      //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.moments;
+
+import static omr.moments.ARTMoments.*;
+
+import java.awt.image.WritableRaster;
+
+/**
+ * Class {@code TableARTExtractor} is a table-driven implementation
+ * of ART Moments extraction, meant to give the same results as
+ * {@link BasicARTExtractor} much faster.
+ *
+ * <p>All basis functions values (real and imaginary parts) are precomputed
+ * once for all in a single table, where the values of the whole set of
+ * functions are contiguous for a given LUT node.
+ * Rather than interpolating each basis function for each foreground point,
+ * the bilinear weights of each point are first accumulated on the LUT nodes,
+ * and each touched node is then applied once to all basis functions.
+ * The weights table is allocated once per thread, and reset node by node
+ * at the end of each extraction, so that extractors are cheap to create.
+ *
+ * @author Hervé Bitteur
+ */
+public class TableARTExtractor
+        extends AbstractExtractor<ARTMoments>
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Basis function radius, same value as in BasicARTExtractor */
+    private static final int LUT_RADIUS = 50;
+
+    /** Number of nodes along each dimension */
+    private static final int LUT_SIZE = 1 + (2 * LUT_RADIUS);
+
+    /** Number of basis functions */
+    private static final int COUNT = ANGULAR * RADIAL;
+
+    /** Number of values per node: real parts then imaginary parts */
+    private static final int STRIDE = 2 * COUNT;
+
+    /** Basis values, indexed by ((x * LUT_SIZE) + y) * STRIDE + k */
+    private static final double[] basis = new double[LUT_SIZE * LUT_SIZE * STRIDE];
+
+    /** Accumulated weights per LUT node, one table per thread */
+    private static final ThreadLocal<double[]> threadWeights = new ThreadLocal<double[]>()
+    {
+        @Override
+        protected double[] initialValue ()
+        {
+            return new double[LUT_SIZE * LUT_SIZE];
+        }
+    };
+
+    static {
+        initTable();
+    }
+
+    //~ Constructors -----------------------------------------------------------
+    /**
+     * Creates a new TableARTExtractor object.
+     */
+    public TableARTExtractor ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    @Override
+    public void reconstruct (WritableRaster raster)
+    {
+        ///throw new UnsupportedOperationException("Not supported yet.");
+    }
+
+    //----------------//
+    // extractMoments //
+    //----------------//
+    @Override
+    protected void extractMoments ()
+    {
+        final double[] weights = threadWeights.get();
+        final int max = LUT_SIZE - 1;
+        final double centerX = center.getX();
+        final double centerY = center.getY();
+        int xMin = max;
+        int xMax = 0;
+        int yMin = max;
+        int yMax = 0;
+
+        // Spread the bilinear weights of each point on its LUT nodes
+        for (int i = 0; i < mass; i++) {
+            // Map image coordinate to LUT coordinates
+            // (radius may be tiny for a single point, don't use its inverse)
+            double lx = (((xx[i] - centerX) * LUT_RADIUS) / radius)
+                        + LUT_RADIUS;
+            double ly = (((yy[i] - centerY) * LUT_RADIUS) / radius)
+                        + LUT_RADIUS;
+
+            if ((lx < 0) || (lx >= LUT_SIZE) || (ly < 0) || (ly >= LUT_SIZE)) {
+                continue;
+            }
+
+            // Beware of point on LUT border
+            final int x = (int) lx;
+            final int y = (int) ly;
+            final double ix = (x == max) ? 0 : (lx - x);
+            final double iy = (y == max) ? 0 : (ly - y);
+            final int node = (x * LUT_SIZE) + y;
+
+            weights[node] += ((1 - ix) * (1 - iy));
+
+            if (ix != 0) {
+                weights[node + LUT_SIZE] += (ix * (1 - iy));
+            }
+
+            if (iy != 0) {
+                weights[node + 1] += ((1 - ix) * iy);
+
+                if (ix != 0) {
+                    weights[node + LUT_SIZE + 1] += (ix * iy);
+                }
+            }
+
+            xMin = Math.min(xMin, x);
+            xMax = Math.max(xMax, (ix != 0) ? (x + 1) : x);
+            yMin = Math.min(yMin, y);
+            yMax = Math.max(yMax, (iy != 0) ? (y + 1) : y);
+        }
+
+        // Summation of basis functions, node by node
+        final double[] coeffs = new double[STRIDE];
+
+        for (int x = xMin; x <= xMax; x++) {
+            for (int y = yMin; y <= yMax; y++) {
+                final int node = (x * LUT_SIZE) + y;
+                final double w = weights[node];
+
+                if (w != 0) {
+                    weights[node] = 0; // Ready for next extraction
+
+                    final int base = node * STRIDE;
+
+                    for (int k = 0; k < STRIDE; k++) {
+                        coeffs[k] += (w * basis[base + k]);
+                    }
+                }
+            }
+        }
+
+        // Save to descriptor
+        for (int p = 0; p < ANGULAR; p++) {
+            for (int r = 0; r < RADIAL; r++) {
+                final int k = (p * RADIAL) + r;
+                double real = coeffs[k] / mass;
+                double imag = -coeffs[COUNT + k] / mass;
+                descriptor.setMoment(p, r, Math.hypot(imag, real));
+            }
+        }
+    }
+
+    //-----------//
+    // initTable //
+    //-----------//
+    /**
+     * Compute, once for all, the basis table values.
+     */
+    private static void initTable ()
+    {
+        for (int x = 0; x < LUT_SIZE; x++) {
+            double tx = (x - LUT_RADIUS) / (double) LUT_RADIUS; // [-1..+1]
+
+            for (int y = 0; y < LUT_SIZE; y++) {
+                double ty = (y - LUT_RADIUS) / (double) LUT_RADIUS; // [-1..+1]
+                double rad = Math.hypot(tx, ty); // [0..sqrt(2)]
+
+                // Values on or outside circle are left to zero
+                if (rad < 1) {
+                    // We are within circle
+                    final double angle = Math.atan2(ty, tx);
+                    final int base = ((x * LUT_SIZE) + y) * STRIDE;
+
+                    for (int p = 0; p < ANGULAR; p++) {
+                        for (int r = 0; r < RADIAL; r++) {
+                            final int k = (p * RADIAL) + r;
+                            double temp = Math.cos(rad * Math.PI * r);
+                            basis[base + k] = temp * Math.cos(angle * p);
+                            basis[base + COUNT + k] = temp * Math.sin(angle * p);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
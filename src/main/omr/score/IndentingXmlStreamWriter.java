@@ -0,0 +1,690 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                I n d e n t i n g X m l S t r e a m W r i t e r             //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.score;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Class {@code IndentingXmlStreamWriter} is a minimal StAX writer
+ * which lays out its output exactly as JAXB formatted output does.
+ *
+ * <p>This allows to marshal fragments of a document one after the other
+ * (such as the measures of a MusicXML part), while producing the same bytes
+ * as a marshalling of the whole document in one go:
+ * <ul>
+ * <li>Each element starts on a new line, indented by 4 spaces per level,
+ * the writer starting at a provided nesting level.</li>
+ * <li>An end tag goes on a new line only if the element contains
+ * sub-elements, and an element with no content is written as an empty
+ * tag.</li>
+ * <li>Text and attribute values are minimally escaped, carriage returns
+ * being discarded.</li>
+ * <li>Declarations of the xlink namespace are omitted, as done by
+ * proxymusic marshalling.</li>
+ * </ul>
+ *
+ * @author Hervé Bitteur
+ */
+@NotThreadSafe
+class IndentingXmlStreamWriter
+        implements XMLStreamWriter
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Indentation for one level */
+    private static final String INDENT_STEP = "    ";
+
+    /** The xlink namespace, whose declarations are omitted */
+    private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+
+    //~ Instance fields --------------------------------------------------------
+    /** Underlying output */
+    private final Writer out;
+
+    /** Names of the currently open elements */
+    private final Deque<String> names = new ArrayDeque<>();
+
+    /** Namespace declarations pending for the current start tag */
+    private final List<String> declarations = new ArrayList<>();
+
+    /** Current nesting level */
+    private int depth;
+
+    /** True while the current start tag is not closed yet */
+    private boolean startTagOpen;
+
+    /** True if the last event was the end of a sub-element */
+    private boolean seenElement;
+
+    //~ Constructors -----------------------------------------------------------
+    //--------------------------//
+    // IndentingXmlStreamWriter //
+    //--------------------------//
+    /**
+     * Create a writer on the provided output.
+     *
+     * @param out   the output to write to
+     * @param depth the nesting level of the first element to write
+     */
+    public IndentingXmlStreamWriter (Writer out,
+                                     int depth)
+    {
+        this.out = out;
+        this.depth = depth;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-------//
+    // close //
+    //-------//
+    @Override
+    public void close ()
+            throws XMLStreamException
+    {
+        // The underlying output is left open
+        flush();
+    }
+
+    //-------//
+    // flush //
+    //-------//
+    @Override
+    public void flush ()
+            throws XMLStreamException
+    {
+        try {
+            out.flush();
+        } catch (IOException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    //----------//
+    // getDepth //
+    //----------//
+    /**
+     * Report the current nesting level, which is the level of the next
+     * element to be written.
+     *
+     * @return the current nesting level
+     */
+    public int getDepth ()
+    {
+        return depth;
+    }
+
+    //---------------------//
+    // getNamespaceContext //
+    //---------------------//
+    @Override
+    public NamespaceContext getNamespaceContext ()
+    {
+        return null;
+    }
+
+    //-----------//
+    // getPrefix //
+    //-----------//
+    @Override
+    public String getPrefix (String uri)
+    {
+        return null;
+    }
+
+    //-------------//
+    // getProperty //
+    //-------------//
+    @Override
+    public Object getProperty (String name)
+    {
+        throw new IllegalArgumentException("Unsupported property " + name);
+    }
+
+    //---------------------//
+    // setDefaultNamespace //
+    //---------------------//
+    @Override
+    public void setDefaultNamespace (String uri)
+    {
+    }
+
+    //---------------------//
+    // setNamespaceContext //
+    //---------------------//
+    @Override
+    public void setNamespaceContext (NamespaceContext context)
+    {
+    }
+
+    //-----------//
+    // setPrefix //
+    //-----------//
+    @Override
+    public void setPrefix (String prefix,
+                           String uri)
+    {
+    }
+
+    //----------------//
+    // writeAttribute //
+    //----------------//
+    @Override
+    public void writeAttribute (String localName,
+                                String value)
+            throws XMLStreamException
+    {
+        writeAttribute(null, null, localName, value);
+    }
+
+    //----------------//
+    // writeAttribute //
+    //----------------//
+    @Override
+    public void writeAttribute (String namespaceURI,
+                                String localName,
+                                String value)
+            throws XMLStreamException
+    {
+        writeAttribute(null, namespaceURI, localName, value);
+    }
+
+    //----------------//
+    // writeAttribute //
+    //----------------//
+    @Override
+    public void writeAttribute (String prefix,
+                                String namespaceURI,
+                                String localName,
+                                String value)
+            throws XMLStreamException
+    {
+        if (!startTagOpen) {
+            throw new XMLStreamException("No start tag for " + localName);
+        }
+
+        write(' ');
+        write(qualified(prefix, localName));
+        write("=\"");
+        writeEscaped(value, true);
+        write('"');
+    }
+
+    //------------//
+    // writeCData //
+    //------------//
+    @Override
+    public void writeCData (String data)
+            throws XMLStreamException
+    {
+        writeCharacters(data);
+    }
+
+    //-----------------//
+    // writeCharacters //
+    //-----------------//
+    @Override
+    public void writeCharacters (String text)
+            throws XMLStreamException
+    {
+        closeStartTag(false);
+        writeEscaped(text, false);
+        seenElement = false;
+    }
+
+    //-----------------//
+    // writeCharacters //
+    //-----------------//
+    @Override
+    public void writeCharacters (char[] text,
+                                 int start,
+                                 int len)
+            throws XMLStreamException
+    {
+        writeCharacters(new String(text, start, len));
+    }
+
+    //--------------//
+    // writeComment //
+    //--------------//
+    @Override
+    public void writeComment (String data)
+            throws XMLStreamException
+    {
+        closeStartTag(false);
+        write("<!--");
+        write(data);
+        write("-->");
+    }
+
+    //----------//
+    // writeDTD //
+    //----------//
+    @Override
+    public void writeDTD (String dtd)
+            throws XMLStreamException
+    {
+        write(dtd);
+    }
+
+    //-----------------------//
+    // writeDefaultNamespace //
+    //-----------------------//
+    @Override
+    public void writeDefaultNamespace (String namespaceURI)
+            throws XMLStreamException
+    {
+        writeNamespace("", namespaceURI);
+    }
+
+    //-------------------//
+    // writeEmptyElement //
+    //-------------------//
+    @Override
+    public void writeEmptyElement (String localName)
+            throws XMLStreamException
+    {
+        writeEmptyElement(null, localName, null);
+    }
+
+    //-------------------//
+    // writeEmptyElement //
+    //-------------------//
+    @Override
+    public void writeEmptyElement (String namespaceURI,
+                                   String localName)
+            throws XMLStreamException
+    {
+        writeEmptyElement(null, localName, namespaceURI);
+    }
+
+    //-------------------//
+    // writeEmptyElement //
+    //-------------------//
+    @Override
+    public void writeEmptyElement (String prefix,
+                                   String localName,
+                                   String namespaceURI)
+            throws XMLStreamException
+    {
+        // Attributes may still follow, so the element is simply ended
+        // on next event
+        writeStartElement(prefix, localName, namespaceURI);
+        names.push("");
+    }
+
+    //------------------//
+    // writeEndDocument //
+    //------------------//
+    @Override
+    public void writeEndDocument ()
+            throws XMLStreamException
+    {
+        while (!names.isEmpty()) {
+            writeEndElement();
+        }
+    }
+
+    //-----------------//
+    // writeEndElement //
+    //-----------------//
+    @Override
+    public void writeEndElement ()
+            throws XMLStreamException
+    {
+        endPendingEmpty();
+
+        if (names.isEmpty()) {
+            throw new XMLStreamException("No element to end");
+        }
+
+        String name = names.pop();
+        depth--;
+
+        if (startTagOpen) {
+            closeStartTag(true);
+        } else {
+            if (seenElement) {
+                write('\n');
+                writeIndent();
+            }
+
+            write("</");
+            write(name);
+            write('>');
+        }
+
+        seenElement = true;
+    }
+
+    //-----------------//
+    // writeEntityRef //
+    //-----------------//
+    @Override
+    public void writeEntityRef (String name)
+            throws XMLStreamException
+    {
+        closeStartTag(false);
+        write('&');
+        write(name);
+        write(';');
+    }
+
+    //---------------//
+    // writeFragment //
+    //---------------//
+    /**
+     * Write one or several complete elements, already laid out by another
+     * writer which was started at the current nesting level.
+     *
+     * @param fragment the formatted elements
+     * @throws XMLStreamException if output failed
+     */
+    public void writeFragment (String fragment)
+            throws XMLStreamException
+    {
+        endPendingEmpty();
+        closeStartTag(false);
+        write(fragment);
+        seenElement = true;
+    }
+
+    //----------------//
+    // writeNamespace //
+    //----------------//
+    @Override
+    public void writeNamespace (String prefix,
+                                String namespaceURI)
+            throws XMLStreamException
+    {
+        if (!startTagOpen) {
+            throw new XMLStreamException("No start tag for " + namespaceURI);
+        }
+
+        if (XLINK_NS.equals(namespaceURI)) {
+            return;
+        }
+
+        // Declarations are written after the attributes
+        StringBuilder sb = new StringBuilder(" xmlns");
+
+        if ((prefix != null) && !prefix.isEmpty()) {
+            sb.append(':')
+                    .append(prefix);
+        }
+
+        sb.append("=\"")
+                .append(namespaceURI)
+                .append('"');
+        declarations.add(sb.toString());
+    }
+
+    //-----------------------------//
+    // writeProcessingInstruction //
+    //-----------------------------//
+    @Override
+    public void writeProcessingInstruction (String target)
+            throws XMLStreamException
+    {
+        writeProcessingInstruction(target, null);
+    }
+
+    //-----------------------------//
+    // writeProcessingInstruction //
+    //-----------------------------//
+    @Override
+    public void writeProcessingInstruction (String target,
+                                            String data)
+            throws XMLStreamException
+    {
+        closeStartTag(false);
+        write("<?");
+        write(target);
+
+        if (data != null) {
+            write(' ');
+            write(data);
+        }
+
+        write("?>");
+    }
+
+    //--------------------//
+    // writeStartDocument //
+    //--------------------//
+    @Override
+    public void writeStartDocument ()
+    {
+        // No XML declaration, the writer deals with fragments only
+    }
+
+    //--------------------//
+    // writeStartDocument //
+    //--------------------//
+    @Override
+    public void writeStartDocument (String version)
+    {
+        writeStartDocument();
+    }
+
+    //--------------------//
+    // writeStartDocument //
+    //--------------------//
+    @Override
+    public void writeStartDocument (String encoding,
+                                    String version)
+    {
+        writeStartDocument();
+    }
+
+    //-------------------//
+    // writeStartElement //
+    //-------------------//
+    @Override
+    public void writeStartElement (String localName)
+            throws XMLStreamException
+    {
+        writeStartElement(null, localName, null);
+    }
+
+    //-------------------//
+    // writeStartElement //
+    //-------------------//
+    @Override
+    public void writeStartElement (String namespaceURI,
+                                   String localName)
+            throws XMLStreamException
+    {
+        writeStartElement(null, localName, namespaceURI);
+    }
+
+    //-------------------//
+    // writeStartElement //
+    //-------------------//
+    @Override
+    public void writeStartElement (String prefix,
+                                   String localName,
+                                   String namespaceURI)
+            throws XMLStreamException
+    {
+        endPendingEmpty();
+        closeStartTag(false);
+
+        if (depth > 0) {
+            write('\n');
+        }
+
+        writeIndent();
+
+        String name = qualified(prefix, localName);
+        write('<');
+        write(name);
+        names.push(name);
+        startTagOpen = true;
+        seenElement = false;
+        depth++;
+    }
+
+    //---------------//
+    // closeStartTag //
+    //---------------//
+    /**
+     * Close the current start tag if still open, by writing the pending
+     * namespace declarations and then either '>' or '/>'.
+     *
+     * @param empty true for an element with no content
+     */
+    private void closeStartTag (boolean empty)
+            throws XMLStreamException
+    {
+        if (startTagOpen) {
+            for (String declaration : declarations) {
+                write(declaration);
+            }
+
+            declarations.clear();
+            write(empty ? "/>" : ">");
+            startTagOpen = false;
+        }
+    }
+
+    //-----------------//
+    // endPendingEmpty //
+    //-----------------//
+    /**
+     * End the element opened by writeEmptyElement, if any.
+     */
+    private void endPendingEmpty ()
+            throws XMLStreamException
+    {
+        if (!names.isEmpty() && names.peek()
+                .isEmpty()) {
+            names.pop();
+            writeEndElement();
+        }
+    }
+
+    //-----------//
+    // qualified //
+    //-----------//
+    private static String qualified (String prefix,
+                                     String localName)
+    {
+        if ((prefix == null) || prefix.isEmpty()) {
+            return localName;
+        } else {
+            return prefix + ":" + localName;
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    private void write (String str)
+            throws XMLStreamException
+    {
+        try {
+            out.write(str);
+        } catch (IOException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    private void write (char c)
+            throws XMLStreamException
+    {
+        try {
+            out.write(c);
+        } catch (IOException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    //--------------//
+    // writeEscaped //
+    //--------------//
+    /**
+     * Write a text or attribute value, using the same minimal escaping
+     * as JAXB for UTF-8 output.
+     */
+    private void writeEscaped (String str,
+                               boolean isAttribute)
+            throws XMLStreamException
+    {
+        try {
+            int start = 0;
+            final int length = str.length();
+
+            for (int i = 0; i < length; i++) {
+                final char c = str.charAt(i);
+
+                if ((c == '&') || (c == '<') || (c == '>') || (c == '\r')
+                    || ((c == '"') && isAttribute)) {
+                    out.write(str, start, i - start);
+                    start = i + 1;
+
+                    switch (c) {
+                    case '&':
+                        out.write("&amp;");
+
+                        break;
+
+                    case '<':
+                        out.write("&lt;");
+
+                        break;
+
+                    case '>':
+                        out.write("&gt;");
+
+                        break;
+
+                    case '"':
+                        out.write("&quot;");
+
+                        break;
+
+                    default: // Carriage return is discarded
+                    }
+                }
+            }
+
+            out.write(str, start, length - start);
+        } catch (IOException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    //-------------//
+    // writeIndent //
+    //-------------//
+    private void writeIndent ()
+            throws XMLStreamException
+    {
+        for (int i = 0; i < depth; i++) {
+            write(INDENT_STEP);
+        }
+    }
+}
@@ -12,6 +12,7 @@
 package omr.score;
 
 import omr.Main;
+import omr.Startup;
 
 import omr.constant.Constant;
 import omr.constant.ConstantSet;
@@ -124,6 +125,9 @@ public class Score
     /** The script of user actions on this score */
     private Script script;
 
+    /** Description of the first processing failure, if any */
+    private volatile String failure;
+
     /** Handling of binarization filter parameter. */
     private final Param<FilterDescriptor> filterParam =
             new Param<>(FilterDescriptor.defaultFilter);
@@ -236,6 +240,7 @@ public class Score
 
                     if (firstPage == null) {
                         firstPage = page;
+                        Startup.firstPageLoaded();
 
                         // Let the UI focus on first page
                         if (Main.getGui() != null) {
@@ -677,6 +682,19 @@ public class Score
         }
     }
 
+    //------------//
+    // getFailure //
+    //------------//
+    /**
+     * Report the first processing failure met on this score, if any.
+     *
+     * @return the failure description, or null if none
+     */
+    public String getFailure ()
+    {
+        return failure;
+    }
+
     //-----------//
     // getScript //
     //-----------//
@@ -746,6 +764,21 @@ public class Score
         return volume != null;
     }
 
+    //---------------//
+    // recordFailure //
+    //---------------//
+    /**
+     * Record a processing failure, only the first one being kept.
+     *
+     * @param failure the failure description
+     */
+    public synchronized void recordFailure (String failure)
+    {
+        if (this.failure == null) {
+            this.failure = failure;
+        }
+    }
+
     //--------//
     // remove //
     //--------//
@@ -962,7 +995,11 @@ public class Score
                             ? scorePart.getMidiProgram()
                             : scorePart.getDefaultProgram();
 
-                    data.add(new PartData(scorePart.getName(), prog));
+                    data.add(
+                            new PartData(
+                            scorePart.getName(),
+                            prog,
+                            scorePart.getVolume()));
                 }
                 return data;
             } else {
@@ -983,6 +1020,9 @@ public class Score
 
                     // Part midi program
                     scorePart.setMidiProgram(data.program);
+
+                    // Part midi volume
+                    scorePart.setVolume(data.volume);
                 }
 
                 logger.info("Score parts have been updated");
@@ -153,10 +153,15 @@ import com.audiveris.proxymusic.util.Marshalling;
 import java.awt.Font;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -167,6 +172,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.nio.charset.StandardCharsets;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -174,6 +180,9 @@ import java.util.concurrent.Future;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * Class {@code ScoreExporter} visits the score hierarchy to export
@@ -220,6 +229,9 @@ public class ScoreExporter
     private static final BigDecimal pageVerticalMargin =
             new BigDecimal(constants.pageVerticalMargin.getValue());
 
+    /** End of a marshalled score-partwise document */
+    static final String PARTWISE_END = "\n</score-partwise>";
+
     //~ Instance fields --------------------------------------------------------
     /** The related score */
     private final Score score;
@@ -245,6 +257,15 @@ public class ScoreExporter
     /** Factory for proxymusic entities */
     private final com.audiveris.proxymusic.ObjectFactory factory = new com.audiveris.proxymusic.ObjectFactory();
 
+    /** Which part of the document the current visit is building */
+    private Pass pass = Pass.WHOLE;
+
+    /** Output of streamed measures, if any */
+    private IndentingXmlStreamWriter measureWriter;
+
+    /** Marshaller of one measure at a time, if any */
+    private Marshaller measureMarshaller;
+
     //~ Constructors -----------------------------------------------------------
     //---------------//
     // ScoreExporter //
@@ -308,12 +329,10 @@ public class ScoreExporter
                     "Trying to export a score to a null output stream");
         }
 
-        // Let visited nodes fill the scorePartWise proxy
-        try {
-            score.accept(this);
-        } finally {
-            //  Marshal the proxy with what we've got
-            Marshalling.marshal(scorePartwise, os, injectSignature);
+        if (constants.streamingExport.isSet()) {
+            exportStreaming(os, injectSignature);
+        } else {
+            exportWhole(os, injectSignature);
         }
     }
 
@@ -347,16 +366,6 @@ public class ScoreExporter
         }
     }
 
-    //---------//
-    // preload //
-    //---------//
-    /**
-     * Empty static method, just to trigger class elaboration.
-     */
-    public static void preload ()
-    {
-    }
-
     //-----------------//
     // setMeasureRange //
     //-----------------//
@@ -1059,7 +1068,21 @@ public class ScoreExporter
             clefIters.push(null, null);
 
             // Everything is now OK
-            current.pmPart.getMeasure().add(current.pmMeasure);
+            if (pass == Pass.MEASURES) {
+                // Marshal aside, so that a failure leaves no partial measure
+                StringWriter buffer = new StringWriter();
+                measureMarshaller.marshal(
+                        new JAXBElement<>(
+                        new QName("measure"),
+                        ScorePartwise.Part.Measure.class,
+                        current.pmMeasure),
+                        new IndentingXmlStreamWriter(
+                        buffer,
+                        measureWriter.getDepth()));
+                measureWriter.writeFragment(buffer.toString());
+            } else {
+                current.pmPart.getMeasure().add(current.pmMeasure);
+            }
         } catch (Exception ex) {
             logger.warn("Error visiting " + measure + " in " + current.page, ex);
         }
@@ -1760,13 +1783,17 @@ public class ScoreExporter
             logger.debug("Visiting {}", systemPart);
 
             // Delegate to texts
-            for (TreeNode node : systemPart.getTexts()) {
-                ((Text) node).accept(this);
+            if (pass != Pass.MEASURES) {
+                for (TreeNode node : systemPart.getTexts()) {
+                    ((Text) node).accept(this);
+                }
             }
 
             // Delegate to measures
-            for (TreeNode node : systemPart.getMeasures()) {
-                ((Measure) node).accept(this);
+            if (pass != Pass.HEADER) {
+                for (TreeNode node : systemPart.getMeasures()) {
+                    ((Measure) node).accept(this);
+                }
             }
         } catch (Exception ex) {
             logger.warn("Error visiting " + systemPart, ex);
@@ -2334,6 +2361,90 @@ public class ScoreExporter
         return scorePartwise;
     }
 
+    //-----------------//
+    // exportStreaming //
+    //-----------------//
+    /**
+     * Export the score to an output stream, writing each measure as soon
+     * as it is built.
+     * The header (everything but the parts) is first built and marshalled
+     * as usual, then the parts are streamed one after the other, so that
+     * the whole tree of measures is never kept in memory.
+     * The resulting bytes are identical to those of a global marshalling.
+     *
+     * @param os              the output stream where XML data is written
+     * @param injectSignature should we inject our signature?
+     */
+    void exportStreaming (OutputStream os,
+                          boolean injectSignature)
+            throws Exception
+    {
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
+            // Header, with no part content
+            pass = Pass.HEADER;
+            score.accept(this);
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            Marshalling.marshal(scorePartwise, header, injectSignature);
+
+            String head = header.toString("UTF-8");
+            int end = head.lastIndexOf(PARTWISE_END);
+
+            if ((end == -1) || (score.getPartList() == null)) {
+                out.write(head);
+
+                return;
+            }
+
+            out.write(head, 0, end);
+
+            // Parts content, measure after measure
+            pass = Pass.MEASURES;
+            measureMarshaller = Marshalling.getContext()
+                    .createMarshaller();
+            measureMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            measureWriter = new IndentingXmlStreamWriter(out, 1);
+
+            isFirst.scorePart = true;
+
+            for (ScorePart p : score.getPartList()) {
+                streamPart(p);
+                isFirst.scorePart = false;
+            }
+
+            measureWriter.flush();
+            out.write(PARTWISE_END);
+        } finally {
+            pass = Pass.WHOLE;
+            measureWriter = null;
+            measureMarshaller = null;
+        }
+    }
+
+    //-------------//
+    // exportWhole //
+    //-------------//
+    /**
+     * Export the score to an output stream, by building the whole
+     * document before marshalling it.
+     *
+     * @param os              the output stream where XML data is written
+     * @param injectSignature should we inject our signature?
+     */
+    void exportWhole (OutputStream os,
+                      boolean injectSignature)
+            throws Exception
+    {
+        // Let visited nodes fill the scorePartWise proxy
+        try {
+            score.accept(this);
+        } finally {
+            //  Marshal the proxy with what we've got
+            Marshalling.marshal(scorePartwise, os, injectSignature);
+        }
+    }
+
     //--------------//
     // getScorePart //
     //--------------//
@@ -2379,20 +2490,20 @@ public class ScoreExporter
         midiInstrument.setId(scoreInstrument);
         midiInstrument.setMidiChannel(scorePart.getId());
         midiInstrument.setMidiProgram(midiProgram);
-        midiInstrument.setVolume(new BigDecimal(score.getVolume()));
+        midiInstrument.setVolume(
+                new BigDecimal(
+                (scorePart.getVolume() != null) ? scorePart.getVolume()
+                : score.getVolume()));
 
         // ScorePart in scorePartwise
-        current.pmPart = factory.createScorePartwisePart();
-        scorePartwise.getPart().add(current.pmPart);
-        current.pmPart.setId(pmScorePart);
-
-        // Delegate to children the filling of measures
-        logger.debug("Populating {}", current.scorePart);
-        isFirst.system = true;
-        slurNumbers.clear(); // Reset slur numbers
+        if (pass == Pass.WHOLE) {
+            current.pmPart = factory.createScorePartwisePart();
+            scorePartwise.getPart().add(current.pmPart);
+            current.pmPart.setId(pmScorePart);
+        }
 
-        // Browse the whole score hierarchy for this score scorePart
-        score.acceptChildren(this);
+        // Delegate to children the filling of measures (or texts)
+        populatePart();
 
         return pmScorePart;
     }
@@ -2590,6 +2701,42 @@ public class ScoreExporter
         return true; // Since no previous key found
     }
 
+    //--------------//
+    // populatePart //
+    //--------------//
+    /**
+     * Browse the whole score hierarchy for the current score part.
+     */
+    private void populatePart ()
+    {
+        logger.debug("Populating {}", current.scorePart);
+        isFirst.system = true;
+        slurNumbers.clear(); // Reset slur numbers
+
+        score.acceptChildren(this);
+    }
+
+    //------------//
+    // streamPart //
+    //------------//
+    /**
+     * Write the part element that relates to the provided ScorePart,
+     * each measure being marshalled as soon as it is completed.
+     *
+     * @param scorePart provided ScorePart
+     */
+    private void streamPart (ScorePart scorePart)
+            throws XMLStreamException
+    {
+        current.scorePart = scorePart;
+        current.pmPart = null;
+
+        measureWriter.writeStartElement("part");
+        measureWriter.writeAttribute("id", scorePart.getPid());
+        populatePart();
+        measureWriter.writeEndElement();
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //
     //---------//
@@ -2970,6 +3117,23 @@ public class ScoreExporter
         }
     }
 
+    //------//
+    // Pass //
+    //------//
+    /** Which part of the document is being built. */
+    private static enum Pass
+    {
+        //~ Enumeration constant initializers ----------------------------------
+
+        /** The whole document at once */
+        WHOLE,
+        /** Everything but the content of parts */
+        HEADER,
+        /** Just the parts content, streamed to output */
+        MEASURES;
+
+    }
+
     //-----------//
     // Constants //
     //-----------//
@@ -2992,5 +3156,10 @@ public class ScoreExporter
                 false,
                 "Should we avoid brackets for all tuplets");
 
+        Constant.Boolean streamingExport = new Constant.Boolean(
+                false,
+                "Should we write measures as soon as they are built, rather than"
+                + " building the whole document before marshalling it");
+
     }
 }
@@ -18,7 +18,10 @@ import omr.util.StopWatch;
 import omr.util.WrappedBoolean;
 import omr.util.XmlUtil;
 
+import com.audiveris.proxymusic.Attributes;
 import com.audiveris.proxymusic.Credit;
+import com.audiveris.proxymusic.Defaults;
+import com.audiveris.proxymusic.Identification;
 import com.audiveris.proxymusic.Instrument;
 import com.audiveris.proxymusic.MidiInstrument;
 import com.audiveris.proxymusic.Note;
@@ -29,6 +32,7 @@ import com.audiveris.proxymusic.ScorePart;
 import com.audiveris.proxymusic.ScorePartwise;
 import com.audiveris.proxymusic.ScorePartwise.Part;
 import com.audiveris.proxymusic.ScorePartwise.Part.Measure;
+import com.audiveris.proxymusic.Work;
 import com.audiveris.proxymusic.YesNo;
 import com.audiveris.proxymusic.util.Marshalling;
 
@@ -36,16 +40,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -56,6 +71,11 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Class {@code ScoreXmlReduction} is the "reduce" part of a MapReduce
@@ -78,6 +98,18 @@ import javax.xml.bind.JAXBException;
  * </code>
  * </p>
  *
+ * <p>For scores with many pages, the fragments are better provided as files
+ * and reduced directly to an output stream, since this streaming mode never
+ * holds more than the headers of the pages in memory:
+ * <code>
+ * <pre>
+ * SortedMap&lt;Integer, File&gt; files = ...;
+ * ScoreXmlReduction reduction = new ScoreXmlReduction(files);
+ * reduction.reduce(outputStream);
+ * </pre>
+ * </code>
+ * </p>
+ *
  * <p><b>Features not yet implemented:</b> <ul>
  * <li>Connection of slurs between pages</li>
  * <li>In part-list, handling of part-group beside score-part</li>
@@ -107,7 +139,7 @@ public class ScoreXmlReduction
             ScoreXmlReduction.class);
 
     /** Just for debug */
-    private static StopWatch watch;
+    private static StopWatch watch = new StopWatch("Reduction");
 
     //~ Enumerations -----------------------------------------------------------
     /** End status of processing for a single XML fragment */
@@ -130,6 +162,9 @@ public class ScoreXmlReduction
     /** Map of XML fragments, one entry per page */
     private final Map<Integer, String> fragments;
 
+    /** Map of XML fragment files, one entry per page */
+    private final SortedMap<Integer, File> files;
+
     /** Map of fragments final statuses, one status per page */
     private final Map<Integer, Status> statuses;
 
@@ -148,6 +183,13 @@ public class ScoreXmlReduction
     /** Map of old ScoreInstrument -> new ScoreInstrument */
     private Map<ScoreInstrument, ScoreInstrument> newInsts;
 
+    /** Per page, map of part id -> old ScorePart (streaming mode) */
+    private Map<Integer, Map<String, ScorePart>> pageParts;
+
+    /** Per page, map of instrument id -> old ScoreInstrument (streaming
+     * mode) */
+    private Map<Integer, Map<String, ScoreInstrument>> pageInsts;
+
     //~ Constructors -----------------------------------------------------------
     /**
      * Creates a new ScoreXmlReduction object.
@@ -159,6 +201,21 @@ public class ScoreXmlReduction
     public ScoreXmlReduction (Map<Integer, String> fragments)
     {
         this.fragments = fragments;
+        this.files = null;
+
+        statuses = new TreeMap<>();
+    }
+
+    /**
+     * Creates a new ScoreXmlReduction object, on fragments stored in files.
+     *
+     * @param files a map of MusicXML fragment files, one entry per page, the
+     *              key being the page number.
+     */
+    public ScoreXmlReduction (SortedMap<Integer, File> files)
+    {
+        this.fragments = null;
+        this.files = files;
 
         statuses = new TreeMap<>();
     }
@@ -189,7 +246,8 @@ public class ScoreXmlReduction
      * @param args the template items to filter relevant files
      */
     public static void main (String... args)
-            throws FileNotFoundException, IOException, JAXBException
+            throws FileNotFoundException, IOException, JAXBException,
+                   XMLStreamException
     {
         //        // TODO QUICK & DIRTY HACK!!!!!!!!!!!!!!!!!!!!!!!!
         //        String[] args = new String[] {
@@ -220,26 +278,10 @@ public class ScoreXmlReduction
             return;
         }
 
-        // Reading files without any checking
-        SortedMap<Integer, String> fragments = readFiles(files);
-
-        // Reduction
-        ScoreXmlReduction reduction = new ScoreXmlReduction(fragments);
-        String output = reduction.reduce();
-
-        logger.info("Output.length: {}", output.length());
-
-        //        if (logger.isDebugEnabled()) {
-        //            logger.debug("Output:\n" + output);
-        //        }
-
-        // For debugging
-        watch.start("Writing output file");
-
+        // Reduction, streamed page after page to the output file
+        ScoreXmlReduction reduction = new ScoreXmlReduction(files);
         File file = new File(dir, prefix + "global.xml");
-        FileOutputStream fos = new FileOutputStream(file);
-        fos.write(output.getBytes());
-        fos.close();
+        reduction.reduce(new FileOutputStream(file));
         logger.info("Output written to {}", file);
 
         watch.print();
@@ -283,7 +325,7 @@ public class ScoreXmlReduction
 
         // Unmarshall pages (MusicXML fragments -> ScorePartwise instances)
         SortedMap<Integer, ScorePartwise> partwises = unmarshallPages(
-                fragments);
+                (fragments != null) ? fragments : readFiles(files));
 
         if (partwises.isEmpty()) {
             return "";
@@ -296,6 +338,86 @@ public class ScoreXmlReduction
         return buildOutput(globalPartwise);
     }
 
+    //--------//
+    // reduce //
+    //--------//
+    /**
+     * Same as {@link #reduce()}, but the fragments are processed one after
+     * the other and the resulting score is written incrementally to the
+     * provided output stream.
+     * <p>Only the headers and part-lists of pages, and the measures of the
+     * page being copied, are kept in memory.
+     * The measures of each page are copied on the fly, with their numbers
+     * and instrument references updated, to one temporary file per
+     * resulting part, and these parts are finally appended to the global
+     * header.</p>
+     *
+     * @param os the output stream to write to, closed when done
+     */
+    public void reduce (OutputStream os)
+            throws JAXBException, IOException, XMLStreamException
+    {
+        // Preloading of JAXBContext
+        watch.start("Preloading JAXB Context");
+
+        Unmarshaller unmarshaller = Marshalling.getContext()
+                .createUnmarshaller();
+
+        // The MusicXML DTD is not needed
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+        // Initialize statuses
+        for (Integer page : getPageNumbers()) {
+            statuses.put(page, Status.OK);
+        }
+
+        // Scan pages (header, part-list and number of staves per part)
+        SortedMap<Integer, ScorePartwise> pages = scanPages(
+                inputFactory,
+                unmarshaller);
+
+        if (pages.isEmpty()) {
+            os.close();
+
+            return;
+        }
+
+        // Consolidate headers and part-lists
+        ScorePartwise global = mergeHeader(pages);
+
+        // Copy the measures of each page to their resulting part
+        Map<ScorePart, Spool> spools = new LinkedHashMap<>();
+
+        try {
+            for (Object obj : global.getPartList().getPartGroupOrScorePart()) {
+                spools.put((ScorePart) obj, new Spool());
+            }
+
+            spoolPages(pages.keySet(), inputFactory, spools);
+
+            // Build output (global header + spooled parts -> MusicXML)
+            writeOutput(global, spools, os);
+        } finally {
+            for (Spool spool : spools.values()) {
+                spool.delete();
+            }
+        }
+    }
+
+    //---------//
+    // nextTag //
+    //---------//
+    /**
+     * Move the reader to the next start or end tag.
+     */
+    private static void nextTag (XMLStreamReader reader)
+            throws XMLStreamException
+    {
+        reader.next();
+        toTag(reader);
+    }
+
     //-----------//
     // readFiles //
     //-----------//
@@ -382,6 +504,45 @@ public class ScoreXmlReduction
         return map;
     }
 
+    //-------------//
+    // skipElement //
+    //-------------//
+    /**
+     * Skip the element the reader is positioned on, leaving the reader
+     * just after the element end.
+     */
+    private static void skipElement (XMLStreamReader reader)
+            throws XMLStreamException
+    {
+        int depth = 1;
+
+        while (depth > 0) {
+            reader.next();
+
+            if (reader.isStartElement()) {
+                depth++;
+            } else if (reader.isEndElement()) {
+                depth--;
+            }
+        }
+
+        reader.next();
+    }
+
+    //-------//
+    // toTag //
+    //-------//
+    /**
+     * Move the reader, if needed, to the next start or end tag.
+     */
+    private static void toTag (XMLStreamReader reader)
+            throws XMLStreamException
+    {
+        while (!reader.isStartElement() && !reader.isEndElement()) {
+            reader.next();
+        }
+    }
+
     //-----------//
     // addHeader //
     //-----------//
@@ -612,7 +773,129 @@ public class ScoreXmlReduction
         ByteArrayOutputStream os = new ByteArrayOutputStream();
         Marshalling.marshal(globalPartwise, os, true);
 
-        return os.toString();
+        return os.toString("UTF-8");
+    }
+
+    //-------------//
+    // copyMeasure //
+    //-------------//
+    /**
+     * Copy the measure the reader is positioned on, shifting its number
+     * and updating its instrument references.
+     *
+     * @param reader    the page reader, left just after the measure end
+     * @param writer    the output for the measure
+     * @param insts     the page instruments, by id
+     * @param newPage   true if the measure starts a new page
+     * @param midOffset page offset on measure id
+     * @return the measure id, as found in page
+     */
+    private int copyMeasure (XMLStreamReader reader,
+                             XMLStreamWriter writer,
+                             Map<String, ScoreInstrument> insts,
+                             boolean newPage,
+                             int midOffset)
+            throws XMLStreamException
+    {
+        int mid = Integer.decode(reader.getAttributeValue(null, "number"));
+        StringBuilder text = new StringBuilder(); // Pending text
+        boolean isEmpty = false; // Current element has no child so far?
+        boolean printFound = false;
+        int depth = 0;
+
+        while (true) {
+            switch (reader.getEventType()) {
+            case XMLStreamReader.START_ELEMENT: {
+                writeText(writer, text, false);
+
+                String name = reader.getLocalName();
+                writer.writeStartElement(
+                        reader.getPrefix(),
+                        name,
+                        reader.getNamespaceURI());
+
+                for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                    writer.writeNamespace(
+                            reader.getNamespacePrefix(i),
+                            reader.getNamespaceURI(i));
+                }
+
+                boolean isPrint = newPage && !printFound && (depth == 1)
+                                  && name.equals("print");
+
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    String attName = reader.getAttributeLocalName(i);
+                    String value = reader.getAttributeValue(i);
+
+                    if ((depth == 0) && attName.equals("number")) {
+                        // Shift measure number
+                        value = "" + (mid + midOffset);
+                    } else if (name.equals("instrument")
+                               && attName.equals("id")) {
+                        // Instrument reference
+                        ScoreInstrument si = insts.get(value);
+
+                        if ((si != null) && (newInsts.get(si) != null)) {
+                            value = newInsts.get(si).getId();
+                        }
+                    } else if (isPrint && attName.equals("new-page")) {
+                        continue;
+                    }
+
+                    writer.writeAttribute(
+                            reader.getAttributePrefix(i),
+                            reader.getAttributeNamespace(i),
+                            attName,
+                            value);
+                }
+
+                if (isPrint) {
+                    // Update print element
+                    writer.writeAttribute("new-page", YesNo.YES.value());
+                    printFound = true;
+                }
+
+                isEmpty = true;
+                depth++;
+            }
+
+            break;
+
+            case XMLStreamReader.CHARACTERS:
+            case XMLStreamReader.CDATA:
+            case XMLStreamReader.SPACE:
+                text.append(reader.getText());
+
+                break;
+
+            case XMLStreamReader.END_ELEMENT:
+                depth--;
+
+                if ((depth == 0) && newPage && !printFound) {
+                    // Insert print element
+                    writeText(writer, text, false);
+                    writer.writeEmptyElement("print");
+                    writer.writeAttribute("new-page", YesNo.YES.value());
+                    isEmpty = false;
+                }
+
+                writeText(writer, text, isEmpty);
+                writer.writeEndElement();
+                isEmpty = false;
+
+                if (depth == 0) {
+                    reader.next();
+
+                    return mid;
+                }
+
+                break;
+
+            default: // Comments and processing instructions are dropped
+            }
+
+            reader.next();
+        }
     }
 
     //-------------------//
@@ -726,6 +1009,18 @@ public class ScoreXmlReduction
         }
     }
 
+    //----------------//
+    // getPageNumbers //
+    //----------------//
+    /**
+     * Report the numbers of input pages, in increasing order.
+     */
+    private SortedSet<Integer> getPageNumbers ()
+    {
+        return new TreeSet<>(
+                (files != null) ? files.keySet() : fragments.keySet());
+    }
+
     //----------//
     // getPrint //
     //----------//
@@ -779,6 +1074,30 @@ public class ScoreXmlReduction
      * @return the resulting global score partwise
      */
     private ScorePartwise merge (SortedMap<Integer, ScorePartwise> pages)
+    {
+        ScorePartwise global = mergeHeader(pages);
+
+        // parts data, inserting page breaks, re-numbering measures
+        addPartsData(pages);
+
+        // Handle cross-page slurs
+        // TBD
+
+        // The end
+        return global;
+    }
+
+    //-------------//
+    // mergeHeader //
+    //-------------//
+    /**
+     * Consolidate the headers and part-lists of individual pages, the
+     * global parts being still empty.
+     *
+     * @param pages the individual pages, indexed by their page number
+     * @return the resulting global score partwise
+     */
+    private ScorePartwise mergeHeader (SortedMap<Integer, ScorePartwise> pages)
     {
         watch.start("Merge");
 
@@ -806,13 +1125,6 @@ public class ScoreXmlReduction
         // Debug: List all candidates per result
         dumpResultMapping();
 
-        // parts data, inserting page breaks, re-numbering measures
-        addPartsData(pages);
-
-        // Handle cross-page slurs
-        // TBD
-
-        // The end
         return global;
     }
 
@@ -833,6 +1145,345 @@ public class ScoreXmlReduction
         }
     }
 
+    //----------//
+    // openPage //
+    //----------//
+    /**
+     * Open the content of a page fragment.
+     *
+     * @param pageNumber the page number
+     * @param stripped   if non null, set to true if non-valid XML characters
+     *                   had to be skipped
+     * @return the reader on page content
+     */
+    private Reader openPage (int pageNumber,
+                             WrappedBoolean stripped)
+            throws IOException
+    {
+        Reader reader = (files != null)
+                        ? new InputStreamReader(
+                new FileInputStream(files.get(pageNumber)),
+                StandardCharsets.UTF_8)
+                        : new StringReader(fragments.get(pageNumber));
+
+        return XmlUtil.stripNonValidXMLCharacters(reader, stripped);
+    }
+
+    //------------------//
+    // scanFirstMeasure //
+    //------------------//
+    /**
+     * Build a measure with just the number of staves, if any, found in
+     * the measure the reader is positioned on.
+     *
+     * @param reader the page reader, left just after the measure end
+     * @return the (partial) measure
+     */
+    private Measure scanFirstMeasure (XMLStreamReader reader)
+            throws XMLStreamException
+    {
+        Measure measure = factory.createScorePartwisePartMeasure();
+        measure.setNumber(reader.getAttributeValue(null, "number"));
+
+        Attributes attributes = null;
+        int depth = 1;
+
+        while (depth > 0) {
+            reader.next();
+
+            if (reader.isStartElement()) {
+                if ((depth == 2) && (attributes == null)
+                    && reader.getLocalName().equals("staves")) {
+                    // We are left on staves end
+                    attributes = factory.createAttributes();
+                    attributes.setStaves(
+                            new BigInteger(reader.getElementText().trim()));
+                    measure.getNoteOrBackupOrForward().add(attributes);
+                } else {
+                    depth++;
+                }
+            } else if (reader.isEndElement()) {
+                depth--;
+            }
+        }
+
+        reader.next();
+
+        return measure;
+    }
+
+    //----------//
+    // scanPage //
+    //----------//
+    /**
+     * Read the header and part-list of a page, and just the first measure
+     * of each part.
+     *
+     * @param pageNumber   the page number
+     * @param reader       the page reader
+     * @param unmarshaller the unmarshaller for header elements
+     * @return the (partial) page partwise instance
+     */
+    private ScorePartwise scanPage (int pageNumber,
+                                    XMLStreamReader reader,
+                                    Unmarshaller unmarshaller)
+            throws XMLStreamException, JAXBException
+    {
+        ScorePartwise page = new ScorePartwise();
+        toTag(reader);
+
+        if (!reader.isStartElement()
+            || !reader.getLocalName().equals("score-partwise")) {
+            throw new IllegalArgumentException("No score-partwise element");
+        }
+
+        nextTag(reader);
+
+        while (reader.isStartElement()) {
+            switch (reader.getLocalName()) {
+            case "work":
+                page.setWork(unmarshaller.unmarshal(reader, Work.class).
+                        getValue());
+
+                break;
+
+            case "movement-number":
+                page.setMovementNumber(reader.getElementText());
+                reader.next();
+
+                break;
+
+            case "movement-title":
+                page.setMovementTitle(reader.getElementText());
+                reader.next();
+
+                break;
+
+            case "identification":
+                page.setIdentification(
+                        unmarshaller.unmarshal(reader, Identification.class).
+                        getValue());
+
+                break;
+
+            case "defaults":
+                page.setDefaults(
+                        unmarshaller.unmarshal(reader, Defaults.class).
+                        getValue());
+
+                break;
+
+            case "credit":
+                page.getCredit().add(
+                        unmarshaller.unmarshal(reader, Credit.class).getValue());
+
+                break;
+
+            case "part-list": {
+                PartList partList = unmarshaller.unmarshal(
+                        reader,
+                        PartList.class).getValue();
+                page.setPartList(partList);
+
+                // Remember parts & instruments by their original id
+                Map<String, ScorePart> parts = new HashMap<>();
+                Map<String, ScoreInstrument> insts = new HashMap<>();
+
+                for (Object obj : partList.getPartGroupOrScorePart()) {
+                    if (obj instanceof ScorePart) {
+                        ScorePart scorePart = (ScorePart) obj;
+                        parts.put(scorePart.getId(), scorePart);
+
+                        for (ScoreInstrument si : scorePart.getScoreInstrument()) {
+                            insts.put(si.getId(), si);
+                        }
+                    }
+                }
+
+                pageParts.put(pageNumber, parts);
+                pageInsts.put(pageNumber, insts);
+            }
+
+            break;
+
+            case "part": {
+                Part part = factory.createScorePartwisePart();
+                part.setId(
+                        pageParts.get(pageNumber).get(
+                        reader.getAttributeValue(null, "id")));
+                page.getPart().add(part);
+                nextTag(reader);
+
+                // Just the first measure is needed, for its staves
+                if (reader.isStartElement()) {
+                    part.getMeasure().add(scanFirstMeasure(reader));
+                    toTag(reader);
+
+                    while (reader.isStartElement()) {
+                        skipElement(reader);
+                        toTag(reader);
+                    }
+                }
+
+                reader.next();
+            }
+
+            break;
+
+            default:
+                skipElement(reader);
+            }
+
+            toTag(reader);
+        }
+
+        return page;
+    }
+
+    //-----------//
+    // scanPages //
+    //-----------//
+    /**
+     * First pass on page fragments, to retrieve their header and
+     * part-list, plus the number of staves of each part.
+     *
+     * @param inputFactory the factory for page readers
+     * @param unmarshaller the unmarshaller for header elements
+     * @return the (partial) page partwise instances
+     */
+    private SortedMap<Integer, ScorePartwise> scanPages (
+            XMLInputFactory inputFactory,
+            Unmarshaller unmarshaller)
+    {
+        pageParts = new HashMap<>();
+        pageInsts = new HashMap<>();
+
+        SortedMap<Integer, ScorePartwise> pages = new TreeMap<>();
+
+        for (int pageNumber : getPageNumbers()) {
+            watch.start("Scanning page #" + pageNumber);
+
+            WrappedBoolean stripped = new WrappedBoolean(false);
+
+            try (Reader input = openPage(pageNumber, stripped)) {
+                XMLStreamReader reader = inputFactory.createXMLStreamReader(
+                        input);
+                pages.put(pageNumber, scanPage(pageNumber, reader, unmarshaller));
+                reader.close();
+            } catch (Exception ex) {
+                logger.warn("Could not scan fragment #{} {}", pageNumber, ex);
+                statuses.put(pageNumber, Status.FRAGMENT_FAILED);
+
+                continue;
+            }
+
+            if (stripped.isSet()) {
+                logger.warn("Illegal XML characters found in fragment #{}",
+                        pageNumber);
+                statuses.put(pageNumber, Status.CHARACTERS_SKIPPED);
+            }
+        }
+
+        return pages;
+    }
+
+    //------------//
+    // spoolPages //
+    //------------//
+    /**
+     * Second pass on page fragments, to copy their measures to the spool
+     * of the resulting parts, inserting page breaks and re-numbering
+     * measures.
+     * The measures of a page are committed to the spools only once the
+     * whole page has been read, so that a page which cannot be read is
+     * skipped as a whole, with a FRAGMENT_FAILED status.
+     *
+     * @param pageNumbers  the numbers of pages successfully scanned
+     * @param inputFactory the factory for page readers
+     * @param spools       the spools, per resulting score part
+     */
+    private void spoolPages (Set<Integer> pageNumbers,
+                             XMLInputFactory inputFactory,
+                             Map<ScorePart, Spool> spools)
+            throws IOException
+    {
+        int midOffset = 0; // Page offset on measure id
+        boolean isFirstPage = true; // First page?
+
+        for (int pageNumber : pageNumbers) {
+            watch.start("Spooling page #" + pageNumber);
+
+            Map<String, ScorePart> parts = pageParts.get(pageNumber);
+            Map<String, ScoreInstrument> insts = pageInsts.get(pageNumber);
+            int mid = 0; // Measure id (in this page)
+
+            try (Reader input = openPage(pageNumber, null)) {
+                XMLStreamReader reader = inputFactory.createXMLStreamReader(
+                        input);
+                toTag(reader);
+                nextTag(reader);
+
+                while (reader.isStartElement()) {
+                    if (!reader.getLocalName().equals("part")) {
+                        skipElement(reader);
+                        toTag(reader);
+
+                        continue;
+                    }
+
+                    ScorePart oldScorePart = parts.get(
+                            reader.getAttributeValue(null, "id"));
+                    ScorePart newScorePart = newParts.get(oldScorePart);
+                    logger.info("page:{} old:{} new:{}",
+                            pageNumber, oldScorePart.getId(),
+                            newScorePart.getId());
+
+                    Spool spool = spools.get(newScorePart);
+                    boolean isFirstMeasure = true; // First measure? (in this page)
+                    nextTag(reader);
+
+                    while (reader.isStartElement()) {
+                        if (reader.getLocalName().equals("measure")) {
+                            mid = copyMeasure(
+                                    reader,
+                                    spool.getPageWriter(),
+                                    insts,
+                                    !isFirstPage && isFirstMeasure,
+                                    midOffset);
+                            spool.pageMeasureCount++;
+                            isFirstMeasure = false;
+                        } else {
+                            skipElement(reader);
+                        }
+
+                        toTag(reader);
+                    }
+
+                    reader.next();
+                    toTag(reader);
+                }
+
+                reader.close();
+            } catch (Exception ex) {
+                logger.warn("Could not spool fragment #{} {}", pageNumber, ex);
+                statuses.put(pageNumber, Status.FRAGMENT_FAILED);
+
+                for (Spool spool : spools.values()) {
+                    spool.rollbackPage();
+                }
+
+                continue;
+            }
+
+            for (Spool spool : spools.values()) {
+                spool.commitPage();
+            }
+
+            midOffset += mid;
+            isFirstPage = false;
+        }
+    }
+
     //----------//
     // stringOf //
     //----------//
@@ -897,7 +1548,7 @@ public class ScoreXmlReduction
             }
 
             ByteArrayInputStream is = new ByteArrayInputStream(
-                    fragment.getBytes());
+                    fragment.getBytes(StandardCharsets.UTF_8));
 
             try {
                 ScorePartwise partwise = Marshalling.unmarshal(is);
@@ -912,6 +1563,89 @@ public class ScoreXmlReduction
         return pages;
     }
 
+    //-------------//
+    // writeOutput //
+    //-------------//
+    /**
+     * Write the global header, followed by the spooled parts.
+     *
+     * @param global the global partwise, with its header
+     * @param spools the spools, per resulting score part
+     * @param os     the output stream, closed when done
+     */
+    private void writeOutput (ScorePartwise global,
+                              Map<ScorePart, Spool> spools,
+                              OutputStream os)
+            throws JAXBException, IOException
+    {
+        watch.start("Writing output");
+
+        // Header, the parts content being appended afterwards
+        global.getPart().clear();
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        Marshalling.marshal(global, header, true);
+
+        String head = header.toString("UTF-8");
+
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
+            out.write(head, 0, head.lastIndexOf(ScoreExporter.PARTWISE_END));
+
+            for (Entry<ScorePart, Spool> entry : spools.entrySet()) {
+                Spool spool = entry.getValue();
+                spool.writer.close();
+                out.write("\n    <part id=\"" + entry.getKey().getId() + "\"");
+
+                if (spool.measureCount == 0) {
+                    out.write("/>");
+
+                    continue;
+                }
+
+                out.write(">");
+
+                try (Reader in = new InputStreamReader(
+                        new FileInputStream(spool.file),
+                        StandardCharsets.UTF_8)) {
+                    char[] buffer = new char[8192];
+                    int count;
+
+                    while ((count = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                    }
+                }
+
+                out.write("\n    </part>");
+            }
+
+            out.write(ScoreExporter.PARTWISE_END);
+        }
+    }
+
+    //-----------//
+    // writeText //
+    //-----------//
+    /**
+     * Flush pending text, ignoring mere indentation unless required.
+     *
+     * @param writer the output
+     * @param text   the pending text, emptied on return
+     * @param always true to write even blank text
+     */
+    private static void writeText (XMLStreamWriter writer,
+                                   StringBuilder text,
+                                   boolean always)
+            throws XMLStreamException
+    {
+        if ((text.length() > 0)
+            && (always || !text.toString().trim().isEmpty())) {
+            writer.writeCharacters(text.toString());
+        }
+
+        text.setLength(0);
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //------------------//
     // MyFilenameFilter //
@@ -982,4 +1716,87 @@ public class ScoreXmlReduction
             }
         }
     }
+
+    //-------//
+    // Spool //
+    //-------//
+    /**
+     * Temporary storage of the measures of one resulting part.
+     */
+    private static class Spool
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Temporary file */
+        final File file;
+
+        /** Output on file */
+        final Writer writer;
+
+        /** Number of measures spooled */
+        int measureCount;
+
+        /** Measures of the current page, not yet committed */
+        StringWriter pageBuffer;
+
+        /** XML output of current page, measures being children of part */
+        XMLStreamWriter pageWriter;
+
+        /** Number of measures in the current page */
+        int pageMeasureCount;
+
+        //~ Constructors -------------------------------------------------------
+        public Spool ()
+                throws IOException
+        {
+            file = File.createTempFile("reduction-", ".xml");
+            file.deleteOnExit();
+            writer = new BufferedWriter(
+                    new OutputStreamWriter(
+                    new FileOutputStream(file),
+                    StandardCharsets.UTF_8));
+        }
+
+        //~ Methods ------------------------------------------------------------
+        public void commitPage ()
+                throws IOException
+        {
+            if (pageBuffer != null) {
+                writer.write(pageBuffer.toString());
+                measureCount += pageMeasureCount;
+            }
+
+            rollbackPage();
+        }
+
+        public void delete ()
+        {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                logger.warn("Error closing " + file, ex);
+            }
+
+            if (!file.delete()) {
+                logger.warn("Could not delete {}", file);
+            }
+        }
+
+        public XMLStreamWriter getPageWriter ()
+        {
+            if (pageWriter == null) {
+                pageBuffer = new StringWriter();
+                pageWriter = new IndentingXmlStreamWriter(pageBuffer, 2);
+            }
+
+            return pageWriter;
+        }
+
+        public void rollbackPage ()
+        {
+            pageBuffer = null;
+            pageWriter = null;
+            pageMeasureCount = 0;
+        }
+    }
 }
@@ -17,11 +17,14 @@ import omr.WellKnowns;
 import omr.constant.Constant;
 import omr.constant.ConstantSet;
 
+import omr.score.midi.MidiAbstractions;
+import omr.score.midi.MidiExporter;
 import omr.score.ui.SheetPdfOutput;
 
 import omr.script.ScriptActions;
 
 import omr.util.NameSet;
+import omr.util.Zip;
 
 import org.jdesktop.application.Application.ExitListener;
 
@@ -31,10 +34,14 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.EventObject;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class {@code ScoresManager} is a singleton which provides
@@ -58,6 +65,9 @@ public class ScoresManager
     /** The extension used for score output files: {@value} */
     public static final String SCORE_EXTENSION = ".xml";
 
+    /** The extension used for compressed score output files: {@value} */
+    public static final String COMPRESSED_SCORE_EXTENSION = ".mxl";
+
     /** The extension used for score bench files: {@value} */
     public static final String BENCH_EXTENSION = ".bench.properties";
 
@@ -161,15 +171,17 @@ public class ScoresManager
      * provided file.
      *
      * @param score           the score to export
-     * @param file            the xml file to write, or null
+     * @param file            the xml file to write, or null. A file with
+     *                        .mxl extension is written as compressed
+     *                        MusicXML
      * @param injectSignature should we inject our signature?
      */
     public void export (Score score,
                         File file,
                         Boolean injectSignature)
     {
-        if (Main.getExportPath() != null) {
-            File path = new File(Main.getExportPath());
+        if (Main.getExportPath(score) != null) {
+            File path = new File(Main.getExportPath(score));
 
             if (path.isDirectory()) {
                 file = getActualFile(file, getDefaultExportFile(path, score));
@@ -183,12 +195,15 @@ public class ScoresManager
         // Actually export the score material
         try {
             ScoreExporter exporter = new ScoreExporter(score);
+            OutputStream os = isCompressed(file)
+                              ? createCompressedStream(file)
+                              : new FileOutputStream(file);
 
             if (injectSignature != null) {
-                exporter.export(file, injectSignature);
+                exporter.export(os, injectSignature);
             } else {
                 exporter.export(
-                        file,
+                        os,
                         constants.defaultInjectSignature.getValue());
             }
 
@@ -286,7 +301,9 @@ public class ScoresManager
             return score.getExportFile();
         }
 
-        String child = score.getRadix() + SCORE_EXTENSION;
+        String child = score.getRadix()
+                       + (constants.compressedExport.isSet()
+                          ? COMPRESSED_SCORE_EXTENSION : SCORE_EXTENSION);
 
         if (folder != null) {
             return new File(folder, child);
@@ -308,6 +325,32 @@ public class ScoresManager
         return constants.defaultInputDirectory.getValue();
     }
 
+    //--------------------//
+    // getDefaultMidiFile //
+    //--------------------//
+    /**
+     * Report the file to which the MIDI data would be written by default.
+     *
+     * @param folder the target folder if any
+     * @param score  the score to export
+     * @return the default file
+     */
+    public File getDefaultMidiFile (File folder,
+                                    Score score)
+    {
+        if (score.getMidiFile() != null) {
+            return score.getMidiFile();
+        }
+
+        String child = score.getRadix() + MidiAbstractions.MIDI_EXTENSION;
+
+        if (folder != null) {
+            return new File(folder, child);
+        } else {
+            return new File(constants.defaultMidiDirectory.getValue(), child);
+        }
+    }
+
     //---------------------//
     // getDefaultPrintFile //
     //---------------------//
@@ -376,55 +419,44 @@ public class ScoresManager
     //            logger.warn("Error closing Midi interface ", ex);
     //        }
     //    }
-    //
-    //    //-----------//
-    //    // midiWrite //
-    //    //-----------//
-    //    /**
-    //     * Write the Midi sequence of the score into the provided midi file.
-    //     * @param score the provided score
-    //     * @param file the Midi file to write
-    //     * @throws Exception if the writing goes wrong
-    //     */
-    //    public void midiWrite (Score score,
-    //                           File  file)
-    //        throws Exception
-    //    {
-    //        if (!ScoreActions.checkParameters(score)) {
-    //            return;
-    //        }
-    //
-    //        if (Main.getMidiPath() != null) {
-    //            File path = new File(Main.getMidiPath());
-    //
-    //            if (path.isDirectory()) {
-    //                file = getActualFile(file, getDefaultMidiFile(path, score));
-    //            } else {
-    //                file = getActualFile(file, path);
-    //            }
-    //        } else {
-    //            file = getActualFile(file, getDefaultMidiFile(null, score));
-    //        }
-    //
-    //        // Actually write the Midi file
-    //        try {
-    //            MidiAgent agent = MidiAgentFactory.getAgent();
-    //
-    //            if (agent.getScore() != score) {
-    //                agent.setScore(score);
-    //            }
-    //
-    //            agent.write(file);
-    //            score.setMidiFile(file);
-    //            logger.info("Midi written to " + file);
-    //
-    //            // Remember (even across runs) the selected directory
-    //            constants.defaultMidiDirectory.setValue(file.getParent());
-    //        } catch (Exception ex) {
-    //            logger.warn("Cannot write Midi to " + file, ex);
-    //            throw ex;
-    //        }
-    //    }
+
+    //-----------//
+    // midiWrite //
+    //-----------//
+    /**
+     * Write the MIDI sequence of the score into the provided midi file.
+     *
+     * @param score the provided score
+     * @param file  the MIDI file to write, or null
+     */
+    public void midiWrite (Score score,
+                           File file)
+    {
+        if (Main.getMidiPath(score) != null) {
+            File path = new File(Main.getMidiPath(score));
+
+            if (path.isDirectory()) {
+                file = getActualFile(file, getDefaultMidiFile(path, score));
+            } else {
+                file = getActualFile(file, path);
+            }
+        } else {
+            file = getActualFile(file, getDefaultMidiFile(null, score));
+        }
+
+        // Actually write the MIDI file
+        try {
+            new MidiExporter(score).export(file);
+            score.setMidiFile(file);
+            logger.info("Midi written to {}", file);
+
+            // Remember (even across runs) the selected directory
+            constants.defaultMidiDirectory.setValue(file.getParent());
+        } catch (Exception ex) {
+            logger.warn("Cannot write Midi to " + file, ex);
+        }
+    }
+
     //----------------//
     // removeInstance //
     //----------------//
@@ -467,13 +499,14 @@ public class ScoresManager
                             boolean complete)
     {
         // Check if we do save bench data
-        if ((Main.getBenchPath() == null)
-            && !constants.saveBenchToDisk.getValue()) {
+        final String benchPath = Main.getBenchPath(bench.getScore());
+
+        if ((benchPath == null) && !constants.saveBenchToDisk.getValue()) {
             return;
         }
 
-        if (Main.getBenchPath() != null) {
-            File path = new File(Main.getBenchPath());
+        if (benchPath != null) {
+            File path = new File(benchPath);
 
             if (path.isDirectory()) {
                 file = getActualFile(
@@ -525,8 +558,8 @@ public class ScoresManager
     public void writePhysicalPdf (Score score,
                                   File file)
     {
-        if (Main.getPrintPath() != null) {
-            File path = new File(Main.getPrintPath());
+        if (Main.getPrintPath(score) != null) {
+            File path = new File(Main.getPrintPath(score));
 
             if (path.isDirectory()) {
                 file = getActualFile(file, getDefaultPrintFile(path, score));
@@ -569,6 +602,48 @@ public class ScoresManager
         logger.debug("{} score(s) closed", count);
     }
 
+    //------------------------//
+    // createCompressedStream //
+    //------------------------//
+    /**
+     * Create an output stream on a compressed MusicXML file.
+     * This is a zip archive whose META-INF/container.xml entry points to
+     * the score entry, the returned stream writing into this score entry.
+     *
+     * @param file the .mxl file to write
+     * @return the stream on the score entry
+     * @throws IOException if the file could not be written
+     */
+    private OutputStream createCompressedStream (File file)
+            throws IOException
+    {
+        String name = file.getName();
+        String entryName = name.substring(
+                0,
+                name.length() - COMPRESSED_SCORE_EXTENSION.length())
+                           + SCORE_EXTENSION;
+        String path = entryName.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace("\"", "&quot;");
+        String container = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                           + "<container>\n"
+                           + "    <rootfiles>\n"
+                           + "        <rootfile full-path=\"" + path + "\"/>\n"
+                           + "    </rootfiles>\n"
+                           + "</container>\n";
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put(
+                "META-INF/container.xml",
+                container.getBytes(StandardCharsets.UTF_8));
+
+        return Zip.createOutputStream(
+                file,
+                constants.compressionLevel.getValue(),
+                entries,
+                entryName);
+    }
+
     //---------------//
     // getActualFile //
     //---------------//
@@ -606,6 +681,20 @@ public class ScoresManager
         }
     }
 
+    //--------------//
+    // isCompressed //
+    //--------------//
+    /**
+     * Report whether the provided export file is a compressed MusicXML
+     * file.
+     */
+    private static boolean isCompressed (File file)
+    {
+        return file.getName()
+                .toLowerCase()
+                .endsWith(COMPRESSED_SCORE_EXTENSION);
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //-----------//
     // Constants //
@@ -631,10 +720,23 @@ public class ScoresManager
                 WellKnowns.DEFAULT_PRINT_FOLDER.toString(),
                 "Default directory for printing sheet files");
 
+        Constant.String defaultMidiDirectory = new Constant.String(
+                WellKnowns.DEFAULT_SCORES_FOLDER.toString(),
+                "Default directory for writing Midi files");
+
         Constant.Boolean defaultInjectSignature = new Constant.Boolean(
                 true,
                 "Should we inject our signature in the exported scores?");
 
+        Constant.Boolean compressedExport = new Constant.Boolean(
+                false,
+                "Should we export scores as compressed MusicXML (.mxl) files?");
+
+        Constant.Integer compressionLevel = new Constant.Integer(
+                "level",
+                6,
+                "Compression level for .mxl files, from 0 (none) to 9 (best)");
+
         Constant.String imagesHistory = new Constant.String(
                 "",
                 "History of loaded images");
@@ -57,6 +57,9 @@ public class ScorePart
     /** Instrument MIDI program, if any */
     private Integer midiProgram;
 
+    /** MIDI volume, if any, otherwise the score volume applies */
+    private Integer volume;
+
     //~ Constructors -----------------------------------------------------------
     //-----------//
     // ScorePart //
@@ -187,6 +190,19 @@ public class ScorePart
         return staffCount;
     }
 
+    //-----------//
+    // getVolume //
+    //-----------//
+    /**
+     * Report the volume specific to this part, if any.
+     *
+     * @return the part volume, or null if the score volume applies
+     */
+    public Integer getVolume ()
+    {
+        return volume;
+    }
+
     //--------------//
     // isMultiStaff //
     //--------------//
@@ -245,6 +261,19 @@ public class ScorePart
         this.name = name;
     }
 
+    //-----------//
+    // setVolume //
+    //-----------//
+    /**
+     * Assign a volume specific to this part.
+     *
+     * @param volume the part volume, or null for the score volume
+     */
+    public void setVolume (Integer volume)
+    {
+        this.volume = volume;
+    }
+
     //----------//
     // toString //
     //----------//
@@ -0,0 +1,587 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                          M i d i E x p o r t e r                           //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.score.midi;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.math.Rational;
+
+import omr.score.Score;
+import omr.score.entity.Chord;
+import omr.score.entity.Measure;
+import omr.score.entity.Note;
+import omr.score.entity.Page;
+import omr.score.entity.ScorePart;
+import omr.score.entity.ScoreSystem;
+import omr.score.entity.Slot;
+import omr.score.entity.Slur;
+import omr.score.entity.SystemPart;
+import omr.score.entity.TimeSignature.InvalidTimeSignature;
+import omr.score.visitor.AbstractScoreVisitor;
+
+import omr.util.TreeNode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+/**
+ * Class {@code MidiExporter} builds a standard MIDI file directly out
+ * of the score entities, without going through a MusicXML document.
+ *
+ * <p>The resulting sequence is a type 1 MIDI file, with a conductor track
+ * that carries the score tempo, followed by one track per score part.
+ * Each part track sets its program (MIDI instrument) and volume, then
+ * plays the notes found in the measures of every system, tied notes being
+ * merged into a single sound.
+ *
+ * @author Hervé Bitteur
+ */
+public class MidiExporter
+        extends AbstractScoreVisitor
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            MidiExporter.class);
+
+    /** Number of ticks per quarter note */
+    public static final int RESOLUTION = 480;
+
+    /** MIDI file type: several synchronous tracks */
+    private static final int FILE_TYPE = 1;
+
+    /** Channel reserved to percussion by General MIDI */
+    private static final int PERCUSSION_CHANNEL = 9;
+
+    /** Meta message type for a track name */
+    private static final int META_TRACK_NAME = 0x03;
+
+    /** Meta message type for a tempo setting */
+    private static final int META_TEMPO = 0x51;
+
+    /** Controller number for channel volume */
+    private static final int CONTROL_VOLUME = 7;
+
+    /** Semitone offset within octave, indexed by Note.Step ordinal (A..G) */
+    private static final int[] STEP_SEMITONES = {9, 11, 0, 2, 4, 5, 7};
+
+    /** To order events by tick, keeping insertion order for equal ticks */
+    private static final Comparator<MidiEvent> byTick = new Comparator<MidiEvent>()
+    {
+        @Override
+        public int compare (MidiEvent e1,
+                            MidiEvent e2)
+        {
+            return Long.compare(e1.getTick(), e2.getTick());
+        }
+    };
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** The score to export */
+    private final Score score;
+
+    /** Part being exported */
+    private ScorePart scorePart;
+
+    /** Are we traversing a placeholder part, which plays nothing? */
+    private boolean silent;
+
+    /** Tick at start of current measure */
+    private long measureTick;
+
+    /** Start tick of current chord */
+    private long chordStart;
+
+    /** Stop tick of current chord */
+    private long chordStop;
+
+    /** Sounds of the current part */
+    private final List<Sound> sounds = new ArrayList<>();
+
+    /** Sounds waiting for a tie continuation, per key */
+    private final Map<Integer, Sound> openTies = new HashMap<>();
+
+    //~ Constructors -----------------------------------------------------------
+    //--------------//
+    // MidiExporter //
+    //--------------//
+    /**
+     * Create a new MidiExporter object, on a related score instance.
+     *
+     * @param score the score to export (cannot be null)
+     */
+    public MidiExporter (Score score)
+    {
+        if (score == null) {
+            throw new IllegalArgumentException("Trying to export a null score");
+        }
+
+        this.score = score;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //---------------//
+    // buildSequence //
+    //---------------//
+    /**
+     * Build the MIDI sequence that corresponds to the score.
+     *
+     * @return the populated sequence
+     * @throws InvalidMidiDataException if some event could not be built
+     */
+    public Sequence buildSequence ()
+            throws InvalidMidiDataException
+    {
+        Sequence sequence = new Sequence(Sequence.PPQ, RESOLUTION);
+
+        // Conductor track
+        Track conductor = sequence.createTrack();
+        int tempo = score.getTempoParam()
+                .getTarget();
+        int mpq = 60_000_000 / Math.max(1, tempo);
+        conductor.add(
+                new MidiEvent(
+                new MetaMessage(
+                META_TEMPO,
+                new byte[]{
+                    (byte) (mpq >> 16), (byte) (mpq >> 8), (byte) mpq},
+                3),
+                0));
+
+        // One track per part
+        for (ScorePart part : score.getPartList()) {
+            exportPart(part, sequence.createTrack());
+        }
+
+        return sequence;
+    }
+
+    //--------//
+    // export //
+    //--------//
+    /**
+     * Write the score MIDI sequence to the provided stream.
+     *
+     * @param os the output stream, which is not closed by this method
+     * @throws InvalidMidiDataException if the sequence could not be built
+     * @throws IOException              if the stream could not be written
+     */
+    public void export (OutputStream os)
+            throws InvalidMidiDataException, IOException
+    {
+        MidiSystem.write(buildSequence(), FILE_TYPE, os);
+    }
+
+    //--------//
+    // export //
+    //--------//
+    /**
+     * Write the score MIDI sequence to the provided file.
+     *
+     * @param file the MIDI file to write
+     * @throws InvalidMidiDataException if the sequence could not be built
+     * @throws IOException              if the file could not be written
+     */
+    public void export (File file)
+            throws InvalidMidiDataException, IOException
+    {
+        try (OutputStream os = new FileOutputStream(file)) {
+            export(os);
+        }
+    }
+
+    //-------------//
+    // visit Chord //
+    //-------------//
+    @Override
+    public boolean visit (Chord chord)
+    {
+        Rational start = chord.getStartTime();
+        Rational duration = chord.getDuration();
+
+        if ((start == null) || (duration == null) || (duration.num <= 0)) {
+            return false;
+        }
+
+        chordStart = measureTick + toTicks(start);
+        chordStop = chordStart + toTicks(duration);
+
+        for (TreeNode node : chord.getNotes()) {
+            ((Note) node).accept(this);
+        }
+
+        return false;
+    }
+
+    //---------------//
+    // visit Measure //
+    //---------------//
+    @Override
+    public boolean visit (Measure measure)
+    {
+        try {
+            if (!silent) {
+                for (Slot slot : measure.getSlots()) {
+                    for (Chord chord : slot.getChords()) {
+                        chord.accept(this);
+                    }
+                }
+            }
+
+            measureTick += toTicks(getPlayedDuration(measure));
+        } catch (Exception ex) {
+            logger.warn("Error visiting " + measure, ex);
+        }
+
+        return false;
+    }
+
+    //------------//
+    // visit Note //
+    //------------//
+    @Override
+    public boolean visit (Note note)
+    {
+        if (note.isRest()) {
+            return false;
+        }
+
+        int key = (12 * (note.getOctave() + 1))
+                  + STEP_SEMITONES[note.getStep().ordinal()] + note.getAlter();
+
+        if ((key < 0) || (key > 127)) {
+            logger.debug("{} out of MIDI range", note);
+
+            return false;
+        }
+
+        boolean tiedFromLeft = false;
+        boolean tiedToRight = false;
+
+        for (Slur slur : note.getSlurs()) {
+            if (slur.isTie()) {
+                if (slur.getRightNote() == note) {
+                    tiedFromLeft = true;
+                }
+
+                if (slur.getLeftNote() == note) {
+                    tiedToRight = true;
+                }
+            }
+        }
+
+        addSound(key, chordStart, chordStop, tiedFromLeft, tiedToRight);
+
+        return false;
+    }
+
+    //------------//
+    // visit Page //
+    //------------//
+    @Override
+    public boolean visit (Page page)
+    {
+        return true; // Dive into page systems
+    }
+
+    //-------------------//
+    // visit ScoreSystem //
+    //-------------------//
+    @Override
+    public boolean visit (ScoreSystem system)
+    {
+        try {
+            SystemPart systemPart = system.getPart(scorePart.getId());
+
+            if (systemPart != null) {
+                silent = false;
+                systemPart.accept(this);
+            } else {
+                // Part not present in this system, just keep time running
+                silent = true;
+                system.getFirstRealPart()
+                        .accept(this);
+            }
+        } catch (Exception ex) {
+            logger.warn("Error visiting " + system, ex);
+        }
+
+        return false;
+    }
+
+    //------------------//
+    // visit SystemPart //
+    //------------------//
+    @Override
+    public boolean visit (SystemPart systemPart)
+    {
+        for (TreeNode node : systemPart.getMeasures()) {
+            ((Measure) node).accept(this);
+        }
+
+        return false;
+    }
+
+    //------------//
+    // exportPart //
+    //------------//
+    /**
+     * Fill the provided track with the content of a score part.
+     *
+     * @param part  the score part to export
+     * @param track the dedicated track
+     */
+    private void exportPart (ScorePart part,
+                             Track track)
+            throws InvalidMidiDataException
+    {
+        scorePart = part;
+        measureTick = 0;
+        sounds.clear();
+        openTies.clear();
+
+        // Channel, avoiding the percussion one
+        int channel = (part.getId() - 1) % 15;
+
+        if (channel >= PERCUSSION_CHANNEL) {
+            channel++;
+        }
+
+        String name = (part.getName() != null) ? part.getName()
+                : part.getDefaultName();
+        byte[] nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+        track.add(
+                new MidiEvent(
+                new MetaMessage(META_TRACK_NAME, nameBytes, nameBytes.length),
+                0));
+
+        Integer program = (part.getMidiProgram() != null)
+                          ? part.getMidiProgram() : part.getDefaultProgram();
+        track.add(
+                new MidiEvent(
+                new ShortMessage(
+                ShortMessage.PROGRAM_CHANGE,
+                channel,
+                Math.min(127, Math.max(0, program - 1)),
+                0),
+                0));
+
+        Integer partVolume = (part.getVolume() != null) ? part.getVolume()
+                : score.getVolume();
+        int volume = Math.min(127, Math.max(0, partVolume));
+        track.add(
+                new MidiEvent(
+                new ShortMessage(
+                ShortMessage.CONTROL_CHANGE,
+                channel,
+                CONTROL_VOLUME,
+                volume),
+                0));
+
+        // Collect the sounds of the whole part
+        score.acceptChildren(this);
+        writeSounds(track, channel);
+
+        logger.debug("{} sounds for {}", sounds.size(), part);
+    }
+
+    //----------//
+    // addSound //
+    //----------//
+    /**
+     * Record a played note, merging it with the sound it is tied to, if
+     * any, whatever the system this sound started in.
+     *
+     * @param key          the MIDI key
+     * @param start        the note start tick
+     * @param stop         the note stop tick
+     * @param tiedFromLeft true if the note continues a tied note
+     * @param tiedToRight  true if the note is tied to a following note
+     */
+    void addSound (int key,
+                   long start,
+                   long stop,
+                   boolean tiedFromLeft,
+                   boolean tiedToRight)
+    {
+        Sound sound = tiedFromLeft ? openTies.remove(key) : null;
+
+        if (sound != null) {
+            sound.stop = Math.max(sound.stop, stop);
+        } else {
+            sound = new Sound(key, start, stop);
+            sounds.add(sound);
+        }
+
+        if (tiedToRight) {
+            openTies.put(key, sound);
+        }
+    }
+
+    //-------------//
+    // writeSounds //
+    //-------------//
+    /**
+     * Write the recorded sounds as note events to the provided track.
+     *
+     * @param track   the part track
+     * @param channel the part channel
+     */
+    void writeSounds (Track track,
+                      int channel)
+            throws InvalidMidiDataException
+    {
+        // Note-offs before note-ons at the same tick, to allow repeated notes
+        int velocity = constants.noteVelocity.getValue();
+        List<MidiEvent> events = new ArrayList<>(2 * sounds.size());
+
+        for (Sound sound : sounds) {
+            events.add(
+                    new MidiEvent(
+                    new ShortMessage(ShortMessage.NOTE_OFF, channel, sound.key, 0),
+                    sound.stop));
+        }
+
+        for (Sound sound : sounds) {
+            events.add(
+                    new MidiEvent(
+                    new ShortMessage(
+                    ShortMessage.NOTE_ON,
+                    channel,
+                    sound.key,
+                    velocity),
+                    sound.start));
+        }
+
+        // Adding events in tick order keeps Track.add cheap
+        Collections.sort(events, byTick);
+
+        for (MidiEvent event : events) {
+            track.add(event);
+        }
+    }
+
+    //-------------------//
+    // getPlayedDuration //
+    //-------------------//
+    /**
+     * Report the time taken by a measure when played.
+     * An implicit measure (pickup) or the first half of a split measure lasts
+     * its actual content, other measures last at least their time signature.
+     *
+     * @param measure the measure at hand
+     * @return the played duration
+     */
+    private Rational getPlayedDuration (Measure measure)
+    {
+        Rational actual = measure.getActualDuration();
+
+        if (measure.isImplicit() || measure.isFirstHalf()) {
+            return actual;
+        }
+
+        try {
+            Rational expected = measure.getExpectedDuration();
+
+            return (expected.compareTo(actual) > 0) ? expected : actual;
+        } catch (InvalidTimeSignature ex) {
+            return actual;
+        }
+    }
+
+    //---------//
+    // toTicks //
+    //---------//
+    /**
+     * Convert a duration, expressed as a fraction of a whole note, into
+     * MIDI ticks.
+     *
+     * @param duration the duration to convert
+     * @return the corresponding number of ticks
+     */
+    static long toTicks (Rational duration)
+    {
+        return Math.round((4.0 * RESOLUTION * duration.num) / duration.den);
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Integer noteVelocity = new Constant.Integer(
+                "velocity",
+                64,
+                "Velocity of MIDI notes, in 0..127 range");
+
+    }
+
+    //-------//
+    // Sound //
+    //-------//
+    /**
+     * A note as played, possibly made of several tied notes.
+     */
+    private static class Sound
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** MIDI key */
+        final int key;
+
+        /** Start tick */
+        final long start;
+
+        /** Stop tick */
+        long stop;
+
+        //~ Constructors -------------------------------------------------------
+        Sound (int key,
+               long start,
+               long stop)
+        {
+            this.key = key;
+            this.start = start;
+            this.stop = stop;
+        }
+    }
+}
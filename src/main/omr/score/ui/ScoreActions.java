@@ -310,8 +310,11 @@ public class ScoreActions
                 null,
                 sheet.getScore()),
                 new OmrFileFilter(
-                "XML files",
-                new String[]{ScoresManager.SCORE_EXTENSION}));
+                "MusicXML files",
+                new String[]{
+                    ScoresManager.SCORE_EXTENSION,
+                    ScoresManager.COMPRESSED_SCORE_EXTENSION
+                }));
 
         if (exportFile != null) {
             return new StoreScoreTask(sheet, exportFile);
@@ -621,10 +624,11 @@ public class ScoreActions
                 throws InterruptedException
         {
             try {
-                Stepping.reprocessSheet(
+                sheet.getReprocessingQueue()
+                        .process(
                         Steps.valueOf(Steps.SYMBOLS),
-                        sheet,
                         null,
+                        true,
                         true);
             } catch (Exception ex) {
                 logger.warn("Could not refresh score", ex);
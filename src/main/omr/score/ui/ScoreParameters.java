@@ -859,7 +859,7 @@ public class ScoreParameters
     {
         //~ Static fields/initializers -----------------------------------------
 
-        public static final int logicalRowCount = 3;
+        public static final int logicalRowCount = 4;
 
         //~ Instance fields ----------------------------------------------------
         //
@@ -882,6 +882,12 @@ public class ScoreParameters
         private JComboBox<String> midiBox = new JComboBox<>(
                 MidiAbstractions.getProgramNames());
 
+        /** Midi volume */
+        private JLabel volumeLabel = new JLabel("Volume");
+
+        private JSpinner volumeSpinner = new JSpinner(
+                new SpinnerNumberModel(0, 0, 127, 1));
+
         //~ Constructors -------------------------------------------------------
         public PartPanel (ScorePart scorePart)
         {
@@ -889,6 +895,11 @@ public class ScoreParameters
 
             // Let's impose the id!
             id.setText(scorePart.getPid());
+
+            SpinnerUtil.setRightAlignment(volumeSpinner);
+            SpinnerUtil.setEditable(volumeSpinner, true);
+            volumeSpinner.setToolTipText(
+                    "Midi volume for the score part, in 0..127 range");
         }
 
         //~ Methods ------------------------------------------------------------
@@ -900,7 +911,10 @@ public class ScoreParameters
 
                 return false;
             } else {
-                task.addPart(name.getText(), midiBox.getSelectedIndex() + 1);
+                task.addPart(
+                        name.getText(),
+                        midiBox.getSelectedIndex() + 1,
+                        getVolume());
 
                 return true;
             }
@@ -908,7 +922,10 @@ public class ScoreParameters
 
         public PartData getData ()
         {
-            return new PartData(name.getText(), midiBox.getSelectedIndex() + 1);
+            return new PartData(
+                    name.getText(),
+                    midiBox.getSelectedIndex() + 1,
+                    getVolume());
         }
 
         private int defineLayout (PanelBuilder builder,
@@ -930,9 +947,31 @@ public class ScoreParameters
             builder.add(midiLabel, cst.xy(5, r));
             builder.add(midiBox, cst.xyw(7, r, 5));
 
+            r += 2; // --
+
+            builder.add(volumeLabel, cst.xy(5, r));
+            builder.add(volumeSpinner, cst.xy(7, r));
+
             return r;
         }
 
+        /**
+         * Report the volume specific to the part, if any.
+         *
+         * @return the volume, or null if it is the score volume
+         */
+        private Integer getVolume ()
+        {
+            try {
+                volumeSpinner.commitEdit();
+            } catch (ParseException ignored) {
+            }
+
+            Integer volume = (Integer) volumeSpinner.getValue();
+
+            return volume.equals(score.getVolume()) ? null : volume;
+        }
+
         private void setItemsEnabled (boolean sel)
         {
             label.setEnabled(sel);
@@ -940,6 +979,8 @@ public class ScoreParameters
             name.setEnabled(sel);
             midiLabel.setEnabled(sel);
             midiBox.setEnabled(sel);
+            volumeLabel.setEnabled(sel);
+            volumeSpinner.setEnabled(sel);
         }
 
         private void display (PartData partData)
@@ -949,6 +990,11 @@ public class ScoreParameters
 
             // Setting for part midi program
             midiBox.setSelectedIndex(partData.program - 1);
+
+            // Setting for part midi volume
+            volumeSpinner.setValue(
+                    (partData.volume != null) ? partData.volume
+                    : score.getVolume());
         }
     }
 
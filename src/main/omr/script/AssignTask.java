@@ -16,7 +16,6 @@ import omr.glyph.facets.Glyph;
 
 import omr.sheet.Sheet;
 
-import omr.step.Stepping;
 import omr.step.Steps;
 
 import java.util.Collection;
@@ -120,7 +119,7 @@ public class AssignTask
     public void epilog (Sheet sheet)
     {
         // We rebuild from SYMBOLS
-        Stepping.reprocessSheet(
+        reprocessSheet(
                 Steps.valueOf(Steps.SYMBOLS),
                 sheet,
                 getImpactedSystems(sheet),
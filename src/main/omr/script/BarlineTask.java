@@ -18,7 +18,6 @@ import omr.grid.GridBuilder;
 
 import omr.sheet.Sheet;
 
-import omr.step.Stepping;
 import omr.step.Steps;
 
 import java.util.Arrays;
@@ -123,7 +122,7 @@ public class BarlineTask
             }
 
             // Following steps
-            Stepping.reprocessSheet(
+            reprocessSheet(
                     Steps.valueOf(Steps.SYSTEMS),
                     sheet,
                     sheet.getSystems(),
@@ -16,15 +16,17 @@ import omr.sheet.Sheet;
 import omr.sheet.SystemBoundary;
 import omr.sheet.SystemInfo;
 
-import omr.step.Stepping;
 import omr.step.Steps;
 
 import omr.util.BrokenLine;
 import omr.util.VerticalSide;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -45,6 +47,12 @@ public class BoundaryTask
     @XmlElement(name = "context")
     private final List<BrokenLineContext> contexts;
 
+    /** Area swept by the modified lines, between former and new points */
+    private Rectangle sweptArea;
+
+    /** Systems whose boundary has been modified */
+    private final SortedSet<SystemInfo> boundedSystems = new TreeSet<>();
+
     //~ Constructors -----------------------------------------------------------
     //--------------//
     // BoundaryTask //
@@ -57,10 +65,33 @@ public class BoundaryTask
      */
     public BoundaryTask (Sheet sheet,
                          List<BrokenLineContext> contexts)
+    {
+        this(sheet, contexts, null);
+    }
+
+    //--------------//
+    // BoundaryTask //
+    //--------------//
+    /**
+     * Creates a new BoundaryTask object, for lines already modified in
+     * place (by the boundary editor).
+     *
+     * @param sheet      the related sheet
+     * @param contexts   the collections of lines contexts
+     * @param editedArea the area covered by the lines before and during
+     *                   their edition, or null
+     */
+    public BoundaryTask (Sheet sheet,
+                         List<BrokenLineContext> contexts,
+                         Rectangle editedArea)
     {
         super(sheet);
 
         this.contexts = contexts;
+
+        if (editedArea != null) {
+            sweptArea = new Rectangle(editedArea);
+        }
     }
 
     //--------------//
@@ -92,8 +123,11 @@ public class BoundaryTask
                         .get(context.systemAbove - 1);
                 SystemBoundary boundary = system.getBoundary();
                 BrokenLine brokenLine = boundary.getLimit(VerticalSide.BOTTOM);
+                sweptArea = brokenLine.includePixels(sweptArea);
                 brokenLine.resetPoints(copy);
+                sweptArea = brokenLine.includePixels(sweptArea);
                 system.updateBoundary();
+                boundedSystems.add(system);
             }
 
             if (context.systemBelow != 0) {
@@ -101,8 +135,11 @@ public class BoundaryTask
                         .get(context.systemBelow - 1);
                 SystemBoundary boundary = system.getBoundary();
                 BrokenLine brokenLine = boundary.getLimit(VerticalSide.TOP);
+                sweptArea = brokenLine.includePixels(sweptArea);
                 brokenLine.resetPoints(copy);
+                sweptArea = brokenLine.includePixels(sweptArea);
                 system.updateBoundary();
+                boundedSystems.add(system);
             }
         }
     }
@@ -113,14 +150,19 @@ public class BoundaryTask
     @Override
     public void epilog (Sheet sheet)
     {
-        // Resplit systems content
-        sheet.getSystemsBuilder().splitSystemEntities();
+        // Resplit systems content, just in the area swept by the lines
+        SortedSet<SystemInfo> impacted = new TreeSet<>(boundedSystems);
+
+        if (sweptArea != null) {
+            impacted.addAll(
+                    sheet.getSystemsBuilder().splitSystemEntities(sweptArea));
+        }
 
         // Update the following steps if any
-        Stepping.reprocessSheet(
+        reprocessSheet(
                 Steps.valueOf(Steps.TEXTS),
                 sheet,
-                sheet.getSystems(),
+                impacted,
                 false);
     }
 
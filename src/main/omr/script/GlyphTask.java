@@ -18,7 +18,6 @@ import omr.glyph.facets.Glyph;
 import omr.sheet.Sheet;
 import omr.sheet.SystemInfo;
 
-import omr.step.Stepping;
 import omr.step.Steps;
 
 import java.util.Collection;
@@ -106,7 +105,7 @@ public abstract class GlyphTask
     @Override
     public void epilog (Sheet sheet)
     {
-        Stepping.reprocessSheet(
+        reprocessSheet(
                 Steps.valueOf(Steps.SYMBOLS),
                 sheet,
                 getImpactedSystems(sheet),
@@ -22,6 +22,7 @@ import omr.score.entity.ScorePart;
 import omr.sheet.Sheet;
 import omr.sheet.SystemInfo;
 
+import omr.step.ProcessingCancellationException;
 import omr.step.Step;
 import omr.step.Stepping;
 import omr.step.Steps;
@@ -96,11 +97,13 @@ public class ParametersTask
      *
      * @param name    the part name
      * @param program the midi program
+     * @param volume  the midi volume, or null for the score volume
      */
     public void addPart (String name,
-                         int program)
+                         int program,
+                         Integer volume)
     {
-        parts.add(new PartData(name, program));
+        parts.add(new PartData(name, program, volume));
     }
 
     //------//
@@ -154,6 +157,9 @@ public class ParametersTask
 
                 // Part midi program
                 scorePart.setMidiProgram(data.program);
+
+                // Part midi volume
+                scorePart.setVolume(data.volume);
             } catch (Exception ex) {
                 logger.warn(
                         "Error in script Parameters part#" + (i + 1),
@@ -243,12 +249,13 @@ public class ParametersTask
 
             }
 
-            Stepping.reprocessSheet(from, sheet, null, true, false);
+            // Pages are waited for, before they get merged
+            reprocess(page.getSheet(), from, false);
         }
 
         // Final SCORE (merge) step?
         if (latestStep == scoreStep) {
-            Stepping.reprocessSheet(scoreStep, sheet, null, true, true);
+            reprocess(sheet, scoreStep, true);
         }
 
         super.epilog(sheet);
@@ -362,6 +369,28 @@ public class ParametersTask
         return params;
     }
 
+    //-----------//
+    // reprocess //
+    //-----------//
+    /**
+     * Update the sheet from the provided step, and wait for completion.
+     *
+     * @param sheet the sheet to update
+     * @param step  the step to restart from, if any
+     * @param merge true if step SCORE (merge of pages) is allowed
+     */
+    private void reprocess (Sheet sheet,
+                            Step step,
+                            boolean merge)
+    {
+        try {
+            sheet.getReprocessingQueue()
+                    .process(step, null, true, merge);
+        } catch (InterruptedException ex) {
+            throw new ProcessingCancellationException(ex);
+        }
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //----------//
     // PartData //
@@ -378,25 +407,33 @@ public class ParametersTask
         @XmlAttribute
         public final int program;
 
+        /** Midi volume, if different from the score volume */
+        @XmlAttribute
+        public final Integer volume;
+
         //~ Constructors -------------------------------------------------------
         public PartData (String name,
-                         int program)
+                         int program,
+                         Integer volume)
         {
             this.name = name;
             this.program = program;
+            this.volume = volume;
         }
 
         private PartData ()
         {
             name = null;
             program = 0;
+            volume = null;
         }
 
         //~ Methods ------------------------------------------------------------
         @Override
         public String toString ()
         {
-            return "{name:" + name + " program:" + program + "}";
+            return "{name:" + name + " program:" + program
+                   + ((volume != null) ? (" volume:" + volume) : "") + "}";
         }
     }
 
@@ -12,6 +12,10 @@
 package omr.script;
 
 import omr.sheet.Sheet;
+import omr.sheet.SystemInfo;
+
+import omr.step.ProcessingCancellationException;
+import omr.step.Step;
 
 import omr.util.BasicTask;
 
@@ -20,6 +24,8 @@ import org.jdesktop.application.Task;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+
 /**
  * Class {@code ScriptTask} is the root class of all possible tasks
  * within a score script.
@@ -33,6 +39,11 @@ import org.slf4j.LoggerFactory;
  * task asynchronously, use the {@link #launch} method, and this is what any
  * UI module should do.</p>
  *
+ * <p>A task hands its reprocessing requests, if any, to the sheet
+ * {@link omr.step.ReprocessingQueue}: a launched task does not wait for
+ * them, so that a burst of edits does not result in a burst of full
+ * rebuilds, while a task run by the script engine waits for them.</p>
+ *
  * <p>Running a task has the side-effect of writing this task in the current
  * score script, unless the task is defined as not recordable.</p>
  *
@@ -46,6 +57,11 @@ public abstract class ScriptTask
     protected static final Logger logger = LoggerFactory.getLogger(
             ScriptTask.class);
 
+    //~ Instance fields --------------------------------------------------------
+
+    /** Has this task been launched asynchronously (from UI)? */
+    private boolean launched;
+
     //~ Constructors -----------------------------------------------------------
     /**
      * Creates a new ScriptTask object.
@@ -93,6 +109,8 @@ public abstract class ScriptTask
      */
     public Task<Void, Void> launch (final Sheet sheet)
     {
+        launched = true;
+
         Task<Void, Void> task = new BasicTask()
         {
             @Override
@@ -181,6 +199,39 @@ public abstract class ScriptTask
         return "";
     }
 
+    //----------------//
+    // reprocessSheet //
+    //----------------//
+    /**
+     * Update the steps already done on the sheet, starting from the
+     * provided step.
+     * For a launched task, the request is queued and coalesced with the
+     * requests of the following edits, otherwise the request is queued and
+     * waited for.
+     *
+     * @param step            the step to restart from
+     * @param sheet           the sheet to update
+     * @param impactedSystems the systems to rebuild, or null for all
+     * @param imposed         flag to indicate that update is imposed
+     */
+    protected void reprocessSheet (Step step,
+                                   Sheet sheet,
+                                   Collection<SystemInfo> impactedSystems,
+                                   boolean imposed)
+    {
+        if (launched) {
+            sheet.getReprocessingQueue()
+                    .submit(step, impactedSystems, imposed, true);
+        } else {
+            try {
+                sheet.getReprocessingQueue()
+                        .process(step, impactedSystems, imposed, true);
+            } catch (InterruptedException ex) {
+                throw new ProcessingCancellationException(ex);
+            }
+        }
+    }
+
     //--------------//
     // isRecordable //
     //--------------//
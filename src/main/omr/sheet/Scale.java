@@ -18,6 +18,10 @@ import omr.util.DoubleValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -421,6 +425,79 @@ public class Scale
         return sb.toString();
     }
 
+    //------------//
+    // readBinary //
+    //------------//
+    /**
+     * Read a scale written by {@link #writeBinary}.
+     *
+     * @param in the input stream
+     * @return the scale read
+     * @throws IOException if reading fails
+     */
+    public static Scale readBinary (DataInputStream in)
+            throws IOException
+    {
+        Range lineRange = readRange(in);
+        Range interlineRange = readRange(in);
+        int beam = in.readInt();
+        Range secondInterlineRange = readRange(in);
+
+        return new Scale(
+                lineRange,
+                interlineRange,
+                (beam >= 0) ? beam : null,
+                secondInterlineRange);
+    }
+
+    //-------------//
+    // writeBinary //
+    //-------------//
+    /**
+     * Write this scale in a compact binary form, as used by sheet
+     * checkpoints.
+     *
+     * @param out the output stream
+     * @throws IOException if writing fails
+     */
+    public void writeBinary (DataOutputStream out)
+            throws IOException
+    {
+        writeRange(out, lineRange);
+        writeRange(out, interlineRange);
+        out.writeInt((beamValue != null) ? beamValue : -1);
+        writeRange(out, secondInterlineRange);
+    }
+
+    //-----------//
+    // readRange //
+    //-----------//
+    private static Range readRange (DataInputStream in)
+            throws IOException
+    {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        return new Range(in.readInt(), in.readInt(), in.readInt());
+    }
+
+    //------------//
+    // writeRange //
+    //------------//
+    private static void writeRange (DataOutputStream out,
+                                    Range range)
+            throws IOException
+    {
+        out.writeBoolean(range != null);
+
+        if (range != null) {
+            out.writeInt(range.min);
+            out.writeInt(range.best);
+            out.writeInt(range.max);
+        }
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //--------------//
     // AreaFraction //
@@ -17,6 +17,7 @@ import static omr.WellKnowns.LINE_SEPARATOR;
 import omr.constant.Constant;
 import omr.constant.ConstantSet;
 
+import omr.math.DenseHistogram;
 import omr.math.Histogram;
 import omr.math.Histogram.MaxEntry;
 import omr.math.Histogram.PeakEntry;
@@ -32,8 +33,10 @@ import omr.score.Score;
 import omr.sheet.picture.Picture;
 import omr.sheet.ui.SheetsController;
 
+import omr.step.ProcessingCancellationException;
 import omr.step.StepException;
 
+import omr.util.OmrExecutors;
 import omr.util.StopWatch;
 
 import org.jfree.chart.ChartFactory;
@@ -52,8 +55,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.JOptionPane;
 import javax.swing.WindowConstants;
@@ -113,10 +120,10 @@ public class ScaleBuilder
     private HistoKeeper histoKeeper;
 
     /** Histogram on foreground runs. */
-    private Histogram<Integer> foreHisto;
+    private DenseHistogram foreHisto;
 
     /** Histogram on background runs. */
-    private Histogram<Integer> backHisto;
+    private DenseHistogram backHisto;
 
     /** Absolute population percentage for validating an extremum. */
     private final double quorumRatio = constants.quorumRatio.getValue();
@@ -545,6 +552,9 @@ public class ScaleBuilder
      * chart on the related populations if so asked by the user.
      * It first builds the whole table of foreground vertical runs, which will
      * be reused in following step (GRID).
+     * Columns are processed in parallel bands, and may be sampled (see
+     * constants.samplingStep) with a fallback to all columns when the
+     * sampled peaks are not clear enough.
      */
     private class HistoKeeper
     {
@@ -607,9 +617,9 @@ public class ScaleBuilder
         //-----------------//
         // createHistogram //
         //-----------------//
-        private Histogram<Integer> createHistogram (int... vals)
+        private DenseHistogram createHistogram (int... vals)
         {
-            Histogram<Integer> histo = new Histogram<>();
+            DenseHistogram histo = new DenseHistogram();
 
             for (int i = 0; i < vals.length; i++) {
                 histo.increaseCount(i, vals[i]);
@@ -624,13 +634,58 @@ public class ScaleBuilder
         private void buildHistograms (RunsTable wholeVertTable,
                                       int width,
                                       int height)
+        {
+            // Quick estimate on a subset of columns, if so desired
+            final int step = constants.samplingStep.getValue();
+
+            if (step > 1) {
+                countRuns(wholeVertTable, width, height, step);
+
+                if (isReliable()) {
+                    logger.debug("{}Scale sampled on 1 column out of {}",
+                            sheet.getLogPrefix(), step);
+
+                    return;
+                }
+
+                logger.info("{}Sampled scale not reliable, using all columns",
+                        sheet.getLogPrefix());
+                Arrays.fill(fore, 0);
+                Arrays.fill(back, 0);
+            }
+
+            countRuns(wholeVertTable, width, height, 1);
+        }
+
+        //--------------//
+        // countColumns //
+        //--------------//
+        /**
+         * Count the lengths of foreground and background runs, for the
+         * columns of the provided band.
+         *
+         * @param table   the whole table of vertical runs
+         * @param xMin    first column of the band
+         * @param xMax    column past the band
+         * @param step    abscissa step between two processed columns
+         * @param height  picture height
+         * @param foreCnt (output) counts of foreground lengths
+         * @param backCnt (output) counts of background lengths
+         */
+        private void countColumns (RunsTable table,
+                                   int xMin,
+                                   int xMax,
+                                   int step,
+                                   int height,
+                                   int[] foreCnt,
+                                   int[] backCnt)
         {
             // Upper bounds for run lengths
             final int maxBack = height / 4;
             final int maxFore = height / 16;
 
-            for (int x = 0; x < width; x++) {
-                List<Run> runSeq = wholeVertTable.getSequence(x);
+            for (int x = xMin; x < xMax; x += step) {
+                List<Run> runSeq = table.getSequence(x);
                 // Ordinate of first pixel not yet processed
                 int yLast = 0;
 
@@ -641,14 +696,14 @@ public class ScaleBuilder
                         // Process the background run before this run
                         int backLength = y - yLast;
                         if (backLength <= maxBack) {
-                            back[backLength]++;
+                            backCnt[backLength]++;
                         }
                     }
 
                     // Process this foreground run
                     int foreLength = run.getLength();
                     if (foreLength <= maxFore) {
-                        fore[foreLength]++;
+                        foreCnt[foreLength]++;
                     }
                     yLast = y + foreLength;
                 }
@@ -657,7 +712,85 @@ public class ScaleBuilder
                 if (yLast < height) {
                     int backLength = height - yLast;
                     if (backLength <= maxBack) {
-                        back[backLength]++;
+                        backCnt[backLength]++;
+                    }
+                }
+            }
+        }
+
+        //-----------//
+        // countRuns //
+        //-----------//
+        /**
+         * Fill the fore and back counts, by processing every step-th
+         * column, and build the related histograms.
+         * Columns are split into bands processed in parallel when allowed,
+         * each band using its own counts which are summed at the end.
+         */
+        private void countRuns (final RunsTable table,
+                                final int width,
+                                final int height,
+                                final int step)
+        {
+            final int bandCount = Math.min(
+                    OmrExecutors.getNumberOfCpus(),
+                    width / constants.minBandWidth.getValue());
+
+            if (!OmrExecutors.defaultParallelism.getTarget()
+                || (bandCount < 2)) {
+                // Sequential
+                countColumns(table, 0, width, step, height, fore, back);
+            } else {
+                // Parallel, one band per task
+                final int[][] foreCnts = new int[bandCount][fore.length];
+                final int[][] backCnts = new int[bandCount][back.length];
+                final int bandWidth = step
+                                      * (int) Math.ceil(
+                        (double) width / (step * bandCount));
+                List<Callable<Void>> tasks = new ArrayList<>(bandCount);
+
+                for (int b = 0; b < bandCount; b++) {
+                    final int band = b;
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            int xMin = band * bandWidth;
+                            countColumns(
+                                    table,
+                                    xMin,
+                                    Math.min(width, xMin + bandWidth),
+                                    step,
+                                    height,
+                                    foreCnts[band],
+                                    backCnts[band]);
+
+                            return null;
+                        }
+                    });
+                }
+
+                try {
+                    for (Future<Void> future : OmrExecutors.getHighExecutor()
+                            .invokeAll(tasks)) {
+                        future.get();
+                    }
+                } catch (InterruptedException ex) {
+                    logger.warn("Parallel scale got interrupted");
+                    throw new ProcessingCancellationException(ex);
+                } catch (ExecutionException ex) {
+                    logger.warn("Exception raised in parallel scale", ex);
+                    throw new RuntimeException(ex.getCause());
+                }
+
+                // Merge the band counts
+                for (int b = 0; b < bandCount; b++) {
+                    for (int i = 0; i < fore.length; i++) {
+                        fore[i] += foreCnts[b][i];
+                        back[i] += backCnts[b][i];
                     }
                 }
             }
@@ -671,6 +804,30 @@ public class ScaleBuilder
             foreHisto = createHistogram(fore);
             backHisto = createHistogram(back);
         }
+
+        //------------//
+        // isReliable //
+        //------------//
+        /**
+         * Check whether the current (sampled) histograms exhibit clear
+         * foreground and background peaks, based on enough runs.
+         *
+         * @return true if the sampled data can be used as is
+         */
+        private boolean isReliable ()
+        {
+            if (backHisto.getTotalCount() < constants.minSampledRuns.getValue()) {
+                return false;
+            }
+
+            PeakEntry<Double> fPeak = getPeak(foreHisto, foreSpreadRatio, 0);
+            PeakEntry<Double> bPeak = getPeak(backHisto, backSpreadRatio, 0);
+
+            return (fPeak != null) && (fPeak.getValue() >= quorumRatio)
+                   && (fPeak.getValue() < 1d) && (bPeak != null)
+                   && (bPeak.getValue() >= quorumRatio)
+                   && (bPeak.getValue() < 1d);
+        }
     }
 
     //-----------//
@@ -714,6 +871,21 @@ public class ScaleBuilder
                 false,
                 "Should we print the StopWatch on binarization?");
 
+        final Constant.Integer samplingStep = new Constant.Integer(
+                "Columns",
+                1,
+                "Abscissa step between sampled columns (1 for all columns)");
+
+        final Constant.Integer minSampledRuns = new Constant.Integer(
+                "Runs",
+                5000,
+                "Minimum number of background runs for a sampled scale");
+
+        final Constant.Integer minBandWidth = new Constant.Integer(
+                "Pixels",
+                200,
+                "Minimum band width for parallel scale computation");
+
     }
 
     //---------//
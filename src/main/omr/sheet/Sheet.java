@@ -53,6 +53,7 @@ import omr.sheet.ui.PixelBoard;
 import omr.sheet.ui.SheetAssembly;
 import omr.sheet.ui.SheetsController;
 
+import omr.step.ReprocessingQueue;
 import omr.step.Step;
 import omr.step.StepException;
 import omr.step.Stepping;
@@ -66,6 +67,7 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.RenderedImage;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -126,6 +128,9 @@ public class Sheet
     /** Retrieved systems. */
     private final List<SystemInfo> systems = new ArrayList<>();
 
+    /** Queue of reprocessing requests from interactive edits. */
+    private final ReprocessingQueue reprocessingQueue;
+
     //-- resettable members ----------------------------------------------------
     //
     /** The related picture */
@@ -199,6 +204,9 @@ public class Sheet
     /** Have systems their boundaries? */
     private boolean hasSystemBoundaries = false;
 
+    /** Lookup table of systems per column, lazily built from boundaries. */
+    private volatile SystemLookup systemLookup;
+
     //~ Constructors -----------------------------------------------------------
     //
     //-------//
@@ -217,6 +225,7 @@ public class Sheet
             throws StepException
     {
         this.page = page;
+        reprocessingQueue = new ReprocessingQueue(this);
         this.score = page.getScore();
 
         locationService = new SelectionService("sheet", allowedEvents);
@@ -266,6 +275,8 @@ public class Sheet
             this.systems.clear();
             this.systems.addAll(systems);
         }
+
+        systemLookup = null;
     }
 
     //------//
@@ -625,6 +636,20 @@ public class Sheet
         return picture;
     }
 
+    //----------------------//
+    // getReprocessingQueue //
+    //----------------------//
+    /**
+     * Report the queue which serializes the reprocessing requests
+     * triggered by interactive edits on this sheet.
+     *
+     * @return the reprocessing queue
+     */
+    public ReprocessingQueue getReprocessingQueue ()
+    {
+        return reprocessingQueue;
+    }
+
     //----------//
     // getScale //
     //----------//
@@ -787,6 +812,23 @@ public class Sheet
      */
     public SystemInfo getSystemOf (Point point)
     {
+        SystemLookup lookup = systemLookup;
+
+        if ((lookup == null) && hasSystemBoundaries) {
+            lookup = SystemLookup.create(systems, getWidth());
+            systemLookup = lookup;
+        }
+
+        if (lookup != null) {
+            int index = lookup.indexOf(point);
+
+            if (index == SystemLookup.NONE) {
+                return null;
+            } else if (index != SystemLookup.UNKNOWN) {
+                return lookup.getSystem(index);
+            }
+        }
+
         for (SystemInfo info : getSystems()) {
             SystemBoundary boundary = info.getBoundary();
 
@@ -1251,6 +1293,19 @@ public class Sheet
     public void setSystemBoundaries ()
     {
         hasSystemBoundaries = true;
+        systemLookup = null;
+    }
+
+    //--------------------//
+    // invalidateBoundary //
+    //--------------------//
+    /**
+     * Notify that a system boundary has been (re)defined, so that the
+     * lookup of systems by location gets rebuilt.
+     */
+    public void invalidateBoundary ()
+    {
+        systemLookup = null;
     }
 
     //------------------//
@@ -1319,6 +1374,67 @@ public class Sheet
         return modified;
     }
 
+    //-------------//
+    // splitGlyphs //
+    //-------------//
+    /**
+     * Re-dispatch among systems only the active glyphs that intersect
+     * the provided area, typically the area swept by a modified system
+     * limit.
+     * Sections are assumed to have already been re-dispatched, since the
+     * system of a glyph is the system of its first section.
+     * Glyphs which belonged to no system, for example because a previous
+     * modification had left them out of any system, are assigned again.
+     *
+     * @param area the area impacted by the modification
+     * @return the set of modified systems
+     */
+    public Set<SystemInfo> splitGlyphs (Rectangle area)
+    {
+        Set<SystemInfo> modified = new LinkedHashSet<>();
+        Set<Glyph> held = new HashSet<>();
+
+        for (SystemInfo system : getSystemsIntersecting(area)) {
+            for (Glyph glyph : new ArrayList<>(system.getGlyphs())) {
+                if (!glyph.isActive() || !area.intersects(glyph.getBounds())) {
+                    continue;
+                }
+
+                held.add(glyph);
+
+                SystemInfo newSystem = getSystemOf(glyph);
+
+                if (newSystem != system) {
+                    system.removeFromGlyphsCollection(glyph);
+                    modified.add(system);
+
+                    if (newSystem != null) {
+                        newSystem.addGlyph(glyph);
+                        modified.add(newSystem);
+                    } else {
+                        glyph.setShape(null);
+                    }
+                }
+            }
+        }
+
+        // Pick up the glyphs which belonged to no system
+        for (Glyph glyph : nest.lookupIntersectedGlyphs(area)) {
+            if (held.contains(glyph)) {
+                continue;
+            }
+
+            SystemInfo system = getSystemOf(glyph);
+
+            if ((system != null) && !system.getGlyphs().contains(glyph)) {
+                system.addGlyph(glyph);
+                modified.add(system);
+            }
+        }
+
+        return modified;
+    }
+
     //-------------------------//
     // splitHorizontalSections //
     //-------------------------//
@@ -1362,6 +1478,21 @@ public class Sheet
         return modifiedSystems;
     }
 
+    //-------------------------//
+    // splitHorizontalSections //
+    //-------------------------//
+    /**
+     * Re-dispatch among systems only the horizontal sections whose
+     * centroid lies in the provided area.
+     *
+     * @param area the area impacted by the modification
+     * @return the set of modified systems
+     */
+    public Set<SystemInfo> splitHorizontalSections (Rectangle area)
+    {
+        return splitSections(area, true);
+    }
+
     //-----------------------//
     // splitVerticalSections //
     //-----------------------//
@@ -1405,6 +1536,21 @@ public class Sheet
         return modifiedSystems;
     }
 
+    //-----------------------//
+    // splitVerticalSections //
+    //-----------------------//
+    /**
+     * Re-dispatch among systems only the vertical sections whose
+     * centroid lies in the provided area.
+     *
+     * @param area the area impacted by the modification
+     * @return the set of modified systems
+     */
+    public Set<SystemInfo> splitVerticalSections (Rectangle area)
+    {
+        return splitSections(area, false);
+    }
+
     //----------//
     // toString //
     //----------//
@@ -1414,6 +1560,111 @@ public class Sheet
         return "{Sheet " + page.getId() + "}";
     }
 
+    //------------------------//
+    // getSystemsIntersecting //
+    //------------------------//
+    /**
+     * Report the systems whose boundary intersects the provided area.
+     *
+     * @param area the provided area
+     * @return the intersecting systems, in sheet order
+     */
+    private List<SystemInfo> getSystemsIntersecting (Rectangle area)
+    {
+        List<SystemInfo> found = new ArrayList<>();
+
+        for (SystemInfo system : systems) {
+            SystemBoundary boundary = system.getBoundary();
+
+            if ((boundary != null) && boundary.getBounds().intersects(area)) {
+                found.add(system);
+            }
+        }
+
+        return found;
+    }
+
+    //---------------//
+    // splitSections //
+    //---------------//
+    /**
+     * Re-dispatch the sections (horizontal or vertical) whose centroid
+     * lies in the provided area.
+     * Only sections of the systems that intersect the area are checked,
+     * since a section can only move between these systems, plus the lag
+     * sections of the area which belong to no system.
+     *
+     * @param area       the area impacted by the modification
+     * @param horizontal true for horizontal sections, false for vertical
+     * @return the set of modified systems
+     */
+    private Set<SystemInfo> splitSections (Rectangle area,
+                                           boolean horizontal)
+    {
+        Set<SystemInfo> modifiedSystems = new LinkedHashSet<>();
+        List<Section> moved = new ArrayList<>();
+
+        // Remove the sections which no longer belong to their system
+        for (SystemInfo system : getSystemsIntersecting(area)) {
+            Collection<Section> systemSections = horizontal
+                    ? system.getMutableHorizontalSections()
+                    : system.getMutableVerticalSections();
+            Set<Section> leaving = new HashSet<>();
+
+            for (Section section : systemSections) {
+                Point centroid = section.getCentroid();
+
+                if (area.contains(centroid)
+                    && (getSystemOf(centroid) != system)) {
+                    leaving.add(section);
+                }
+            }
+
+            if (!leaving.isEmpty()) {
+                systemSections.removeAll(leaving);
+                moved.addAll(leaving);
+                modifiedSystems.add(system);
+            }
+        }
+
+        // Add the sections which belonged to no system
+        Lag lag = horizontal ? getHorizontalLag() : getVerticalLag();
+
+        for (Section section : lag.lookupIntersectedSections(area)) {
+            if ((section.getSystem() == null)
+                && area.contains(section.getCentroid())) {
+                moved.add(section);
+            }
+        }
+
+        // Link them to their new system, if any
+        for (Section section : moved) {
+            SystemInfo system = getSystemOf(section.getCentroid());
+            section.setSystem(system);
+
+            if (system != null) {
+                Collection<Section> systemSections = horizontal
+                        ? system.getMutableHorizontalSections()
+                        : system.getMutableVerticalSections();
+                systemSections.add(section);
+                modifiedSystems.add(system);
+            }
+        }
+
+        // Keep the lag order in each modified system
+        for (SystemInfo system : modifiedSystems) {
+            Collection<Section> systemSections = horizontal
+                    ? system.getMutableHorizontalSections()
+                    : system.getMutableVerticalSections();
+            List<Section> sorted = new ArrayList<>(systemSections);
+            Collections.sort(sorted, Section.idComparator);
+            systemSections.clear();
+            systemSections.addAll(sorted);
+        }
+
+        return modifiedSystems;
+    }
+
     //-------//
     // reset //
     //-------//
@@ -1453,6 +1704,7 @@ public class Sheet
             }
 
             systems.clear();
+            systemLookup = null;
             gridBuilder = null;
 
             staffManager.reset();
@@ -19,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class {@code SheetBench} records all important information related
@@ -57,6 +58,18 @@ public class SheetBench
     /** Starting date */
     private final Date date = new Date(startTime);
 
+    /** Number of OCR invocations */
+    private final AtomicInteger ocrCalls = new AtomicInteger();
+
+    /** Number of text lines returned by OCR */
+    private final AtomicInteger ocrLines = new AtomicInteger();
+
+    /** OCR calls already recorded by previous steps */
+    private int stepOcrCalls;
+
+    /** OCR lines already recorded by previous steps */
+    private int stepOcrLines;
+
     //~ Constructors -----------------------------------------------------------
     //------------//
     // SheetBench //
@@ -81,6 +94,28 @@ public class SheetBench
     }
 
     //~ Methods ----------------------------------------------------------------
+    //-------------//
+    // getOcrCalls //
+    //-------------//
+    /**
+     * @return the number of OCR invocations so far
+     */
+    public int getOcrCalls ()
+    {
+        return ocrCalls.get();
+    }
+
+    //-------------//
+    // getOcrLines //
+    //-------------//
+    /**
+     * @return the number of text lines returned by OCR so far
+     */
+    public int getOcrLines ()
+    {
+        return ocrLines.get();
+    }
+
     //----------//
     // getSheet //
     //----------//
@@ -100,6 +135,33 @@ public class SheetBench
         addProp("whole.cancelled", "true");
     }
 
+    //-----------//
+    // recordOcr //
+    //-----------//
+    public void recordOcr (int lineCount)
+    {
+        ocrCalls.incrementAndGet();
+        ocrLines.addAndGet(lineCount);
+    }
+
+    //---------------//
+    // recordOverrun //
+    //---------------//
+    /**
+     * Record that a system exhausted its time budget in a step, and
+     * thus got only partial (or no) results.
+     *
+     * @param step   the step concerned
+     * @param system the system concerned
+     */
+    public synchronized void recordOverrun (Step step,
+                                            SystemInfo system)
+    {
+        addProp(
+                "step." + step.getName().toLowerCase() + ".overrun",
+                "" + system.getId());
+    }
+
     //----------------------//
     // recordImageDimension //
     //----------------------//
@@ -181,9 +243,20 @@ public class SheetBench
     public void recordStep (Step step,
                             long duration)
     {
-        addProp(
-                "step." + step.getName().toLowerCase() + ".duration",
-                "" + duration);
+        final String prefix = "step." + step.getName().toLowerCase();
+        addProp(prefix + ".duration", "" + duration);
+
+        // OCR activity during this step, if any
+        final int calls = ocrCalls.get();
+
+        if (calls > stepOcrCalls) {
+            final int lines = ocrLines.get();
+            addProp(prefix + ".ocr.calls", "" + (calls - stepOcrCalls));
+            addProp(prefix + ".ocr.lines", "" + (lines - stepOcrLines));
+            stepOcrCalls = calls;
+            stepOcrLines = lines;
+        }
+
         flushBench();
     }
 
@@ -0,0 +1,361 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                       S h e e t C h e c k p o i n t                        //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.sheet;
+
+import omr.Main;
+import omr.WellKnowns;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.grid.GridCheckpoint;
+
+import omr.run.FilterDescriptor;
+
+import omr.step.Steps;
+
+import omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Class {@code SheetCheckpoint} saves the state of a sheet right after
+ * the GRID step, in a compact binary file, so that a later processing of
+ * the same sheet image can restore this state instead of performing the
+ * step again.
+ *
+ * <p>A checkpoint is bound to the sheet image (path, size and date), to
+ * the page index within the image, to the binarization filter and to the
+ * program build. If any of these items has changed, or if the checkpoint
+ * {@link #VERSION} is not the current one, the checkpoint is considered
+ * as stale: it is ignored and deleted.
+ *
+ * <p>The sheet state is encoded synchronously, since the following steps
+ * modify it, but the file is written asynchronously.
+ *
+ * <p>The state is made of the lags, glyphs, skew, staves and systems, as
+ * encoded by {@link GridCheckpoint}.
+ * Since the grid retrievers are not restored, checkpoints are used only in
+ * batch mode without scripts.
+ * The GRID step is the only one {@link omr.step.Stepping} tries to restore.
+ *
+ * <p>Checkpoints are disabled by default. When enabled, the oldest
+ * checkpoint files are deleted as soon as the checkpoint folder exceeds
+ * its maximum size.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetCheckpoint
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            SheetCheckpoint.class);
+
+    /** Magic number, which reads "OMRC". */
+    public static final int MAGIC = 0x4f4d5243;
+
+    /** Current version of the checkpoint format. */
+    public static final int VERSION = 2;
+
+    /** Extension of checkpoint files. */
+    public static final String CHECKPOINT_EXTENSION = ".ckpt";
+
+    /** Folder where checkpoints are kept. */
+    private static final File CHECKPOINT_FOLDER = new File(
+            WellKnowns.TEMP_FOLDER,
+            "checkpoints");
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //-----------------//
+    // SheetCheckpoint //
+    //-----------------//
+    private SheetCheckpoint ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //---------//
+    // restore //
+    //---------//
+    /**
+     * Try to restore the sheet state right after the GRID step, from a
+     * valid checkpoint.
+     *
+     * @param sheet the sheet to restore, whose SCALE step is done
+     * @return true if the state has been restored, hence the GRID step can
+     *         be skipped
+     */
+    public static boolean restore (Sheet sheet)
+    {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        final File file = getFile(sheet);
+
+        if (!file.exists()) {
+            return false;
+        }
+
+        final long start = System.currentTimeMillis();
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if ((in.readInt() != MAGIC)
+                || (in.readInt() != VERSION)
+                || !in.readUTF()
+                    .equals(getFingerprint(sheet))) {
+                logger.debug("{}Ignoring stale checkpoint {}",
+                        sheet.getLogPrefix(), file);
+                Files.delete(file.toPath());
+
+                return false;
+            }
+
+            GridCheckpoint.read(sheet, in);
+
+            // Most recently used checkpoints are the last ones to be evicted
+            file.setLastModified(System.currentTimeMillis());
+            logger.info("{}{} restored from checkpoint in {} ms",
+                    sheet.getLogPrefix(), Steps.GRID,
+                    System.currentTimeMillis() - start);
+
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            logger.warn(sheet.getLogPrefix() + "Could not restore checkpoint "
+                        + file, ex);
+
+            return false;
+        }
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Save the sheet state right after the GRID step.
+     *
+     * @param sheet the sheet just processed by the GRID step
+     */
+    public static void store (final Sheet sheet)
+    {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(getFingerprint(sheet));
+            GridCheckpoint.write(sheet, out);
+        } catch (IOException | RuntimeException ex) {
+            logger.warn(sheet.getLogPrefix() + "Could not encode checkpoint",
+                    ex);
+
+            return;
+        }
+
+        OmrExecutors.getCachedLowExecutor()
+                .execute(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                write(sheet, getFile(sheet), bytes);
+            }
+        });
+    }
+
+    //---------//
+    // cleanUp //
+    //---------//
+    /**
+     * Delete the oldest checkpoints, until the checkpoint folder gets
+     * below its maximum size.
+     */
+    private static synchronized void cleanUp ()
+    {
+        final File[] files = CHECKPOINT_FOLDER.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        final long maxSize = constants.maxFolderSize.getValue() * 1024L * 1024L;
+        long size = 0;
+
+        for (File file : files) {
+            size += file.length();
+        }
+
+        if (size <= maxSize) {
+            return;
+        }
+
+        Arrays.sort(
+                files,
+                new Comparator<File>()
+        {
+            @Override
+            public int compare (File f1,
+                                File f2)
+            {
+                return Long.compare(f1.lastModified(), f2.lastModified());
+            }
+        });
+
+        for (File file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+
+            if (file.getName().endsWith(CHECKPOINT_EXTENSION)) {
+                final long length = file.length();
+
+                if (file.delete()) {
+                    logger.debug("Evicted checkpoint {}", file);
+                    size -= length;
+                }
+            }
+        }
+    }
+
+    //---------//
+    // getFile //
+    //---------//
+    private static File getFile (Sheet sheet)
+    {
+        final File image = sheet.getScore()
+                .getImageFile();
+
+        return new File(
+                CHECKPOINT_FOLDER,
+                image.getName() + "-"
+                + Integer.toHexString(image.getAbsolutePath().hashCode()) + "#"
+                + sheet.getPage().getIndex() + "." + Steps.GRID
+                + CHECKPOINT_EXTENSION);
+    }
+
+    //----------------//
+    // getFingerprint //
+    //----------------//
+    /**
+     * Report the items a checkpoint depends on.
+     */
+    private static String getFingerprint (Sheet sheet)
+    {
+        final File image = sheet.getScore()
+                .getImageFile();
+        final FilterDescriptor desc = sheet.getPage()
+                .getFilterParam()
+                .getTarget();
+
+        return image.getAbsolutePath() + "|" + image.length() + "|"
+               + image.lastModified() + "|" + sheet.getPage().getIndex() + "|"
+               + Steps.GRID + "|" + desc + "|" + WellKnowns.TOOL_REF + "."
+               + WellKnowns.TOOL_BUILD;
+    }
+
+    //-----------//
+    // isEnabled //
+    //-----------//
+    private static boolean isEnabled ()
+    {
+        // A restored grid cannot serve the interactive update of barlines
+        return constants.useCheckpoints.isSet() && (Main.getGui() == null)
+               && Main.getScriptNames()
+                .isEmpty();
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write the encoded checkpoint to disk, through a temporary file so
+     * that a partial checkpoint is never visible.
+     */
+    private static void write (Sheet sheet,
+                               File file,
+                               ByteArrayOutputStream bytes)
+    {
+        final long start = System.currentTimeMillis();
+
+        try {
+            CHECKPOINT_FOLDER.mkdirs();
+
+            File tmp = new File(file.getPath() + ".tmp");
+
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                bytes.writeTo(fos);
+            }
+
+            Files.move(
+                    tmp.toPath(),
+                    file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("{}Checkpoint {} written, {} bytes in {} ms",
+                    sheet.getLogPrefix(), file, bytes.size(),
+                    System.currentTimeMillis() - start);
+        } catch (IOException ex) {
+            logger.warn(sheet.getLogPrefix() + "Could not write checkpoint "
+                        + file, ex);
+        }
+
+        cleanUp();
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final Constant.Boolean useCheckpoints = new Constant.Boolean(
+                false,
+                "Should we save and restore the sheet state after GRID step?");
+
+        private final Constant.Integer maxFolderSize = new Constant.Integer(
+                "MegaBytes",
+                500,
+                "Maximum size of the checkpoint folder");
+
+    }
+}
@@ -38,6 +38,7 @@ import omr.score.entity.Staff;
 import omr.score.entity.SystemPart;
 
 import omr.step.StepException;
+import omr.step.TimeBudget;
 
 import omr.text.TextBuilder;
 import omr.text.TextLine;
@@ -133,6 +134,9 @@ public class SystemInfo
     /** Right system bar, if any */
     private BarInfo rightBar;
 
+    /** Time budget of the processing under way on this system */
+    private volatile TimeBudget budget = TimeBudget.UNLIMITED;
+
     /** Left system limit (a filament or a straight line) */
     private Object leftLimit;
 
@@ -606,6 +610,20 @@ public class SystemInfo
         return bottom;
     }
 
+    //-----------//
+    // getBudget //
+    //-----------//
+    /**
+     * Report the time budget of the processing under way on this
+     * system, to be checked by long loops.
+     *
+     * @return the current budget, perhaps unlimited
+     */
+    public TimeBudget getBudget ()
+    {
+        return budget;
+    }
+
     //-------------//
     // getBoundary //
     //-------------//
@@ -1361,6 +1379,20 @@ public class SystemInfo
         this.barAlignments = barAlignments;
     }
 
+    //-----------//
+    // setBudget //
+    //-----------//
+    /**
+     * Set the time budget of the processing about to run on this
+     * system.
+     *
+     * @param budget the budget, or null for no limit
+     */
+    public void setBudget (TimeBudget budget)
+    {
+        this.budget = (budget != null) ? budget : TimeBudget.UNLIMITED;
+    }
+
     //-------------//
     // setBoundary //
     //-------------//
@@ -1389,6 +1421,7 @@ public class SystemInfo
     {
         // Reset the system polygon
         boundary.update();
+        sheet.invalidateBoundary();
 
         // Update top limit of first staff
         GeoPath topPath = boundary.getLimit(VerticalSide.TOP).toGeoPath();
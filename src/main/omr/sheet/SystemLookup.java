@@ -0,0 +1,308 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                          S y s t e m L o o k u p                           //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.sheet;
+
+import omr.util.BrokenLine;
+import omr.util.VerticalSide;
+
+import net.jcip.annotations.Immutable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class {@code SystemLookup} is a precomputed table which gives, for
+ * each sheet abscissa, the sorted ordinates of the system limits.
+ *
+ * <p>Finding the system which contains a point is then a binary search
+ * in the column of the point abscissa, rather than a polygon containment
+ * test on every system boundary.
+ * Points too close to a limit (less than one pixel) are left to the
+ * boundaries polygons, so that the result is always identical to
+ * {@link SystemBoundary#contains}.
+ *
+ * <p>The table is a snapshot of the boundaries, it must be discarded
+ * whenever a system boundary is modified.
+ *
+ * @author Hervé Bitteur
+ */
+@Immutable
+class SystemLookup
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            SystemLookup.class);
+
+    /** Index reported when the point lies in no system */
+    public static final int NONE = -1;
+
+    /** Index reported when the table cannot decide */
+    public static final int UNKNOWN = -2;
+
+    /** Minimum distance to a limit for a direct answer */
+    private static final double MARGIN = 1.0;
+
+    //~ Instance fields --------------------------------------------------------
+    //
+    /** The systems, in sheet order. */
+    private final List<SystemInfo> systems;
+
+    /** Table width, in pixels. */
+    private final int width;
+
+    /**
+     * Ordinates of system limits, per column: for column x and system i,
+     * top is at [x * 2n + 2i] and bottom at [x * 2n + 2i + 1].
+     * A NaN top means the column cannot be used for this system.
+     */
+    private final float[] limits;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //--------------//
+    // SystemLookup //
+    //--------------//
+    /**
+     * Build the lookup table for the provided systems.
+     *
+     * @param systems the sheet systems, all with a defined boundary
+     * @param width   the sheet width
+     */
+    private SystemLookup (List<SystemInfo> systems,
+                          int width)
+    {
+        this.systems = new ArrayList<>(systems);
+        this.width = width;
+
+        final int n = systems.size();
+        limits = new float[width * 2 * n];
+
+        for (int i = 0; i < n; i++) {
+            SystemBoundary boundary = systems.get(i).getBoundary();
+            fill(boundary.getLimit(VerticalSide.TOP), 2 * i);
+            fill(boundary.getLimit(VerticalSide.BOTTOM), (2 * i) + 1);
+        }
+
+        // Discard columns where systems are not vertically ordered
+        for (int x = 0; x < width; x++) {
+            final int base = x * 2 * n;
+            float prevBottom = Float.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < n; i++) {
+                float top = limits[base + (2 * i)];
+                float bottom = limits[base + (2 * i) + 1];
+
+                if (Float.isNaN(top) || Float.isNaN(bottom)
+                    || (top > bottom) || (top < prevBottom)) {
+                    limits[base] = Float.NaN;
+
+                    break;
+                }
+
+                prevBottom = bottom;
+            }
+        }
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //--------//
+    // create //
+    //--------//
+    /**
+     * Build a lookup table on the provided systems, if possible.
+     *
+     * @param systems the sheet systems
+     * @param width   the sheet width
+     * @return the lookup table, or null if some boundary is not yet defined
+     *         or is not a left-to-right broken line
+     */
+    public static SystemLookup create (List<SystemInfo> systems,
+                                       int width)
+    {
+        if (systems.isEmpty() || (width <= 0)) {
+            return null;
+        }
+
+        for (SystemInfo system : systems) {
+            SystemBoundary boundary = system.getBoundary();
+
+            if (boundary == null) {
+                return null;
+            }
+
+            for (BrokenLine line : boundary.getLimits()) {
+                if (!isMonotonic(line)) {
+                    logger.debug("Non-monotonic limit in {}", boundary);
+
+                    return null;
+                }
+            }
+        }
+
+        return new SystemLookup(systems, width);
+    }
+
+    //---------//
+    // indexOf //
+    //---------//
+    /**
+     * Report the index of the system that contains the provided point,
+     * when this can be decided from the table alone.
+     *
+     * @param point the provided point
+     * @return the index of the containing system in sheet systems,
+     *         {@link #NONE} if the point lies in no system, or
+     *         {@link #UNKNOWN} if the caller must resort to the system
+     *         boundaries
+     */
+    public int indexOf (Point point)
+    {
+        if ((point.x < 0) || (point.x >= width)) {
+            return UNKNOWN;
+        }
+
+        final int n = systems.size();
+        final int base = point.x * 2 * n;
+
+        if (Float.isNaN(limits[base])) {
+            return UNKNOWN;
+        }
+
+        final double y = point.y;
+
+        // Binary search for the last system whose top is above y
+        int lo = 0;
+        int hi = n - 1;
+        int index = NONE;
+
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+
+            if (limits[base + (2 * mid)] <= y) {
+                index = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        // Points too close to a limit are left to the polygons
+        if (index != NONE) {
+            double top = limits[base + (2 * index)];
+            double bottom = limits[base + (2 * index) + 1];
+
+            if (((y - top) < MARGIN) || (Math.abs(bottom - y) < MARGIN)) {
+                return UNKNOWN;
+            }
+
+            if (y < bottom) {
+                return index;
+            }
+        }
+
+        if ((index < (n - 1))
+            && ((limits[base + (2 * (index + 1))] - y) < MARGIN)) {
+            return UNKNOWN;
+        }
+
+        return NONE;
+    }
+
+    //-----------//
+    // getSystem //
+    //-----------//
+    /**
+     * Report the system at provided index.
+     *
+     * @param index index in the systems used to build the table
+     * @return the related system
+     */
+    public SystemInfo getSystem (int index)
+    {
+        return systems.get(index);
+    }
+
+    //-------------//
+    // isMonotonic //
+    //-------------//
+    private static boolean isMonotonic (BrokenLine line)
+    {
+        int prevX = Integer.MIN_VALUE;
+
+        for (Point point : line.getPoints()) {
+            if (point.x < prevX) {
+                return false;
+            }
+
+            prevX = point.x;
+        }
+
+        return true;
+    }
+
+    //------//
+    // fill //
+    //------//
+    /**
+     * Sample the provided limit at every abscissa, NaN outside the line.
+     *
+     * @param line   the broken line to sample
+     * @param offset the offset of this limit within a column
+     */
+    private void fill (BrokenLine line,
+                       int offset)
+    {
+        final int stride = 2 * systems.size();
+        final List<Point> points = line.getPoints();
+
+        for (int x = 0; x < width; x++) {
+            limits[(x * stride) + offset] = Float.NaN;
+        }
+
+        for (int i = 1; i < points.size(); i++) {
+            Point p1 = points.get(i - 1);
+            Point p2 = points.get(i);
+
+            if (p2.x == p1.x) {
+                continue;
+            }
+
+            double slope = (double) (p2.y - p1.y) / (p2.x - p1.x);
+            int xMin = Math.max(0, p1.x);
+            int xMax = Math.min(width - 1, p2.x);
+
+            for (int x = xMin; x <= xMax; x++) {
+                limits[(x * stride) + offset] = (float) (p1.y
+                                                         + (slope * (x - p1.x)));
+            }
+        }
+
+        // Vertical segments, as well as line ends which are joined to the
+        // other limit by a vertical side, give no single ordinate
+        for (int i = 0; i < points.size(); i++) {
+            int x = points.get(i).x;
+            boolean vertical = (i > 0) && (x == points.get(i - 1).x);
+            boolean end = (i == 0) || (i == (points.size() - 1));
+
+            if ((vertical || end) && (x >= 0) && (x < width)) {
+                limits[(x * stride) + offset] = Float.NaN;
+            }
+        }
+    }
+}
@@ -36,9 +36,12 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
 import java.awt.Polygon;
+import java.awt.Rectangle;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class {@code SystemsBuilder} is in charge of retrieving the systems
@@ -144,6 +147,26 @@ public class SystemsBuilder
         sheet.splitGlyphs();
     }
 
+    //---------------------//
+    // splitSystemEntities //
+    //---------------------//
+    /**
+     * Re-split per system only the sections and glyphs located in the
+     * provided area, typically the area swept by modified boundaries.
+     *
+     * @param area the area impacted by the boundaries modification
+     * @return the systems whose content has been modified
+     */
+    public Set<SystemInfo> splitSystemEntities (Rectangle area)
+    {
+        Set<SystemInfo> modified = new LinkedHashSet<>();
+        modified.addAll(sheet.splitHorizontalSections(area));
+        modified.addAll(sheet.splitVerticalSections(area));
+        modified.addAll(sheet.splitGlyphs(area));
+
+        return modified;
+    }
+
     //------------------------//
     // allocateScoreStructure //
     //------------------------//
@@ -79,11 +79,12 @@ public class JaiLoader
     // preload //
     //---------//
     /**
-     * On the first call, starts the initialization.
+     * Perform the (costly) initialization of JAI, if not already done.
      */
     public static void preload ()
     {
-        // Empty body, the purpose is just to trigger class elaboration
+        // The purpose is just to trigger JAI class elaboration
+        JAI.getBuildVersion();
     }
 
     //---------//
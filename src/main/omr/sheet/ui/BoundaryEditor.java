@@ -69,6 +69,9 @@ public class BoundaryEditor
     /** Set of modified lines in an edition session. */
     private Set<BrokenLine> modifiedLines = new HashSet<>();
 
+    /** Area covered by the modified lines, before and after edition. */
+    private Rectangle editedArea = null;
+
     /** Designated reference point, if any. */
     private Point currentPoint = null;
 
@@ -154,7 +157,9 @@ public class BoundaryEditor
 
         if (currentPoint != null) {
             // Move the current reference point to user pt
+            editedArea = currentLine.includePixels(editedArea);
             currentPoint.setLocation(pt);
+            editedArea = currentLine.includePixels(editedArea);
             modifiedLines.add(currentLine);
 
             // If now we get colinear segments, let's merge them
@@ -175,7 +180,9 @@ public class BoundaryEditor
                     // Add a new ref point
                     currentPoint = pt;
                     currentLine = line;
+                    editedArea = line.includePixels(editedArea);
                     line.insertPointAfter(pt, segmentStart);
+                    editedArea = line.includePixels(editedArea);
                     modifiedLines.add(currentLine);
                     updateSystemPair();
 
@@ -293,6 +300,7 @@ public class BoundaryEditor
             currentPoint = null;
             currentLine = null;
             modifiedLines.clear();
+            editedArea = null;
             sessionOngoing = true;
 
             // Highlight border lines
@@ -328,7 +336,7 @@ public class BoundaryEditor
                 // At least, one limit line has been modified
                 logger.info("Completing boundaries edition...");
                 sheet.getSymbolsController()
-                        .asyncModifyBoundaries(modifiedLines);
+                        .asyncModifyBoundaries(modifiedLines, editedArea);
             } else {
                 logger.info("No boundary modified");
             }
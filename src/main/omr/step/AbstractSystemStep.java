@@ -13,6 +13,9 @@ package omr.step;
 
 import omr.Main;
 
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
 import omr.sheet.Sheet;
 import omr.sheet.SystemInfo;
 
@@ -29,6 +32,22 @@ import java.util.concurrent.Callable;
  * Class {@code AbstractSystemStep} is a basis for any step working in
  * parallel on the sheet systems.
  *
+ * <p>The step on the whole sheet, and the step on each system, are given a
+ * {@link TimeBudget}, so that a pathological system cannot hold the sheet
+ * for minutes. The step budget is the aggregate CPU time spent by all the
+ * system tasks of the sheet, summed over the parallel threads, hence
+ * waiting for a thread does not count, and the limit stands for an amount
+ * of work whatever the number of processors. This CPU time is charged at
+ * each safe point of the system tasks, see {@link TimeBudget#start}.
+ * The budget of a system is an elapsed time, which
+ * starts when the system task actually starts, and which also expires
+ * once the step budget is exhausted. The system budget is available
+ * through {@link SystemInfo#getBudget} to the long loops of system
+ * processing, which stop at safe points, keeping the results obtained so
+ * far.
+ * Systems not yet started when the step budget is exhausted are skipped.
+ * All these cases are recorded in the sheet bench.
+ *
  * @author Hervé Bitteur
  */
 public abstract class AbstractSystemStep
@@ -36,6 +55,9 @@ public abstract class AbstractSystemStep
 {
     //~ Static fields/initializers ---------------------------------------------
 
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
     /** Usual logger utility */
     private static final Logger logger = LoggerFactory.getLogger(
             AbstractSystemStep.class);
@@ -179,6 +201,10 @@ public abstract class AbstractSystemStep
                 systems = sheet.getSystems();
             }
 
+            final TimeBudget stepBudget = TimeBudget.cpu(
+                    sheet.getLogPrefix() + this,
+                    1000L * constants.stepTimeBudget.getValue());
+
             for (SystemInfo info : systems) {
                 final SystemInfo system = info;
                 tasks.add(
@@ -188,17 +214,70 @@ public abstract class AbstractSystemStep
                     public Void call ()
                             throws Exception
                     {
+                        // Skip the system if reprocessing is superseded
+                        if (sheet.getReprocessingQueue().isCancelled()) {
+                            return null;
+                        }
+
+                        // Skip the system if step is out of time
+                        if (stepBudget.isExceeded()) {
+                            logger.info("{}{} skipped, step time budget"
+                                        + " exhausted", system.getLogPrefix(),
+                                    AbstractSystemStep.this);
+                            overrun(system, stepBudget);
+
+                            return null;
+                        }
+
+                        // System budget starts now, not when the task was queued
+                        system.setBudget(
+                                new TimeBudget(
+                                system.getLogPrefix() + AbstractSystemStep.this,
+                                1000L * constants.systemTimeBudget.getValue(),
+                                stepBudget));
+
+                        // Charge the step budget with the CPU time spent
+                        system.getBudget()
+                                .start();
+
                         try {
                             logger.debug("{} doSystem #{}",
                                     AbstractSystemStep.this,
                                     system.idString());
 
+                            final long start = System.currentTimeMillis();
                             doSystem(system);
+
+                            if (system.getBudget()
+                                    .isExceeded()) {
+                                logger.info("{}{} over time budget,"
+                                            + " partial results kept",
+                                        system.getLogPrefix(),
+                                        AbstractSystemStep.this);
+                                overrun(system, system.getBudget());
+                            } else {
+                                ProgressStream.systemStopped(
+                                        system,
+                                        AbstractSystemStep.this,
+                                        System.currentTimeMillis() - start);
+                            }
+                        } catch (TimeBudget.ExceededException ex) {
+                            logger.info("{}{}, partial results kept",
+                                    system.getLogPrefix(), ex.getMessage());
+                            overrun(system, system.getBudget());
                         } catch (Exception ex) {
                             logger.warn(sheet.getLogPrefix()
                                         + "Interrupt on "
                                         + system.idString(),
                                     ex);
+                            ProgressStream.systemFailed(
+                                    system,
+                                    AbstractSystemStep.this,
+                                    ex);
+                        } finally {
+                            system.getBudget()
+                                    .stop();
+                            system.setBudget(null);
                         }
 
                         return null;
@@ -207,10 +286,55 @@ public abstract class AbstractSystemStep
             }
 
             // Launch all system tasks in parallel and wait for their completion
-            OmrExecutors.getLowExecutor().invokeAll(tasks);
+            OmrExecutors.invokeAll(tasks);
+
+            sheet.getReprocessingQueue().checkCancelled();
         } catch (InterruptedException ex) {
             logger.warn("doitPerSystem got interrupted");
             throw new ProcessingCancellationException(ex);
         }
     }
+
+    //---------//
+    // overrun //
+    //---------//
+    /**
+     * Report a system which exhausted its time budget.
+     *
+     * @param system the system concerned
+     * @param budget the exhausted budget
+     */
+    private void overrun (SystemInfo system,
+                          TimeBudget budget)
+    {
+        system.getSheet()
+                .getBench()
+                .recordOverrun(this, system);
+        ProgressStream.systemFailed(
+                system,
+                this,
+                new TimeBudget.ExceededException(budget));
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final Constant.Integer stepTimeBudget = new Constant.Integer(
+                "seconds",
+                600,
+                "Maximum aggregate CPU time of all systems for a system-level step on a sheet (0 for no limit)");
+
+        private final Constant.Integer systemTimeBudget = new Constant.Integer(
+                "seconds",
+                120,
+                "Maximum duration of a system-level step on a system (0 for no limit)");
+
+    }
 }
@@ -0,0 +1,58 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                              M i d i S t e p                               //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.step;
+
+import omr.score.ScoresManager;
+
+import omr.sheet.Sheet;
+import omr.sheet.SystemInfo;
+
+import java.util.Collection;
+
+/**
+ * Class {@code MidiStep} writes the score as a MIDI file
+ *
+ * @author Hervé Bitteur
+ */
+public class MidiStep
+        extends AbstractStep
+{
+    //~ Constructors -----------------------------------------------------------
+    //----------//
+    // MidiStep //
+    //----------//
+    /**
+     * Creates a new MidiStep object.
+     */
+    public MidiStep ()
+    {
+        super(
+                Steps.MIDI,
+                Level.SCORE_LEVEL,
+                Mandatory.OPTIONAL,
+                DATA_TAB,
+                "Write the output MIDI file");
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //------//
+    // doit //
+    //------//
+    @Override
+    public void doit (Collection<SystemInfo> systems,
+                      Sheet sheet)
+            throws StepException
+    {
+        ScoresManager.getInstance()
+                .midiWrite(sheet.getScore(), null);
+    }
+}
@@ -0,0 +1,422 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        P r o g r e s s S t r e a m                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.step;
+
+import omr.score.Score;
+
+import omr.sheet.Sheet;
+import omr.sheet.SheetBench;
+import omr.sheet.SystemInfo;
+
+import omr.util.Memory;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Class {@code ProgressStream} emits a machine-readable stream of
+ * processing events, meant for the tools which orchestrate batch runs.
+ *
+ * <p>The stream is written to a file or to a local socket (when target is
+ * given as HOST:PORT), one JSON object per line, each line being flushed
+ * at once. Every event has the fields "time" (epoch milliseconds),
+ * "event" (the event kind) and "heap" (the occupied heap in bytes),
+ * followed by kind-specific fields:
+ * <dl>
+ * <dt>score.start, score.stop</dt>
+ * <dd>"score" (image path), and on stop "millis" and "status"
+ * (done, cancelled or failed)</dd>
+ * <dt>step.start, step.stop, step.error</dt>
+ * <dd>"score", "page", "step", and on stop "millis", "restored" (from
+ * checkpoint), "systems", "glyphs" (active glyphs, once the GRID step is
+ * done), "ocr.calls" and "ocr.lines"; on error "message"</dd>
+ * <dt>system.stop, system.error</dt>
+ * <dd>"score", "page", "step", "system", and on stop "millis" and
+ * "glyphs"; on error "message"</dd>
+ * </dl>
+ *
+ * <p>When no stream has been opened, all these methods return at once.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class ProgressStream
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            ProgressStream.class);
+
+    /** Pattern for a socket target. */
+    private static final Pattern SOCKET_PATTERN = Pattern.compile(
+            "^([\\w.-]+):(\\d+)$");
+
+    /** The output, if any. */
+    private static volatile Writer writer;
+
+    /** The underlying socket, if any. */
+    private static Socket socket;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //----------------//
+    // ProgressStream //
+    //----------------//
+    private ProgressStream ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Close the stream, if any.
+     */
+    public static synchronized void close ()
+    {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException ex) {
+            logger.warn("Error closing progress stream", ex);
+        } finally {
+            writer = null;
+            socket = null;
+        }
+    }
+
+    //--------//
+    // isOpen //
+    //--------//
+    /**
+     * Report whether events are being emitted.
+     *
+     * @return true if a stream is open
+     */
+    public static boolean isOpen ()
+    {
+        return writer != null;
+    }
+
+    //------//
+    // open //
+    //------//
+    /**
+     * Open the stream on the provided target.
+     *
+     * @param target either a file path, or HOST:PORT for a socket
+     * @throws IOException if the target cannot be opened
+     */
+    public static synchronized void open (String target)
+            throws IOException
+    {
+        close();
+
+        final Matcher matcher = SOCKET_PATTERN.matcher(target);
+        final OutputStream os;
+
+        if (matcher.matches()) {
+            socket = new Socket(
+                    matcher.group(1),
+                    Integer.parseInt(matcher.group(2)));
+            os = socket.getOutputStream();
+        } else {
+            os = new FileOutputStream(target);
+        }
+
+        writer = new BufferedWriter(
+                new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        logger.info("Progress events sent to {}", target);
+    }
+
+    //--------------//
+    // scoreStarted //
+    //--------------//
+    public static void scoreStarted (Score score)
+    {
+        if (isOpen()) {
+            emit(new Event("score.start").put("score", score.getImagePath()));
+        }
+    }
+
+    //--------------//
+    // scoreStopped //
+    //--------------//
+    /**
+     * Emit the end of a score processing.
+     *
+     * @param score  the processed score
+     * @param millis the processing duration
+     * @param status "done", "cancelled" or "failed"
+     */
+    public static void scoreStopped (Score score,
+                                     long millis,
+                                     String status)
+    {
+        if (isOpen()) {
+            emit(
+                    new Event("score.stop").put("score", score.getImagePath())
+                    .put("millis", millis)
+                    .put("status", status));
+        }
+    }
+
+    //------------//
+    // stepFailed //
+    //------------//
+    public static void stepFailed (Sheet sheet,
+                                   Step step,
+                                   Throwable ex)
+    {
+        if (isOpen()) {
+            emit(
+                    new Event("step.error").put(sheet)
+                    .put("step", step.getName())
+                    .put("message", ex.toString()));
+        }
+    }
+
+    //-------------//
+    // stepStarted //
+    //-------------//
+    public static void stepStarted (Sheet sheet,
+                                    Step step)
+    {
+        if (isOpen()) {
+            emit(new Event("step.start").put(sheet).put("step", step.getName()));
+        }
+    }
+
+    //-------------//
+    // stepStopped //
+    //-------------//
+    /**
+     * Emit the end of a step on a sheet, with the sheet metrics.
+     *
+     * @param sheet    the processed sheet
+     * @param step     the step performed
+     * @param millis   the step duration
+     * @param restored true if the step was restored from a checkpoint
+     */
+    public static void stepStopped (Sheet sheet,
+                                    Step step,
+                                    long millis,
+                                    boolean restored)
+    {
+        if (isOpen()) {
+            final SheetBench bench = sheet.getBench();
+            final Event event = new Event("step.stop").put(sheet)
+                    .put("step", step.getName())
+                    .put("millis", millis)
+                    .put("restored", restored)
+                    .put("systems", sheet.getSystems().size());
+
+            if (sheet.isDone(Steps.valueOf(Steps.GRID))) {
+                event.put("glyphs", sheet.getActiveGlyphs().size());
+            }
+
+            emit(
+                    event.put("ocr.calls", bench.getOcrCalls())
+                    .put("ocr.lines", bench.getOcrLines()));
+        }
+    }
+
+    //--------------//
+    // systemFailed //
+    //--------------//
+    public static void systemFailed (SystemInfo system,
+                                     Step step,
+                                     Throwable ex)
+    {
+        if (isOpen()) {
+            emit(
+                    new Event("system.error").put(system.getSheet())
+                    .put("step", step.getName())
+                    .put("system", system.getId())
+                    .put("message", ex.toString()));
+        }
+    }
+
+    //---------------//
+    // systemStopped //
+    //---------------//
+    public static void systemStopped (SystemInfo system,
+                                      Step step,
+                                      long millis)
+    {
+        if (isOpen()) {
+            emit(
+                    new Event("system.stop").put(system.getSheet())
+                    .put("step", step.getName())
+                    .put("system", system.getId())
+                    .put("millis", millis)
+                    .put("glyphs", system.getGlyphs().size()));
+        }
+    }
+
+    //------//
+    // emit //
+    //------//
+    private static synchronized void emit (Event event)
+    {
+        if (writer == null) {
+            return; // Closed meanwhile
+        }
+
+        try {
+            writer.write(event.toString());
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException ex) {
+            logger.warn("Progress stream closed on error", ex);
+            close();
+        }
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //-------//
+    // Event //
+    //-------//
+    /**
+     * One event, as a JSON object being built.
+     */
+    private static class Event
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final StringBuilder sb = new StringBuilder("{");
+
+        //~ Constructors -------------------------------------------------------
+        Event (String kind)
+        {
+            put("time", System.currentTimeMillis());
+            put("event", kind);
+            put("heap", Memory.occupied());
+        }
+
+        //~ Methods ------------------------------------------------------------
+        Event put (Sheet sheet)
+        {
+            return put("score", sheet.getScore().getImagePath())
+                    .put("page", sheet.getPage().getIndex());
+        }
+
+        Event put (String key,
+                   long value)
+        {
+            return key(key).append(value);
+        }
+
+        Event put (String key,
+                   boolean value)
+        {
+            return key(key).append(value);
+        }
+
+        Event put (String key,
+                   String value)
+        {
+            key(key).sb.append('"');
+
+            for (char c : value.toCharArray()) {
+                switch (c) {
+                case '"':
+                    sb.append("\\\"");
+
+                    break;
+
+                case '\\':
+                    sb.append("\\\\");
+
+                    break;
+
+                case '\n':
+                    sb.append("\\n");
+
+                    break;
+
+                case '\r':
+                    sb.append("\\r");
+
+                    break;
+
+                case '\t':
+                    sb.append("\\t");
+
+                    break;
+
+                default:
+
+                    if (c < ' ') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+
+            sb.append('"');
+
+            return this;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return sb.toString() + "}";
+        }
+
+        private Event append (Object value)
+        {
+            sb.append(value);
+
+            return this;
+        }
+
+        private Event key (String key)
+        {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+
+            sb.append('"')
+                    .append(key)
+                    .append("\":");
+
+            return this;
+        }
+    }
+}
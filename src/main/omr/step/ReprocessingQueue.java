@@ -0,0 +1,468 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                     R e p r o c e s s i n g Q u e u e                      //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.step;
+
+import omr.sheet.Sheet;
+import omr.sheet.SystemInfo;
+
+import omr.util.OmrExecutors;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Class {@code ReprocessingQueue} serializes, for one sheet, the
+ * reprocessing requests triggered by interactive edits.
+ *
+ * <p>Requests are not run one after the other: all the requests that
+ * arrive while a reprocessing is under way are coalesced into a single
+ * pending request, which starts from the earliest step on the union of
+ * the impacted systems.
+ * If this pending request covers the one in progress (same or earlier
+ * step, same or larger set of systems), the reprocessing in progress is
+ * useless and gets cancelled: step and system loops check
+ * {@link #checkCancelled} and stop with a
+ * {@link ProcessingCancellationException}.
+ *
+ * <p>Every reprocessing of the sheet outside of the steps themselves goes
+ * through this queue, either asynchronously by {@link #submit}, or
+ * synchronously by {@link #process}, so that two reprocessings never run
+ * at the same time on the sheet.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class ReprocessingQueue
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            ReprocessingQueue.class);
+
+    //~ Instance fields --------------------------------------------------------
+    //
+    /** Related sheet. */
+    private final Sheet sheet;
+
+    /** Coalesced request waiting for execution, if any. */
+    private Request pending;
+
+    /** Request being executed, if any. */
+    private Request running;
+
+    /** Is a worker draining the queue?. */
+    private boolean draining;
+
+    /** Has the running request been superseded?. */
+    private volatile boolean cancelled;
+
+    /** The thread draining the queue, if any. */
+    private volatile Thread drainer;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //-------------------//
+    // ReprocessingQueue //
+    //-------------------//
+    /**
+     * Creates a new ReprocessingQueue object.
+     *
+     * @param sheet the related sheet
+     */
+    public ReprocessingQueue (Sheet sheet)
+    {
+        this.sheet = sheet;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //----------------//
+    // checkCancelled //
+    //----------------//
+    /**
+     * Stop the current processing if the reprocessing under way has been
+     * superseded by a newer request.
+     *
+     * @throws ProcessingCancellationException if cancelled
+     */
+    public void checkCancelled ()
+    {
+        if (cancelled) {
+            throw new ProcessingCancellationException(
+                    "Reprocessing superseded");
+        }
+    }
+
+    //----------//
+    // getDepth //
+    //----------//
+    /**
+     * Report the number of requests either running or waiting, the
+     * coalesced requests being counted individually.
+     *
+     * @return the current queue depth
+     */
+    public synchronized int getDepth ()
+    {
+        int depth = (pending != null) ? pending.count : 0;
+
+        if (running != null) {
+            depth += running.count;
+        }
+
+        return depth;
+    }
+
+    //-------------//
+    // isCancelled //
+    //-------------//
+    /**
+     * Report whether the reprocessing under way has been superseded.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled ()
+    {
+        return cancelled;
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Update the steps already done, starting from the provided step,
+     * and wait for the completion of this update.
+     * The request goes through the queue, hence it waits for the running
+     * request and may be coalesced with the other pending ones.
+     *
+     * @param step            the step to restart from
+     * @param impactedSystems the systems to rebuild, or null if all systems
+     *                        must be rebuilt
+     * @param imposed         flag to indicate that update is imposed
+     * @param merge           true if step SCORE (merge of pages) is allowed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void process (Step step,
+                         Collection<SystemInfo> impactedSystems,
+                         boolean imposed,
+                         boolean merge)
+            throws InterruptedException
+    {
+        if (Thread.currentThread() == drainer) {
+            // Called from within a reprocessing: queuing would dead-lock
+            Stepping.reprocessSheet(
+                    step,
+                    sheet,
+                    impactedSystems,
+                    imposed,
+                    merge);
+
+            return;
+        }
+
+        Request request = enqueue(step, impactedSystems, imposed, merge, true);
+
+        if (request == null) {
+            return;
+        }
+
+        synchronized (this) {
+            // A superseded request hands over to the request covering it
+            while (!request.done || (request.successor != null)) {
+                if (request.done) {
+                    request = request.successor;
+                } else {
+                    wait();
+                }
+            }
+        }
+
+        // Report the failure to the waiting caller
+        if (request.failure instanceof RuntimeException) {
+            throw (RuntimeException) request.failure;
+        } else if (request.failure instanceof Error) {
+            throw (Error) request.failure;
+        }
+    }
+
+    //--------//
+    // submit //
+    //--------//
+    /**
+     * Request an asynchronous update of the steps already done,
+     * starting from the provided step.
+     *
+     * @param step            the step to restart from
+     * @param impactedSystems the systems to rebuild, or null if all systems
+     *                        must be rebuilt
+     * @param imposed         flag to indicate that update is imposed
+     * @param merge           true if step SCORE (merge of pages) is allowed
+     */
+    public void submit (Step step,
+                        Collection<SystemInfo> impactedSystems,
+                        boolean imposed,
+                        boolean merge)
+    {
+        enqueue(step, impactedSystems, imposed, merge, false);
+    }
+
+    //-------------//
+    // waitForIdle //
+    //-------------//
+    /**
+     * Block until no request is running or waiting.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void waitForIdle ()
+            throws InterruptedException
+    {
+        while (draining) {
+            wait();
+        }
+    }
+
+    //-------//
+    // drain //
+    //-------//
+    /**
+     * Run the pending requests, until there is none left.
+     */
+    private void drain ()
+    {
+        drainer = Thread.currentThread();
+
+        try {
+            while (true) {
+                Request request;
+
+                synchronized (this) {
+                    running = null;
+                    cancelled = false;
+
+                    if (pending == null) {
+                        draining = false;
+                        notifyAll();
+
+                        return;
+                    }
+
+                    request = running = pending;
+                    pending = null;
+                }
+
+                try {
+                    logger.debug("{}Running {}", sheet.getLogPrefix(), request);
+                    Stepping.reprocessSheet(
+                            request.step,
+                            sheet,
+                            request.systems,
+                            request.imposed,
+                            request.merge);
+                } catch (ProcessingCancellationException pce) {
+                    if (cancelled) {
+                        logger.debug("{}Superseded {}",
+                                sheet.getLogPrefix(), request);
+                    } else {
+                        request.failure = pce;
+                        logger.warn(sheet.getLogPrefix()
+                                    + "Reprocessing cancelled", pce);
+                    }
+                } catch (Throwable ex) {
+                    request.failure = ex;
+
+                    if (!request.awaited) {
+                        logger.warn(
+                                sheet.getLogPrefix() + "Error in reprocessing",
+                                ex);
+                    }
+                }
+
+                synchronized (this) {
+                    request.done = true;
+                    notifyAll();
+                }
+            }
+        } finally {
+            drainer = null;
+        }
+    }
+
+    //---------//
+    // enqueue //
+    //---------//
+    /**
+     * Coalesce a new request with the pending one, and make sure the
+     * queue is being drained.
+     *
+     * @return the pending request which now includes the new one, or null
+     *         if there is nothing to update
+     */
+    private synchronized Request enqueue (Step step,
+                                          Collection<SystemInfo> systems,
+                                          boolean imposed,
+                                          boolean merge,
+                                          boolean awaited)
+    {
+        if (step == null) {
+            return null;
+        }
+
+        Request request = new Request(step, systems, imposed, merge);
+
+        if (pending == null) {
+            pending = request;
+        } else {
+            pending.include(request);
+        }
+
+        pending.awaited |= awaited;
+
+        if ((running != null) && !cancelled && pending.covers(running)) {
+            logger.debug("{}Cancelling superseded {}",
+                    sheet.getLogPrefix(), running);
+            running.successor = pending;
+            cancelled = true;
+        }
+
+        logger.debug("{}Reprocessing queue depth: {}",
+                sheet.getLogPrefix(), getDepth());
+
+        if (!draining) {
+            draining = true;
+            OmrExecutors.getCachedLowExecutor()
+                    .execute(
+                    new Runnable()
+            {
+                @Override
+                public void run ()
+                {
+                    drain();
+                }
+            });
+        }
+
+        return pending;
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //---------//
+    // Request //
+    //---------//
+    /**
+     * One (perhaps coalesced) reprocessing request.
+     */
+    static class Request
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Step to restart from. */
+        Step step;
+
+        /** Impacted systems, or null for all. */
+        SortedSet<SystemInfo> systems;
+
+        /** Is the update imposed?. */
+        boolean imposed;
+
+        /** Is SCORE step allowed?. */
+        boolean merge;
+
+        /** Number of submitted requests coalesced in this one. */
+        int count = 1;
+
+        /** Is a caller waiting for the completion?. */
+        boolean awaited;
+
+        /** Has the request been run, perhaps partly?. */
+        boolean done;
+
+        /** The failure of the run, if any. */
+        Throwable failure;
+
+        /** The request which has superseded this one, if any. */
+        Request successor;
+
+        //~ Constructors -------------------------------------------------------
+        Request (Step step,
+                 Collection<SystemInfo> systems,
+                 boolean imposed,
+                 boolean merge)
+        {
+            this.step = step;
+            this.systems = (systems != null) ? new TreeSet<>(systems) : null;
+            this.imposed = imposed;
+            this.merge = merge;
+        }
+
+        //~ Methods ------------------------------------------------------------
+        //--------//
+        // covers //
+        //--------//
+        /**
+         * Check whether this request makes the other one useless.
+         */
+        boolean covers (Request that)
+        {
+            if (Steps.compare(step, that.step) > 0) {
+                return false;
+            }
+
+            if ((systems != null)
+                && ((that.systems == null) || !systems.containsAll(
+                    that.systems))) {
+                return false;
+            }
+
+            return (imposed || !that.imposed) && (merge || !that.merge);
+        }
+
+        //---------//
+        // include //
+        //---------//
+        /**
+         * Coalesce another request into this one.
+         */
+        void include (Request that)
+        {
+            if (Steps.compare(that.step, step) < 0) {
+                step = that.step;
+            }
+
+            if ((systems != null) && (that.systems != null)) {
+                systems.addAll(that.systems);
+            } else {
+                systems = null;
+            }
+
+            imposed |= that.imposed;
+            merge |= that.merge;
+            count += that.count;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "{Request from " + step + " on "
+                   + ((systems != null) ? SystemInfo.toString(systems) : "all")
+                   + ((count > 1) ? (" x" + count) : "") + "}";
+        }
+    }
+}
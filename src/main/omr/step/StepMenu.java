@@ -156,7 +156,8 @@ public class StepMenu
                         new StepTask(step).run(sheet);
                     } else {
                         // There we rebuild just the current sheet
-                        Stepping.reprocessSheet(step, sheet, null, true);
+                        sheet.getReprocessingQueue()
+                                .process(step, null, true, true);
                     }
 
                     return null;
@@ -18,6 +18,7 @@ import omr.score.ui.ScoreActions;
 import omr.script.StepTask;
 
 import omr.sheet.Sheet;
+import omr.sheet.SheetCheckpoint;
 import omr.sheet.SystemInfo;
 import omr.sheet.ui.SheetsController;
 import static omr.step.Steps.*;
@@ -87,6 +88,8 @@ public class Stepping
     /**
      * At sheet level, do just one specified step, synchronously, with
      * display of related UI and recording of the step into the script.
+     * For the GRID step, if a valid checkpoint exists, the sheet state is
+     * restored from it rather than recomputed.
      *
      * @param step  the step to perform
      * @param sheet the sheet to be processed
@@ -99,14 +102,45 @@ public class Stepping
     {
         long startTime = System.currentTimeMillis();
         logger.debug("{}{} starting", sheet.getLogPrefix(), step);
+        ProgressStream.stepStarted(sheet, step);
 
-        // Standard processing on an existing sheet
-        step.doStep(systems, sheet);
+        // Only the GRID step is checkpointed
+        final boolean checkpointed = GRID.equals(step.getName());
+        final boolean restored;
+
+        try {
+            restored = checkpointed && SheetCheckpoint.restore(sheet);
+
+            if (restored) {
+                // Sheet state restored as it was right after this step
+                step.done(sheet);
+                notifyStep(sheet, step);
+            } else {
+                // Standard processing on an existing sheet
+                step.doStep(systems, sheet);
+
+                if (checkpointed) {
+                    SheetCheckpoint.store(sheet);
+                }
+            }
+        } catch (StepException | RuntimeException ex) {
+            ProgressStream.stepFailed(sheet, step, ex);
+
+            // A StepException just discards one sheet of a multi-page score
+            if ((ex instanceof RuntimeException)
+                || !sheet.getScore().isMultiPage()) {
+                sheet.getScore()
+                        .recordFailure(sheet.getLogPrefix() + step + " " + ex);
+            }
+
+            throw ex;
+        }
 
         final long stopTime = System.currentTimeMillis();
         final long duration = stopTime - startTime;
         logger.debug("{}{} completed in {} ms",
                 sheet.getLogPrefix(), step, duration);
+        ProgressStream.stepStopped(sheet, step, duration, restored);
 
         // Record this in sheet->score bench
         sheet.getBench().recordStep(step, duration);
@@ -289,6 +323,7 @@ public class Stepping
             throw pce;
         } catch (Exception ex) {
             logger.warn("Error in performing " + orderedSteps, ex);
+            score.recordFailure(ex.toString());
         }
     }
 
@@ -425,7 +460,13 @@ public class Stepping
 
         // Standard processing (using first sheet)
         Sheet sheet = score.getFirstPage().getSheet();
-        step.doStep(null, sheet);
+
+        try {
+            step.doStep(null, sheet);
+        } catch (StepException | RuntimeException ex) {
+            score.recordFailure(step + " " + ex);
+            throw ex;
+        }
 
         final long stopTime = System.currentTimeMillis();
         final long duration = stopTime - startTime;
@@ -478,8 +519,8 @@ public class Stepping
                 }
 
                 try {
-                    List<Future<Void>> futures = OmrExecutors.
-                            getCachedLowExecutor().invokeAll(tasks);
+                    List<Future<Void>> futures = OmrExecutors.invokeAll(
+                            tasks);
                 } catch (InterruptedException ex) {
                     logger.warn("Error in parallel doScoreStepSet", ex);
                 }
@@ -516,6 +557,9 @@ public class Stepping
     {
         try {
             for (Step step : stepSet) {
+                // Stop here if a newer reprocessing request supersedes us
+                sheet.getReprocessingQueue().checkCancelled();
+
                 notifyMsg(sheet.getLogPrefix() + step);
                 doOneSheetStep(step, sheet, systems);
             }
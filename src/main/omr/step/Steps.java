@@ -63,6 +63,8 @@ public class Steps
     public static final String PRINT = "PRINT";
 
     public static final String EXPORT = "EXPORT";
+
+    public static final String MIDI = "MIDI";
     
     public static final String EXPORTC = "EXPORTC";
 
@@ -103,6 +105,7 @@ public class Steps
         // ---------------------------------
         addStep(new PrintStep());
         addStep(new ExportStep());
+        addStep(new MidiStep());
 
 
         // Plugin step depends on default plugin
@@ -14,6 +14,7 @@ package omr.step;
 import omr.constant.Constant;
 import omr.constant.ConstantSet;
 
+import omr.glyph.ShapeDescription;
 import omr.glyph.ui.SymbolsEditor;
 
 import omr.score.entity.ScoreSystem;
@@ -30,6 +31,7 @@ import omr.util.TreeNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.Iterator;
 
 /**
@@ -92,6 +94,20 @@ public class SymbolsStep
         }
     }
 
+    //----------//
+    // doEpilog //
+    //----------//
+    @Override
+    protected void doEpilog (Collection<SystemInfo> systems,
+                             Sheet sheet)
+            throws StepException
+    {
+        logger.debug(
+                "{}{}",
+                sheet.getLogPrefix(),
+                ShapeDescription.getStatistics());
+    }
+
     //----------//
     // doSystem //
     //----------//
@@ -123,6 +139,11 @@ public class SymbolsStep
             if (!system.runPatterns()) {
                 return; // No more progress made
             }
+
+            if (system.getBudget()
+                    .isExceeded()) {
+                return; // No more time
+            }
         }
     }
 
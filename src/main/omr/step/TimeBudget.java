@@ -0,0 +1,338 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                            T i m e B u d g e t                             //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.step;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class {@code TimeBudget} is a limit given to a processing, such as
+ * a step on a sheet or a step on a system.
+ *
+ * <p>A budget is either:
+ * <ul>
+ * <li>an elapsed time budget, whose deadline is set when the budget is
+ * created, that is when the processing actually starts,</li>
+ * <li>or a CPU time budget, which is exhausted when the CPU time charged
+ * by the processing tasks, through {@link #charge}, exceeds the limit.
+ * Time spent waiting for a thread is thus not counted.</li>
+ * </ul>
+ *
+ * <p>The budget is enforced cooperatively: long loops call {@link #check}
+ * (or test {@link #isExceeded}) at safe points, where stopping leaves the
+ * results consistent though partial.
+ * A budget may be nested in a parent budget, in which case it is
+ * exhausted as soon as its parent is.
+ *
+ * <p>A processing task may bind a budget to its thread, between
+ * {@link #start} and {@link #stop}. The CPU time of the thread is then
+ * charged at each safe point, so that a long task sees the enclosing CPU
+ * budget expire while it is still running. If the thread runs another
+ * task meanwhile (as a fork-join worker does while joining), the CPU time
+ * of this other task is charged to the other task budget only.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class TimeBudget
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** A budget which never expires. */
+    public static final TimeBudget UNLIMITED = new TimeBudget(
+            "unlimited",
+            0,
+            null);
+
+    /** To measure the CPU time of the current thread, if supported. */
+    private static final ThreadMXBean threadBean = ManagementFactory.
+            getThreadMXBean();
+
+    /** The budget currently bound to each thread, if any. */
+    private static final ThreadLocal<TimeBudget> active = new ThreadLocal<>();
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Name, for messages. */
+    private final String name;
+
+    /** Absolute deadline, in milliseconds since epoch. */
+    private final long deadline;
+
+    /** Maximum CPU time, in nanoseconds. */
+    private final long cpuLimit;
+
+    /** CPU time charged so far, in nanoseconds. */
+    private final AtomicLong cpuSpent = new AtomicLong();
+
+    /** The enclosing budget, if any. */
+    private final TimeBudget parent;
+
+    /** Thread time when CPU was last charged, while bound to a thread. */
+    private long threadStart;
+
+    /** The budget bound to the thread before this one, if any. */
+    private TimeBudget outer;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //------------//
+    // TimeBudget //
+    //------------//
+    /**
+     * Creates a new elapsed TimeBudget object, starting now.
+     *
+     * @param name   a name for messages, such as "SYMBOLS S#2"
+     * @param millis the allowed duration in milliseconds, 0 for no limit
+     * @param parent the enclosing budget, if any
+     */
+    public TimeBudget (String name,
+                       long millis,
+                       TimeBudget parent)
+    {
+        this(
+                name,
+                (millis > 0) ? (System.currentTimeMillis() + millis)
+                : Long.MAX_VALUE,
+                Long.MAX_VALUE,
+                parent);
+    }
+
+    //------------//
+    // TimeBudget //
+    //------------//
+    private TimeBudget (String name,
+                        long deadline,
+                        long cpuLimit,
+                        TimeBudget parent)
+    {
+        this.name = name;
+        this.deadline = deadline;
+        this.cpuLimit = cpuLimit;
+        this.parent = parent;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //--------//
+    // charge //
+    //--------//
+    /**
+     * Charge CPU time to this budget, and to its enclosing budgets.
+     *
+     * @param nanos the CPU time spent, in nanoseconds
+     */
+    public void charge (long nanos)
+    {
+        cpuSpent.addAndGet(nanos);
+
+        if (parent != null) {
+            parent.charge(nanos);
+        }
+    }
+
+    //-------//
+    // check //
+    //-------//
+    /**
+     * Stop the current processing if this budget is exhausted.
+     *
+     * @throws ExceededException if exhausted
+     */
+    public void check ()
+    {
+        if (isExceeded()) {
+            throw new ExceededException(this);
+        }
+    }
+
+    //-----//
+    // cpu //
+    //-----//
+    /**
+     * Creates a CPU time budget, consumed by the charges of the
+     * processing tasks.
+     *
+     * @param name   a name for messages, such as "SYMBOLS"
+     * @param millis the allowed CPU time in milliseconds, 0 for no limit
+     * @return the created budget
+     */
+    public static TimeBudget cpu (String name,
+                                  long millis)
+    {
+        return new TimeBudget(
+                name,
+                Long.MAX_VALUE,
+                (millis > 0) ? (millis * 1000000L) : Long.MAX_VALUE,
+                null);
+    }
+
+    //-------------//
+    // getCpuSpent //
+    //-------------//
+    /**
+     * Report the CPU time charged so far.
+     *
+     * @return the CPU time, in nanoseconds
+     */
+    public long getCpuSpent ()
+    {
+        return cpuSpent.get();
+    }
+
+    //---------//
+    // getName //
+    //---------//
+    public String getName ()
+    {
+        return name;
+    }
+
+    //---------------//
+    // getThreadTime //
+    //---------------//
+    /**
+     * Report the CPU time used so far by the current thread, or the
+     * elapsed time if CPU time cannot be measured.
+     *
+     * @return the current thread time, in nanoseconds
+     */
+    public static long getThreadTime ()
+    {
+        if (threadBean.isCurrentThreadCpuTimeSupported()) {
+            long time = threadBean.getCurrentThreadCpuTime();
+
+            if (time != -1) {
+                return time;
+            }
+        }
+
+        return System.nanoTime();
+    }
+
+    //------------//
+    // isExceeded //
+    //------------//
+    /**
+     * Report whether this budget, or an enclosing one, is exhausted.
+     *
+     * @return true if deadline has passed or CPU time is exhausted
+     */
+    public boolean isExceeded ()
+    {
+        // Charge the CPU time spent so far, if bound to current thread
+        if (active.get() == this) {
+            settle(getThreadTime());
+        }
+
+        if ((deadline != Long.MAX_VALUE)
+            && (System.currentTimeMillis() > deadline)) {
+            return true;
+        }
+
+        if ((cpuLimit != Long.MAX_VALUE) && (cpuSpent.get() > cpuLimit)) {
+            return true;
+        }
+
+        return (parent != null) && parent.isExceeded();
+    }
+
+    //-------//
+    // start //
+    //-------//
+    /**
+     * Bind this budget to the current thread, which is charged from now
+     * on. The budget previously bound to the thread, if any, is charged
+     * and suspended until {@link #stop}.
+     */
+    public void start ()
+    {
+        final long now = getThreadTime();
+        outer = active.get();
+
+        if (outer != null) {
+            outer.settle(now);
+        }
+
+        threadStart = now;
+        active.set(this);
+    }
+
+    //------//
+    // stop //
+    //------//
+    /**
+     * Charge the CPU time spent by the current thread since last charge,
+     * and unbind this budget, resuming the previously bound one if any.
+     */
+    public void stop ()
+    {
+        final long now = getThreadTime();
+        settle(now);
+
+        if (outer != null) {
+            outer.threadStart = now;
+            active.set(outer);
+            outer = null;
+        } else {
+            active.remove();
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return "{TimeBudget " + name + "}";
+    }
+
+    //--------//
+    // settle //
+    //--------//
+    /**
+     * Charge the thread time spent since last charge.
+     *
+     * @param now the current thread time
+     */
+    private void settle (long now)
+    {
+        charge(now - threadStart);
+        threadStart = now;
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //-------------------//
+    // ExceededException //
+    //-------------------//
+    /**
+     * Raised when a processing has exhausted its time budget.
+     */
+    public static class ExceededException
+            extends ProcessingCancellationException
+    {
+        //~ Static fields/initializers -----------------------------------------
+
+        private static final long serialVersionUID = 1L;
+
+        //~ Constructors -------------------------------------------------------
+        public ExceededException (TimeBudget budget)
+        {
+            super("Time budget exceeded for " + budget.getName());
+        }
+    }
+}
@@ -181,6 +181,12 @@ public class TesseractOCR
             // Process the order
             List<TextLine> lines = order.process();
 
+            if (system != null) {
+                system.getSheet()
+                        .getBench()
+                        .recordOcr((lines != null) ? lines.size() : 0);
+            }
+
             if (lines != null) {
                 // Translate relative coordinates to absolute ones
                 for (TextLine ol : lines) {
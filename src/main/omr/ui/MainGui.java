@@ -17,22 +17,18 @@ import omr.WellKnowns;
 import omr.action.ActionManager;
 import omr.action.Actions;
 
-import omr.constant.Constant;
 import omr.constant.ConstantManager;
-import omr.constant.ConstantSet;
 
 import omr.log.LogPane;
 
 import omr.plugin.PluginsManager;
 
 import omr.score.Score;
-import omr.score.ScoreExporter;
 
 import omr.selection.MouseMovement;
 import omr.selection.SheetEvent;
 
 import omr.sheet.Sheet;
-import omr.sheet.picture.jai.JaiLoader;
 import omr.sheet.ui.SheetActions;
 import omr.sheet.ui.SheetsController;
 
@@ -91,9 +87,6 @@ public class MainGui
 {
     //~ Static fields/initializers ---------------------------------------------
 
-    /** Specific application parameters */
-    private static final Constants constants = new Constants();
-
     /** Usual logger utility */
     private static final Logger logger = LoggerFactory.getLogger(MainGui.class);
 
@@ -514,12 +507,6 @@ public class MainGui
     protected void initialize (String[] args)
     {
         logger.debug("MainGui. 1/initialize");
-        
-        // Launch background pre-loading tasks?
-        if (constants.preloadCostlyPackages.getValue()) {
-            JaiLoader.preload();
-            ScoreExporter.preload();
-        }
     }
 
     //-------//
@@ -784,20 +771,6 @@ public class MainGui
     }
 
     //~ Inner Classes ----------------------------------------------------------
-    //-----------//
-    // Constants //
-    //-----------//
-    private static final class Constants
-            extends ConstantSet
-    {
-        //~ Instance fields ----------------------------------------------------
-
-        private final Constant.Boolean preloadCostlyPackages = new Constant.Boolean(
-                true,
-                "Should we preload costly packages in the background?");
-
-    }
-
     //
     //------------------//
     // BoardsScrollPane //
@@ -235,6 +235,29 @@ public class BrokenLine
         }
     }
 
+    //-----------//
+    // getBounds //
+    //-----------//
+    /**
+     * Report the rectangular bounds of the current sequence of points.
+     *
+     * @return the bounds, or null if the sequence is empty
+     */
+    public Rectangle getBounds ()
+    {
+        Rectangle bounds = null;
+
+        for (Point pt : points) {
+            if (bounds == null) {
+                bounds = new Rectangle(pt);
+            } else {
+                bounds.add(pt);
+            }
+        }
+
+        return bounds;
+    }
+
     //----------//
     // getPoint //
     //----------//
@@ -293,6 +316,38 @@ public class BrokenLine
         return sb.toString();
     }
 
+    //---------------//
+    // includePixels //
+    //---------------//
+    /**
+     * Include the pixels covered by the current sequence of points in
+     * the provided area, including the pixels on the right and bottom
+     * edges of the line bounds.
+     *
+     * @param area the area to extend, or null
+     * @return the extended area (a new rectangle if area was null), or the
+     *         provided area if the sequence is empty
+     */
+    public Rectangle includePixels (Rectangle area)
+    {
+        Rectangle bounds = getBounds();
+
+        if (bounds == null) {
+            return area;
+        }
+
+        bounds.width++;
+        bounds.height++;
+
+        if (area == null) {
+            return bounds;
+        }
+
+        area.add(bounds);
+
+        return area;
+    }
+
     //---------//
     // indexOf //
     //---------//
@@ -19,12 +19,22 @@ import omr.step.ProcessingCancellationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -33,8 +43,17 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>lowExecutor: a fixed nb (#cpu+1) of threads with low priority</li>
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
+ * <li>workExecutor: a fork-join pool of low priority threads, shared by
+ * the processing of files, pages and systems</li>
  * </ul>
  *
+ * <p>File, page and system tasks are nested: a file task processes pages,
+ * and a page task processes systems. They all run in the work pool, and
+ * are launched through {@link #invokeAll}, so that a task waiting for its
+ * sub-tasks helps execute pending tasks rather than blocking its thread.
+ * Hence nested parallelism never exceeds the global parallelism, which
+ * is one thread per processor by default.
+ *
  * @author Hervé Bitteur
  */
 public class OmrExecutors
@@ -71,9 +90,12 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
+    private static final Pool works = new Works();
+
     /** To handle all the pools as a whole */
     private static Collection<Pool> allPools = Arrays.asList(
             cachedLows,
+            works,
             lows,
             highs);
 
@@ -128,6 +150,20 @@ public class OmrExecutors
         return lows.getPool();
     }
 
+    //-----------------//
+    // getWorkExecutor //
+    //-----------------//
+    /**
+     * Return the (single) fork-join pool for file, page and system
+     * tasks.
+     *
+     * @return the work pool, allocated if needed
+     */
+    public static ForkJoinPool getWorkExecutor ()
+    {
+        return (ForkJoinPool) works.getPool();
+    }
+
     //-----------------//
     // getNumberOfCpus //
     //-----------------//
@@ -141,6 +177,124 @@ public class OmrExecutors
         return cpuCount;
     }
 
+    //-----------//
+    // invokeAll //
+    //-----------//
+    /**
+     * Run the provided tasks in the work pool and wait for their
+     * completion.
+     *
+     * <p>When called from outside the work pool, the calling thread simply
+     * waits. When called from a task of the work pool (a file task
+     * launching its pages, a page task launching its systems), the tasks
+     * are forked and the calling thread executes pending tasks while
+     * joining them, so that no thread is wasted waiting.
+     *
+     * @param <T>   the result type of tasks
+     * @param tasks the tasks to run
+     * @return the futures of the tasks, all completed, in the same order
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public static <T> List<Future<T>> invokeAll (
+            Collection<? extends Callable<T>> tasks)
+            throws InterruptedException
+    {
+        return invokeAll(tasks, 0, TimeUnit.SECONDS);
+    }
+
+    //-----------//
+    // invokeAll //
+    //-----------//
+    /**
+     * Run the provided tasks in the work pool and wait for their
+     * completion, or for the timeout to expire.
+     *
+     * <p>On timeout or interruption, the tasks not yet completed are
+     * cancelled and control returns to the caller: pending tasks will not
+     * start, and running tasks are abandoned (they are not interrupted, and
+     * their future reports a cancellation).
+     * Note that a pool thread which waits by executing a pending task can
+     * notice the timeout only when this task is over.
+     *
+     * @param <T>     the result type of tasks
+     * @param tasks   the tasks to run
+     * @param timeout the maximum time to wait, 0 for no limit
+     * @param unit    the unit of timeout
+     * @return the futures of the tasks, in the same order, all completed
+     *         or cancelled
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public static <T> List<Future<T>> invokeAll (
+            Collection<? extends Callable<T>> tasks,
+            long timeout,
+            TimeUnit unit)
+            throws InterruptedException
+    {
+        final ForkJoinPool pool = getWorkExecutor();
+        final Thread thread = Thread.currentThread();
+        final boolean inPool = (thread instanceof ForkJoinWorkerThread)
+                               && (((ForkJoinWorkerThread) thread).getPool() == pool);
+        final long deadline = (timeout > 0)
+                ? (System.nanoTime() + unit.toNanos(timeout)) : 0;
+        final List<ForkJoinTask<T>> launched = new ArrayList<>(tasks.size());
+
+        for (Callable<T> task : tasks) {
+            ForkJoinTask<T> fjTask = ForkJoinTask.adapt(task);
+
+            // Within the pool, a waiting thread helps executing its forks
+            if (inPool) {
+                fjTask.fork();
+            } else {
+                pool.execute(fjTask);
+            }
+
+            launched.add(fjTask);
+        }
+
+        try {
+            for (ForkJoinTask<T> task : launched) {
+                try {
+                    if (timeout > 0) {
+                        task.get(
+                                deadline - System.nanoTime(),
+                                TimeUnit.NANOSECONDS);
+                    } else {
+                        task.get();
+                    }
+                } catch (ExecutionException | CancellationException ex) {
+                    // Reported through the task future
+                }
+            }
+        } catch (TimeoutException ex) {
+            logger.warn("Tasks timed out after {} {}", timeout, unit);
+            cancel(launched);
+        } catch (InterruptedException ex) {
+            cancel(launched);
+            throw ex;
+        }
+
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        return new ArrayList<Future<T>>(launched);
+    }
+
+    //--------//
+    // cancel //
+    //--------//
+    /**
+     * Cancel the tasks not yet completed.
+     *
+     * @param tasks the tasks launched
+     */
+    private static <T> void cancel (List<ForkJoinTask<T>> tasks)
+    {
+        for (ForkJoinTask<T> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
     //---------//
     // restart //
     //---------//
@@ -293,6 +447,12 @@ public class OmrExecutors
                 true,
                 "Should we use parallelism when we have several processors?");
 
+        //
+        Constant.Integer globalParallelism = new Constant.Integer(
+                "threads",
+                0,
+                "Threads for file, page and system tasks (0 for one per processor)");
+
         //
         Constant.Integer graceDelay = new Constant.Integer(
                 "seconds",
@@ -435,6 +595,70 @@ public class OmrExecutors
         }
     }
 
+    //-------------//
+    // WorkFactory //
+    //-------------//
+    private static class WorkFactory
+            implements ForkJoinPool.ForkJoinWorkerThreadFactory
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final String threadPrefix;
+
+        private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+        //~ Constructors -------------------------------------------------------
+        WorkFactory (String threadPrefix)
+        {
+            this.threadPrefix = threadPrefix;
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public ForkJoinWorkerThread newThread (ForkJoinPool pool)
+        {
+            ForkJoinWorkerThread t = new ForkJoinWorkerThread(pool)
+            {
+            };
+
+            t.setName(threadPrefix + "-thread-" + threadNumber.incrementAndGet());
+            t.setPriority(Thread.MIN_PRIORITY);
+
+            return t;
+        }
+    }
+
+    //-------//
+    // Works //
+    //-------//
+    /** Fork-join pool with low priority, for file, page and system tasks */
+    private static class Works
+            extends Pool
+    {
+        //~ Methods ------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "work";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            final int count = constants.globalParallelism.getValue();
+            final int parallelism = !defaultParallelism.getTarget() ? 1
+                    : ((count > 0) ? count : cpuCount);
+            logger.debug("Work pool parallelism: {}", parallelism);
+
+            return new ForkJoinPool(
+                    parallelism,
+                    new WorkFactory(getName()),
+                    null,
+                    false);
+        }
+    }
+
     //------//
     // Lows //
     //------//
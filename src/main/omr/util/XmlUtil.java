@@ -11,6 +11,10 @@
 // </editor-fold>
 package omr.util;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
 /**
  * Class {@code XmlUtil} gathers methods about XML data
  *
@@ -58,12 +62,7 @@ public class XmlUtil
         StringBuilder sb = new StringBuilder();
 
         for (char c : input.toCharArray()) {
-            if ((c == 0x9)
-                || (c == 0xA)
-                || (c == 0xD)
-                || ((c >= 0x20) && (c <= 0xD7FF))
-                || ((c >= 0xE000) && (c <= 0xFFFD))
-                || ((c >= 0x10000) && (c <= 0x10FFFF))) {
+            if (isValidXMLCharacter(c)) {
                 sb.append(c);
             } else {
                 if (stripped != null) {
@@ -74,4 +73,106 @@ public class XmlUtil
 
         return sb.toString();
     }
+
+    //----------------------------//
+    // stripNonValidXMLCharacters //
+    //----------------------------//
+    /**
+     * Same as {@link #stripNonValidXMLCharacters(String, WrappedBoolean)},
+     * but applied on the fly to the characters read from the provided
+     * input, so that the whole content is never held in memory.
+     *
+     * @param input    the reader whose non-valid characters we want to remove
+     * @param stripped if non null, its value will be set to true if one or
+     *                 more characters are stripped
+     * @return a reader providing only valid characters
+     */
+    public static Reader stripNonValidXMLCharacters (Reader input,
+                                                     final WrappedBoolean stripped)
+    {
+        return new FilterReader(input)
+        {
+            @Override
+            public int read ()
+                    throws IOException
+            {
+                int c;
+
+                do {
+                    c = super.read();
+                } while ((c != -1) && !isValid((char) c));
+
+                return c;
+            }
+
+            @Override
+            public int read (char[] cbuf,
+                             int off,
+                             int len)
+                    throws IOException
+            {
+                int count;
+
+                do {
+                    count = super.read(cbuf, off, len);
+
+                    if (count <= 0) {
+                        return count;
+                    }
+
+                    // Compact the valid characters in place
+                    int kept = off;
+
+                    for (int i = off; i < (off + count); i++) {
+                        if (isValid(cbuf[i])) {
+                            cbuf[kept++] = cbuf[i];
+                        }
+                    }
+
+                    count = kept - off;
+                } while (count == 0);
+
+                return count;
+            }
+
+            @Override
+            public long skip (long n)
+                    throws IOException
+            {
+                long skipped = 0;
+
+                while ((skipped < n) && (read() != -1)) {
+                    skipped++;
+                }
+
+                return skipped;
+            }
+
+            private boolean isValid (char c)
+            {
+                if (isValidXMLCharacter(c)) {
+                    return true;
+                }
+
+                if (stripped != null) {
+                    stripped.set(true);
+                }
+
+                return false;
+            }
+        };
+    }
+
+    //---------------------//
+    // isValidXMLCharacter //
+    //---------------------//
+    private static boolean isValidXMLCharacter (char c)
+    {
+        return (c == 0x9)
+               || (c == 0xA)
+               || (c == 0xD)
+               || ((c >= 0x20) && (c <= 0xD7FF))
+               || ((c >= 0xE000) && (c <= 0xFFFD))
+               || ((c >= 0x10000) && (c <= 0x10FFFF));
+    }
 }
@@ -11,6 +11,7 @@
 // </editor-fold>
 package omr.util;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -22,6 +23,8 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Enumeration;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -110,6 +113,53 @@ public class Zip
         return null;
     }
 
+    //--------------------//
+    // createOutputStream //
+    //--------------------//
+    /**
+     * Create a OutputStream on the last entry of a new zip archive,
+     * written to the provided file with the provided compression level.
+     * The data is compressed on the fly, and the archive is completed when
+     * the returned stream is closed.
+     *
+     * @param file      the archive file itself (no extension is added)
+     * @param level     the compression level, from 0 (none) to 9 (best)
+     * @param entries   preliminary entries (name to content) to write
+     *                  before the last one, if any
+     * @param entryName the name of the last entry
+     *
+     * @return a OutputStream on the last entry
+     * @throws IOException if the archive could not be written
+     */
+    public static OutputStream createOutputStream (File file,
+                                                   int level,
+                                                   Map<String, byte[]> entries,
+                                                   String entryName)
+            throws IOException
+    {
+        ZipOutputStream zos = new ZipOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+
+        try {
+            zos.setLevel(level);
+
+            if (entries != null) {
+                for (Entry<String, byte[]> entry : entries.entrySet()) {
+                    zos.putNextEntry(new ZipEntry(entry.getKey()));
+                    zos.write(entry.getValue());
+                    zos.closeEntry();
+                }
+            }
+
+            zos.putNextEntry(new ZipEntry(entryName));
+
+            return zos;
+        } catch (IOException | RuntimeException ex) {
+            zos.close();
+            throw ex;
+        }
+    }
+
     //--------------//
     // createReader //
     //--------------//
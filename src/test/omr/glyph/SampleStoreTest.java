@@ -0,0 +1,220 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                       S a m p l e S t o r e T e s t                        //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.glyph;
+
+import omr.glyph.facets.BasicGlyph;
+import omr.glyph.facets.Glyph;
+
+import omr.lag.BasicLag;
+import omr.lag.Lag;
+import omr.lag.Section;
+
+import omr.moments.ARTMoments;
+
+import omr.run.Orientation;
+import omr.run.Run;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Unit test for SampleStore, checking the write / read round trip.
+ *
+ * @author Hervé Bitteur
+ */
+public class SampleStoreTest
+{
+    //~ Methods ----------------------------------------------------------------
+
+    //---------------//
+    // testCorrupted //
+    //---------------//
+    @Test
+    public void testCorrupted ()
+            throws Exception
+    {
+        Map<String, Glyph> glyphs = new LinkedHashMap<>();
+        glyphs.put(
+                "sheet/QUARTER_REST.34.xml",
+                createGlyph(Shape.QUARTER_REST, 34, 20, 3));
+
+        Map<String, Long> stamps = new LinkedHashMap<>();
+        File file = File.createTempFile("samples", ".bin");
+
+        try {
+            // Index offset pointing inside the header
+            SampleStore.build(file, glyphs, stamps);
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(12);
+                raf.writeLong(4);
+            }
+
+            assertNull(SampleStore.open(file));
+
+            // Index offset beyond the end of file
+            SampleStore.build(file, glyphs, stamps);
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(12);
+                raf.writeLong(raf.length() + 1);
+            }
+
+            assertNull(SampleStore.open(file));
+
+            // Truncated header
+            SampleStore.build(file, glyphs, stamps);
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(10);
+            }
+
+            assertNull(SampleStore.open(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    //---------------//
+    // testRoundTrip //
+    //---------------//
+    @Test
+    public void testRoundTrip ()
+            throws Exception
+    {
+        // STACCATO is recorded as such, while its physical shape is DOT_set
+        Glyph staccato = createGlyph(Shape.STACCATO, 12, 0, 5);
+        Glyph rest = createGlyph(Shape.QUARTER_REST, 34, 20, 3);
+        rest.setStemNumber(1);
+        rest.setWithLedger(true);
+        rest.setPitchPosition(-2.5);
+
+        Map<String, Glyph> glyphs = new LinkedHashMap<>();
+        glyphs.put("sheet/STACCATO.12.xml", staccato);
+        glyphs.put("sheet/QUARTER_REST.34.xml", rest);
+
+        Map<String, Long> stamps = new LinkedHashMap<>();
+        stamps.put("sheet/STACCATO.12.xml", 1000L);
+        stamps.put("sheet/QUARTER_REST.34.xml", 2000L);
+
+        File file = File.createTempFile("samples", ".bin");
+
+        try {
+            assertEquals(2, SampleStore.build(file, glyphs, stamps));
+
+            SampleStore store = SampleStore.open(file);
+            assertNotNull(store);
+            assertEquals(
+                    Arrays.asList(
+                    "sheet/STACCATO.12.xml",
+                    "sheet/QUARTER_REST.34.xml"),
+                    store.getNames());
+            assertTrue(store.contains("sheet/STACCATO.12.xml", 1000L));
+            assertFalse(store.contains("sheet/STACCATO.12.xml", 1001L));
+            assertFalse(store.contains("sheet/unknown.xml", 1000L));
+
+            for (Map.Entry<String, Glyph> entry : glyphs.entrySet()) {
+                Glyph expected = entry.getValue();
+                Glyph actual = store.getGlyph(entry.getKey());
+                assertNotNull(actual);
+                assertSame(BasicGlyph.class, actual.getClass());
+                assertSameGlyph(expected, actual);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    //-----------------//
+    // assertSameGlyph //
+    //-----------------//
+    private void assertSameGlyph (Glyph expected,
+                                  Glyph actual)
+    {
+        assertEquals(expected.getShape(), actual.getShape());
+        assertEquals(expected.getInterline(), actual.getInterline());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getStemNumber(), actual.getStemNumber());
+        assertEquals(expected.isWithLedger(), actual.isWithLedger());
+        assertEquals(
+                expected.getPitchPosition(),
+                actual.getPitchPosition(),
+                0);
+        assertEquals(expected.getWeight(), actual.getWeight());
+        assertEquals(expected.getBounds(), actual.getBounds());
+        assertEquals(expected.getMembers().size(), actual.getMembers().size());
+
+        Iterator<Section> it = actual.getMembers()
+                .iterator();
+
+        for (Section section : expected.getMembers()) {
+            Section other = it.next();
+            assertEquals(section.getOrientation(), other.getOrientation());
+            assertEquals(section.getFirstPos(), other.getFirstPos());
+            assertEquals(section.getRunCount(), other.getRunCount());
+        }
+
+        assertArrayEquals(
+                expected.getGeometricMoments().getValues(),
+                actual.getGeometricMoments().getValues());
+
+        ARTMoments expArt = expected.getARTMoments();
+        ARTMoments actArt = actual.getARTMoments();
+
+        for (int p = 0; p < ARTMoments.ANGULAR; p++) {
+            for (int r = 0; r < ARTMoments.RADIAL; r++) {
+                assertEquals(
+                        expArt.getModule(p, r),
+                        actArt.getModule(p, r),
+                        0);
+            }
+        }
+    }
+
+    //-------------//
+    // createGlyph //
+    //-------------//
+    private Glyph createGlyph (Shape shape,
+                               int id,
+                               int start,
+                               int length)
+    {
+        Lag lag = new BasicLag("test", Orientation.VERTICAL);
+        Glyph glyph = new BasicGlyph(16);
+        glyph.setId(id);
+
+        // Two sections, the second one shorter
+        for (int s = 0; s < 2; s++) {
+            int firstPos = 10 + (s * 4);
+            Section section = lag.createSection(
+                    firstPos,
+                    new Run(start, length, 255));
+
+            for (int p = 1; p < (4 - s); p++) {
+                section.append(new Run(start + s, length - s, 255));
+            }
+
+            glyph.addSection(section, Glyph.Linking.NO_LINK_BACK);
+        }
+
+        glyph.setShape(shape);
+
+        return glyph;
+    }
+}
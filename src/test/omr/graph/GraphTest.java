@@ -88,6 +88,49 @@ public class GraphTest
             graph.getVertexById(v.getId()));
     }
 
+    //------------------------//
+    // testConcurrentCreation //
+    //------------------------//
+    //@Test
+    public void testConcurrentCreation ()
+        throws InterruptedException
+    {
+        final int      perThread = 5000;
+        final Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(
+                new Runnable() {
+                        @Override
+                        public void run ()
+                        {
+                            for (int i = 0; i < perThread; i++) {
+                                graph.createVertex();
+                            }
+                        }
+                    });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int total = threads.length * perThread;
+        assertEquals(total, graph.getVertexCount());
+        assertEquals(total, graph.getLastVertexId());
+
+        // Each id must be used exactly once
+        Set<Integer> ids = new HashSet<>();
+
+        for (MyVertex vertex : graph.getVertices()) {
+            assertTrue(ids.add(vertex.getId()));
+            assertSame(vertex, graph.getVertexById(vertex.getId()));
+        }
+
+        assertEquals(total, ids.size());
+    }
+
     //---------------------//
     // testCrossGraphEdges //
     //---------------------//
@@ -221,6 +264,68 @@ public class GraphTest
         assertEquals("Graph should have no vertex.", 0, graph.getVertexCount());
     }
 
+    //----------------//
+    // testLargeGraph //
+    //----------------//
+    //@Test
+    public void testLargeGraph ()
+    {
+        final int count = 200000;
+        long      start = System.currentTimeMillis();
+        List<MyVertex> list = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            MyVertex vertex = graph.createVertex();
+            list.add(vertex);
+
+            if (i > 0) {
+                list.get(i - 1)
+                    .addTarget(vertex);
+            }
+        }
+
+        long created = System.currentTimeMillis();
+
+        // Lookups by id
+        for (MyVertex vertex : list) {
+            assertSame(vertex, graph.getVertexById(vertex.getId()));
+        }
+
+        long looked = System.currentTimeMillis();
+
+        // Remove every other vertex, leaving empty slots
+        for (int i = 0; i < count; i += 2) {
+            list.get(i)
+                .delete();
+        }
+
+        long removed = System.currentTimeMillis();
+        int  browsed = 0;
+        int  lastId = 0;
+
+        for (MyVertex vertex : graph.getVertices()) {
+            assertTrue(
+                "Vertices should come in id order",
+                vertex.getId() > lastId);
+            assertEquals(0, vertex.getInDegree());
+            assertEquals(0, vertex.getOutDegree());
+            lastId = vertex.getId();
+            browsed++;
+        }
+
+        long iterated = System.currentTimeMillis();
+
+        assertEquals(count / 2, browsed);
+        assertEquals(count / 2, graph.getVertexCount());
+        assertEquals(count, graph.getLastVertexId());
+        assertNull(graph.getVertexById(list.get(0).getId()));
+        System.out.println(
+            "\n" + count + " vertices: creation " + (created - start) +
+            " ms, lookup " + (looked - created) + " ms, removal " +
+            (removed - looked) + " ms, iteration " + (iterated - removed) +
+            " ms");
+    }
+
     //------------------//
     // testMultipleEdge //
     //------------------//
@@ -309,6 +414,57 @@ public class GraphTest
             graph.getVertexCount());
     }
 
+    //-----------------------//
+    // testVertexTableCompact //
+    //-----------------------//
+    //@Test
+    public void testVertexTableCompact ()
+    {
+        VertexTable<Integer> table = new VertexTable<>();
+
+        for (int id = 0; id < 1000; id++) {
+            table.put(id, id);
+        }
+
+        // Remove odd ids, then the whole upper half
+        for (int id = 1; id < 1000; id += 2) {
+            table.remove(id);
+        }
+
+        assertEquals(500, table.size());
+
+        for (int id = 500; id < 1000; id++) {
+            table.remove(id);
+        }
+
+        assertEquals(250, table.size());
+        assertNull(table.get(998));
+
+        // Iteration returns the live vertices only, in id order
+        int expected = 0;
+
+        for (int value : table) {
+            assertEquals(expected, value);
+            expected += 2;
+        }
+
+        assertEquals(500, expected);
+
+        // Slots freed by trimming can be used again
+        table.put(999, 999);
+        assertEquals(Integer.valueOf(999), table.get(999));
+        assertEquals(251, table.size());
+
+        int count = 0;
+
+        for (Iterator<Integer> it = table.iterator(); it.hasNext();) {
+            it.next();
+            count++;
+        }
+
+        assertEquals(251, count);
+    }
+
     //-------//
     // setUp //
     //-------//
@@ -0,0 +1,350 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                    G r i d C h e c k p o i n t T e s t                     //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.grid;
+
+import omr.glyph.facets.Glyph;
+
+import omr.lag.Lag;
+import omr.lag.Section;
+
+import omr.run.Run;
+
+import omr.sheet.Sheet;
+import omr.sheet.SystemInfo;
+
+import omr.step.Steps;
+
+import omr.util.BatchHelper;
+import omr.util.BrokenLine;
+import omr.util.HorizontalSide;
+import omr.util.VerticalSide;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class {@code GridCheckpointTest} encodes the state of a sheet right
+ * after the GRID step, decodes it into another sheet, and checks that
+ * both sheets are the same, before and after the SYSTEMS step.
+ *
+ * @author Hervé Bitteur
+ */
+public class GridCheckpointTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static final File imageFile = new File(
+            "data/examples/chula.png");
+
+    //~ Methods ----------------------------------------------------------------
+
+    //---------------//
+    // testRoundTrip //
+    //---------------//
+    @Test
+    public void testRoundTrip ()
+            throws Exception
+    {
+        BatchHelper.setParameters();
+
+        Sheet original = BatchHelper.processSheet(imageFile, Steps.GRID);
+        Sheet restored = null;
+
+        try {
+            byte[] bytes = encode(original);
+
+            // Restore on a sheet which has just gone through SCALE
+            restored = BatchHelper.processSheet(imageFile, Steps.SCALE);
+            GridCheckpoint.read(
+                    restored,
+                    new DataInputStream(new ByteArrayInputStream(bytes)));
+
+            // Nothing lost
+            assertArrayEquals(bytes, encode(restored));
+
+            assertEquals(
+                    original.getSkew().getSlope(),
+                    restored.getSkew().getSlope(),
+                    0);
+            assertEquals(
+                    describe(original.getHorizontalLag()),
+                    describe(restored.getHorizontalLag()));
+            assertEquals(
+                    describe(original.getVerticalLag()),
+                    describe(restored.getVerticalLag()));
+            assertEquals(
+                    describeGlyphs(original.getNest().getAllGlyphs()),
+                    describeGlyphs(restored.getNest().getAllGlyphs()));
+            assertEquals(
+                    describeStaves(original),
+                    describeStaves(restored));
+            assertEquals(
+                    describeSystems(original),
+                    describeSystems(restored));
+            assertFalse(original.getSystems().isEmpty());
+
+            // Following step, which builds system boundaries
+            Steps.valueOf(Steps.SYSTEMS)
+                    .doStep(null, original);
+            Steps.valueOf(Steps.SYSTEMS)
+                    .doStep(null, restored);
+            assertEquals(
+                    describeBoundaries(original),
+                    describeBoundaries(restored));
+            assertEquals(
+                    describeSystems(original),
+                    describeSystems(restored));
+            assertEquals(
+                    describeGlyphs(original.getNest().getAllGlyphs()),
+                    describeGlyphs(restored.getNest().getAllGlyphs()));
+        } finally {
+            original.getScore()
+                    .close();
+
+            if (restored != null) {
+                restored.getScore()
+                        .close();
+            }
+        }
+    }
+
+    //----------//
+    // describe //
+    //----------//
+    private List<String> describe (Lag lag)
+    {
+        TreeMap<Integer, String> map = new TreeMap<>();
+
+        for (Section section : lag.getVertices()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("pos:")
+                    .append(section.getFirstPos());
+
+            for (Run run : section.getRuns()) {
+                sb.append(" ")
+                        .append(run.getStart())
+                        .append("/")
+                        .append(run.getLength())
+                        .append("/")
+                        .append(run.getLevel());
+            }
+
+            sb.append(" targets:")
+                    .append(ids(section.getTargets()))
+                    .append(" sources:")
+                    .append(ids(section.getSources()))
+                    .append(" glyph:")
+                    .append(id(section.getGlyph()));
+            map.put(section.getId(), sb.toString());
+        }
+
+        return toList(map);
+    }
+
+    //--------------------//
+    // describeBoundaries //
+    //--------------------//
+    private List<String> describeBoundaries (Sheet sheet)
+    {
+        List<String> list = new ArrayList<>();
+
+        for (SystemInfo system : sheet.getSystems()) {
+            for (VerticalSide side : VerticalSide.values()) {
+                BrokenLine limit = system.getBoundary()
+                        .getLimit(side);
+                list.add(system.getId() + " " + side + " " + limit.getPoints());
+            }
+        }
+
+        return list;
+    }
+
+    //----------------//
+    // describeGlyphs //
+    //----------------//
+    private List<String> describeGlyphs (Collection<Glyph> glyphs)
+    {
+        TreeMap<Integer, String> map = new TreeMap<>();
+
+        for (Glyph glyph : glyphs) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(glyph.getClass().getSimpleName())
+                    .append(" ")
+                    .append(glyph.getShape())
+                    .append(" ")
+                    .append(glyph.getBounds())
+                    .append(" members:");
+
+            for (Section section : glyph.getMembers()) {
+                sb.append(" ")
+                        .append(section.isVertical() ? "V" : "H")
+                        .append(section.getId());
+            }
+
+            sb.append(" active:")
+                    .append(glyph.isActive())
+                    .append(" partOf:")
+                    .append(id(glyph.getPartOf()));
+            map.put(glyph.getId(), sb.toString());
+        }
+
+        return toList(map);
+    }
+
+    //----------------//
+    // describeStaves //
+    //----------------//
+    private List<String> describeStaves (Sheet sheet)
+    {
+        List<String> list = new ArrayList<>();
+
+        for (StaffInfo staff : sheet.getStaffManager()
+                .getStaves()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(staff.getId())
+                    .append(" ")
+                    .append(staff.getAbscissa(HorizontalSide.LEFT))
+                    .append("-")
+                    .append(staff.getAbscissa(HorizontalSide.RIGHT));
+
+            for (LineInfo line : staff.getLines()) {
+                sb.append(" ")
+                        .append(line.getEndPoint(HorizontalSide.LEFT))
+                        .append(line.getEndPoint(HorizontalSide.RIGHT));
+
+                for (int x = 0; x < sheet.getWidth(); x += 100) {
+                    sb.append(" ")
+                            .append(line.yAt(x));
+                }
+            }
+
+            for (VerticalSide side : VerticalSide.values()) {
+                sb.append(" ")
+                        .append(side)
+                        .append(":")
+                        .append(staff.getLimit(side).getBounds());
+            }
+
+            for (HorizontalSide side : HorizontalSide.values()) {
+                BarInfo bar = staff.getBar(side);
+                sb.append(" ")
+                        .append(side)
+                        .append(":")
+                        .append((bar != null) ? ids(bar.getSticks()) : null);
+            }
+
+            list.add(sb.toString());
+        }
+
+        return list;
+    }
+
+    //-----------------//
+    // describeSystems //
+    //-----------------//
+    private List<String> describeSystems (Sheet sheet)
+    {
+        List<String> list = new ArrayList<>();
+
+        for (SystemInfo system : sheet.getSystems()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(system.getId())
+                    .append(" ")
+                    .append(system.getBounds())
+                    .append(" staves:");
+
+            for (StaffInfo staff : system.getStaves()) {
+                sb.append(" ")
+                        .append(staff.getId());
+            }
+
+            for (HorizontalSide side : HorizontalSide.values()) {
+                BarInfo bar = system.getBar(side);
+                sb.append(" ")
+                        .append(side)
+                        .append(":")
+                        .append((bar != null) ? ids(bar.getSticks()) : null);
+            }
+
+            sb.append(" glyphs:")
+                    .append(ids(system.getGlyphs()));
+            list.add(sb.toString());
+        }
+
+        return list;
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    private byte[] encode (Sheet sheet)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            GridCheckpoint.write(sheet, out);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    //----//
+    // id //
+    //----//
+    private Integer id (Glyph glyph)
+    {
+        return (glyph != null) ? glyph.getId() : null;
+    }
+
+    //-----//
+    // ids //
+    //-----//
+    private List<Integer> ids (Collection<?> items)
+    {
+        List<Integer> list = new ArrayList<>();
+
+        for (Object item : items) {
+            list.add(
+                    (item instanceof Glyph) ? ((Glyph) item).getId()
+                    : ((Section) item).getId());
+        }
+
+        return list;
+    }
+
+    //--------//
+    // toList //
+    //--------//
+    private List<String> toList (TreeMap<Integer, String> map)
+    {
+        List<String> list = new ArrayList<>();
+
+        for (Map.Entry<Integer, String> entry : map.entrySet()) {
+            list.add(entry.getKey() + ": " + entry.getValue());
+        }
+
+        return list;
+    }
+}
@@ -0,0 +1,168 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                    S t a f f O r d i n a t e s T e s t                     //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.grid;
+
+import omr.lag.Section;
+
+import omr.math.Line;
+
+import omr.util.HorizontalSide;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Class {@code StaffOrdinatesTest} checks the sampled ordinates against
+ * the lines they have been sampled from.
+ *
+ * @author Hervé Bitteur
+ */
+public class StaffOrdinatesTest
+{
+    //~ Methods ----------------------------------------------------------------
+
+    @Test
+    public void testInterpolation ()
+    {
+        StaffOrdinates ordinates = new StaffOrdinates(createLines());
+        assertEquals(5, ordinates.getLineCount());
+
+        // Exact at integer abscissae
+        for (int i = 0; i < 5; i++) {
+            for (int x = 100; x <= 1900; x += 37) {
+                assertEquals(ordinate(i, x), ordinates.yAt(i, x), 1e-9);
+            }
+        }
+
+        // Very close in between
+        for (double x = 100.5; x < 1900; x += 13.3) {
+            assertEquals(ordinate(2, x), ordinates.yAt(2, x), 1e-3);
+        }
+    }
+
+    @Test
+    public void testRange ()
+    {
+        StaffOrdinates ordinates = new StaffOrdinates(createLines());
+        assertFalse(ordinates.isInRange(99.5));
+        assertTrue(ordinates.isInRange(100));
+        assertTrue(ordinates.isInRange(1900));
+        assertFalse(ordinates.isInRange(1900.5));
+        assertEquals(ordinate(4, 1900), ordinates.yAt(4, 1900), 1e-9);
+    }
+
+    private List<LineInfo> createLines ()
+    {
+        List<LineInfo> lines = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            lines.add(new CurvedLine(i));
+        }
+
+        return lines;
+    }
+
+    /** Slightly curved and skewed staff line. */
+    private static double ordinate (int index,
+                                    double x)
+    {
+        return 300 + (20 * index) + (0.01 * x) + (2e-6 * (x - 1000) * (x
+                                                                       - 1000));
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    private static class CurvedLine
+            implements LineInfo
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final int index;
+
+        //~ Constructors -------------------------------------------------------
+
+        public CurvedLine (int index)
+        {
+            this.index = index;
+        }
+
+        //~ Methods ------------------------------------------------------------
+
+        @Override
+        public Rectangle getBounds ()
+        {
+            return null;
+        }
+
+        @Override
+        public Point2D getEndPoint (HorizontalSide side)
+        {
+            double x = (side == HorizontalSide.LEFT) ? 100 : 1900;
+
+            return new Point2D.Double(x, ordinate(index, x));
+        }
+
+        @Override
+        public int getId ()
+        {
+            return index;
+        }
+
+        @Override
+        public Point2D getLeftPoint ()
+        {
+            return getEndPoint(HorizontalSide.LEFT);
+        }
+
+        @Override
+        public Point2D getRightPoint ()
+        {
+            return getEndPoint(HorizontalSide.RIGHT);
+        }
+
+        @Override
+        public Collection<Section> getSections ()
+        {
+            return null;
+        }
+
+        @Override
+        public void render (Graphics2D g)
+        {
+        }
+
+        @Override
+        public Point2D verticalIntersection (Line vertical)
+        {
+            return null;
+        }
+
+        @Override
+        public int yAt (int x)
+        {
+            return (int) Math.rint(yAt((double) x));
+        }
+
+        @Override
+        public double yAt (double x)
+        {
+            return ordinate(index, x);
+        }
+    }
+}
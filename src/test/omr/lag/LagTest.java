@@ -26,7 +26,9 @@ import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -77,6 +79,51 @@ public class LagTest
     //        fail("The test case is a prototype.");
     //    }
 
+    //------------------//
+    // testBandSections //
+    //------------------//
+    public void testBandSections ()
+    {
+        JunctionPolicy[] policies = new JunctionPolicy[] {
+                                        new JunctionRatioPolicy(1.5),
+                                        new JunctionDeltaPolicy(2),
+                                        new JunctionAllPolicy()
+                                    };
+
+        for (JunctionPolicy policy : policies) {
+            for (long seed = 0; seed < 5; seed++) {
+                Lag       seqLag = new BasicLag("seq", Orientation.HORIZONTAL);
+                List<Section> seqSections = new SectionsBuilder(seqLag, policy).createSections(
+                    createRandomTable(seed),
+                    1);
+
+                Lag       bandLag = new BasicLag("band", Orientation.HORIZONTAL);
+                List<Section> bandSections = new SectionsBuilder(bandLag, policy).createSections(
+                    createRandomTable(seed),
+                    7);
+
+                assertEquals(
+                    "Different created sections",
+                    seqSections.size(),
+                    bandSections.size());
+                assertEquals(
+                    "Different last id",
+                    seqLag.getLastVertexId(),
+                    bandLag.getLastVertexId());
+
+                for (int i = 0; i < seqSections.size(); i++) {
+                    Section seq = seqSections.get(i);
+                    Section band = bandSections.get(i);
+                    assertEquals("Different id", seq.getId(), band.getId());
+                    assertEquals(
+                        "Different section " + seq.getId(),
+                        sectionString(seq),
+                        sectionString(band));
+                }
+            }
+        }
+    }
+
     //------------------------//
     // testCreateSectionNoRun //
     //------------------------//
@@ -494,8 +541,8 @@ public class LagTest
 
         Roi                roi = new BasicRoi(new Rectangle(0, 0, 6, 7));
 
-        String             expV = "{Histogram 1-5 size:5 [1:5 2:3 3:2 4:1 5:6]}";
-        String             expH = "{Histogram 0-6 size:7 [0:1 1:4 2:4 3:2 4:2 5:2 6:2]}";
+        String             expV = "{DenseHistogram 1-5 size:5 [1:5 2:3 3:2 4:1 5:6]}";
+        String             expH = "{DenseHistogram 0-6 size:7 [0:1 1:4 2:4 3:2 4:2 5:2 6:2]}";
 
         Histogram<Integer> histoVS = roi.getSectionHistogram(
             Orientation.VERTICAL,
@@ -635,6 +682,88 @@ public class LagTest
         assertEquals("Bad Weight", s.getWeight(), 30);
     }
 
+    //-------------------//
+    // createRandomTable //
+    //-------------------//
+    /**
+     * Create a table of runs that follow random tracks, so that sections
+     * span many positions.
+     */
+    private RunsTable createRandomTable (long seed)
+    {
+        Random    random = new Random(seed);
+        RunsTable table = new RunsTable(
+            "Random",
+            Orientation.HORIZONTAL,
+            new Dimension(300, 400));
+        int[]     starts = new int[25];
+        int[]     lengths = new int[starts.length];
+
+        for (int t = 0; t < starts.length; t++) {
+            starts[t] = random.nextInt(280);
+            lengths[t] = 1 + random.nextInt(10);
+        }
+
+        for (int pos = 0; pos < table.getSize(); pos++) {
+            if (random.nextInt(50) == 0) {
+                continue; // Empty position
+            }
+
+            // Move tracks
+            List<int[]> intervals = new ArrayList<int[]>();
+
+            for (int t = 0; t < starts.length; t++) {
+                if (random.nextInt(30) == 0) {
+                    starts[t] = random.nextInt(280);
+                    lengths[t] = 1 + random.nextInt(10);
+                } else {
+                    starts[t] = Math.max(
+                        0,
+                        Math.min(280, starts[t] + random.nextInt(3) - 1));
+                    lengths[t] = Math.max(
+                        1,
+                        Math.min(15, lengths[t] + random.nextInt(5) - 2));
+                }
+
+                intervals.add(
+                    new int[] { starts[t], starts[t] + lengths[t] - 1 });
+            }
+
+            Collections.sort(
+                intervals,
+                new Comparator<int[]>() {
+                        public int compare (int[] i1,
+                                            int[] i2)
+                        {
+                            return Integer.compare(i1[0], i2[0]);
+                        }
+                    });
+
+            // Merge touching intervals into runs
+            int[] current = null;
+
+            for (int[] interval : intervals) {
+                if ((current != null) && (interval[0] <= (current[1] + 1))) {
+                    current[1] = Math.max(current[1], interval[1]);
+                } else {
+                    if (current != null) {
+                        createRun(
+                            table,
+                            pos,
+                            current[0],
+                            current[1] - current[0] + 1);
+                    }
+
+                    current = interval;
+                }
+            }
+
+            createRun(table, pos, current[0], current[1] - current[0] + 1);
+        }
+
+        return table;
+    }
+
     //-----------//
     // createRun //
     //-----------//
@@ -715,4 +844,36 @@ public class LagTest
             System.out.println();
         }
     }
+
+    //---------------//
+    // sectionString //
+    //---------------//
+    private String sectionString (Section section)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(section.getFirstPos());
+
+        for (Run run : section.getRuns()) {
+            sb.append(" ")
+              .append(run.getStart())
+              .append("/")
+              .append(run.getLength());
+        }
+
+        sb.append(" sources:");
+
+        for (Section source : section.getSources()) {
+            sb.append(" ")
+              .append(source.getId());
+        }
+
+        sb.append(" targets:");
+
+        for (Section target : section.getTargets()) {
+            sb.append(" ")
+              .append(target.getId());
+        }
+
+        return sb.toString();
+    }
 }
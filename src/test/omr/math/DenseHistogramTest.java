@@ -0,0 +1,211 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                    D e n s e H i s t o g r a m T e s t                     //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.math;
+
+import omr.math.Histogram.MaxEntry;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code DenseHistogramTest} checks that a DenseHistogram gives
+ * the same results as the sparse Histogram on the same data.
+ *
+ * @author Hervé Bitteur
+ */
+public class DenseHistogramTest
+{
+    //~ Methods ----------------------------------------------------------------
+
+    @Test
+    public void testClear ()
+    {
+        Histogram<Integer> sparse = new SparseHistogram<>();
+        DenseHistogram dense = new DenseHistogram();
+        sparse.increaseCount(5, 3);
+        dense.increaseCount(5, 3);
+        sparse.increaseCount(-2, 1);
+        dense.increaseCount(-2, 1);
+        sparse.clear();
+        dense.clear();
+        assertSame(sparse, dense);
+        assertEquals(0, dense.getTotalCount());
+        assertEquals(0, dense.size());
+
+        sparse.increaseCount(9, 4);
+        dense.increaseCount(9, 4);
+        assertSame(sparse, dense);
+    }
+
+    @Test
+    public void testEmpty ()
+    {
+        DenseHistogram dense = new DenseHistogram();
+        assertEquals(0, dense.size());
+        assertEquals(0, dense.getTotalCount());
+        assertEquals(0, dense.getCount(12));
+        assertNull(dense.getMaxBucket());
+        assertNull(dense.getMaximum());
+        assertTrue(dense.getPeaks(1, true, true).isEmpty());
+        assertTrue(dense.entrySet().isEmpty());
+    }
+
+    @Test
+    public void testMerge ()
+    {
+        Random random = new Random(7);
+        Histogram<Integer> sparse = new SparseHistogram<>();
+        DenseHistogram whole = new DenseHistogram();
+        DenseHistogram upper = new DenseHistogram();
+        DenseHistogram lower = new DenseHistogram();
+
+        for (int i = 0; i < 500; i++) {
+            int bucket = random.nextInt(200) - 100;
+            int delta = random.nextInt(5);
+            sparse.increaseCount(bucket, delta);
+            whole.increaseCount(bucket, delta);
+
+            if ((i % 2) == 0) {
+                upper.increaseCount(bucket, delta);
+            } else {
+                lower.increaseCount(bucket, delta);
+            }
+        }
+
+        upper.merge(lower);
+        assertSame(sparse, whole);
+        assertSame(sparse, upper);
+    }
+
+    @Test
+    public void testRandomDense ()
+    {
+        Random random = new Random(1);
+
+        for (int loop = 0; loop < 20; loop++) {
+            Histogram<Integer> sparse = new SparseHistogram<>();
+            DenseHistogram dense = new DenseHistogram();
+
+            for (int i = 0; i < 100; i++) {
+                int count = random.nextInt(50);
+                sparse.increaseCount(i, count);
+                dense.increaseCount(i, count);
+            }
+
+            assertSame(sparse, dense);
+        }
+    }
+
+    @Test
+    public void testRandomSparse ()
+    {
+        Random random = new Random(3);
+
+        for (int loop = 0; loop < 20; loop++) {
+            Histogram<Integer> sparse = new SparseHistogram<>();
+            DenseHistogram dense = new DenseHistogram();
+
+            // Values inserted in random order, with gaps and negative buckets
+            for (int i = 0; i < 60; i++) {
+                int bucket = random.nextInt(300) - 150;
+                int count = random.nextInt(20);
+                sparse.increaseCount(bucket, count);
+                dense.increaseCount(bucket, count);
+            }
+
+            assertSame(sparse, dense);
+        }
+    }
+
+    @Test
+    public void testRange ()
+    {
+        Histogram<Integer> sparse = new SparseHistogram<>(-3, 10);
+        DenseHistogram dense = new DenseHistogram(-3, 10);
+        sparse.increaseCount(4, 7);
+        dense.increaseCount(4, 7);
+        sparse.increaseCount(25, 2);
+        dense.increaseCount(25, 2);
+        assertSame(sparse, dense);
+        assertEquals(Integer.valueOf(-3), dense.firstBucket());
+        assertEquals(Integer.valueOf(25), dense.lastBucket());
+    }
+
+    //------------//
+    // assertSame //
+    //------------//
+    private void assertSame (Histogram<Integer> sparse,
+                             DenseHistogram dense)
+    {
+        assertEquals(sparse.size(), dense.size());
+        assertEquals(sparse.getTotalCount(), dense.getTotalCount());
+        assertEquals(sparse.dataString(), dense.dataString());
+        assertEquals(sparse.bucketSet(), dense.bucketSet());
+        assertEquals(
+                new ArrayList<>(sparse.entrySet()),
+                new ArrayList<>(dense.entrySet()));
+
+        if (sparse.size() > 0) {
+            assertEquals(sparse.firstBucket(), dense.firstBucket());
+            assertEquals(sparse.lastBucket(), dense.lastBucket());
+        }
+
+        assertEquals(
+                new ArrayList<>(sparse.values()),
+                new ArrayList<>(dense.values()));
+        assertEquals(sparse.getMaxBucket(), dense.getMaxBucket());
+        assertEquals(sparse.getMaxCount(), dense.getMaxCount());
+        assertEquals(sparse.getMaximum(), dense.getMaximum());
+        assertEquals(sparse.toString().replace("SparseHistogram", ""),
+                     dense.toString().replace("DenseHistogram", ""));
+
+        for (int bucket : sparse.bucketSet()) {
+            assertEquals(sparse.getCount(bucket), dense.getCount(bucket));
+        }
+
+        int max = sparse.getMaxCount();
+
+        for (int minCount : new int[]{1, max / 4, max / 2, max}) {
+            assertEquals(
+                    strings(sparse.getPeaks(minCount, true, false)),
+                    strings(dense.getPeaks(minCount, true, false)));
+            assertEquals(
+                    strings(sparse.getPeaks(minCount, false, true)),
+                    strings(dense.getPeaks(minCount, false, true)));
+            assertEquals(
+                    strings(sparse.getDoublePeaks(minCount)),
+                    strings(dense.getDoublePeaks(minCount)));
+        }
+
+        List<MaxEntry<Integer>> sparseMaxima = sparse.getLocalMaxima();
+        List<MaxEntry<Integer>> denseMaxima = dense.getLocalMaxima();
+        assertEquals(strings(sparseMaxima), strings(denseMaxima));
+    }
+
+    //---------//
+    // strings //
+    //---------//
+    private List<String> strings (List<?> entries)
+    {
+        List<String> list = new ArrayList<>();
+
+        for (Object entry : entries) {
+            list.add(entry.toString());
+        }
+
+        return list;
+    }
+}
@@ -355,7 +355,7 @@ public class HistogramTest
 
     private Histogram<Integer> createHistogram (int... vals)
     {
-        Histogram histo = new Histogram();
+        Histogram histo = new SparseHistogram();
 
         for (int i = 0; i < vals.length; i++) {
             histo.increaseCount(i, vals[i]);
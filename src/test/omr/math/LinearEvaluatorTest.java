@@ -94,6 +94,47 @@ public class LinearEvaluatorTest
         assertEquals(expResult, result, 0.01);
     }
 
+    /**
+     * Test of categoryDistances method, of class LinearEvaluator.
+     */
+    @Test
+    public void testCategoryDistances ()
+    {
+        System.out.println("\n--categoryDistances");
+
+        LinearEvaluator instance = createTrainedInstance();
+        String[]        names = instance.getCategoryNames();
+        double[][]      patterns = new double[samples.size()][];
+
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = samples.get(i).pattern;
+        }
+
+        double[][] distances = instance.categoryDistances(patterns);
+        assertEquals(patterns.length, distances.length);
+
+        for (int i = 0; i < patterns.length; i++) {
+            assertEquals(names.length, distances[i].length);
+
+            for (int c = 0; c < names.length; c++) {
+                assertEquals(
+                    instance.categoryDistance(patterns[i], names[c]),
+                    distances[i][c],
+                    0);
+            }
+        }
+    }
+
+    /**
+     * Test of categoryDistance method with an unknown category.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCategoryDistanceUnknown ()
+    {
+        LinearEvaluator instance = createTrainedInstance();
+        instance.categoryDistance(new double[] { 14, 26 }, "Z");
+    }
+
     /**
      * Test of dump method, of class LinearEvaluator.
      */
@@ -236,6 +277,36 @@ public class LinearEvaluatorTest
         testUnmarshal();
     }
 
+    /**
+     * Test of binary marshal THEN unmarshal methods.
+     * @throws Exception
+     */
+    @Test
+    public void testBinaryMarshalThenUnmarshal ()
+        throws Exception
+    {
+        System.out.println("\n--binary");
+
+        File dir = new File(dirName);
+        File file = new File(dir, "linear.bin");
+        dir.mkdirs();
+
+        LinearEvaluator instance = createTrainedInstance();
+        instance.marshalBinary(file);
+
+        LinearEvaluator result = LinearEvaluator.unmarshalBinary(file);
+        assertArrayEquals(
+            instance.getParameterNames(),
+            result.getParameterNames());
+
+        for (Sample sample : samples) {
+            assertEquals(
+                instance.categoryDistance(sample.pattern, sample.category),
+                result.categoryDistance(sample.pattern, sample.category),
+                0);
+        }
+    }
+
     private LinearEvaluator createRawInstance ()
     {
         LinearEvaluator le = new LinearEvaluator(inNames);
@@ -19,6 +19,7 @@ import static junit.framework.Assert.*;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 //import org.testng.annotations.*;
 import java.io.FileOutputStream;
@@ -166,6 +167,35 @@ public class NeuralNetworkTest
         nn.dump();
     }
 
+    //-----------------------//
+    // testBinaryMarshalling //
+    //-----------------------//
+    //@Test
+    public void testBinaryMarshalling ()
+            throws IOException
+    {
+        nn = createNetwork();
+
+        File file = File.createTempFile("network", ".bin");
+
+        try {
+            nn.marshalBinary(file);
+
+            NeuralNetwork copy = NeuralNetwork.unmarshalBinary(file);
+            assertEquals(nn.getInputSize(), copy.getInputSize());
+            assertEquals(nn.getHiddenSize(), copy.getHiddenSize());
+            assertEquals(nn.getOutputSize(), copy.getOutputSize());
+
+            double[] ins = new double[]{0.3, 0.7};
+            assertEquals(
+                    nn.run(ins, null, null)[0],
+                    copy.run(ins, null, null)[0],
+                    0);
+        } finally {
+            file.delete();
+        }
+    }
+
     //--------//
     // testOr //
     //--------//
@@ -0,0 +1,251 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package omr.moment;
+
+import omr.glyph.Shape;
+import omr.glyph.ShapeSet;
+import omr.glyph.SymbolGlyph;
+import omr.glyph.facets.Glyph;
+
+import omr.math.PointsCollector;
+
+import omr.moments.ARTMoments;
+import omr.moments.BasicARTExtractor;
+import omr.moments.BasicARTMoments;
+import omr.moments.TableARTExtractor;
+
+import omr.ui.symbol.MusicFont;
+import omr.ui.symbol.ShapeSymbol;
+import omr.ui.symbol.Symbols;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit test for TableARTExtractor, checked against BasicARTExtractor.
+ *
+ * @author Hervé Bitteur
+ */
+public class TableARTExtractorTest
+    extends MomentsExtractorTest<ARTMoments>
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Maximum difference allowed on any moment */
+    private static final double EPSILON = 1e-9;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates a new TableARTExtractorTest object.
+     */
+    public TableARTExtractorTest ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Test of generate method, of class ARTMoments.
+     */
+    @Test
+    public void testAllShapes ()
+        throws Exception
+    {
+        super.testAllShapes(
+            new TableARTExtractor(),
+            BasicARTMoments.class);
+    }
+
+    /**
+     * Check that a glyph made of a single point gets valid moments,
+     * the same as basic extraction.
+     */
+    @Test
+    public void testSinglePoint ()
+    {
+        int[] xx = new int[] { 5 };
+        int[] yy = new int[] { 7 };
+
+        ARTMoments expected = new BasicARTMoments();
+        BasicARTExtractor basic = new BasicARTExtractor();
+        basic.setDescriptor(expected);
+        basic.extract(xx, yy, 1);
+
+        ARTMoments actual = new BasicARTMoments();
+        TableARTExtractor table = new TableARTExtractor();
+        table.setDescriptor(actual);
+        table.extract(xx, yy, 1);
+
+        assertEquals(1.0, actual.getMoment(0, 0), EPSILON);
+
+        for (int p = 0; p < ARTMoments.ANGULAR; p++) {
+            for (int r = 0; r < ARTMoments.RADIAL; r++) {
+                assertFalse(
+                    "NaN F" + p + r,
+                    Double.isNaN(actual.getMoment(p, r)));
+                assertEquals(
+                    "F" + p + r,
+                    expected.getMoment(p, r),
+                    actual.getMoment(p, r),
+                    EPSILON);
+            }
+        }
+    }
+
+    /**
+     * Check that extractors running in parallel threads, one extractor
+     * per glyph as in BasicGeometry, give the same moments as a single
+     * thread.
+     */
+    @Test
+    public void testConcurrent ()
+        throws Exception
+    {
+        final List<PointsCollector> collectors = new ArrayList<>();
+
+        for (Shape shape : ShapeSet.allPhysicalShapes) {
+            ShapeSymbol symbol = Symbols.getSymbol(shape);
+
+            if (symbol != null) {
+                Glyph glyph = new SymbolGlyph(
+                    shape,
+                    symbol,
+                    MusicFont.DEFAULT_INTERLINE,
+                    null);
+                collectors.add(glyph.getPointsCollector());
+            }
+        }
+
+        final List<ARTMoments> expected = extractAll(collectors);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread()
+            {
+                @Override
+                public void run ()
+                {
+                    try {
+                        for (int i = 0; i < 5; i++) {
+                            List<ARTMoments> actual = extractAll(collectors);
+
+                            for (int j = 0; j < actual.size(); j++) {
+                                for (int p = 0; p < ARTMoments.ANGULAR; p++) {
+                                    for (int r = 0; r < ARTMoments.RADIAL;
+                                            r++) {
+                                        assertEquals(
+                                            "F" + p + r,
+                                            expected.get(j).getMoment(p, r),
+                                            actual.get(j).getMoment(p, r),
+                                            0);
+                                    }
+                                }
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        failure.set(ex);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    /**
+     * Check that table extraction gives the same moments as basic
+     * extraction, for each shape symbol.
+     */
+    @Test
+    public void testSameAsBasic ()
+    {
+        TableARTExtractor table = new TableARTExtractor(); // Reused
+        int count = 0;
+
+        for (Shape shape : ShapeSet.allPhysicalShapes) {
+            ShapeSymbol symbol = Symbols.getSymbol(shape);
+
+            if (symbol == null) {
+                symbol = Symbols.getSymbol(shape, true);
+            }
+
+            if (symbol == null) {
+                continue;
+            }
+
+            Glyph glyph = new SymbolGlyph(
+                shape,
+                symbol,
+                MusicFont.DEFAULT_INTERLINE,
+                null);
+            PointsCollector collector = glyph.getPointsCollector();
+
+            ARTMoments expected = new BasicARTMoments();
+            BasicARTExtractor basic = new BasicARTExtractor();
+            basic.setDescriptor(expected);
+            basic.extract(
+                collector.getXValues(),
+                collector.getYValues(),
+                collector.getSize());
+
+            ARTMoments actual = new BasicARTMoments();
+            table.setDescriptor(actual);
+            table.extract(
+                collector.getXValues(),
+                collector.getYValues(),
+                collector.getSize());
+
+            for (int p = 0; p < ARTMoments.ANGULAR; p++) {
+                for (int r = 0; r < ARTMoments.RADIAL; r++) {
+                    assertEquals(
+                        shape + " F" + p + r,
+                        expected.getMoment(p, r),
+                        actual.getMoment(p, r),
+                        EPSILON);
+                }
+            }
+
+            count++;
+        }
+
+        assertTrue("No shape checked", count > 0);
+    }
+
+    /**
+     * Extract the moments of each collector, with a new extractor for
+     * each.
+     */
+    private static List<ARTMoments> extractAll (
+        List<PointsCollector> collectors)
+    {
+        List<ARTMoments> list = new ArrayList<>();
+
+        for (PointsCollector collector : collectors) {
+            ARTMoments moments = new BasicARTMoments();
+            TableARTExtractor extractor = new TableARTExtractor();
+            extractor.setDescriptor(moments);
+            extractor.extract(
+                collector.getXValues(),
+                collector.getYValues(),
+                collector.getSize());
+            list.add(moments);
+        }
+
+        return list;
+    }
+}
@@ -0,0 +1,159 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//          I n d e n t i n g X m l S t r e a m W r i t e r T e s t           //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.score;
+
+import com.audiveris.proxymusic.ScorePartwise;
+import com.audiveris.proxymusic.util.Marshalling;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Class {@code IndentingXmlStreamWriterTest} checks that streaming the
+ * measures of reference scores through an IndentingXmlStreamWriter gives
+ * the same bytes as a global marshalling.
+ *
+ * @author Hervé Bitteur
+ */
+public class IndentingXmlStreamWriterTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static final File refFolder = new File("dev/validation/ref-scores");
+
+    private static final String END = "\n</score-partwise>";
+
+    //~ Methods ----------------------------------------------------------------
+
+    @Test
+    public void testEscaping ()
+            throws Exception
+    {
+        StringWriter out = new StringWriter();
+        XMLStreamWriter writer = new IndentingXmlStreamWriter(out, 0);
+        writer.writeStartElement("a");
+        writer.writeAttribute("b", "x\"<&>");
+        writer.writeNamespace("xlink", "http://www.w3.org/1999/xlink");
+        writer.writeStartElement("c");
+        writer.writeCharacters("1\r\n\"<&>\"");
+        writer.writeEndElement();
+        writer.writeStartElement("d");
+        writer.writeEndElement();
+        writer.writeStartElement("e");
+        writer.writeCharacters("");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.flush();
+
+        assertEquals(
+                "<a b=\"x&quot;&lt;&amp;&gt;\">\n"
+                + "    <c>1\n\"&lt;&amp;&gt;\"</c>\n"
+                + "    <d/>\n"
+                + "    <e></e>\n"
+                + "</a>",
+                out.toString());
+    }
+
+    @Test
+    public void testReferenceScores ()
+            throws Exception
+    {
+        File[] files = refFolder.listFiles();
+        assertNotNull("No folder " + refFolder, files);
+
+        int count = 0;
+
+        for (File file : files) {
+            if (file.getName().endsWith(".xml")) {
+                ScorePartwise scorePartwise;
+
+                try (InputStream is = new FileInputStream(file)) {
+                    scorePartwise = Marshalling.unmarshal(is);
+                }
+
+                assertEquals(
+                        file.getName(),
+                        marshalWhole(scorePartwise),
+                        marshalStreamed(scorePartwise));
+                count++;
+            }
+        }
+
+        assertTrue(count > 0);
+    }
+
+    private String marshalStreamed (ScorePartwise scorePartwise)
+            throws Exception
+    {
+        List<ScorePartwise.Part> parts = new ArrayList<>(
+                scorePartwise.getPart());
+        scorePartwise.getPart().clear();
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        Marshalling.marshal(scorePartwise, header, false);
+        scorePartwise.getPart().addAll(parts);
+
+        String head = header.toString("UTF-8");
+        StringWriter out = new StringWriter();
+        out.write(head, 0, head.lastIndexOf(END));
+
+        Marshaller marshaller = Marshalling.getContext().createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+        XMLStreamWriter writer = new IndentingXmlStreamWriter(out, 1);
+
+        for (ScorePartwise.Part part : parts) {
+            writer.writeStartElement("part");
+            writer.writeAttribute(
+                    "id",
+                    ((com.audiveris.proxymusic.ScorePart) part.getId()).getId());
+
+            for (ScorePartwise.Part.Measure measure : part.getMeasure()) {
+                marshaller.marshal(
+                        new JAXBElement<>(
+                        new QName("measure"),
+                        ScorePartwise.Part.Measure.class,
+                        measure),
+                        writer);
+            }
+
+            writer.writeEndElement();
+        }
+
+        writer.flush();
+        out.write(END);
+
+        return out.toString();
+    }
+
+    private String marshalWhole (ScorePartwise scorePartwise)
+            throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Marshalling.marshal(scorePartwise, os, false);
+
+        return os.toString("UTF-8");
+    }
+}
@@ -0,0 +1,91 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                     S c o r e E x p o r t e r T e s t                      //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.score;
+
+import omr.sheet.Sheet;
+
+import omr.step.Stepping;
+import omr.step.Steps;
+
+import omr.util.BatchHelper;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Class {@code ScoreExporterTest} checks that the streaming export of
+ * a transcribed score gives the same bytes as the export of the whole
+ * document.
+ *
+ * @author Hervé Bitteur
+ */
+public class ScoreExporterTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static final File imageFile = new File(
+            "data/examples/chula.png");
+
+    //~ Methods ----------------------------------------------------------------
+
+    @Test
+    public void testStreamingSameAsWhole ()
+            throws Exception
+    {
+        // Processing needs the batch parameters, as set by Main
+        // (coordinates written aside)
+        File exportDir = Files.createTempDirectory("export")
+                .toFile();
+        BatchHelper.setParameters("exportdir=" + exportDir);
+
+        Score score = new Score(imageFile);
+
+        try {
+            // The PAGES step translates the page only on its second run
+            Stepping.processScore(
+                    Collections.singleton(Steps.valueOf(Steps.PAGES)),
+                    null,
+                    score);
+
+            Sheet sheet = score.getFirstPage()
+                    .getSheet();
+            Steps.valueOf(Steps.PAGES)
+                    .doStep(null, sheet);
+            Steps.valueOf(Steps.SCORE)
+                    .doStep(null, sheet);
+            assertNotNull("No part list", score.getPartList());
+
+            ByteArrayOutputStream whole = new ByteArrayOutputStream();
+            new ScoreExporter(score).exportWhole(whole, false);
+
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            new ScoreExporter(score).exportStreaming(streamed, false);
+
+            String xml = whole.toString("UTF-8");
+            assertTrue("No measure exported", xml.contains("<measure "));
+            assertEquals(xml, streamed.toString("UTF-8"));
+        } finally {
+            score.close();
+
+            for (File file : exportDir.listFiles()) {
+                file.delete();
+            }
+
+            exportDir.delete();
+        }
+    }
+}
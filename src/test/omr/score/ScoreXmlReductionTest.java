@@ -0,0 +1,163 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                 S c o r e X m l R e d u c t i o n T e s t                  //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.score;
+
+import com.audiveris.proxymusic.ScorePartwise;
+import com.audiveris.proxymusic.util.Marshalling;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Class {@code ScoreXmlReductionTest} checks that the streaming reduction
+ * of page files gives the same score as the reduction of in-memory
+ * fragments.
+ *
+ * @author Hervé Bitteur
+ */
+public class ScoreXmlReductionTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static final File refFolder = new File("dev/validation/ref-scores");
+
+    private static final String[] pageNames = new String[]{
+        "carmen-1.xml", "batuque.xml", "allegretto.xml", "zizi.xml",
+        "Dichterliebe01.xml"
+    };
+
+    //~ Methods ----------------------------------------------------------------
+
+    @Test
+    public void testStreamingReduction ()
+            throws Exception
+    {
+        SortedMap<Integer, File> files = new TreeMap<>();
+        SortedMap<Integer, String> fragments = new TreeMap<>();
+
+        for (int i = 0; i < pageNames.length; i++) {
+            File file = new File(refFolder, pageNames[i]);
+            files.put(i + 1, file);
+            fragments.put(
+                    i + 1,
+                    new String(
+                    Files.readAllBytes(file.toPath()),
+                    StandardCharsets.UTF_8));
+        }
+
+        String expected = new ScoreXmlReduction(fragments).reduce();
+
+        ScoreXmlReduction reduction = new ScoreXmlReduction(files);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        reduction.reduce(os);
+
+        for (Entry<Integer, ScoreXmlReduction.Status> entry : reduction.
+                getStatuses().entrySet()) {
+            assertEquals(
+                    "Page #" + entry.getKey(),
+                    ScoreXmlReduction.Status.OK,
+                    entry.getValue());
+        }
+
+        assertEquals(normalized(expected.getBytes(StandardCharsets.UTF_8)), normalized(os.toByteArray()));
+    }
+
+    @Test
+    public void testUnreadablePage ()
+            throws Exception
+    {
+        SortedMap<Integer, File> files = new TreeMap<>();
+        SortedMap<Integer, String> fragments = new TreeMap<>();
+        File tmpFolder = Files.createTempDirectory("reduction")
+                .toFile();
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                String fragment = new String(
+                        Files.readAllBytes(
+                        new File(refFolder, pageNames[i]).toPath()),
+                        StandardCharsets.UTF_8);
+
+                if (i == 1) {
+                    // Spoil the number of the second measure, which the
+                    // page header scan does not look at
+                    int first = fragment.indexOf("<measure ");
+                    int second = fragment.indexOf("<measure ", first + 1);
+                    fragment = fragment.substring(0, second)
+                               + "<measure number=\"bad\" "
+                               + fragment.substring(second + 9)
+                            .replaceFirst("number=\"[^\"]*\"", "");
+                }
+
+                File file = new File(tmpFolder, pageNames[i]);
+                Files.write(
+                        file.toPath(),
+                        fragment.getBytes(StandardCharsets.UTF_8));
+                files.put(i + 1, file);
+
+                if (i != 1) {
+                    fragments.put(i + 1, fragment);
+                }
+            }
+
+            ScoreXmlReduction reduction = new ScoreXmlReduction(files);
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            reduction.reduce(os);
+
+            assertEquals(
+                    ScoreXmlReduction.Status.OK,
+                    reduction.getStatuses().get(1));
+            assertEquals(
+                    ScoreXmlReduction.Status.FRAGMENT_FAILED,
+                    reduction.getStatuses().get(2));
+            assertEquals(
+                    ScoreXmlReduction.Status.OK,
+                    reduction.getStatuses().get(3));
+
+            // Parts are the same as without the faulty page, whose header
+            // data (credits, etc) is still merged however
+            String expected = normalized(
+                    new ScoreXmlReduction(fragments).reduce().getBytes(
+                    StandardCharsets.UTF_8));
+            String actual = normalized(os.toByteArray());
+            assertEquals(
+                    expected.substring(expected.indexOf("<part ")),
+                    actual.substring(actual.indexOf("<part ")));
+        } finally {
+            for (File file : tmpFolder.listFiles()) {
+                file.delete();
+            }
+
+            tmpFolder.delete();
+        }
+    }
+
+    private String normalized (byte[] bytes)
+            throws Exception
+    {
+        ScorePartwise scorePartwise = Marshalling.unmarshal(
+                new ByteArrayInputStream(bytes));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Marshalling.marshal(scorePartwise, os, false);
+
+        return os.toString("UTF-8");
+    }
+}
@@ -0,0 +1,222 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                      M i d i E x p o r t e r T e s t                       //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.score.midi;
+
+import omr.math.Rational;
+
+import omr.score.Score;
+import omr.score.entity.ScorePart;
+
+import omr.script.ParametersTask.PartData;
+
+import omr.util.BatchHelper;
+
+import static org.junit.Assert.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+/**
+ * Unit test for MidiExporter.
+ *
+ * @author Hervé Bitteur
+ */
+public class MidiExporterTest
+{
+    //~ Methods ----------------------------------------------------------------
+
+    //------------//
+    // setUpClass //
+    //------------//
+    @BeforeClass
+    public static void setUpClass ()
+            throws Exception
+    {
+        // Score creation needs the batch parameters, as set by Main
+        BatchHelper.setParameters();
+    }
+
+    //------------------//
+    // testNoteOffFirst //
+    //------------------//
+    @Test
+    public void testNoteOffFirst ()
+            throws Exception
+    {
+        MidiExporter exporter = new MidiExporter(createScore());
+
+        // The same key played twice in a row
+        exporter.addSound(62, 0, 480, false, false);
+        exporter.addSound(62, 480, 960, false, false);
+
+        List<ShortMessage> messages = new ArrayList<>();
+        List<Long> ticks = new ArrayList<>();
+        Track track = writeSounds(exporter);
+
+        for (int i = 0; i < track.size(); i++) {
+            MidiEvent event = track.get(i);
+
+            if (event.getMessage() instanceof ShortMessage) {
+                messages.add((ShortMessage) event.getMessage());
+                ticks.add(event.getTick());
+            }
+        }
+
+        assertEquals(Arrays.asList(0L, 480L, 480L, 960L), ticks);
+        assertEquals(ShortMessage.NOTE_ON, messages.get(0).getCommand());
+        assertEquals(ShortMessage.NOTE_OFF, messages.get(1).getCommand());
+        assertEquals(ShortMessage.NOTE_ON, messages.get(2).getCommand());
+        assertEquals(ShortMessage.NOTE_OFF, messages.get(3).getCommand());
+    }
+
+    //----------------//
+    // testPartVolume //
+    //----------------//
+    @Test
+    public void testPartVolume ()
+            throws Exception
+    {
+        Score score = createScore();
+        ScorePart first = new ScorePart(1, 1);
+        ScorePart second = new ScorePart(2, 2);
+        score.setPartList(Arrays.asList(first, second));
+
+        // As set by the parts dialog or the script Parameters task
+        score.getPartsParam()
+                .setSpecific(
+                Arrays.asList(
+                new PartData("Voice", 53, null),
+                new PartData("Piano", 1, 100)));
+        assertNull(first.getVolume());
+        assertEquals(Integer.valueOf(100), second.getVolume());
+        assertEquals(
+                Integer.valueOf(100),
+                score.getPartsParam().getSpecific().get(1).volume);
+
+        Sequence sequence = new MidiExporter(score).buildSequence();
+        Track[] tracks = sequence.getTracks();
+
+        assertEquals(MidiExporter.RESOLUTION, sequence.getResolution());
+        assertEquals(3, tracks.length);
+        assertEquals(
+                Math.min(127, score.getVolume()),
+                getVolume(tracks[1]));
+        assertEquals(100, getVolume(tracks[2]));
+    }
+
+    //-----------------------//
+    // testTiesAcrossSystems //
+    //-----------------------//
+    @Test
+    public void testTiesAcrossSystems ()
+            throws Exception
+    {
+        MidiExporter exporter = new MidiExporter(createScore());
+
+        // End of first system: C4 tied to the next system, E4 not tied
+        exporter.addSound(60, 960, 1920, false, true);
+        exporter.addSound(64, 960, 1920, false, false);
+
+        // Second system: tie continued, then ended
+        exporter.addSound(60, 1920, 2400, true, true);
+        exporter.addSound(64, 1920, 2400, true, false); // No open tie on E4
+        exporter.addSound(60, 2400, 2880, true, false);
+
+        Track track = writeSounds(exporter);
+        List<String> events = new ArrayList<>();
+
+        for (int i = 0; i < track.size(); i++) {
+            MidiEvent event = track.get(i);
+
+            if (event.getMessage() instanceof ShortMessage) {
+                ShortMessage msg = (ShortMessage) event.getMessage();
+                events.add(
+                        ((msg.getCommand() == ShortMessage.NOTE_ON) ? "on"
+                         : "off") + msg.getData1() + "@" + event.getTick());
+            }
+        }
+
+        assertEquals(
+                Arrays.asList(
+                "on60@960",
+                "on64@960",
+                "off64@1920",
+                "on64@1920",
+                "off64@2400",
+                "off60@2880"),
+                events);
+    }
+
+    //-------------//
+    // testToTicks //
+    //-------------//
+    @Test
+    public void testToTicks ()
+    {
+        assertEquals(1920, MidiExporter.toTicks(new Rational(1, 1)));
+        assertEquals(480, MidiExporter.toTicks(new Rational(1, 4)));
+        assertEquals(1440, MidiExporter.toTicks(new Rational(3, 4)));
+        assertEquals(160, MidiExporter.toTicks(new Rational(1, 12)));
+        assertEquals(60, MidiExporter.toTicks(new Rational(1, 32)));
+    }
+
+    //-------------//
+    // createScore //
+    //-------------//
+    private Score createScore ()
+    {
+        return new Score(new File("midi-test.png"));
+    }
+
+    //-----------//
+    // getVolume //
+    //-----------//
+    private int getVolume (Track track)
+    {
+        for (int i = 0; i < track.size(); i++) {
+            if (track.get(i).getMessage() instanceof ShortMessage) {
+                ShortMessage msg = (ShortMessage) track.get(i).getMessage();
+
+                if ((msg.getCommand() == ShortMessage.CONTROL_CHANGE)
+                    && (msg.getData1() == 7)) {
+                    return msg.getData2();
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    //-------------//
+    // writeSounds //
+    //-------------//
+    private Track writeSounds (MidiExporter exporter)
+            throws Exception
+    {
+        Sequence sequence = new Sequence(
+                Sequence.PPQ,
+                MidiExporter.RESOLUTION);
+        Track track = sequence.createTrack();
+        exporter.writeSounds(track, 0);
+
+        return track;
+    }
+}
@@ -0,0 +1,197 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                         S h e e t S p l i t T e s t                        //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.sheet;
+
+import omr.glyph.facets.Glyph;
+
+import omr.lag.Section;
+
+import omr.step.Steps;
+
+import omr.util.BatchHelper;
+import omr.util.BrokenLine;
+import omr.util.VerticalSide;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit test for the re-dispatching of sheet entities among systems,
+ * limited to the area swept by a modified system boundary.
+ * The result must be the same as a full re-dispatching.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetSplitTest
+{
+    //~ Instance fields --------------------------------------------------------
+
+    private Sheet sheet;
+
+    private SystemInfo upper;
+
+    private SystemInfo lower;
+
+    //~ Methods ----------------------------------------------------------------
+
+    //------------//
+    // setUpClass //
+    //------------//
+    @BeforeClass
+    public static void setUpClass ()
+            throws Exception
+    {
+        BatchHelper.setParameters();
+    }
+
+    //-------//
+    // setUp //
+    //-------//
+    @Before
+    public void setUp ()
+    {
+        sheet = BatchHelper.processSheet(
+                new File("data/examples/chula.png"),
+                Steps.SYSTEMS);
+
+        List<SystemInfo> systems = sheet.getSystems();
+        assertTrue("Too few systems", systems.size() >= 2);
+        upper = systems.get(0);
+        lower = systems.get(1);
+    }
+
+    //----------//
+    // tearDown //
+    //----------//
+    @After
+    public void tearDown ()
+    {
+        sheet.getScore()
+                .close();
+    }
+
+    //-----------------//
+    // testSplitGlyphs //
+    //-----------------//
+    @Test
+    public void testSplitGlyphs ()
+    {
+        Rectangle area = moveLimit();
+        sheet.splitHorizontalSections(area);
+        sheet.splitVerticalSections(area);
+
+        // A glyph left out of any system by a previous modification
+        Glyph orphan = null;
+
+        for (Glyph glyph : lower.getGlyphs()) {
+            if (glyph.isActive() && area.contains(glyph.getBounds())) {
+                orphan = glyph;
+
+                break;
+            }
+        }
+
+        assertNotNull("No glyph in area", orphan);
+        lower.removeFromGlyphsCollection(orphan);
+
+        Set<SystemInfo> modified = sheet.splitGlyphs(area);
+        assertTrue("No glyph moved", modified.contains(upper));
+        assertTrue(upper.getGlyphs().contains(orphan));
+
+        // A full split finds nothing more to do
+        assertTrue(sheet.splitGlyphs().isEmpty());
+    }
+
+    //-------------------//
+    // testSplitSections //
+    //-------------------//
+    @Test
+    public void testSplitSections ()
+    {
+        Rectangle area = moveLimit();
+
+        // A section left out of any system by a previous modification
+        Section orphan = null;
+
+        for (Section section : lower.getMutableHorizontalSections()) {
+            if (area.contains(section.getCentroid())) {
+                orphan = section;
+
+                break;
+            }
+        }
+
+        assertNotNull("No section in area", orphan);
+        lower.getMutableHorizontalSections()
+                .remove(orphan);
+        orphan.setSystem(null);
+
+        Set<SystemInfo> modified = sheet.splitHorizontalSections(area);
+        modified.addAll(sheet.splitVerticalSections(area));
+        assertTrue("No section moved", modified.contains(upper));
+        assertTrue("No section moved", modified.contains(lower));
+
+        // A full split finds nothing more to do
+        assertTrue(sheet.splitHorizontalSections().isEmpty());
+        assertTrue(sheet.splitVerticalSections().isEmpty());
+    }
+
+    //-----------//
+    // moveLimit //
+    //-----------//
+    /**
+     * Move down the limit between the two first systems, half way to
+     * the first staff line of the lower system.
+     *
+     * @return the area swept by the limit
+     */
+    private Rectangle moveLimit ()
+    {
+        BrokenLine bottom = upper.getBoundary()
+                .getLimit(VerticalSide.BOTTOM);
+        BrokenLine top = lower.getBoundary()
+                .getLimit(VerticalSide.TOP);
+        int dy = (lower.getTop() - bottom.getBounds().y) / 2;
+        List<Point> moved = new ArrayList<>();
+
+        for (Point p : bottom.getPoints()) {
+            moved.add(new Point(p.x, p.y + dy));
+        }
+
+        Rectangle area = bottom.includePixels(null);
+        area = top.includePixels(area);
+
+        bottom.resetPoints(moved);
+
+        if (top != bottom) {
+            top.resetPoints(moved);
+        }
+
+        area = bottom.includePixels(area);
+        area = top.includePixels(area);
+
+        upper.updateBoundary();
+        lower.updateBoundary();
+
+        return area;
+    }
+}
@@ -0,0 +1,197 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                       S y s t e m L o o k u p T e s t                      //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.sheet;
+
+import omr.step.Steps;
+
+import omr.util.BatchHelper;
+import omr.util.BrokenLine;
+import omr.util.VerticalSide;
+
+import static org.junit.Assert.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for SystemLookup, whose answers must always agree with
+ * {@link SystemBoundary#contains}.
+ *
+ * @author Hervé Bitteur
+ */
+public class SystemLookupTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Grid step, in pixels. */
+    private static final int STEP = 3;
+
+    private static Sheet sheet;
+
+    private static List<SystemInfo> systems;
+
+    //~ Methods ----------------------------------------------------------------
+
+    //------------//
+    // setUpClass //
+    //------------//
+    @BeforeClass
+    public static void setUpClass ()
+            throws Exception
+    {
+        BatchHelper.setParameters();
+        sheet = BatchHelper.processSheet(
+                new File("data/examples/chula.png"),
+                Steps.SYSTEMS);
+        systems = sheet.getSystems();
+        assertTrue("Too few systems", systems.size() >= 2);
+    }
+
+    //---------------//
+    // tearDownClass //
+    //---------------//
+    @AfterClass
+    public static void tearDownClass ()
+    {
+        sheet.getScore()
+                .close();
+    }
+
+    //------------//
+    // testKinked //
+    //------------//
+    @Test
+    public void testKinked ()
+    {
+        // Give the limit between first systems vertices with odd slopes
+        BrokenLine bottom = systems.get(0)
+                .getBoundary()
+                .getLimit(VerticalSide.BOTTOM);
+        BrokenLine top = systems.get(1)
+                .getBoundary()
+                .getLimit(VerticalSide.TOP);
+        List<Point> kinked = new ArrayList<>();
+        Point first = bottom.getPoint(0);
+        Point last = bottom.getPoint(bottom.size() - 1);
+        int width = last.x - first.x;
+        kinked.add(new Point(first));
+        kinked.add(new Point(first.x + (width / 7), first.y + 17));
+        kinked.add(new Point(first.x + (width / 3), first.y - 13));
+        kinked.add(new Point(first.x + ((2 * width) / 3), first.y + 5));
+        kinked.add(new Point(last));
+
+        for (BrokenLine line : new BrokenLine[]{bottom, top}) {
+            List<Point> copy = new ArrayList<>();
+
+            for (Point p : kinked) {
+                copy.add(new Point(p));
+            }
+
+            line.resetPoints(copy);
+        }
+
+        systems.get(0)
+                .updateBoundary();
+        systems.get(1)
+                .updateBoundary();
+
+        checkLookup();
+    }
+
+    //--------------//
+    // testOriginal //
+    //--------------//
+    @Test
+    public void testOriginal ()
+    {
+        checkLookup();
+    }
+
+    //-------//
+    // check //
+    //-------//
+    /**
+     * Check the lookup answer for the provided point.
+     *
+     * @return true if the lookup could decide
+     */
+    private static boolean check (SystemLookup lookup,
+                                  Point point)
+    {
+        int index = lookup.indexOf(point);
+
+        if (index == SystemLookup.UNKNOWN) {
+            return false;
+        }
+
+        for (int i = 0; i < systems.size(); i++) {
+            assertEquals(
+                    "System #" + (i + 1) + " at " + point,
+                    i == index,
+                    systems.get(i).getBoundary().contains(point));
+        }
+
+        return true;
+    }
+
+    //-------------//
+    // checkLookup //
+    //-------------//
+    /**
+     * Compare the lookup with the boundaries, over a grid of points and
+     * around every vertex of the system limits.
+     */
+    private static void checkLookup ()
+    {
+        SystemLookup lookup = SystemLookup.create(systems, sheet.getWidth());
+        assertNotNull(lookup);
+
+        // Grid over the whole sheet
+        int total = 0;
+        int decided = 0;
+
+        for (int y = 0; y < sheet.getHeight(); y += STEP) {
+            for (int x = 0; x < sheet.getWidth(); x += STEP) {
+                total++;
+
+                if (check(lookup, new Point(x, y))) {
+                    decided++;
+                }
+            }
+        }
+
+        // Most points must be decided by the table alone
+        assertTrue(
+                "Only " + decided + " decided out of " + total,
+                decided > (0.95 * total));
+
+        // Vertices and their neighbors
+        for (SystemInfo system : systems) {
+            for (BrokenLine line : system.getBoundary().getLimits()) {
+                for (Point vertex : line.getPoints()) {
+                    for (int dy = -2; dy <= 2; dy++) {
+                        for (int dx = -2; dx <= 2; dx++) {
+                            check(
+                                    lookup,
+                                    new Point(vertex.x + dx, vertex.y + dy));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
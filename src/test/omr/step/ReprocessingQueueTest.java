@@ -0,0 +1,230 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                 R e p r o c e s s i n g Q u e u e T e s t                  //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.step;
+
+import omr.sheet.Sheet;
+import omr.sheet.SystemInfo;
+
+import omr.step.ReprocessingQueue.Request;
+
+import omr.util.BatchHelper;
+
+import static org.junit.Assert.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit test for the coalescing of reprocessing requests.
+ *
+ * @author Hervé Bitteur
+ */
+public class ReprocessingQueueTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static Sheet sheet;
+
+    private static List<SystemInfo> systems;
+
+    private static Step symbols;
+
+    private static Step pages;
+
+    //~ Methods ----------------------------------------------------------------
+
+    //------------//
+    // setUpClass //
+    //------------//
+    @BeforeClass
+    public static void setUpClass ()
+            throws Exception
+    {
+        // Requests need real systems
+        BatchHelper.setParameters();
+        sheet = BatchHelper.processSheet(
+                new File("data/examples/chula.png"),
+                Steps.SYSTEMS);
+        systems = sheet.getSystems();
+        assertTrue("Too few systems", systems.size() >= 3);
+
+        symbols = Steps.valueOf(Steps.SYMBOLS);
+        pages = Steps.valueOf(Steps.PAGES);
+    }
+
+    //---------------//
+    // tearDownClass //
+    //---------------//
+    @AfterClass
+    public static void tearDownClass ()
+    {
+        sheet.getScore()
+                .close();
+    }
+
+    //-----------------//
+    // testCoversFlags //
+    //-----------------//
+    @Test
+    public void testCoversFlags ()
+    {
+        Request plain = new Request(symbols, null, false, false);
+        Request imposed = new Request(symbols, null, true, false);
+        Request merge = new Request(symbols, null, false, true);
+
+        assertTrue(imposed.covers(plain));
+        assertFalse(plain.covers(imposed));
+        assertTrue(merge.covers(plain));
+        assertFalse(plain.covers(merge));
+        assertFalse(imposed.covers(merge));
+    }
+
+    //-----------------//
+    // testCoversSteps //
+    //-----------------//
+    @Test
+    public void testCoversSteps ()
+    {
+        Request early = new Request(symbols, null, true, true);
+        Request late = new Request(pages, null, true, true);
+
+        assertTrue(early.covers(late));
+        assertFalse(late.covers(early));
+        assertTrue(early.covers(early));
+    }
+
+    //-------------------//
+    // testCoversSystems //
+    //-------------------//
+    @Test
+    public void testCoversSystems ()
+    {
+        Request all = new Request(symbols, null, true, true);
+        Request first = new Request(symbols, systems.subList(0, 1), true, true);
+        Request firstTwo = new Request(
+                symbols,
+                systems.subList(0, 2),
+                true,
+                true);
+        Request second = new Request(
+                symbols,
+                systems.subList(1, 2),
+                true,
+                true);
+
+        assertTrue(all.covers(first));
+        assertFalse(first.covers(all));
+        assertTrue(firstTwo.covers(first));
+        assertTrue(firstTwo.covers(second));
+        assertFalse(first.covers(firstTwo));
+        assertFalse(first.covers(second));
+    }
+
+    //----------------//
+    // testIncludeAll //
+    //----------------//
+    @Test
+    public void testIncludeAll ()
+    {
+        // A request on all systems makes the coalesced one on all systems
+        Request request = new Request(
+                pages,
+                systems.subList(0, 1),
+                false,
+                false);
+        request.include(new Request(pages, null, false, false));
+
+        assertNull(request.systems);
+        assertTrue(request.covers(new Request(pages, systems, false, false)));
+
+        // And stays so
+        request.include(
+                new Request(pages, systems.subList(1, 2), false, false));
+        assertNull(request.systems);
+    }
+
+    //------------------//
+    // testIncludeFlags //
+    //------------------//
+    @Test
+    public void testIncludeFlags ()
+    {
+        Request request = new Request(pages, null, false, false);
+        request.include(new Request(pages, null, true, false));
+        assertTrue(request.imposed);
+        assertFalse(request.merge);
+
+        request.include(new Request(pages, null, false, true));
+        assertTrue(request.imposed);
+        assertTrue(request.merge);
+    }
+
+    //--------------------//
+    // testIncludeSystems //
+    //--------------------//
+    @Test
+    public void testIncludeSystems ()
+    {
+        SystemInfo first = systems.get(0);
+        SystemInfo second = systems.get(1);
+        SystemInfo third = systems.get(2);
+
+        // Later step on second system, then earlier step on third system
+        Request request = new Request(
+                pages,
+                Collections.singleton(second),
+                false,
+                false);
+        Request other = new Request(
+                symbols,
+                Collections.singleton(third),
+                false,
+                false);
+        other.include(new Request(pages, Collections.singleton(first), false,
+                false));
+        request.include(other);
+
+        assertSame(symbols, request.step);
+        assertEquals(Arrays.asList(first, second, third),
+                Arrays.asList(request.systems.toArray()));
+        assertEquals(3, request.count);
+
+        // The coalesced request covers each of its parts
+        assertTrue(request.covers(
+                new Request(pages, Collections.singleton(second), false,
+                false)));
+        assertTrue(request.covers(
+                new Request(symbols, Collections.singleton(third), false,
+                false)));
+        assertFalse(request.covers(
+                new Request(symbols, null, false, false)));
+    }
+
+    //---------------------//
+    // testProcessNullStep //
+    //---------------------//
+    @Test
+    public void testProcessNullStep ()
+            throws Exception
+    {
+        // Nothing to update, hence no wait
+        ReprocessingQueue queue = sheet.getReprocessingQueue();
+        queue.process(null, null, true, true);
+        assertEquals(0, queue.getDepth());
+        queue.waitForIdle();
+    }
+}
@@ -0,0 +1,217 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        T i m e B u d g e t T e s t                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.step;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit test for TimeBudget.
+ *
+ * @author Hervé Bitteur
+ */
+public class TimeBudgetTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** One millisecond, in nanoseconds. */
+    private static final long MS = 1000000L;
+
+    //~ Methods ----------------------------------------------------------------
+
+    //---------------//
+    // testCpuBudget //
+    //---------------//
+    @Test
+    public void testCpuBudget ()
+    {
+        TimeBudget budget = TimeBudget.cpu("step", 100);
+        assertFalse(budget.isExceeded());
+
+        budget.charge(60 * MS);
+        assertFalse(budget.isExceeded());
+        assertEquals(60 * MS, budget.getCpuSpent());
+
+        budget.charge(60 * MS);
+        assertTrue(budget.isExceeded());
+    }
+
+    //-------------------//
+    // testChargeAtCheck //
+    //-------------------//
+    @Test
+    public void testChargeAtCheck ()
+    {
+        // A running system sees the step budget expire, before its end
+        TimeBudget step = TimeBudget.cpu("step", 10);
+        TimeBudget system = new TimeBudget("S#1", 0, step);
+        system.start();
+
+        try {
+            long start = TimeBudget.getThreadTime();
+
+            while (!system.isExceeded()) {
+                spin();
+                assertTrue(
+                        "Step budget never expired",
+                        (TimeBudget.getThreadTime() - start) < (5000 * MS));
+            }
+
+            assertTrue(step.getCpuSpent() > (10 * MS));
+        } finally {
+            system.stop();
+        }
+    }
+
+    //---------------------//
+    // testCpuBudgetNoWait //
+    //---------------------//
+    @Test
+    public void testCpuBudgetNoWait ()
+            throws Exception
+    {
+        // Time not charged, such as waiting for a thread, does not count
+        TimeBudget budget = TimeBudget.cpu("step", 10);
+        Thread.sleep(50);
+        assertFalse(budget.isExceeded());
+    }
+
+    //-------------------//
+    // testElapsedBudget //
+    //-------------------//
+    @Test
+    public void testElapsedBudget ()
+            throws Exception
+    {
+        TimeBudget budget = new TimeBudget("system", 50, null);
+        assertFalse(budget.isExceeded());
+        budget.check();
+
+        Thread.sleep(100);
+        assertTrue(budget.isExceeded());
+
+        try {
+            budget.check();
+            fail("ExceededException expected");
+        } catch (TimeBudget.ExceededException ex) {
+            assertTrue(ex.getMessage().contains("system"));
+        }
+    }
+
+    //-------------------//
+    // testNoLimitBudget //
+    //-------------------//
+    @Test
+    public void testNoLimitBudget ()
+            throws Exception
+    {
+        TimeBudget elapsed = new TimeBudget("system", 0, null);
+        TimeBudget cpu = TimeBudget.cpu("step", 0);
+        cpu.charge(Long.MAX_VALUE / 2);
+        Thread.sleep(10);
+
+        assertFalse(elapsed.isExceeded());
+        assertFalse(cpu.isExceeded());
+        assertFalse(TimeBudget.UNLIMITED.isExceeded());
+        TimeBudget.UNLIMITED.check();
+    }
+
+    //------------------//
+    // testNestedBudget //
+    //------------------//
+    @Test
+    public void testNestedBudget ()
+    {
+        // A thread running another system while joining charges each one
+        TimeBudget step = TimeBudget.cpu("step", 0);
+        TimeBudget first = new TimeBudget("S#1", 0, step);
+        TimeBudget second = new TimeBudget("S#2", 0, step);
+
+        first.start();
+        spin();
+        second.start();
+
+        final long firstBefore = first.getCpuSpent();
+        assertTrue(firstBefore > 0);
+
+        for (int i = 0; i < 20; i++) {
+            spin();
+        }
+
+        second.stop();
+        first.stop();
+
+        // Time of second is not charged to first
+        final long firstAfter = first.getCpuSpent();
+        assertTrue(second.getCpuSpent() > 0);
+        assertTrue((firstAfter - firstBefore) < (second.getCpuSpent() / 2));
+        assertEquals(firstAfter + second.getCpuSpent(), step.getCpuSpent());
+
+        // Once stopped, nothing more is charged
+        spin();
+        assertFalse(first.isExceeded());
+        assertEquals(firstAfter, first.getCpuSpent());
+    }
+
+    //------------------//
+    // testParentBudget //
+    //------------------//
+    @Test
+    public void testParentBudget ()
+    {
+        TimeBudget step = TimeBudget.cpu("step", 100);
+        TimeBudget first = new TimeBudget("S#1", 0, step);
+        TimeBudget second = new TimeBudget("S#2", 0, step);
+
+        // Charges of each system are summed in the step
+        first.charge(60 * MS);
+        assertFalse(second.isExceeded());
+
+        second.charge(60 * MS);
+        assertEquals(120 * MS, step.getCpuSpent());
+        assertEquals(60 * MS, second.getCpuSpent());
+        assertTrue(step.isExceeded());
+        assertTrue(first.isExceeded());
+        assertTrue(second.isExceeded());
+    }
+
+    //----------------//
+    // testThreadTime //
+    //----------------//
+    @Test
+    public void testThreadTime ()
+    {
+        long start = TimeBudget.getThreadTime();
+        double sum = 0;
+
+        for (int i = 0; i < 1000000; i++) {
+            sum += Math.sqrt(i);
+        }
+
+        assertTrue(sum > 0);
+        assertTrue(TimeBudget.getThreadTime() > start);
+    }
+
+    //------//
+    // spin //
+    //------//
+    private static double spin ()
+    {
+        double sum = 0;
+
+        for (int i = 0; i < 1000000; i++) {
+            sum += Math.sqrt(i);
+        }
+
+        return sum;
+    }
+}
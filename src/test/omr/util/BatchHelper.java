@@ -0,0 +1,101 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                           B a t c h H e l p e r                            //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.util;
+
+import omr.CLI;
+import omr.Main;
+import omr.WellKnowns;
+
+import omr.score.Score;
+
+import omr.sheet.Sheet;
+
+import omr.step.Stepping;
+import omr.step.Steps;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class {@code BatchHelper} sets up, for the tests, the batch
+ * environment that {@link Main} normally sets from the command line.
+ *
+ * @author Hervé Bitteur
+ */
+public class BatchHelper
+{
+    //~ Constructors -----------------------------------------------------------
+
+    private BatchHelper ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    //--------------//
+    // processSheet //
+    //--------------//
+    /**
+     * Process the first sheet of an image file, up to the provided step.
+     * The caller is responsible for closing the sheet score.
+     *
+     * @param imageFile the image file, such as data/examples/chula.png
+     * @param stepName  the name of the target step, such as Steps.GRID
+     * @return the processed sheet
+     */
+    public static Sheet processSheet (File imageFile,
+                                      String stepName)
+    {
+        Score score = new Score(imageFile);
+        Stepping.processScore(
+                Collections.singleton(Steps.valueOf(stepName)),
+                null,
+                score);
+
+        return score.getFirstPage()
+                .getSheet();
+    }
+
+    //---------------//
+    // setParameters //
+    //---------------//
+    /**
+     * Set the batch parameters, as Main does from the command line.
+     * OCR and sheet checkpoints are always disabled.
+     *
+     * @param options additional KEY=VALUE options, if any
+     * @throws Exception if parameters cannot be set
+     */
+    public static void setParameters (String... options)
+            throws Exception
+    {
+        List<String> args = new ArrayList<>(
+                Arrays.asList(
+                "-batch",
+                "-option",
+                "omr.text.tesseract.TesseractOCR.useOCR=false",
+                "omr.sheet.SheetCheckpoint.useCheckpoints=false"));
+        args.addAll(Arrays.asList(options));
+
+        // Main.parameters is private, and set only by Main.main()
+        Field field = Main.class.getDeclaredField("parameters");
+        field.setAccessible(true);
+        field.set(
+                null,
+                new CLI(WellKnowns.TOOL_NAME, args.toArray(new String[0])).
+                getParameters());
+    }
+}
@@ -16,6 +16,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.Arrays;
 import java.util.List;
 
@@ -60,6 +61,36 @@ public class BrokenLineTest
         assertFalse(instance.isColinear(p2));
     }
 
+    /**
+     * Test of getBounds method, of class BrokenLine.
+     */
+    @Test
+    public void getBounds ()
+    {
+        System.out.println("getBounds");
+        assertEquals(new Rectangle(1, 1, 9, 4), instance.getBounds());
+        assertNull(new BrokenLine().getBounds());
+    }
+
+    /**
+     * Test of includePixels method, of class BrokenLine.
+     */
+    @Test
+    public void includePixels ()
+    {
+        System.out.println("includePixels");
+
+        // Pixels on right and bottom edges are included
+        assertEquals(new Rectangle(1, 1, 10, 5), instance.includePixels(null));
+
+        Rectangle area = new Rectangle(20, 20, 1, 1);
+        assertSame(area, instance.includePixels(area));
+        assertEquals(new Rectangle(1, 1, 20, 20), area);
+
+        assertSame(area, new BrokenLine().includePixels(area));
+        assertNull(new BrokenLine().includePixels(null));
+    }
+
     /**
      * Test of getPoint method, of class BrokenLine.
      */
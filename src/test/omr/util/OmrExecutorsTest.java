@@ -0,0 +1,268 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                     O m r E x e c u t o r s T e s t                        //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.util;
+
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit test for OmrExecutors work pool, run with a single thread.
+ *
+ * @author Hervé Bitteur
+ */
+public class OmrExecutorsTest
+{
+    //~ Instance fields --------------------------------------------------------
+
+    /** Parallelism setting before the test. */
+    private Boolean parallelism;
+
+    /** To release the blocked tasks at the end of a test. */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    //~ Methods ----------------------------------------------------------------
+
+    //-------//
+    // setUp //
+    //-------//
+    @Before
+    public void setUp ()
+    {
+        // Work pool of parallelism 1
+        parallelism = OmrExecutors.defaultParallelism.getSpecific();
+        OmrExecutors.shutdown(true);
+        OmrExecutors.restart();
+        OmrExecutors.defaultParallelism.setSpecific(false);
+        assertEquals(1, OmrExecutors.getWorkExecutor().getParallelism());
+    }
+
+    //----------//
+    // tearDown //
+    //----------//
+    @After
+    public void tearDown ()
+    {
+        release.countDown();
+        OmrExecutors.shutdown(true);
+        OmrExecutors.restart();
+        OmrExecutors.defaultParallelism.setSpecific(parallelism);
+    }
+
+    //-------------//
+    // testFailure //
+    //-------------//
+    @Test(timeout = 10000)
+    public void testFailure ()
+            throws Exception
+    {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(new Callable<Integer>()
+        {
+            @Override
+            public Integer call ()
+            {
+                throw new IllegalStateException("failed");
+            }
+        });
+        tasks.add(value(2));
+
+        List<Future<Integer>> futures = OmrExecutors.invokeAll(tasks);
+
+        try {
+            futures.get(0).get();
+            fail("ExecutionException expected");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(2, (int) futures.get(1).get());
+    }
+
+    //---------------//
+    // testInterrupt //
+    //---------------//
+    @Test(timeout = 10000)
+    public void testInterrupt ()
+            throws Exception
+    {
+        final List<Callable<Integer>> tasks = Collections.nCopies(3, blocked());
+        final AtomicReference<Throwable> caught = new AtomicReference<>();
+        Thread caller = new Thread()
+        {
+            @Override
+            public void run ()
+            {
+                try {
+                    OmrExecutors.invokeAll(tasks);
+                } catch (Throwable ex) {
+                    caught.set(ex);
+                }
+            }
+        };
+
+        caller.start();
+        Thread.sleep(200);
+        caller.interrupt();
+        caller.join(5000);
+
+        assertFalse("invokeAll ignored the interrupt", caller.isAlive());
+        assertTrue(caught.get() instanceof InterruptedException);
+    }
+
+    //------------//
+    // testNested //
+    //------------//
+    @Test(timeout = 10000)
+    public void testNested ()
+            throws Exception
+    {
+        // Files -> pages -> systems, all on the single thread of the pool
+        final AtomicInteger systems = new AtomicInteger();
+        final Set<Thread> threads = Collections.synchronizedSet(
+                new HashSet<Thread>());
+        final Callable<Integer> system = new Callable<Integer>()
+        {
+            @Override
+            public Integer call ()
+            {
+                threads.add(Thread.currentThread());
+                systems.incrementAndGet();
+
+                return 1;
+            }
+        };
+        final Callable<Integer> page = nest(Collections.nCopies(3, system));
+        final Callable<Integer> file = nest(Collections.nCopies(2, page));
+
+        List<Future<Integer>> futures = OmrExecutors.invokeAll(
+                Collections.nCopies(2, file));
+
+        assertEquals(12, systems.get());
+        assertEquals(1, threads.size());
+
+        for (Future<Integer> future : futures) {
+            assertEquals(6, (int) future.get());
+        }
+    }
+
+    //-------------//
+    // testTimeout //
+    //-------------//
+    @Test(timeout = 10000)
+    public void testTimeout ()
+            throws Exception
+    {
+        // The single thread is held by the first task
+        long start = System.currentTimeMillis();
+        List<Future<Integer>> futures = OmrExecutors.invokeAll(
+                Collections.nCopies(3, blocked()),
+                200,
+                TimeUnit.MILLISECONDS);
+
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(3, futures.size());
+
+        for (Future<Integer> future : futures) {
+            assertTrue(future.isCancelled());
+        }
+    }
+
+    //----------------//
+    // testTimeoutMet //
+    //----------------//
+    @Test(timeout = 10000)
+    public void testTimeoutMet ()
+            throws Exception
+    {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(value(1));
+        tasks.add(value(2));
+
+        List<Future<Integer>> futures = OmrExecutors.invokeAll(
+                tasks,
+                5,
+                TimeUnit.SECONDS);
+
+        assertEquals(1, (int) futures.get(0).get());
+        assertEquals(2, (int) futures.get(1).get());
+    }
+
+    //---------//
+    // blocked //
+    //---------//
+    private Callable<Integer> blocked ()
+    {
+        return new Callable<Integer>()
+        {
+            @Override
+            public Integer call ()
+                    throws Exception
+            {
+                release.await();
+
+                return 0;
+            }
+        };
+    }
+
+    //------//
+    // nest //
+    //------//
+    private static Callable<Integer> nest (final List<Callable<Integer>> subs)
+    {
+        return new Callable<Integer>()
+        {
+            @Override
+            public Integer call ()
+                    throws Exception
+            {
+                int sum = 0;
+
+                for (Future<Integer> future : OmrExecutors.invokeAll(subs)) {
+                    sum += future.get();
+                }
+
+                return sum;
+            }
+        };
+    }
+
+    //-------//
+    // value //
+    //-------//
+    private static Callable<Integer> value (final int value)
+    {
+        return new Callable<Integer>()
+        {
+            @Override
+            public Integer call ()
+            {
+                return value;
+            }
+        };
+    }
+}
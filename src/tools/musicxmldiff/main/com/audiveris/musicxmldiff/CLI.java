@@ -31,13 +31,33 @@ import java.util.Locale;
  * If none, console will be used</dd>
  *
  * <dt><b>-control FILENAME</b></dt>
- * <dd>Defines the XML input to be used as reference.</dd>
+ * <dd>(single mode) Defines the XML input to be used as reference.</dd>
  *
  * <dt><b>-test FILENAME</b></dt>
- * <dd>Defines the XML input to be compared to the reference.</dd>
+ * <dd>(single mode) Defines the XML input to be compared to the
+ * reference.</dd>
+ *
+ * <dt><b>-controldir DIRNAME</b></dt>
+ * <dd>(corpus mode) Defines the directory tree of XML inputs to be used
+ * as references, instead of -control.</dd>
+ *
+ * <dt><b>-testdir DIRNAME</b></dt>
+ * <dd>(corpus mode) Defines the directory tree of XML inputs to be
+ * compared to the references, instead of -test. Each test file is
+ * looked up at the same relative path as its control file.
+ * In corpus mode, -output defines a directory where the differences of
+ * each pair are written.</dd>
+ *
+ * <dt><b>-summary FILENAME</b></dt>
+ * <dd>(corpus mode, optional) Defines a file where the summary of all
+ * comparisons is written, in CSV format. If none, console will be
+ * used</dd>
  *
  * </dl>
  *
+ * <p>Either -control and -test (single mode), or -controldir and -testdir
+ * (corpus mode) must be provided.
+ *
  * @author Hervé Bitteur
  */
 public class CLI
@@ -98,13 +118,28 @@ public class CLI
             Card.SINGLE,
             "FILENAME"), 
         CONTROL(
-            Occurrence.MANDATORY,
-            "XML input used as reference",
+            Occurrence.OPTIONAL,
+            "XML input used as reference (single mode)",
             Card.SINGLE,
             "FILENAME"), 
         TEST(
-            Occurrence.MANDATORY,
-            "XML input compared to reference input",
+            Occurrence.OPTIONAL,
+            "XML input compared to reference input (single mode)",
+            Card.SINGLE,
+            "FILENAME"),
+        CONTROLDIR(
+            Occurrence.OPTIONAL,
+            "Tree of XML inputs used as references (corpus mode)",
+            Card.SINGLE,
+            "DIRNAME"),
+        TESTDIR(
+            Occurrence.OPTIONAL,
+            "Tree of XML inputs compared to references (corpus mode)",
+            Card.SINGLE,
+            "DIRNAME"),
+        SUMMARY(
+            Occurrence.OPTIONAL,
+            "Where to write corpus summary (corpus mode)",
             Card.SINGLE,
             "FILENAME");
         //~ Instance fields ----------------------------------------------------
@@ -316,6 +351,21 @@ public class CLI
 
                         break;
 
+                    case CONTROLDIR :
+                        params.controlDir = token;
+
+                        break;
+
+                    case TESTDIR :
+                        params.testDir = token;
+
+                        break;
+
+                    case SUMMARY :
+                        params.summaryPath = token;
+
+                        break;
+
                     default :
                     }
 
@@ -387,6 +437,10 @@ public class CLI
                     command.description));
         }
 
+        buf.append(
+            "\nEither -control and -test (single mode),"
+            + " or -controldir and -testdir (corpus mode) are needed");
+
         logger.info(buf.toString());
     }
 
@@ -415,6 +469,15 @@ public class CLI
         /** Input used as test */
         String testPath = null;
 
+        /** Inputs used as controls, in corpus mode */
+        String controlDir = null;
+
+        /** Inputs used as tests, in corpus mode */
+        String testDir = null;
+
+        /** Where corpus summary is to be saved */
+        String summaryPath = null;
+
         //~ Methods ------------------------------------------------------------
 
         public void debug ()
@@ -423,6 +486,9 @@ public class CLI
             logger.debug("output:  {}", outputPath);
             logger.debug("control: {}", controlPath);
             logger.debug("test:    {}", testPath);
+            logger.debug("controlDir: {}", controlDir);
+            logger.debug("testDir:    {}", testDir);
+            logger.debug("summary:    {}", summaryPath);
         }
     }
 }
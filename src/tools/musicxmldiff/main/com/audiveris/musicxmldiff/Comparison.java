@@ -0,0 +1,106 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                            C o m p a r i s o n                             //
+//                                                                            //
+//----------------------------------------------------------------------------//
+package com.audiveris.musicxmldiff;
+
+import java.io.File;
+
+/**
+ * Class {@code Comparison} gathers the outcome of the comparison of
+ * one control file with one test file.
+ *
+ * @author Hervé Bitteur
+ */
+public class Comparison
+{
+    //~ Enumerations -----------------------------------------------------------
+
+    /** Overall status of a comparison. */
+    public static enum Status
+    {
+        //~ Enumeration constant initializers ----------------------------------
+
+        /** No logical difference */
+        SAME,
+        /** Some logical differences */
+        DIFFERENT,
+        /** No test file for the control file */
+        MISSING,
+        /** Comparison could not be performed */
+        ERROR;
+    }
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Control file. */
+    final File controlFile;
+
+    /** Test file. */
+    final File testFile;
+
+    /** Comparison status. */
+    Status status = Status.ERROR;
+
+    /** Are documents similar, according to XMLUnit? */
+    boolean similar;
+
+    /** Are documents identical, according to XMLUnit? */
+    boolean identical;
+
+    /** Number of differences found by XMLUnit. */
+    int physical;
+
+    /** Number of differences left after filtering. */
+    int logical;
+
+    /** Comparison duration, in milliseconds. */
+    long millis;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //------------//
+    // Comparison //
+    //------------//
+    /**
+     * Creates a new Comparison object.
+     *
+     * @param controlFile the control file
+     * @param testFile    the test file
+     */
+    public Comparison (File controlFile,
+                       File testFile)
+    {
+        this.controlFile = controlFile;
+        this.testFile = testFile;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //------------//
+    // getLogical //
+    //------------//
+    /**
+     * Report the number of differences which are not filtered out.
+     *
+     * @return the number of logical differences
+     */
+    public int getLogical ()
+    {
+        return logical;
+    }
+
+    //-----------//
+    // getStatus //
+    //-----------//
+    /**
+     * Report the comparison status.
+     *
+     * @return the status
+     */
+    public Status getStatus ()
+    {
+        return status;
+    }
+}
@@ -0,0 +1,341 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                                C o r p u s                                 //
+//                                                                            //
+//----------------------------------------------------------------------------//
+package com.audiveris.musicxmldiff;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class {@code Corpus} compares a whole tree of control files with the
+ * tree of test files located at the same relative paths.
+ *
+ * <p>The pairs of files are compared in parallel, one pair per
+ * available processor, using the same filter for all pairs.
+ * As soon as a pair is compared, its outcome is appended to the
+ * summary, as one CSV line which gives the relative path, the status,
+ * the similar and identical flags, the numbers of physical and logical
+ * differences, and the duration in milliseconds.
+ *
+ * @author Hervé Bitteur
+ */
+public class Corpus
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(Corpus.class);
+
+    /** Extension of compared files. */
+    private static final String XML_EXT = ".xml";
+
+    /** Extension of difference files. */
+    private static final String DIFF_EXT = ".diff";
+
+    /** Header line of summary. */
+    private static final String HEADER
+            = "file,status,similar,identical,physical,logical,millis";
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Root of control files. */
+    private final Path controlDir;
+
+    /** Root of test files. */
+    private final Path testDir;
+
+    /** Filtering info, if any. */
+    private final File filterFile;
+
+    /** Where detailed differences are written, if any. */
+    private final File outputDir;
+
+    /** Where summary is written, if any. */
+    private final File summaryFile;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //--------//
+    // Corpus //
+    //--------//
+    /**
+     * Creates a new Corpus object.
+     *
+     * @param controlDir  root of control files
+     * @param testDir     root of test files
+     * @param filterFile  filter file, or null
+     * @param outputDir   directory for detailed differences, or null
+     * @param summaryFile file for summary, or null for console
+     */
+    public Corpus (File controlDir,
+                   File testDir,
+                   File filterFile,
+                   File outputDir,
+                   File summaryFile)
+    {
+        this.controlDir = controlDir.toPath();
+        this.testDir = testDir.toPath();
+        this.filterFile = filterFile;
+        this.outputDir = outputDir;
+        this.summaryFile = summaryFile;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //-----//
+    // run //
+    //-----//
+    /**
+     * Compare all the pairs of files and write the summary.
+     *
+     * @throws IOException if control tree or summary cannot be accessed
+     */
+    public void run ()
+            throws IOException
+    {
+        final long start = System.currentTimeMillis();
+        final List<Path> controls = getControlPaths();
+        final Filter filter = getFilter();
+        final int threads = Runtime.getRuntime()
+                .availableProcessors();
+        logger.info("Comparing {} file(s) using {} thread(s)",
+                controls.size(), threads);
+
+        // XMLUnit settings are static, set them before any comparison
+        Main.configure();
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final CompletionService<Comparison> service
+                = new ExecutorCompletionService<>(pool);
+
+        for (final Path control : controls) {
+            service.submit(
+                    new Callable<Comparison>()
+            {
+                @Override
+                public Comparison call ()
+                        throws Exception
+                {
+                    return compare(control, filter);
+                }
+            });
+        }
+
+        final Map<Comparison.Status, Integer> counts = new EnumMap<>(
+                Comparison.Status.class);
+
+        for (Comparison.Status status : Comparison.Status.values()) {
+            counts.put(status, 0);
+        }
+
+        int logical = 0;
+
+        try (PrintStream summary = (summaryFile != null)
+                ? new PrintStream(summaryFile) : new UnclosedStream(System.out)) {
+            summary.println(HEADER);
+
+            for (int i = 0; i < controls.size(); i++) {
+                Comparison comparison = service.take()
+                        .get();
+                summary.println(toCsv(comparison));
+                summary.flush();
+
+                counts.put(comparison.status, counts.get(comparison.status) + 1);
+                logical += comparison.logical;
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            logger.error("Corpus comparison aborted", ex);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        logger.info("{} file(s) compared in {} ms: {}, {} logical difference(s)",
+                controls.size(), System.currentTimeMillis() - start,
+                counts, logical);
+    }
+
+    //---------//
+    // compare //
+    //---------//
+    /**
+     * Compare one control file with its test counterpart.
+     *
+     * @param control the control file
+     * @param filter  the shared filter, or null
+     * @return the comparison outcome
+     */
+    private Comparison compare (Path control,
+                                Filter filter)
+    {
+        final Path relative = controlDir.relativize(control);
+        final File testFile = testDir.resolve(relative)
+                .toFile();
+
+        if (!testFile.exists()) {
+            Comparison comparison = new Comparison(control.toFile(), testFile);
+            comparison.status = Comparison.Status.MISSING;
+
+            return comparison;
+        }
+
+        try (PrintStream output = getOutput(relative)) {
+            return new Main(control.toFile(), testFile, filter, output).compare();
+        } catch (Exception ex) {
+            logger.warn("Error comparing " + relative, ex);
+
+            return new Comparison(control.toFile(), testFile);
+        }
+    }
+
+    //-----------------//
+    // getControlPaths //
+    //-----------------//
+    /**
+     * Collect all the XML files in control tree, in path order.
+     */
+    private List<Path> getControlPaths ()
+            throws IOException
+    {
+        final List<Path> paths = new ArrayList<>();
+
+        Files.walkFileTree(
+                controlDir,
+                new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile (Path file,
+                                              BasicFileAttributes attrs)
+            {
+                if (file.getFileName()
+                        .toString()
+                        .endsWith(XML_EXT)) {
+                    paths.add(file);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Collections.sort(paths);
+
+        return paths;
+    }
+
+    //-----------//
+    // getFilter //
+    //-----------//
+    /**
+     * Build the filter, to be shared by all comparisons.
+     * A BasicFilter is never modified once built, hence it can be used
+     * concurrently.
+     */
+    private Filter getFilter ()
+            throws IOException
+    {
+        if (filterFile == null) {
+            return null;
+        }
+
+        try (InputStream is = new FileInputStream(filterFile)) {
+            return new BasicFilter(is);
+        }
+    }
+
+    //-----------//
+    // getOutput //
+    //-----------//
+    /**
+     * Report the stream for the detailed differences of one pair.
+     *
+     * @param relative the relative path of the pair
+     * @return the stream to the pair diff file, or a stream that discards
+     *         everything if no output directory was specified
+     */
+    private PrintStream getOutput (Path relative)
+            throws FileNotFoundException
+    {
+        if (outputDir == null) {
+            return new PrintStream(
+                    new OutputStream()
+            {
+                @Override
+                public void write (int b)
+                {
+                }
+            });
+        }
+
+        final File file = new File(outputDir, relative + DIFF_EXT);
+        file.getParentFile()
+                .mkdirs();
+
+        return new PrintStream(file);
+    }
+
+    //-------//
+    // toCsv //
+    //-------//
+    private String toCsv (Comparison comparison)
+    {
+        final String name = controlDir.relativize(
+                comparison.controlFile.toPath())
+                .toString();
+
+        return "\"" + name.replace("\"", "\"\"") + "\","
+               + comparison.status + "," + comparison.similar + ","
+               + comparison.identical + "," + comparison.physical + ","
+               + comparison.logical + "," + comparison.millis;
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //----------------//
+    // UnclosedStream //
+    //----------------//
+    /**
+     * A stream on console, which must not be closed with the summary.
+     */
+    private static class UnclosedStream
+            extends PrintStream
+    {
+        //~ Constructors -------------------------------------------------------
+
+        public UnclosedStream (PrintStream out)
+        {
+            super(out);
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public void close ()
+        {
+            flush();
+        }
+    }
+}
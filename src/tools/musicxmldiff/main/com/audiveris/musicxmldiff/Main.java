@@ -42,6 +42,9 @@ public class Main
     /** Parameters read from CLI */
     private static CLI.Parameters parameters;
 
+    /** Has XMLUnit been configured?. */
+    private static boolean configured;
+
     //~ Instance fields --------------------------------------------------------
     /** Control file. */
     private final File controlFile;
@@ -55,6 +58,9 @@ public class Main
     /** Filtering info, if any. */
     private final File filterFile;
 
+    /** Filter already built, if any. */
+    private final Filter filter;
+
     //~ Constructors -----------------------------------------------------------
     //
     //------//
@@ -76,6 +82,31 @@ public class Main
         this.controlFile = controlFile;
         this.testFile = testFile;
         this.filterFile = filterFile;
+        this.filter = null;
+        this.output = new MusicPrinter(output);
+    }
+
+    //------//
+    // Main //
+    //------//
+    /**
+     * Creates a new Main object, with a filter shared by several
+     * comparisons.
+     *
+     * @param controlFile Control file
+     * @param testFile    Test file
+     * @param filter      Filter already built, or null
+     * @param output      PrintStream for output
+     */
+    public Main (File controlFile,
+                 File testFile,
+                 Filter filter,
+                 PrintStream output)
+    {
+        this.controlFile = controlFile;
+        this.testFile = testFile;
+        this.filterFile = null;
+        this.filter = filter;
         this.output = new MusicPrinter(output);
     }
 
@@ -83,8 +114,16 @@ public class Main
     //---------//
     // compare //
     //---------//
-    public void compare ()
+    /**
+     * Compare the test file to the control file.
+     *
+     * @return the comparison outcome
+     */
+    public Comparison compare ()
     {
+        final Comparison comparison = new Comparison(controlFile, testFile);
+        final long start = System.currentTimeMillis();
+
         // Comparing
         try {
             output.println("Comparing " + controlFile + " to " + testFile);
@@ -99,22 +138,13 @@ public class Main
                 testDoc = new PositionalXMLReader().readXML(tis);
             }
 
-            // Tuning
-            XMLUnit.setIgnoreDiffBetweenTextAndCDATA(true);
-            XMLUnit.setNormalizeWhitespace(true);
-            XMLUnit.setIgnoreWhitespace(true);
-
-            ///XMLUnit.setIgnoreComments(true); NO!!!!!!!!
-            // The setIgnoreComments triggers the use of XSLT transform
-            // which 1/ ruins userdata and 2/ fails on xml:space and xml:lang.
-            // Moreover, comments are actually ignored by Diff
-
-            ///XMLUnit.setCompareUnmatched(false); NO need
+            // Tuning (normally already done, before any parallel comparison)
+            configure();
 
             // Customization
             Filter filter = (filterFile != null)
                     ? new BasicFilter(new FileInputStream(filterFile))
-                    : null;
+                    : this.filter;
 
             Diff diff = new Diff(controlDoc, testDoc, null);
             diff.overrideElementQualifier(
@@ -122,12 +152,15 @@ public class Main
             diff.overrideDifferenceListener(
                     new MusicDifferenceListener(filter, output));
 
-            output.println("Similar:     " + diff.similar());
-            output.println("Identical:   " + diff.identical());
+            comparison.similar = diff.similar();
+            comparison.identical = diff.identical();
+            output.println("Similar:     " + comparison.similar);
+            output.println("Identical:   " + comparison.identical);
 
             DetailedDiff detDiff = new DetailedDiff(diff);
 
             List differences = detDiff.getAllDifferences();
+            comparison.physical = differences.size();
             output.println();
             output.println("Physical differences: " + differences.size());
 
@@ -145,9 +178,43 @@ public class Main
             output.println("Logical  differences: " + diffId);
             logger.info("Logical  differences: {}", diffId);
 
+            comparison.logical = diffId;
+            comparison.status = (diffId == 0) ? Comparison.Status.SAME
+                    : Comparison.Status.DIFFERENT;
         } catch (ConfigurationException | SAXException | IOException e) {
             e.printStackTrace();
         }
+
+        comparison.millis = System.currentTimeMillis() - start;
+
+        return comparison;
+    }
+
+    //-----------//
+    // configure //
+    //-----------//
+    /**
+     * Tune XMLUnit for music comparisons.
+     * XMLUnit settings are static, hence this must be done once, before
+     * comparisons are run in parallel.
+     */
+    public static synchronized void configure ()
+    {
+        if (configured) {
+            return;
+        }
+
+        XMLUnit.setIgnoreDiffBetweenTextAndCDATA(true);
+        XMLUnit.setNormalizeWhitespace(true);
+        XMLUnit.setIgnoreWhitespace(true);
+
+        ///XMLUnit.setIgnoreComments(true); NO!!!!!!!!
+        // The setIgnoreComments triggers the use of XSLT transform
+        // which 1/ ruins userdata and 2/ fails on xml:space and xml:lang.
+        // Moreover, comments are actually ignored by Diff
+
+        ///XMLUnit.setCompareUnmatched(false); NO need
+        configured = true;
     }
 
     //
@@ -173,6 +240,27 @@ public class Main
                     .exit(1);
         }
 
+        // Corpus mode?
+        if (parameters.controlDir != null) {
+            if (parameters.testDir == null) {
+                logger.error("*** Missing test directory");
+
+                return;
+            }
+
+            new Corpus(
+                    new File(parameters.controlDir),
+                    new File(parameters.testDir),
+                    (parameters.filterPath != null)
+                    ? new File(parameters.filterPath) : null,
+                    (parameters.outputPath != null)
+                    ? new File(parameters.outputPath) : null,
+                    (parameters.summaryPath != null)
+                    ? new File(parameters.summaryPath) : null).run();
+
+            return;
+        }
+
         // Input control file
         if (parameters.controlPath == null) {
             logger.error("*** Missing control path");